@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.benchmarks;
+
+import com.divroll.core.MethodVerb;
+import com.divroll.core.rest.CustomCodeRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the body of a {@link CustomCodeRequest} as a string, for small and large bodies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class CustomCodeRequestBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    public int bodySize;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        char[] json = new char[bodySize];
+        Arrays.fill(json, 'x');
+        json[0] = '"';
+        json[bodySize - 1] = '"';
+        body = new String(json).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String getStringBody() {
+        CustomCodeRequest request = new CustomCodeRequest(MethodVerb.POST, "/import",
+                Collections.<String, String>emptyMap(), new ByteArrayInputStream(body), "import", 0);
+        return request.getStringBody();
+    }
+}
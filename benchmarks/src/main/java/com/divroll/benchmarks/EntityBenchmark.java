@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.benchmarks;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.sdkapi.BooleanProperty;
+import com.divroll.sdkapi.CollectionProperty;
+import com.divroll.sdkapi.DoubleProperty;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.IntProperty;
+import com.divroll.sdkapi.StringProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction, typed property access and metadata access of {@link Entity}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EntityBenchmark {
+
+    private static final int ACL_SIZE = 16;
+
+    private Map<String, EntityProperty> properties;
+    private Entity entity;
+    private EntityId reader;
+
+    @Setup
+    public void setUp() throws CannotCastValueException {
+        properties = new LinkedHashMap<>();
+        properties.put("name", new StringProperty("Knight"));
+        properties.put("level", new IntProperty(5L));
+        properties.put("highScore", new DoubleProperty(2510.32));
+        properties.put("isActive", new BooleanProperty(true));
+        properties.put("inventory", new CollectionProperty<>(Arrays.asList(new StringProperty("sword"), new StringProperty("shield"))));
+        entity = new Entity("GameCharacter", new LinkedHashMap<>(properties));
+        entity.setEntityId(new EntityId("GameCharacter", "1"));
+        entity.setPublicRead(new BooleanProperty(false));
+        List<EntityId> readAccessIds = new ArrayList<>();
+        for (int i = 0; i < ACL_SIZE; i++) {
+            readAccessIds.add(new EntityId("User", Integer.toString(i)));
+        }
+        entity.setReadAccessIds(readAccessIds);
+        reader = new EntityId("User", Integer.toString(ACL_SIZE - 1));
+    }
+
+    @Benchmark
+    public Entity construct() throws CannotCastValueException {
+        return new Entity("GameCharacter", new LinkedHashMap<>(properties));
+    }
+
+    @Benchmark
+    public StringProperty getTypedProperty() throws CannotCastValueException {
+        return entity.get("name", StringProperty.class);
+    }
+
+    @Benchmark
+    public Object getMissingProperty() {
+        try {
+            return entity.get("missing", StringProperty.class);
+        } catch (CannotCastValueException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public EntityId getEntityId() throws CannotCastValueException {
+        return entity.getEntityId();
+    }
+
+    @Benchmark
+    public StringProperty getType() throws CannotCastValueException {
+        return entity.getType();
+    }
+
+    @Benchmark
+    public BooleanProperty getPublicRead() throws CannotCastValueException {
+        return entity.getPublicRead();
+    }
+
+    @Benchmark
+    public List<EntityId> getReadAccessIds() throws CannotCastValueException {
+        return entity.getReadAccessIds();
+    }
+
+    @Benchmark
+    public boolean checkReadAccess() throws CannotCastValueException {
+        return entity.getReadAccessIds().contains(reader);
+    }
+
+    @Benchmark
+    public boolean hasReadAccessId() {
+        return entity.hasReadAccessId(reader);
+    }
+
+    @Benchmark
+    public Entity addExistingReadAccessId() throws CannotCastValueException {
+        entity.addReadAccessId(reader);
+        return entity;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.benchmarks;
+
+import com.divroll.sdkapi.CollectionProperty;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.IntProperty;
+import com.divroll.sdkapi.StringProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code equals} and {@code hashCode} of property values, which back every index and
+ * cache keyed by them. Each pair holds equal but distinct instances.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EntityPropertyBenchmark {
+
+    private StringProperty string;
+    private StringProperty otherString;
+    private IntProperty integer;
+    private IntProperty otherInteger;
+    private EntityId entityId;
+    private EntityId otherEntityId;
+    private CollectionProperty<StringProperty> collection;
+    private CollectionProperty<StringProperty> otherCollection;
+
+    @Setup
+    public void setUp() {
+        string = new StringProperty("Knight of the Round Table");
+        otherString = new StringProperty(new String("Knight of the Round Table"));
+        integer = new IntProperty(123456789L);
+        otherInteger = new IntProperty(123456789L);
+        entityId = new EntityId("GameCharacter", "4f1c2a9e");
+        otherEntityId = new EntityId("GameCharacter", "4f1c2a9e");
+        collection = new CollectionProperty<>(Arrays.asList(new StringProperty("sword"), new StringProperty("shield"), new StringProperty("potion")));
+        otherCollection = new CollectionProperty<>(Arrays.asList(new StringProperty("sword"), new StringProperty("shield"), new StringProperty("potion")));
+    }
+
+    @Benchmark
+    public boolean stringEquals() {
+        return string.equals(otherString);
+    }
+
+    @Benchmark
+    public int stringHashCode() {
+        return string.hashCode();
+    }
+
+    @Benchmark
+    public boolean intEquals() {
+        return integer.equals(otherInteger);
+    }
+
+    @Benchmark
+    public boolean entityIdEquals() {
+        return entityId.equals(otherEntityId);
+    }
+
+    @Benchmark
+    public int entityIdHashCode() {
+        return entityId.hashCode();
+    }
+
+    @Benchmark
+    public EntityId entityIdConstruct() {
+        return new EntityId("GameCharacter", "4f1c2a9e");
+    }
+
+    @Benchmark
+    public boolean collectionEquals() {
+        return collection.equals(otherCollection);
+    }
+
+    @Benchmark
+    public int collectionHashCode() {
+        return collection.hashCode();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.benchmarks;
+
+import com.divroll.sdkapi.AbstractMultiMap;
+import com.divroll.sdkapi.CompactMultiMap;
+import com.divroll.sdkapi.ConcurrentMultiMap;
+import com.divroll.sdkapi.MultiMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations on an {@link AbstractMultiMap} shaped like a relation index: many keys with a few
+ * values each, for each implementation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MultiMapBenchmark {
+
+    @Param({"10000"})
+    public int keys;
+
+    @Param({"2"})
+    public int valuesPerKey;
+
+    @Param({"hash", "concurrent", "compact"})
+    public String implementation;
+
+    private AbstractMultiMap<String, String> multiMap;
+    private String[] keyNames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        multiMap = newMultiMap();
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "key-" + i;
+            for (int j = 0; j < valuesPerKey; j++) {
+                multiMap.put(keyNames[i], "value-" + j);
+            }
+        }
+    }
+
+    @Benchmark
+    public Collection<String> get() {
+        return multiMap.get(nextKey());
+    }
+
+    @Benchmark
+    public boolean containsEntry() {
+        return multiMap.containsEntry(nextKey(), "value-1");
+    }
+
+    @Benchmark
+    public boolean putAndRemove() {
+        String key = nextKey();
+        multiMap.put(key, "extra");
+        return multiMap.remove(key, "extra");
+    }
+
+    @Benchmark
+    public AbstractMultiMap<String, String> build() {
+        AbstractMultiMap<String, String> built = newMultiMap();
+        for (int i = 0; i < 100; i++) {
+            built.put(keyNames[i], "value-0");
+            built.put(keyNames[i], "value-1");
+        }
+        return built;
+    }
+
+    private AbstractMultiMap<String, String> newMultiMap() {
+        switch (implementation) {
+            case "concurrent":
+                return new ConcurrentMultiMap<>();
+            case "compact":
+                return new CompactMultiMap<>();
+            default:
+                return new MultiMap<>();
+        }
+    }
+
+    private String nextKey() {
+        next = next + 1 == keys ? 0 : next + 1;
+        return keyNames[next];
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.benchmarks;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.memory.InMemoryDataService;
+import com.divroll.sdkapi.Condition;
+import com.divroll.sdkapi.DataService;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.Equal;
+import com.divroll.sdkapi.InRange;
+import com.divroll.sdkapi.IntProperty;
+import com.divroll.sdkapi.NotEqual;
+import com.divroll.sdkapi.StartsWith;
+import com.divroll.sdkapi.StringProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Condition evaluation against the {@link InMemoryDataService}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    private static final String TYPE = "GameCharacter";
+    private static final int GUILDS = 100;
+
+    @Param({"10000"})
+    public int entities;
+
+    private DataService dataService;
+    private Condition guildAndLevel;
+    private Condition nameAndNotGuild;
+
+    @Setup
+    public void setUp() throws EntityStoreException, CannotCastValueException {
+        dataService = new InMemoryDataService();
+        for (int i = 0; i < entities; i++) {
+            Map<String, EntityProperty> properties = new LinkedHashMap<>();
+            properties.put("name", new StringProperty("character-" + i));
+            properties.put("level", new IntProperty((long) (i % 50)));
+            properties.put("guild", new StringProperty("guild-" + (i % GUILDS)));
+            dataService.createEntity(new Entity(TYPE, properties));
+        }
+        guildAndLevel = new InRange("level", new IntProperty(10L), new IntProperty(20L))
+                .intersect(new Equal("guild", new StringProperty("guild-7")));
+        nameAndNotGuild = new StartsWith("name", new StringProperty("character-1"))
+                .intersect(new NotEqual("guild", new StringProperty("guild-10")));
+    }
+
+    @Benchmark
+    public Entity readEntityByProperty() throws EntityStoreException {
+        return dataService.readEntity(TYPE, "name", new StringProperty("character-4242"));
+    }
+
+    @Benchmark
+    public List<Entity> readEqual() throws EntityStoreException {
+        return dataService.readEntities(TYPE, new Equal("guild", new StringProperty("guild-42")), 20, 0L);
+    }
+
+    @Benchmark
+    public List<Entity> readRangeIntersectEqual() throws EntityStoreException {
+        return dataService.readEntities(TYPE, guildAndLevel, 20, 0L);
+    }
+
+    @Benchmark
+    public List<Entity> readPrefixMinusEqual() throws EntityStoreException {
+        return dataService.readEntities(TYPE, nameAndNotGuild, 20, 0L);
+    }
+
+    @Benchmark
+    public List<Entity> readPageWithSkip() throws EntityStoreException {
+        return dataService.readEntities(TYPE, 20, (long) entities / 2);
+    }
+
+    @Benchmark
+    public long countEntities() throws EntityStoreException {
+        return dataService.countEntities(TYPE);
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.async;
+
+import com.divroll.core.EntityStoreException;
+import com.divroll.sdkapi.AsyncDataService;
+import com.divroll.sdkapi.Condition;
+import com.divroll.sdkapi.DataService;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.MultiGetResult;
+import com.divroll.sdkapi.Projection;
+import com.divroll.sdkapi.Relationship;
+import com.divroll.sdkapi.Traversal;
+import com.divroll.sdkapi.Update;
+import com.divroll.sdkapi.UpdateSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Adapts a synchronous {@link DataService} to {@link AsyncDataService} by running every
+ * call on an {@link Executor}.
+ *
+ * Data service calls block on I/O, so the executor should be sized for the expected
+ * fan-out rather than for the number of processors; avoid the common fork-join pool.
+ * A call rejected by the executor completes its future exceptionally with the
+ * {@link RejectedExecutionException}.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class ExecutorAsyncDataService implements AsyncDataService {
+
+    private final DataService delegate;
+    private final Executor executor;
+
+    public ExecutorAsyncDataService(DataService delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public DataService getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public CompletableFuture<EntityId> createEntity(Entity toCreate) {
+        return submit(() -> delegate.createEntity(toCreate));
+    }
+
+    @Override
+    public CompletableFuture<List<EntityId>> createEntities(List<Entity> toCreate) {
+        return submit(() -> delegate.createEntities(toCreate));
+    }
+
+    @Override
+    public CompletableFuture<EntityId> createEntity(Entity toCreate, Relationship relation, EntityId relatedId) {
+        return submit(() -> delegate.createEntity(toCreate, relation, relatedId));
+    }
+
+    @Override
+    public CompletableFuture<EntityId> createRelatedEntities(Entity toCreate, Relationship relation, Entity relatedEntity) {
+        return submit(() -> delegate.createRelatedEntities(toCreate, relation, relatedEntity));
+    }
+
+    @Override
+    public CompletableFuture<EntityId> createRelatedEntities(Entity toCreate, Relationship relation, List<Entity> relatedEntities) {
+        return submit(() -> delegate.createRelatedEntities(toCreate, relation, relatedEntities));
+    }
+
+    @Override
+    public CompletableFuture<Entity> addRelation(EntityId toUpdate, Relationship relation, EntityId relatedId) {
+        return submit(() -> delegate.addRelation(toUpdate, relation, relatedId));
+    }
+
+    @Override
+    public CompletableFuture<Entity> addRelation(EntityId toUpdate, Relationship relation, List<EntityId> relatedIds) {
+        return submit(() -> delegate.addRelation(toUpdate, relation, relatedIds));
+    }
+
+    @Override
+    public CompletableFuture<Entity> readEntity(EntityId toRead) {
+        return submit(() -> delegate.readEntity(toRead));
+    }
+
+    @Override
+    public CompletableFuture<Entity> readEntity(EntityId toRead, Projection projection) {
+        return submit(() -> delegate.readEntity(toRead, projection));
+    }
+
+    @Override
+    public CompletableFuture<Entity> readEntity(String type, String property, EntityProperty value) {
+        return submit(() -> delegate.readEntity(type, property, value));
+    }
+
+    @Override
+    public CompletableFuture<Entity> readEntity(String type, String property, EntityProperty value, Projection projection) {
+        return submit(() -> delegate.readEntity(type, property, value, projection));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(List<EntityId> toRead) {
+        return submit(() -> delegate.readEntities(toRead));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(List<EntityId> toRead, Projection projection) {
+        return submit(() -> delegate.readEntities(toRead, projection));
+    }
+
+    /**
+     * Reads each chunk as a separate call on the executor, so the chunks are read
+     * concurrently, and merges the results. Fails with the first error of any chunk.
+     */
+    @Override
+    public CompletableFuture<MultiGetResult> multiGet(List<EntityId> toRead) {
+        List<CompletableFuture<MultiGetResult>> parts = new ArrayList<>();
+        for (List<EntityId> chunk : MultiGetResult.partition(toRead, MultiGetResult.DEFAULT_CHUNK_SIZE)) {
+            parts.add(submit(() -> delegate.multiGet(chunk)));
+        }
+        CompletableFuture<MultiGetResult> result = new CompletableFuture<>();
+        CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                result.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure);
+                return;
+            }
+            List<MultiGetResult> results = new ArrayList<>(parts.size());
+            for (CompletableFuture<MultiGetResult> part : parts) {
+                results.add(part.join());
+            }
+            result.complete(MultiGetResult.merge(toRead, results));
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(List<EntityId> toRead, Condition condition) {
+        return submit(() -> delegate.readEntities(toRead, condition));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(String type, Relationship relation, Entity relatedEntity) {
+        return submit(() -> delegate.readEntities(type, relation, relatedEntity));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(String type, Relationship relation, EntityId relatedId) {
+        return submit(() -> delegate.readEntities(type, relation, relatedId));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readRelatedEntities(EntityId toRead, Relationship relation) {
+        return submit(() -> delegate.readRelatedEntities(toRead, relation));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition) {
+        return submit(() -> delegate.readRelatedEntities(toRead, relation, condition));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition, Projection projection) {
+        return submit(() -> delegate.readRelatedEntities(toRead, relation, condition, projection));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readTraversal(Traversal traversal) {
+        return submit(() -> delegate.readTraversal(traversal));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(String type, Condition condition, Integer max, Long skip) {
+        return submit(() -> delegate.readEntities(type, condition, max, skip));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(String type, Condition condition, Integer max, Long skip, Projection projection) {
+        return submit(() -> delegate.readEntities(type, condition, max, skip, projection));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(Relationship relation, String relatedType) {
+        return submit(() -> delegate.readEntities(relation, relatedType));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(Relationship relation, String relatedType, Projection projection) {
+        return submit(() -> delegate.readEntities(relation, relatedType, projection));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(String type, Integer max, Long skip) {
+        return submit(() -> delegate.readEntities(type, max, skip));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> readEntities(String type, Integer max, Long skip, Projection projection) {
+        return submit(() -> delegate.readEntities(type, max, skip, projection));
+    }
+
+    @Override
+    public CompletableFuture<Entity> updateEntity(EntityId toUpdate, List<Update> updates) {
+        return submit(() -> delegate.updateEntity(toUpdate, updates));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> updateEntities(List<EntityId> toUpdate, List<Update> updates) {
+        return submit(() -> delegate.updateEntities(toUpdate, updates));
+    }
+
+    @Override
+    public CompletableFuture<List<Entity>> updateEntities(String type, List<Update> updates) {
+        return submit(() -> delegate.updateEntities(type, updates));
+    }
+
+    @Override
+    public CompletableFuture<UpdateSummary> updateEntities(String type, Condition condition, List<Update> updates) {
+        return submit(() -> delegate.updateEntities(type, condition, updates));
+    }
+
+    @Override
+    public CompletableFuture<UpdateSummary> updateEntities(String type, Condition condition, List<Update> updates,
+            Projection projection, int sampleSize) {
+        return submit(() -> delegate.updateEntities(type, condition, updates, projection, sampleSize));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteEntity(EntityId toDelete) {
+        return submit(() -> delegate.deleteEntity(toDelete));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteEntities(List<EntityId> toDelete) {
+        return submit(() -> delegate.deleteEntities(toDelete));
+    }
+
+    @Override
+    public CompletableFuture<Long> deleteEntities(List<EntityId> toDelete, Condition condition) {
+        return submit(() -> delegate.deleteEntities(toDelete, condition));
+    }
+
+    @Override
+    public CompletableFuture<Long> deleteEntities(Condition condition) {
+        return submit(() -> delegate.deleteEntities(condition));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeRelatedEntities(EntityId toDeleteFrom, Relationship relation, List<EntityId> relatedIds, boolean cascadeDelete) {
+        return submit(() -> {
+            delegate.removeRelatedEntities(toDeleteFrom, relation, relatedIds, cascadeDelete);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> countEntities(String type) {
+        return submit(() -> delegate.countEntities(type));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getEntityTypes() {
+        return submit(delegate::getEntityTypes);
+    }
+
+    private <T> CompletableFuture<T> submit(Call<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (EntityStoreException | RuntimeException | Error e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private interface Call<T> {
+        T call() throws EntityStoreException;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.blob;
+
+import com.divroll.sdkapi.BlobHandle;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content-addressed storage for blob payloads. Content is keyed by its SHA-256 digest, so
+ * identical payloads are stored once however many blob properties carry them. Each stored
+ * payload has a reference count: {@link #put(InputStream)} and {@link #retain(String)} add a
+ * reference, {@link #release(String)} removes one, and the content is deleted when the last
+ * reference goes.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public interface BlobStore {
+
+    /**
+     * Stores the content of a stream, hashing it as it is read, and adds a reference to it.
+     * @param in the content, read to its end but not closed
+     * @return a handle to the stored content, whose {@link BlobHandle#contentHash()} is its digest
+     * @throws IOException if reading or storing the content fails
+     */
+    BlobHandle put(InputStream in) throws IOException;
+
+    /**
+     * Adds a reference to stored content.
+     * @param digest the digest of the content
+     * @return a handle to the content
+     * @throws IOException if no content is stored under the digest
+     */
+    BlobHandle retain(String digest) throws IOException;
+
+    /**
+     * Removes a reference to stored content, deleting it when no references remain.
+     * @param digest the digest of the content
+     * @return true if the content was deleted
+     * @throws IOException if deleting the content fails
+     */
+    boolean release(String digest) throws IOException;
+
+    /**
+     * @param digest the digest of the content
+     * @return a handle to the content, or null if none is stored under the digest
+     */
+    BlobHandle get(String digest) throws IOException;
+
+    /**
+     * @param digest the digest of the content
+     * @return the number of references to the content, 0 if it is not referenced
+     */
+    int referenceCount(String digest);
+
+    /**
+     * @param handle a blob handle
+     * @return the digest of the handle if it was returned by this store, otherwise null
+     */
+    String digestOf(BlobHandle handle);
+}
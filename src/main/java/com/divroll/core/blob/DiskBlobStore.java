@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.blob;
+
+import com.divroll.sdkapi.BlobHandle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link BlobStore} that keeps each payload in a file named by its digest under a root
+ * directory, fanned out by the first two hex digits. Uploads are written to a temporary file
+ * while they are hashed and then moved into place, or dropped if the content is already
+ * stored, so a payload is never read twice and a half-written upload is never visible.
+ *
+ * Reference counts are kept in memory and start at zero for content already on disk when
+ * the store is opened; such content is reused by {@link #put(InputStream)} but only deleted
+ * once it has been referenced and released. Handles to content that has been deleted fail
+ * on their next read.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class DiskBlobStore implements BlobStore {
+
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Path uploads;
+    private final Map<String, Integer> references = new HashMap<>();
+
+    /**
+     * @param root the directory holding the payloads, created if missing
+     * @throws IOException if the directory cannot be created
+     */
+    public DiskBlobStore(Path root) throws IOException {
+        this.root = root;
+        this.uploads = root.resolve("uploads");
+        Files.createDirectories(uploads);
+    }
+
+    @Override
+    public BlobHandle put(InputStream in) throws IOException {
+        Path upload = Files.createTempFile(uploads, "blob", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(upload), digest)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            }
+            String hash = hex(digest.digest());
+            Path file = pathOf(hash);
+            synchronized (references) {
+                if (!Files.exists(file)) {
+                    Files.createDirectories(file.getParent());
+                    move(upload, file);
+                }
+                references.merge(hash, 1, Integer::sum);
+            }
+            return new StoredBlob(hash, BlobHandle.ofFile(file));
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    @Override
+    public BlobHandle retain(String digest) throws IOException {
+        synchronized (references) {
+            BlobHandle handle = get(digest);
+            if (handle == null) {
+                throw new IOException("No blob stored under " + digest);
+            }
+            references.merge(digest, 1, Integer::sum);
+            return handle;
+        }
+    }
+
+    @Override
+    public boolean release(String digest) throws IOException {
+        synchronized (references) {
+            Integer count = references.get(digest);
+            if (count == null) {
+                return false;
+            }
+            if (count > 1) {
+                references.put(digest, count - 1);
+                return false;
+            }
+            references.remove(digest);
+            return Files.deleteIfExists(pathOf(digest));
+        }
+    }
+
+    @Override
+    public BlobHandle get(String digest) throws IOException {
+        if (!DIGEST.matcher(digest).matches()) {
+            return null;
+        }
+        Path file = pathOf(digest);
+        return Files.exists(file) ? new StoredBlob(digest, BlobHandle.ofFile(file)) : null;
+    }
+
+    @Override
+    public int referenceCount(String digest) {
+        synchronized (references) {
+            return references.getOrDefault(digest, 0);
+        }
+    }
+
+    @Override
+    public String digestOf(BlobHandle handle) {
+        return handle instanceof StoredBlob && ((StoredBlob) handle).store() == this ? ((StoredBlob) handle).digest : null;
+    }
+
+    private Path pathOf(String digest) {
+        return root.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(source, target);
+            } catch (FileAlreadyExistsException ignored) {
+                // Stored concurrently by another store over the same directory
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A file-backed handle that knows its digest without reading the file.
+     */
+    private final class StoredBlob implements BlobHandle {
+
+        private final String digest;
+        private final BlobHandle file;
+
+        StoredBlob(String digest, BlobHandle file) {
+            this.digest = digest;
+            this.file = file;
+        }
+
+        DiskBlobStore store() {
+            return DiskBlobStore.this;
+        }
+
+        @Override
+        public long size() {
+            return file.size();
+        }
+
+        @Override
+        public String contentHash() {
+            return digest;
+        }
+
+        @Override
+        public ByteBuffer read(long offset, int length) throws IOException {
+            return file.read(offset, length);
+        }
+
+        @Override
+        public long transferTo(long offset, long count, WritableByteChannel target) throws IOException {
+            return file.transferTo(offset, count, target);
+        }
+
+        @Override
+        public InputStream openStream(long offset, long length) {
+            return file.openStream(offset, length);
+        }
+
+        @Override
+        public String toString() {
+            return "StoredBlob{" + digest + ", size=" + size() + "}";
+        }
+    }
+}
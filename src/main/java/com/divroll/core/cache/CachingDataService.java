@@ -0,0 +1,656 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.cache;
+
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.InvalidIdException;
+import com.divroll.core.InvalidRelationException;
+import com.divroll.core.RelationNotExistsException;
+import com.divroll.core.RelationTypeDoesNotExistsException;
+import com.divroll.sdkapi.Condition;
+import com.divroll.sdkapi.DataService;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityCursor;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.MultiGetResult;
+import com.divroll.sdkapi.Projection;
+import com.divroll.sdkapi.Relationship;
+import com.divroll.sdkapi.Traversal;
+import com.divroll.sdkapi.Update;
+import com.divroll.sdkapi.UpdateSummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A read-through caching decorator for any {@link DataService}.
+ *
+ * Entities read by {@link #readEntity(EntityId)}, {@link #readEntities(List)} and
+ * {@link #readEntity(String, String, EntityProperty)} are kept in a bounded LRU cache with
+ * a time to live. Every other read is passed through to the delegate.
+ *
+ * Writes made through this decorator invalidate the affected entries once the delegate
+ * has applied them. Invalidation is tracked with generation counters: writing an entity
+ * advances the counter of its id and of its type, and type-wide or condition-based writes
+ * advance a coarser counter. An entry is only served if none of the counters it was loaded
+ * under has moved since, which also rejects entries loaded concurrently with a write.
+ * Writes made to the backend by other clients are only picked up once entries expire.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class CachingDataService implements DataService {
+
+    private static final int ID_STRIPES = 1024;
+
+    private final DataService delegate;
+    private final LruCache<Object, CachedEntity> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong globalGeneration = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> typeGenerations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> typeWideGenerations = new ConcurrentHashMap<>();
+    private final AtomicLongArray idGenerations = new AtomicLongArray(ID_STRIPES);
+
+    /**
+     * Creates a caching decorator.
+     * @param delegate the data service to cache
+     * @param maximumSize the maximum number of cached entries
+     * @param timeToLive how long an entry may be served after it was loaded
+     * @param unit the unit of timeToLive
+     */
+    public CachingDataService(DataService delegate, int maximumSize, long timeToLive, TimeUnit unit) {
+        this(delegate, maximumSize, unit.toNanos(timeToLive), System::nanoTime);
+    }
+
+    CachingDataService(DataService delegate, int maximumSize, long timeToLiveNanos, LongSupplier ticker) {
+        this.delegate = delegate;
+        this.cache = new LruCache<>(maximumSize, timeToLiveNanos, ticker);
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction counters.
+     * @return the cache statistics
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), cache.evictionCount(), cache.size());
+    }
+
+    /**
+     * Drops every cached entry.
+     */
+    public void invalidateAll() {
+        globalGeneration.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public EntityId createEntity(Entity toCreate) throws EntityStoreException {
+        EntityId id = delegate.createEntity(toCreate);
+        touchType(typeOf(id));
+        return id;
+    }
+
+    @Override
+    public List<EntityId> createEntities(List<Entity> toCreate) throws EntityStoreException {
+        List<EntityId> ids = delegate.createEntities(toCreate);
+        for (EntityId id : ids) {
+            touchType(typeOf(id));
+        }
+        return ids;
+    }
+
+    @Override
+    public EntityId createEntity(Entity toCreate, Relationship relation, EntityId relatedId)
+            throws EntityNotExistsException, InvalidRelationException, EntityStoreException {
+        EntityId id = delegate.createEntity(toCreate, relation, relatedId);
+        touchType(typeOf(id));
+        return id;
+    }
+
+    @Override
+    public EntityId createRelatedEntities(Entity toCreate, Relationship relation, Entity relatedEntity)
+            throws EntityStoreException {
+        try {
+            return delegate.createRelatedEntities(toCreate, relation, relatedEntity);
+        } finally {
+            touchAllTypes();
+        }
+    }
+
+    @Override
+    public EntityId createRelatedEntities(Entity toCreate, Relationship relation, List<Entity> relatedEntities)
+            throws EntityStoreException {
+        try {
+            return delegate.createRelatedEntities(toCreate, relation, relatedEntities);
+        } finally {
+            touchAllTypes();
+        }
+    }
+
+    @Override
+    public Entity addRelation(EntityId toUpdate, Relationship relation, EntityId relatedId)
+            throws EntityNotExistsException, EntityStoreException {
+        return delegate.addRelation(toUpdate, relation, relatedId);
+    }
+
+    @Override
+    public Entity addRelation(EntityId toUpdate, Relationship relation, List<EntityId> relatedIds)
+            throws EntityNotExistsException, EntityStoreException {
+        return delegate.addRelation(toUpdate, relation, relatedIds);
+    }
+
+    @Override
+    public Entity readEntity(EntityId toRead) throws EntityNotExistsException, EntityStoreException {
+        Stamp stamp = idStamp(toRead);
+        Entity cached = lookup(toRead, stamp);
+        if (cached != null) {
+            return cached;
+        }
+        Entity entity = delegate.readEntity(toRead);
+        cache.put(toRead, new CachedEntity(entity.copy(), stamp));
+        return entity;
+    }
+
+    /**
+     * Projects the cached entity when there is one, and otherwise reads the projection from
+     * the delegate without caching it.
+     */
+    @Override
+    public Entity readEntity(EntityId toRead, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        Entity cached = lookup(toRead, idStamp(toRead));
+        return cached != null ? projection.apply(cached) : delegate.readEntity(toRead, projection);
+    }
+
+    @Override
+    public Entity readEntity(String type, String property, EntityProperty value)
+            throws EntityNotExistsException, EntityStoreException {
+        PropertyKey key = new PropertyKey(type, property, value);
+        Stamp stamp = new Stamp(globalGeneration.get(), generationOf(typeGenerations, type), 0);
+        Entity cached = lookup(key, stamp);
+        if (cached != null) {
+            return cached;
+        }
+        Entity entity = delegate.readEntity(type, property, value);
+        cache.put(key, new CachedEntity(entity.copy(), stamp));
+        return entity;
+    }
+
+    /**
+     * Projects a cached match, or reads the projection from the delegate without caching it.
+     */
+    @Override
+    public Entity readEntity(String type, String property, EntityProperty value, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        PropertyKey key = new PropertyKey(type, property, value);
+        Stamp stamp = new Stamp(globalGeneration.get(), generationOf(typeGenerations, type), 0);
+        Entity cached = lookup(key, stamp);
+        return cached != null ? projection.apply(cached) : delegate.readEntity(type, property, value, projection);
+    }
+
+    @Override
+    public List<Entity> readEntities(List<EntityId> toRead) throws EntityNotExistsException, EntityStoreException {
+        Entity[] entities = new Entity[toRead.size()];
+        Stamp[] stamps = new Stamp[toRead.size()];
+        List<EntityId> missing = new ArrayList<>();
+        for (int i = 0; i < entities.length; i++) {
+            EntityId id = toRead.get(i);
+            stamps[i] = idStamp(id);
+            entities[i] = lookup(id, stamps[i]);
+            if (entities[i] == null) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<Entity> loaded = delegate.readEntities(missing);
+            for (int i = 0, next = 0; i < entities.length; i++) {
+                if (entities[i] == null) {
+                    Entity entity = loaded.get(next++);
+                    cache.put(toRead.get(i), new CachedEntity(entity.copy(), stamps[i]));
+                    entities[i] = entity;
+                }
+            }
+        }
+        List<Entity> result = new ArrayList<>(entities.length);
+        for (Entity entity : entities) {
+            result.add(entity);
+        }
+        return result;
+    }
+
+    /**
+     * Projects the cached entities and reads the projections of the rest from the delegate
+     * in one call, without caching them.
+     */
+    @Override
+    public List<Entity> readEntities(List<EntityId> toRead, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        Entity[] entities = new Entity[toRead.size()];
+        List<EntityId> missing = new ArrayList<>();
+        for (int i = 0; i < entities.length; i++) {
+            Entity cached = lookup(toRead.get(i), idStamp(toRead.get(i)));
+            if (cached != null) {
+                entities[i] = projection.apply(cached);
+            } else {
+                missing.add(toRead.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<Entity> loaded = delegate.readEntities(missing, projection);
+            for (int i = 0, next = 0; i < entities.length; i++) {
+                if (entities[i] == null) {
+                    entities[i] = loaded.get(next++);
+                }
+            }
+        }
+        return new ArrayList<>(Arrays.asList(entities));
+    }
+
+    /**
+     * Serves cached entities and reads the rest with one multi-get on the delegate, caching
+     * what it finds. Missing ids are not cached.
+     */
+    @Override
+    public MultiGetResult multiGet(List<EntityId> toRead) throws EntityStoreException {
+        List<MultiGetResult> parts = new ArrayList<>(2);
+        Map<EntityId, Entity> cached = new LinkedHashMap<>();
+        Map<EntityId, Stamp> stamps = new HashMap<>();
+        List<EntityId> uncached = new ArrayList<>();
+        for (EntityId id : new LinkedHashSet<>(toRead)) {
+            Stamp stamp = idStamp(id);
+            Entity entity = lookup(id, stamp);
+            if (entity != null) {
+                cached.put(id, entity);
+            } else {
+                stamps.put(id, stamp);
+                uncached.add(id);
+            }
+        }
+        parts.add(new MultiGetResult(cached, Collections.<EntityId>emptyList()));
+        if (!uncached.isEmpty()) {
+            MultiGetResult loaded = delegate.multiGet(uncached);
+            for (Map.Entry<EntityId, Entity> entry : loaded.getFound().entrySet()) {
+                cache.put(entry.getKey(), new CachedEntity(entry.getValue().copy(), stamps.get(entry.getKey())));
+            }
+            parts.add(loaded);
+        }
+        return MultiGetResult.merge(toRead, parts);
+    }
+
+    @Override
+    public List<Entity> readEntities(List<EntityId> toRead, Condition condition) throws EntityStoreException {
+        return delegate.readEntities(toRead, condition);
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Relationship relation, Entity relatedEntity)
+            throws EntityNotExistsException, EntityStoreException {
+        return delegate.readEntities(type, relation, relatedEntity);
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Relationship relation, EntityId relatedId)
+            throws EntityNotExistsException, EntityStoreException {
+        return delegate.readEntities(type, relation, relatedId);
+    }
+
+    @Override
+    public List<Entity> readRelatedEntities(EntityId toRead, Relationship relation)
+            throws EntityNotExistsException, EntityStoreException {
+        return delegate.readRelatedEntities(toRead, relation);
+    }
+
+    @Override
+    public List<Entity> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition)
+            throws EntityNotExistsException, EntityStoreException {
+        return delegate.readRelatedEntities(toRead, relation, condition);
+    }
+
+    @Override
+    public List<Entity> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        return delegate.readRelatedEntities(toRead, relation, condition, projection);
+    }
+
+    @Override
+    public List<Entity> readTraversal(Traversal traversal) throws EntityNotExistsException, EntityStoreException {
+        return delegate.readTraversal(traversal);
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Condition condition, Integer max, Long skip)
+            throws EntityStoreException {
+        return delegate.readEntities(type, condition, max, skip);
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Condition condition, Integer max, Long skip, Projection projection)
+            throws EntityStoreException {
+        return delegate.readEntities(type, condition, max, skip, projection);
+    }
+
+    @Override
+    public List<Entity> readEntities(Relationship relation, String relatedType)
+            throws RelationNotExistsException, EntityStoreException {
+        return delegate.readEntities(relation, relatedType);
+    }
+
+    @Override
+    public List<Entity> readEntities(Relationship relation, String relatedType, Projection projection)
+            throws RelationNotExistsException, EntityStoreException {
+        return delegate.readEntities(relation, relatedType, projection);
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Integer max, Long skip) throws EntityStoreException {
+        return delegate.readEntities(type, max, skip);
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Integer max, Long skip, Projection projection) throws EntityStoreException {
+        return delegate.readEntities(type, max, skip, projection);
+    }
+
+    @Override
+    public EntityCursor openCursor(String type, Condition condition, int batchSize, String continuationToken)
+            throws EntityStoreException {
+        return delegate.openCursor(type, condition, batchSize, continuationToken);
+    }
+
+    @Override
+    public EntityCursor openCursor(String type, Condition condition, int batchSize, String continuationToken, Projection projection)
+            throws EntityStoreException {
+        return delegate.openCursor(type, condition, batchSize, continuationToken, projection);
+    }
+
+    @Override
+    public EntityCursor openCursor(EntityId toRead, Relationship relation, int batchSize, String continuationToken)
+            throws EntityNotExistsException, EntityStoreException {
+        return delegate.openCursor(toRead, relation, batchSize, continuationToken);
+    }
+
+    @Override
+    public EntityCursor openCursor(EntityId toRead, Relationship relation, int batchSize, String continuationToken, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        return delegate.openCursor(toRead, relation, batchSize, continuationToken, projection);
+    }
+
+    @Override
+    public EntityCursor openCursor(Relationship relation, String relatedType, int batchSize, String continuationToken)
+            throws RelationNotExistsException, EntityStoreException {
+        return delegate.openCursor(relation, relatedType, batchSize, continuationToken);
+    }
+
+    @Override
+    public EntityCursor openCursor(Relationship relation, String relatedType, int batchSize, String continuationToken, Projection projection)
+            throws RelationNotExistsException, EntityStoreException {
+        return delegate.openCursor(relation, relatedType, batchSize, continuationToken, projection);
+    }
+
+    @Override
+    public Entity updateEntity(EntityId toUpdate, List<Update> updates)
+            throws EntityNotExistsException, EntityStoreException {
+        try {
+            return delegate.updateEntity(toUpdate, updates);
+        } finally {
+            invalidate(toUpdate);
+        }
+    }
+
+    @Override
+    public List<Entity> updateEntities(List<EntityId> toUpdate, List<Update> updates)
+            throws InvalidIdException, EntityNotExistsException, EntityStoreException {
+        try {
+            return delegate.updateEntities(toUpdate, updates);
+        } finally {
+            invalidate(toUpdate);
+        }
+    }
+
+    @Override
+    public List<Entity> updateEntities(String type, List<Update> updates) throws EntityStoreException {
+        try {
+            return delegate.updateEntities(type, updates);
+        } finally {
+            invalidateType(type);
+        }
+    }
+
+    @Override
+    public UpdateSummary updateEntities(String type, Condition condition, List<Update> updates)
+            throws EntityStoreException {
+        try {
+            return delegate.updateEntities(type, condition, updates);
+        } finally {
+            invalidateType(type);
+        }
+    }
+
+    @Override
+    public UpdateSummary updateEntities(String type, Condition condition, List<Update> updates,
+            Projection projection, int sampleSize) throws EntityStoreException {
+        try {
+            return delegate.updateEntities(type, condition, updates, projection, sampleSize);
+        } finally {
+            invalidateType(type);
+        }
+    }
+
+    @Override
+    public boolean deleteEntity(EntityId toDelete) throws EntityStoreException {
+        try {
+            return delegate.deleteEntity(toDelete);
+        } finally {
+            invalidate(toDelete);
+        }
+    }
+
+    @Override
+    public boolean deleteEntities(List<EntityId> toDelete) throws EntityNotExistsException, EntityStoreException {
+        try {
+            return delegate.deleteEntities(toDelete);
+        } finally {
+            invalidate(toDelete);
+        }
+    }
+
+    @Override
+    public long deleteEntities(List<EntityId> toDelete, Condition condition) throws EntityStoreException {
+        try {
+            return delegate.deleteEntities(toDelete, condition);
+        } finally {
+            invalidate(toDelete);
+        }
+    }
+
+    @Override
+    public long deleteEntities(Condition condition) throws EntityStoreException {
+        try {
+            return delegate.deleteEntities(condition);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void removeRelatedEntities(EntityId toDeleteFrom, Relationship relation, List<EntityId> relatedIds, boolean cascadeDelete)
+            throws InvalidIdException, EntityNotExistsException, RelationNotExistsException, RelationTypeDoesNotExistsException, EntityStoreException {
+        try {
+            delegate.removeRelatedEntities(toDeleteFrom, relation, relatedIds, cascadeDelete);
+        } finally {
+            invalidate(toDeleteFrom);
+            invalidate(relatedIds);
+        }
+    }
+
+    @Override
+    public long countEntities(String type) throws EntityStoreException {
+        return delegate.countEntities(type);
+    }
+
+    @Override
+    public Set<String> getEntityTypes() throws EntityStoreException {
+        return delegate.getEntityTypes();
+    }
+
+    private Entity lookup(Object key, Stamp stamp) {
+        CachedEntity cached = cache.get(key);
+        if (cached != null && cached.stamp.equals(stamp)) {
+            hits.increment();
+            return cached.entity.copy();
+        }
+        if (cached != null) {
+            cache.invalidate(key);
+        }
+        misses.increment();
+        return null;
+    }
+
+    private Stamp idStamp(EntityId id) {
+        return new Stamp(globalGeneration.get(), generationOf(typeWideGenerations, typeOf(id)), idGenerations.get(stripeOf(id)));
+    }
+
+    private void invalidate(List<EntityId> ids) {
+        for (EntityId id : ids) {
+            invalidate(id);
+        }
+    }
+
+    private void invalidate(EntityId id) {
+        idGenerations.incrementAndGet(stripeOf(id));
+        touchType(typeOf(id));
+        cache.invalidate(id);
+    }
+
+    private void invalidateType(String type) {
+        touchType(type);
+        counterOf(typeWideGenerations, type).incrementAndGet();
+    }
+
+    private void touchType(String type) {
+        counterOf(typeGenerations, type).incrementAndGet();
+    }
+
+    private void touchAllTypes() {
+        for (AtomicLong generation : typeGenerations.values()) {
+            generation.incrementAndGet();
+        }
+    }
+
+    private static long generationOf(ConcurrentMap<String, AtomicLong> generations, String type) {
+        AtomicLong generation = generations.get(type);
+        return generation != null ? generation.get() : 0;
+    }
+
+    private static AtomicLong counterOf(ConcurrentMap<String, AtomicLong> generations, String type) {
+        return generations.computeIfAbsent(type, k -> new AtomicLong());
+    }
+
+    private static int stripeOf(EntityId id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (ID_STRIPES - 1);
+    }
+
+    private static String typeOf(EntityId id) {
+        return id.getTypeName();
+    }
+
+    private static final class CachedEntity {
+        private final Entity entity;
+        private final Stamp stamp;
+
+        private CachedEntity(Entity entity, Stamp stamp) {
+            this.entity = entity;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * The generation counters an entry was loaded under.
+     */
+    private static final class Stamp {
+        private final long global;
+        private final long type;
+        private final long id;
+
+        private Stamp(long global, long type, long id) {
+            this.global = global;
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Stamp)) return false;
+            Stamp stamp = (Stamp) o;
+            return global == stamp.global && type == stamp.type && id == stamp.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(global, type, id);
+        }
+    }
+
+    private static final class PropertyKey {
+        private final String type;
+        private final String property;
+        private final EntityProperty value;
+
+        private PropertyKey(String type, String property, EntityProperty value) {
+            this.type = type;
+            this.property = property;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PropertyKey)) return false;
+            PropertyKey key = (PropertyKey) o;
+            return type.equals(key.type) && property.equals(key.property) && value.equals(key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, property, value);
+        }
+    }
+}
@@ -0,0 +1,490 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.codec;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.sdkapi.BlobProperty;
+import com.divroll.sdkapi.BooleanProperty;
+import com.divroll.sdkapi.CollectionProperty;
+import com.divroll.sdkapi.DoubleProperty;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.IntProperty;
+import com.divroll.sdkapi.MetadataProperty;
+import com.divroll.sdkapi.StringProperty;
+import com.divroll.sdkapi.SymbolTable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, versioned binary format for {@link Entity} and the other
+ * {@link EntityProperty} types.
+ *
+ * <p>A message starts with the magic bytes {@code 'D' 'E'} and a version byte, followed by
+ * one tagged value. Integers are zigzag varints, doubles are 8 bytes big-endian and strings
+ * are a varint byte length followed by UTF-8. Property names are interned per message: the
+ * first occurrence of a name is written inline and later occurrences refer to it by index.
+ * Decoded names are canonicalized through {@link SymbolTable}.
+ * Blob contents are streamed as length-prefixed chunks ending with an empty chunk, so a blob
+ * of unknown length never has to be buffered while encoding. Encoding a blob consumes its
+ * stream.
+ *
+ * <p>Decoding from a {@link ByteBuffer} does not copy the buffer: strings are decoded in
+ * place and blobs are returned as streams reading the buffer directly, so the buffer must
+ * not be modified while decoded blobs are still being read. Collections, metadata and entities
+ * nested more than {@link #MAX_DEPTH} levels deep are rejected, so a malformed message cannot
+ * exhaust the stack of the decoding thread.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public final class EntityCodec {
+
+    public static final int VERSION = 1;
+
+    /**
+     * The deepest nesting of collections, metadata and entities a decoded message may hold.
+     */
+    public static final int MAX_DEPTH = 64;
+
+    private static final byte MAGIC_0 = 'D';
+    private static final byte MAGIC_1 = 'E';
+
+    static final int TAG_NULL = 0;
+    static final int TAG_STRING = 1;
+    static final int TAG_INT = 2;
+    static final int TAG_DOUBLE = 3;
+    static final int TAG_FALSE = 4;
+    static final int TAG_TRUE = 5;
+    static final int TAG_BLOB = 6;
+    static final int TAG_COLLECTION = 7;
+    static final int TAG_ENTITY_ID = 8;
+    static final int TAG_METADATA = 9;
+    static final int TAG_ENTITY = 10;
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private EntityCodec() {
+    }
+
+    public static byte[] encode(EntityProperty property) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encode(property, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a message holding the property to the stream. The stream is not closed.
+     * @param property the property to encode, may be null
+     * @param out the stream to write to
+     * @throws IOException if writing to the stream or reading a blob fails
+     */
+    public static void encode(EntityProperty property, OutputStream out) throws IOException {
+        Encoder encoder = new Encoder(out);
+        encoder.writeByte(MAGIC_0);
+        encoder.writeByte(MAGIC_1);
+        encoder.writeByte(VERSION);
+        encoder.writeProperty(property);
+        encoder.flush();
+    }
+
+    /**
+     * Reads a message from the remaining bytes of the buffer, advancing its position past it.
+     * @param buffer the buffer to read from
+     * @return the decoded property, may be null
+     * @throws IOException if the message is truncated, malformed, nested too deeply or of an
+     *         unknown version
+     */
+    public static EntityProperty decode(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        Decoder decoder = new Decoder(in);
+        EntityProperty property;
+        try {
+            if (in.get() != MAGIC_0 || in.get() != MAGIC_1) {
+                throw new IOException("Not an entity message");
+            }
+            int version = in.get() & 0xff;
+            if (version != VERSION) {
+                throw new IOException("Unsupported entity message version " + version);
+            }
+            property = decoder.readProperty();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Truncated entity message");
+        }
+        buffer.position(buffer.position() + in.position());
+        return property;
+    }
+
+    /**
+     * Reads a message from the rest of the stream. The stream is read fully before decoding.
+     * @param in the stream to read from
+     * @return the decoded property, may be null
+     * @throws IOException if reading fails or the message is truncated, malformed or of an
+     *         unknown version
+     */
+    public static EntityProperty decode(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            bytes.write(chunk, 0, n);
+        }
+        return decode(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    public static Entity decodeEntity(ByteBuffer buffer) throws IOException {
+        EntityProperty property = decode(buffer);
+        if (!(property instanceof Entity)) {
+            throw new IOException("Message does not hold an entity");
+        }
+        return (Entity) property;
+    }
+
+    private static final class Encoder {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private final Map<String, Integer> names = new HashMap<>();
+        private int count;
+
+        Encoder(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeProperty(EntityProperty property) throws IOException {
+            if (property == null) {
+                writeByte(TAG_NULL);
+            } else if (property instanceof StringProperty) {
+                writeByte(TAG_STRING);
+                writeString(((StringProperty) property).getValue());
+            } else if (property instanceof IntProperty) {
+                writeByte(TAG_INT);
+                long value = ((IntProperty) property).getValue();
+                writeVarLong((value << 1) ^ (value >> 63));
+            } else if (property instanceof DoubleProperty) {
+                writeByte(TAG_DOUBLE);
+                long bits = Double.doubleToLongBits(((DoubleProperty) property).getValue());
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    writeByte((int) (bits >>> shift));
+                }
+            } else if (property instanceof BooleanProperty) {
+                writeByte(((BooleanProperty) property).getValue() ? TAG_TRUE : TAG_FALSE);
+            } else if (property instanceof BlobProperty) {
+                BlobProperty blob = (BlobProperty) property;
+                writeByte(TAG_BLOB);
+                if (blob.getHandle() != null) {
+                    try (InputStream in = blob.getValue()) {
+                        writeBlob(in);
+                    }
+                } else {
+                    writeBlob(blob.getValue());
+                }
+            } else if (property instanceof CollectionProperty) {
+                Collection<?> elements = ((CollectionProperty<?>) property).getValue();
+                writeByte(TAG_COLLECTION);
+                writeVarLong(elements.size());
+                for (Object element : elements) {
+                    writeProperty((EntityProperty) element);
+                }
+            } else if (property instanceof EntityId) {
+                EntityId id = (EntityId) property;
+                writeByte(TAG_ENTITY_ID);
+                writeString(id.getTypeName());
+                writeProperty(id.getId());
+            } else if (property instanceof MetadataProperty) {
+                writeByte(TAG_METADATA);
+                writeMap(((MetadataProperty) property).getValue());
+            } else if (property instanceof Entity) {
+                writeByte(TAG_ENTITY);
+                writeMap(((Entity) property).getValue());
+            } else {
+                throw new IOException("Cannot encode " + property.getClass().getName());
+            }
+        }
+
+        private void writeMap(Map<String, EntityProperty> map) throws IOException {
+            writeVarLong(map.size());
+            for (Map.Entry<String, EntityProperty> entry : map.entrySet()) {
+                writeName(entry.getKey());
+                writeProperty(entry.getValue());
+            }
+        }
+
+        /**
+         * Writes a name reference as {@code index << 1}, or a new name as
+         * {@code length << 1 | 1} followed by its bytes.
+         */
+        private void writeName(String name) throws IOException {
+            Integer index = names.get(name);
+            if (index != null) {
+                writeVarLong((long) index << 1);
+                return;
+            }
+            names.put(name, names.size());
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(((long) bytes.length << 1) | 1);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        private void writeBlob(InputStream in) throws IOException {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                if (n > 0) {
+                    writeVarLong(n);
+                    writeBytes(chunk, 0, n);
+                }
+            }
+            writeVarLong(0);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeByte(int b) throws IOException {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+            if (length >= buffer.length) {
+                flushBuffer();
+                out.write(bytes, offset, length);
+                return;
+            }
+            if (length > buffer.length - count) {
+                flushBuffer();
+            }
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+
+        private void flushBuffer() throws IOException {
+            if (count > 0) {
+                out.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+    }
+
+    private static final class Decoder {
+
+        private final ByteBuffer in;
+        private final List<String> names = new ArrayList<>();
+        private int depth;
+
+        Decoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        EntityProperty readProperty() throws IOException {
+            int tag = in.get() & 0xff;
+            if (tag != TAG_COLLECTION && tag != TAG_METADATA && tag != TAG_ENTITY) {
+                return readProperty(tag);
+            }
+            if (++depth > MAX_DEPTH) {
+                throw new IOException("Entity message nested deeper than " + MAX_DEPTH);
+            }
+            try {
+                return readProperty(tag);
+            } finally {
+                depth--;
+            }
+        }
+
+        private EntityProperty readProperty(int tag) throws IOException {
+            switch (tag) {
+                case TAG_NULL:
+                    return null;
+                case TAG_STRING:
+                    return new StringProperty(readString());
+                case TAG_INT:
+                    long zigzag = readVarLong();
+                    return new IntProperty((zigzag >>> 1) ^ -(zigzag & 1));
+                case TAG_DOUBLE:
+                    return new DoubleProperty(in.getDouble());
+                case TAG_FALSE:
+                    return new BooleanProperty(false);
+                case TAG_TRUE:
+                    return new BooleanProperty(true);
+                case TAG_BLOB:
+                    return new BlobProperty(readBlob());
+                case TAG_COLLECTION:
+                    int size = readLength();
+                    List<EntityProperty> elements = new ArrayList<>(Math.min(size, in.remaining()));
+                    for (int i = 0; i < size; i++) {
+                        elements.add(readProperty());
+                    }
+                    return new CollectionProperty<>(elements);
+                case TAG_ENTITY_ID:
+                    String type = readString();
+                    EntityProperty id = readProperty();
+                    if (id == null) {
+                        return new EntityId(type);
+                    }
+                    if (!(id instanceof StringProperty)) {
+                        throw new IOException("Malformed entity id");
+                    }
+                    return new EntityId(type, ((StringProperty) id).getValue());
+                case TAG_METADATA:
+                    return new MetadataProperty(readMap());
+                case TAG_ENTITY:
+                    return readEntity();
+                default:
+                    throw new IOException("Unknown property tag " + tag);
+            }
+        }
+
+        private Entity readEntity() throws IOException {
+            Map<String, EntityProperty> properties = readMap();
+            for (EntityProperty value : properties.values()) {
+                if (value instanceof MetadataProperty && ((MetadataProperty) value).getType() != null) {
+                    try {
+                        return new Entity(((MetadataProperty) value).getType().getValue(), properties);
+                    } catch (CannotCastValueException e) {
+                        throw new IOException(e);
+                    }
+                }
+            }
+            throw new IOException("Entity has no type");
+        }
+
+        private Map<String, EntityProperty> readMap() throws IOException {
+            int size = readLength();
+            Map<String, EntityProperty> map = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                String name = readName();
+                map.put(name, readProperty());
+            }
+            return map;
+        }
+
+        private String readName() throws IOException {
+            long header = readVarLong();
+            if ((header & 1) == 0) {
+                long index = header >>> 1;
+                if (index >= names.size()) {
+                    throw new IOException("Unknown name reference " + index);
+                }
+                return names.get((int) index);
+            }
+            String name = SymbolTable.intern(readString(checkLength(header >>> 1)));
+            names.add(name);
+            return name;
+        }
+
+        private String readString() throws IOException {
+            return readString(readLength());
+        }
+
+        private String readString(int length) throws IOException {
+            if (length > in.remaining()) {
+                throw new EOFException("Truncated entity message");
+            }
+            String value;
+            if (in.hasArray()) {
+                value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return value;
+        }
+
+        private InputStream readBlob() throws IOException {
+            List<InputStream> chunks = new ArrayList<>(1);
+            int length;
+            while ((length = readLength()) != 0) {
+                if (length > in.remaining()) {
+                    throw new EOFException("Truncated entity message");
+                }
+                ByteBuffer chunk = in.slice();
+                chunk.limit(length);
+                in.position(in.position() + length);
+                chunks.add(new ByteBufferInputStream(chunk));
+            }
+            if (chunks.isEmpty()) {
+                return new ByteBufferInputStream(ByteBuffer.allocate(0));
+            }
+            return chunks.size() == 1 ? chunks.get(0) : new SequenceInputStream(Collections.enumeration(chunks));
+        }
+
+        private int readLength() throws IOException {
+            return checkLength(readVarLong());
+        }
+
+        private int checkLength(long length) throws IOException {
+            if (length < 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Malformed length " + length);
+            }
+            return (int) length;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+    }
+}
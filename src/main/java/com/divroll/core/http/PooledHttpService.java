@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.http;
+
+import com.divroll.sdkapi.http.Header;
+import com.divroll.sdkapi.http.HttpService;
+import com.divroll.sdkapi.http.exceptions.AccessDeniedException;
+import com.divroll.sdkapi.http.exceptions.RateLimitedException;
+import com.divroll.sdkapi.http.exceptions.TimeoutException;
+import com.divroll.sdkapi.http.exceptions.WhitelistException;
+import com.divroll.sdkapi.http.request.DeleteRequest;
+import com.divroll.sdkapi.http.request.GetRequest;
+import com.divroll.sdkapi.http.request.HttpRequest;
+import com.divroll.sdkapi.http.request.HttpRequestWithBody;
+import com.divroll.sdkapi.http.request.PostRequest;
+import com.divroll.sdkapi.http.request.PutRequest;
+import com.divroll.sdkapi.http.response.HttpResponse;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link HttpService} backed by a pooled, keep-alive Apache HttpClient.
+ *
+ * <p>Connections are reused across requests to the same route, limited per route and in
+ * total, and evicted once idle for longer than the configured idle time. A response without
+ * a {@code Keep-Alive} timeout keeps its connection for the default keep-alive time. Connect,
+ * read and pool wait timeouts surface as {@link TimeoutException}; other I/O failures as
+ * {@link UncheckedIOException}.
+ *
+ * <p>The asynchronous methods run on a bounded pool of worker threads. When its queue is
+ * full, a request is rejected with a {@link RateLimitedException}.
+ *
+ * <p>Instances are thread-safe and meant to be shared; {@link #close()} releases the pool
+ * and the workers.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class PooledHttpService extends HttpService implements Closeable {
+
+    private final CloseableHttpClient client;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> whitelist;
+
+    private PooledHttpService(Builder builder) {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(builder.maxConnections);
+        connectionManager.setDefaultMaxPerRoute(builder.maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(builder.validateAfterInactivityMillis);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(builder.connectTimeoutMillis)
+                .setSocketTimeout(builder.readTimeoutMillis)
+                .setConnectionRequestTimeout(builder.connectionRequestTimeoutMillis)
+                .build();
+        client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy(builder.keepAliveMillis))
+                .evictExpiredConnections()
+                .evictIdleConnections(builder.maxIdleMillis, TimeUnit.MILLISECONDS)
+                .build();
+        executor = new ThreadPoolExecutor(builder.asyncThreads, builder.asyncThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(builder.asyncQueueCapacity), new WorkerThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        whitelist = builder.whitelist;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A URL is whitelisted when no whitelist is configured, or when its host equals a
+     * whitelisted domain or is a subdomain of one.
+     */
+    @Override
+    public boolean isWhitelisted(String url) {
+        if (whitelist == null) {
+            return true;
+        }
+        String host;
+        try {
+            host = new URL(url).getHost();
+        } catch (IOException e) {
+            return false;
+        }
+        return isWhitelistedHost(host);
+    }
+
+    @Override
+    public HttpResponse get(GetRequest req) throws AccessDeniedException, TimeoutException {
+        return execute(req, new HttpGet());
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> getAsync(GetRequest req) throws AccessDeniedException {
+        return submit(req, new HttpGet());
+    }
+
+    @Override
+    public HttpResponse post(PostRequest req) throws AccessDeniedException, TimeoutException {
+        return execute(req, new HttpPost());
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> postAsync(PostRequest req) throws AccessDeniedException {
+        return submit(req, new HttpPost());
+    }
+
+    @Override
+    public HttpResponse put(PutRequest req) throws AccessDeniedException, TimeoutException {
+        return execute(req, new HttpPut());
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> putAsync(PutRequest req) throws AccessDeniedException {
+        return submit(req, new HttpPut());
+    }
+
+    @Override
+    public HttpResponse delete(DeleteRequest req) throws AccessDeniedException, TimeoutException {
+        return execute(req, new HttpDelete());
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> deleteAsync(DeleteRequest req) throws AccessDeniedException {
+        return submit(req, new HttpDelete());
+    }
+
+    /**
+     * @return the number of pooled connections currently idle and available for reuse
+     */
+    public int getAvailableConnections() {
+        return connectionManager.getTotalStats().getAvailable();
+    }
+
+    /**
+     * @return the number of pooled connections currently in use
+     */
+    public int getLeasedConnections() {
+        return connectionManager.getTotalStats().getLeased();
+    }
+
+    /**
+     * Stops accepting asynchronous requests, waits briefly for queued ones and closes all
+     * pooled connections.
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            client.close();
+        }
+    }
+
+    private CompletableFuture<HttpResponse> submit(HttpRequest req, HttpRequestBase method) throws AccessDeniedException {
+        checkWhitelisted(req);
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(execute(req, method));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw new RateLimitedException();
+        }
+        return future;
+    }
+
+    private HttpResponse execute(HttpRequest req, HttpRequestBase method) throws AccessDeniedException, TimeoutException {
+        checkWhitelisted(req);
+        try {
+            method.setURI(req.getUrl().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid URL " + req.getUrl(), e);
+        }
+        Collection<Header> headers = req.getHeaders() != null ? req.getHeaders() : Collections.<Header>emptySet();
+        for (Header header : headers) {
+            method.addHeader(header.getName(), header.getValue());
+        }
+        if (req instanceof HttpRequestWithBody && method instanceof HttpEntityEnclosingRequestBase) {
+            String body = ((HttpRequestWithBody) req).getBody();
+            if (body != null) {
+                ((HttpEntityEnclosingRequestBase) method).setEntity(new StringEntity(body, ContentType.create("text/plain", StandardCharsets.UTF_8)));
+            }
+        }
+        try (CloseableHttpResponse response = client.execute(method)) {
+            Set<Header> responseHeaders = new LinkedHashSet<>();
+            for (org.apache.http.Header header : response.getAllHeaders()) {
+                responseHeaders.add(new Header(header.getName(), header.getValue()));
+            }
+            HttpEntity entity = response.getEntity();
+            // Reading the entity fully releases the connection back to the pool
+            String body = entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : null;
+            return new PooledHttpResponse(response.getStatusLine().getStatusCode(), responseHeaders, body);
+        } catch (ConnectTimeoutException | SocketTimeoutException e) {
+            // ConnectTimeoutException also covers waiting too long for a pooled connection
+            method.abort();
+            throw new TimeoutException(req.getUrl().toString());
+        } catch (IOException e) {
+            method.abort();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkWhitelisted(HttpRequest req) throws WhitelistException {
+        if (whitelist != null && !isWhitelistedHost(req.getUrl().getHost())) {
+            throw new WhitelistException(req.getUrl().getHost());
+        }
+    }
+
+    private boolean isWhitelistedHost(String host) {
+        String candidate = host.toLowerCase(Locale.ROOT);
+        while (true) {
+            if (whitelist.contains(candidate)) {
+                return true;
+            }
+            int dot = candidate.indexOf('.');
+            if (dot < 0) {
+                return false;
+            }
+            candidate = candidate.substring(dot + 1);
+        }
+    }
+
+    /**
+     * Uses the timeout from the response's {@code Keep-Alive} header when present, capped at
+     * the default, and the default otherwise.
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(long keepAliveMillis) {
+        return (response, context) -> {
+            BasicHeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Math.min(Long.parseLong(element.getValue()) * 1000, keepAliveMillis);
+                    } catch (NumberFormatException ignored) {
+                        // fall back to the default
+                    }
+                }
+            }
+            return keepAliveMillis;
+        };
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+        private final String prefix = "divroll-http-" + POOL_NUMBER.incrementAndGet() + "-";
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Configures a {@link PooledHttpService}. Timeouts are in milliseconds; zero means no
+     * timeout.
+     */
+    public static final class Builder {
+
+        private int maxConnections = 200;
+        private int maxConnectionsPerRoute = 20;
+        private int connectTimeoutMillis = 5000;
+        private int readTimeoutMillis = 30000;
+        private int connectionRequestTimeoutMillis = 5000;
+        private long keepAliveMillis = 30000;
+        private long maxIdleMillis = 60000;
+        private int validateAfterInactivityMillis = 2000;
+        private int asyncThreads = 16;
+        private int asyncQueueCapacity = 1024;
+        private Set<String> whitelist;
+
+        private Builder() {
+        }
+
+        public Builder maxConnections(int maxConnections) {
+            this.maxConnections = positive(maxConnections, "maxConnections");
+            return this;
+        }
+
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = positive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+            return this;
+        }
+
+        public Builder connectTimeout(int connectTimeoutMillis) {
+            this.connectTimeoutMillis = notNegative(connectTimeoutMillis, "connectTimeout");
+            return this;
+        }
+
+        public Builder readTimeout(int readTimeoutMillis) {
+            this.readTimeoutMillis = notNegative(readTimeoutMillis, "readTimeout");
+            return this;
+        }
+
+        /**
+         * Sets how long a request waits for a pooled connection when all connections of
+         * its route are in use.
+         */
+        public Builder connectionRequestTimeout(int connectionRequestTimeoutMillis) {
+            this.connectionRequestTimeoutMillis = notNegative(connectionRequestTimeoutMillis, "connectionRequestTimeout");
+            return this;
+        }
+
+        /**
+         * Sets how long a connection is kept for reuse when the server does not say.
+         */
+        public Builder keepAlive(long keepAliveMillis) {
+            this.keepAliveMillis = notNegative(keepAliveMillis, "keepAlive");
+            return this;
+        }
+
+        /**
+         * Sets how long a connection may stay idle in the pool before it is closed.
+         */
+        public Builder maxIdle(long maxIdleMillis) {
+            this.maxIdleMillis = positive(maxIdleMillis, "maxIdle");
+            return this;
+        }
+
+        public Builder validateAfterInactivity(int validateAfterInactivityMillis) {
+            this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+            return this;
+        }
+
+        public Builder asyncThreads(int asyncThreads) {
+            this.asyncThreads = positive(asyncThreads, "asyncThreads");
+            return this;
+        }
+
+        public Builder asyncQueueCapacity(int asyncQueueCapacity) {
+            this.asyncQueueCapacity = positive(asyncQueueCapacity, "asyncQueueCapacity");
+            return this;
+        }
+
+        /**
+         * Restricts requests to the given domains and their subdomains. Without a whitelist
+         * every URL is allowed.
+         */
+        public Builder whitelist(Collection<String> domains) {
+            Set<String> normalized = new LinkedHashSet<>();
+            for (String domain : domains) {
+                normalized.add(domain.toLowerCase(Locale.ROOT));
+            }
+            this.whitelist = Collections.unmodifiableSet(normalized);
+            return this;
+        }
+
+        public PooledHttpService build() {
+            return new PooledHttpService(this);
+        }
+
+        private static int positive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+
+        private static long positive(long value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+
+        private static int notNegative(int value, String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            return value;
+        }
+
+        private static long notNegative(long value, String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            return value;
+        }
+    }
+}
@@ -21,6 +21,7 @@
 package com.divroll.core.jar;
 
 import com.divroll.core.method.CustomCodeMethod;
+import com.divroll.core.method.MethodRegistry;
 
 import java.util.List;
 
@@ -30,12 +31,34 @@ import java.util.List;
  * These methods represent the custom code methods associated with the entry.
  *
  * Subclasses of JarEntryObject should implement the methods() method to provide
- * the specific list of CustomCodeMethod objects for that entry.
+ * the specific list of CustomCodeMethod objects for that entry. Hosts dispatch requests
+ * through registry(), which indexes those methods once.
  *
  * @author <a href="mailto:kerby@divroll.com">Kerby Martino</a>
  * @version 0-SNAPSHOT
  * @since 0-SNAPSHOT
  */
 public abstract class JarEntryObject {
+	private volatile MethodRegistry registry;
+
 	public abstract List<CustomCodeMethod> methods();
+
+	/**
+	 * Returns the registry of this entry's methods, built from methods() on first use.
+	 * @return the method registry
+	 * @throws IllegalArgumentException if two methods share a name and a verb
+	 */
+	public MethodRegistry registry() {
+		MethodRegistry result = registry;
+		if (result == null) {
+			synchronized (this) {
+				result = registry;
+				if (result == null) {
+					result = MethodRegistry.of(methods());
+					registry = result;
+				}
+			}
+		}
+		return result;
+	}
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.memory;
+
+import com.divroll.core.EntityStoreException;
+import com.divroll.sdkapi.Condition;
+import com.divroll.sdkapi.ConditionMatcher;
+import com.divroll.sdkapi.Entity;
+
+/**
+ * Evaluates {@link Condition} trees against a single entity, answering link conditions
+ * from the {@link RelationIndex}.
+ *
+ * Used where the candidates are already known, such as related entities or
+ * {@link com.divroll.sdkapi.SetIf} updates; selections over a whole type are planned by
+ * the {@link com.divroll.core.query.QueryPlanner} and answered by {@link TableQuerySource}.
+ * Both agree on the semantics of every condition, which {@link ConditionMatcher} defines.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+final class ConditionEvaluator {
+
+    private final ConditionMatcher matcher;
+
+    ConditionEvaluator(RelationIndex relations) {
+        this.matcher = new ConditionMatcher((id, name) -> relations.linkedSources(name).contains(id));
+    }
+
+    boolean test(Entity entity, Condition condition) throws EntityStoreException {
+        return matcher.test(entity, condition);
+    }
+
+    static EntityStoreException unsupported(Object condition) {
+        return new EntityStoreException(String.format("Unsupported condition %s", condition.getClass().getSimpleName()));
+    }
+}
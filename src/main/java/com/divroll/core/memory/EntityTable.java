@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.memory;
+
+import com.divroll.sdkapi.CompactEntity;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.EntitySchema;
+import com.divroll.sdkapi.MetadataProperty;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+
+/**
+ * Holds the entities of a single type together with one {@link PropertyIndex} per property.
+ *
+ * Entities are addressed by a sequence number assigned on insertion, which is also the
+ * textual id of their {@link com.divroll.sdkapi.EntityId}. Rows are kept in sequence
+ * order so that every read returns entities in creation order. The table is not
+ * thread-safe; {@link InMemoryDataService} guards it.
+ *
+ * Rows are stored as {@link CompactEntity} instances sharing the table's
+ * {@link EntitySchema}, so numeric and boolean properties are held unboxed.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+final class EntityTable {
+
+    private final String type;
+    private final EntitySchema schema;
+    private final NavigableMap<Long, Entity> rows = new TreeMap<>();
+    private final Map<String, PropertyIndex> indexes = new HashMap<>();
+    private long sequence;
+
+    EntityTable(String type) {
+        this.type = type;
+        this.schema = new EntitySchema(type);
+    }
+
+    String getType() {
+        return type;
+    }
+
+    EntityId idOf(long sequence) {
+        return new EntityId(type, Long.toString(sequence));
+    }
+
+    /**
+     * Parses the sequence number out of an entity id.
+     * @param id the entity id
+     * @return the sequence number, or null if the id was not issued by this engine
+     */
+    static Long sequenceOf(EntityId id) {
+        String value = id != null ? id.getIdValue() : null;
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Copies an entity into the row representation of this table.
+     * @param entity the entity to copy
+     * @return the compact copy
+     */
+    CompactEntity compact(Entity entity) {
+        return schema.compact(entity);
+    }
+
+    long nextSequence() {
+        return ++sequence;
+    }
+
+    void put(long sequence, Entity entity) {
+        Entity previous = rows.put(sequence, entity);
+        if (previous != null) {
+            unindex(sequence, previous);
+        }
+        index(sequence, entity);
+    }
+
+    Entity remove(long sequence) {
+        Entity removed = rows.remove(sequence);
+        if (removed != null) {
+            unindex(sequence, removed);
+        }
+        return removed;
+    }
+
+    Entity get(long sequence) {
+        return rows.get(sequence);
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    NavigableSet<Long> all() {
+        return Collections.unmodifiableNavigableSet(rows.navigableKeySet());
+    }
+
+    /**
+     * Returns the index of a property, or null if no entity of this type holds it.
+     * @param property the property name
+     * @return the index of the property
+     */
+    PropertyIndex index(String property) {
+        return indexes.get(property);
+    }
+
+    private void index(long sequence, Entity entity) {
+        for (Map.Entry<String, EntityProperty> entry : entity.getValue().entrySet()) {
+            if (isIndexed(entry.getValue())) {
+                indexes.computeIfAbsent(entry.getKey(), k -> new PropertyIndex()).add(sequence, entry.getValue());
+            }
+        }
+    }
+
+    private void unindex(long sequence, Entity entity) {
+        for (Map.Entry<String, EntityProperty> entry : entity.getValue().entrySet()) {
+            PropertyIndex index = indexes.get(entry.getKey());
+            if (index != null && isIndexed(entry.getValue())) {
+                index.remove(sequence, entry.getValue());
+                if (index.isEmpty()) {
+                    indexes.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    private static boolean isIndexed(EntityProperty value) {
+        return value != null && !(value instanceof MetadataProperty);
+    }
+}
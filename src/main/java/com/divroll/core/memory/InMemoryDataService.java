@@ -0,0 +1,1251 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.memory;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.InvalidIdException;
+import com.divroll.core.InvalidRelationException;
+import com.divroll.core.RelationNotExistsException;
+import com.divroll.core.RelationTypeDoesNotExistsException;
+import com.divroll.core.blob.BlobStore;
+import com.divroll.core.query.QueryPlanner;
+import com.divroll.core.query.QuerySource;
+import com.divroll.sdkapi.BatchingEntityCursor;
+import com.divroll.sdkapi.BlobHandle;
+import com.divroll.sdkapi.BlobProperty;
+import com.divroll.sdkapi.Condition;
+import com.divroll.sdkapi.DataService;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityCursor;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.Increment;
+import com.divroll.sdkapi.IntProperty;
+import com.divroll.sdkapi.MultiGetResult;
+import com.divroll.sdkapi.Projection;
+import com.divroll.sdkapi.Relationship;
+import com.divroll.sdkapi.SetIf;
+import com.divroll.sdkapi.StringProperty;
+import com.divroll.sdkapi.Traversal;
+import com.divroll.sdkapi.Unset;
+import com.divroll.sdkapi.UpdateSummary;
+import com.divroll.sdkapi.Update;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An embedded, thread-safe {@link DataService} that keeps every entity in memory.
+ *
+ * Entities are stored per type in an {@link EntityTable} with hash and sorted indexes on
+ * their properties, so equality lookups and counts run in O(1) and prefix and range
+ * conditions in O(log n) instead of scanning every entity. Combined conditions are
+ * compiled by the {@link QueryPlanner} and executed lazily against those indexes. Links are kept in a
+ * {@link RelationIndex} in both directions, which also runs multi-hop traversals in one pass. It serves as a local stand-in for the hosted
+ * backend when testing custom code and as a baseline for benchmarks.
+ *
+ * Stored entities are private copies: entities passed in and handed out can be modified
+ * freely without affecting the store. Property values themselves are treated as immutable
+ * once stored. Reads run concurrently under a shared lock, writes under an exclusive one.
+ *
+ * Given a {@link BlobStore}, blob properties are stored there by content instead of on the
+ * entities, so identical payloads are kept once and come back as re-readable handles. Each
+ * stored entity holds a reference to its payloads, released when the property is replaced
+ * or removed or the entity is deleted, including by a cascading relation removal. Payloads
+ * are written to the blob store before the write lock is taken, so the lock is only held to
+ * adjust reference counts, and a payload shared by a bulk update is stored once.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class InMemoryDataService implements DataService {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, EntityTable> tables = new HashMap<>();
+    private final RelationIndex relations = new RelationIndex();
+    private final ConditionEvaluator evaluator = new ConditionEvaluator(relations);
+    private final QueryPlanner planner = new QueryPlanner();
+    private final BlobStore blobs;
+
+    public InMemoryDataService() {
+        this(null);
+    }
+
+    /**
+     * @param blobs the store holding blob payloads, or null to keep blobs on the entities
+     */
+    public InMemoryDataService(BlobStore blobs) {
+        this.blobs = blobs;
+    }
+
+    @Override
+    public EntityId createEntity(Entity toCreate) throws EntityStoreException {
+        try (BlobStaging staging = new BlobStaging()) {
+            Entity staged = staging.entity(toCreate);
+            lock.writeLock().lock();
+            try {
+                return insert(staged);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<EntityId> createEntities(List<Entity> toCreate) throws EntityStoreException {
+        for (Entity entity : toCreate) {
+            typeOf(entity);
+        }
+        try (BlobStaging staging = new BlobStaging()) {
+            List<Entity> staged = staging.entities(toCreate);
+            lock.writeLock().lock();
+            try {
+                List<EntityId> ids = new ArrayList<>(staged.size());
+                for (Entity entity : staged) {
+                    ids.add(insert(entity));
+                }
+                return ids;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public EntityId createEntity(Entity toCreate, Relationship relation, EntityId relatedId)
+            throws EntityNotExistsException, InvalidRelationException, EntityStoreException {
+        try (BlobStaging staging = new BlobStaging()) {
+            Entity staged = staging.entity(toCreate);
+            lock.writeLock().lock();
+            try {
+                relations.register(relation);
+                requireRow(relatedId);
+                EntityId id = insert(staged);
+                relations.link(id, relation, relatedId);
+                return id;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public EntityId createRelatedEntities(Entity toCreate, Relationship relation, Entity relatedEntity)
+            throws EntityStoreException {
+        return createRelatedEntities(toCreate, relation, Collections.singletonList(relatedEntity));
+    }
+
+    @Override
+    public EntityId createRelatedEntities(Entity toCreate, Relationship relation, List<Entity> relatedEntities)
+            throws EntityStoreException {
+        try (BlobStaging staging = new BlobStaging()) {
+            Entity staged = staging.entity(toCreate);
+            List<Entity> stagedRelated = staging.entities(relatedEntities);
+            lock.writeLock().lock();
+            try {
+                relations.register(relation);
+                if (RelationIndex.isSingle(relation.getType()) && stagedRelated.size() > 1) {
+                    throw new InvalidRelationException(relation);
+                }
+                EntityId id = insert(staged);
+                for (Entity relatedEntity : stagedRelated) {
+                    relations.link(id, relation, insert(relatedEntity));
+                }
+                return id;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public Entity addRelation(EntityId toUpdate, Relationship relation, EntityId relatedId)
+            throws EntityNotExistsException, EntityStoreException {
+        return addRelation(toUpdate, relation, Collections.singletonList(relatedId));
+    }
+
+    @Override
+    public Entity addRelation(EntityId toUpdate, Relationship relation, List<EntityId> relatedIds)
+            throws EntityNotExistsException, EntityStoreException {
+        lock.writeLock().lock();
+        try {
+            relations.register(relation);
+            if (RelationIndex.isSingle(relation.getType()) && relatedIds.size() > 1) {
+                throw new InvalidRelationException(relation);
+            }
+            Entity entity = requireRow(toUpdate);
+            for (EntityId relatedId : relatedIds) {
+                requireRow(relatedId);
+            }
+            for (EntityId relatedId : relatedIds) {
+                relations.link(toUpdate, relation, relatedId);
+            }
+            return entity.copy();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Entity readEntity(EntityId toRead) throws EntityNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            return requireRow(toRead).copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Projects the stored entity directly instead of copying it whole.
+     */
+    @Override
+    public Entity readEntity(EntityId toRead, Projection projection) throws EntityNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            return projection.apply(requireRow(toRead));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Entity readEntity(String type, String property, EntityProperty value)
+            throws EntityNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            EntityTable table = tables.get(type);
+            PropertyIndex index = table != null ? table.index(property) : null;
+            NavigableSet<Long> matches = index != null ? index.equal(value) : Collections.<Long>emptyNavigableSet();
+            if (matches.isEmpty()) {
+                throw new EntityNotExistsException(new EntityId(type));
+            }
+            return table.get(matches.first()).copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Entity readEntity(String type, String property, EntityProperty value, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            EntityTable table = tables.get(type);
+            PropertyIndex index = table != null ? table.index(property) : null;
+            NavigableSet<Long> matches = index != null ? index.equal(value) : Collections.<Long>emptyNavigableSet();
+            if (matches.isEmpty()) {
+                throw new EntityNotExistsException(new EntityId(type));
+            }
+            return projection.apply(table.get(matches.first()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Entity> readEntities(List<EntityId> toRead) throws EntityNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            List<Entity> entities = new ArrayList<>(toRead.size());
+            for (EntityId id : toRead) {
+                entities.add(requireRow(id).copy());
+            }
+            return entities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Entity> readEntities(List<EntityId> toRead, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            List<Entity> entities = new ArrayList<>(toRead.size());
+            for (EntityId id : toRead) {
+                entities.add(projection.apply(requireRow(id)));
+            }
+            return entities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Entity> readEntities(List<EntityId> toRead, Condition condition) throws EntityStoreException {
+        lock.readLock().lock();
+        try {
+            List<Entity> entities = new ArrayList<>();
+            for (EntityId id : new LinkedHashSet<>(toRead)) {
+                Entity entity = row(id);
+                if (entity != null && evaluator.test(entity, condition)) {
+                    entities.add(entity.copy());
+                }
+            }
+            return entities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Looks up every distinct id under one read lock. Ids not issued by this engine are
+     * reported as missing.
+     */
+    @Override
+    public MultiGetResult multiGet(List<EntityId> toRead) throws EntityStoreException {
+        Map<EntityId, Entity> found = new LinkedHashMap<>();
+        List<EntityId> missing = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (EntityId id : new LinkedHashSet<>(toRead)) {
+                Entity entity;
+                try {
+                    entity = row(id);
+                } catch (InvalidIdException e) {
+                    entity = null;
+                }
+                if (entity != null) {
+                    found.put(id, entity.copy());
+                } else {
+                    missing.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new MultiGetResult(found, missing);
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Relationship relation, Entity relatedEntity)
+            throws EntityNotExistsException, EntityStoreException {
+        return readEntities(type, relation, entityIdOf(relatedEntity));
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Relationship relation, EntityId relatedId)
+            throws EntityNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            requireRow(relatedId);
+            List<Entity> entities = new ArrayList<>();
+            for (EntityId source : relations.sources(relatedId, relation.getName())) {
+                if (type.equals(source.getTypeName())) {
+                    entities.add(requireRow(source).copy());
+                }
+            }
+            return entities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Entity> readRelatedEntities(EntityId toRead, Relationship relation)
+            throws EntityNotExistsException, EntityStoreException {
+        return readRelatedEntities(toRead, relation, null);
+    }
+
+    @Override
+    public List<Entity> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition)
+            throws EntityNotExistsException, EntityStoreException {
+        return readRelatedEntities(toRead, relation, condition, null);
+    }
+
+    /**
+     * Reads the related entities under one read lock, copying them whole when no projection
+     * is given.
+     */
+    @Override
+    public List<Entity> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            requireRow(toRead);
+            List<Entity> entities = new ArrayList<>();
+            for (EntityId target : relations.targets(toRead, relation.getName())) {
+                Entity entity = requireRow(target);
+                if (condition == null || evaluator.test(entity, condition)) {
+                    entities.add(view(entity, projection));
+                }
+            }
+            return entities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the whole traversal under one read lock, walking the {@link RelationIndex} and
+     * copying only the entities of the last hop.
+     */
+    @Override
+    public List<Entity> readTraversal(Traversal traversal) throws EntityNotExistsException, EntityStoreException {
+        Integer limit = traversal.getLimit();
+        lock.readLock().lock();
+        try {
+            Entity start = requireRow(traversal.getStart());
+            List<Traversal.Step> steps = traversal.getSteps();
+            if (steps.isEmpty()) {
+                return limit != null && limit == 0 ? new ArrayList<>() : new ArrayList<>(Collections.singletonList(start.copy()));
+            }
+            Set<EntityId> frontier = Collections.singleton(traversal.getStart());
+            for (int i = 0; i < steps.size() && !frontier.isEmpty(); i++) {
+                Traversal.Step step = steps.get(i);
+                int max = i == steps.size() - 1 && limit != null ? limit : Integer.MAX_VALUE;
+                frontier = hop(frontier, step, max);
+            }
+            List<Entity> entities = new ArrayList<>(frontier.size());
+            for (EntityId id : frontier) {
+                entities.add(requireRow(id).copy());
+            }
+            return entities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Condition condition, Integer max, Long skip)
+            throws EntityStoreException {
+        lock.readLock().lock();
+        try {
+            EntityTable table = tables.get(type);
+            if (table == null) {
+                return new ArrayList<>();
+            }
+            QuerySource source = sourceOf(table);
+            return rows(table, planner.plan(condition, max, skip, source).execute(source));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Condition condition, Integer max, Long skip, Projection projection)
+            throws EntityStoreException {
+        lock.readLock().lock();
+        try {
+            EntityTable table = tables.get(type);
+            if (table == null) {
+                return new ArrayList<>();
+            }
+            QuerySource source = sourceOf(table);
+            List<Long> sequences = planner.plan(condition, max, skip, source).execute(source);
+            List<Entity> entities = new ArrayList<>(sequences.size());
+            for (Long sequence : sequences) {
+                entities.add(projection.apply(table.get(sequence)));
+            }
+            return entities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Entity> readEntities(Relationship relation, String relatedType)
+            throws RelationNotExistsException, EntityStoreException {
+        return readEntities(relation, relatedType, (Projection) null);
+    }
+
+    @Override
+    public List<Entity> readEntities(Relationship relation, String relatedType, Projection projection)
+            throws RelationNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            Set<EntityId> sources = sourcesOf(relation, relatedType);
+            List<Entity> entities = new ArrayList<>(sources.size());
+            for (EntityId source : sources) {
+                entities.add(view(requireRow(source), projection));
+            }
+            return entities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Integer max, Long skip) throws EntityStoreException {
+        return readEntities(type, max, skip, (Projection) null);
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Integer max, Long skip, Projection projection) throws EntityStoreException {
+        lock.readLock().lock();
+        try {
+            EntityTable table = tables.get(type);
+            if (table == null) {
+                return new ArrayList<>();
+            }
+            QuerySource source = sourceOf(table);
+            return rows(table, planner.plan(null, max, skip, source).execute(source), projection);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public EntityCursor openCursor(String type, Condition condition, int batchSize, String continuationToken)
+            throws EntityStoreException {
+        return openCursor(type, condition, batchSize, continuationToken, null);
+    }
+
+    @Override
+    public EntityCursor openCursor(String type, Condition condition, int batchSize, String continuationToken, Projection projection)
+            throws EntityStoreException {
+        return new SequenceCursor(type, condition, batchSize, continuationToken, projection);
+    }
+
+    @Override
+    public EntityCursor openCursor(EntityId toRead, Relationship relation, int batchSize, String continuationToken)
+            throws EntityNotExistsException, EntityStoreException {
+        return openCursor(toRead, relation, batchSize, continuationToken, null);
+    }
+
+    @Override
+    public EntityCursor openCursor(EntityId toRead, Relationship relation, int batchSize, String continuationToken, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            requireRow(toRead);
+            return new IdListCursor(new ArrayList<>(relations.targets(toRead, relation.getName())), batchSize, continuationToken, projection);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public EntityCursor openCursor(Relationship relation, String relatedType, int batchSize, String continuationToken)
+            throws RelationNotExistsException, EntityStoreException {
+        return openCursor(relation, relatedType, batchSize, continuationToken, null);
+    }
+
+    @Override
+    public EntityCursor openCursor(Relationship relation, String relatedType, int batchSize, String continuationToken, Projection projection)
+            throws RelationNotExistsException, EntityStoreException {
+        lock.readLock().lock();
+        try {
+            return new IdListCursor(new ArrayList<>(sourcesOf(relation, relatedType)), batchSize, continuationToken, projection);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Entity updateEntity(EntityId toUpdate, List<Update> updates)
+            throws EntityNotExistsException, EntityStoreException {
+        try (BlobStaging staging = new BlobStaging()) {
+            List<Update> staged = staging.updates(updates);
+            lock.writeLock().lock();
+            try {
+                requireRow(toUpdate);
+                return update(toUpdate, staged);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<Entity> updateEntities(List<EntityId> toUpdate, List<Update> updates)
+            throws InvalidIdException, EntityNotExistsException, EntityStoreException {
+        try (BlobStaging staging = new BlobStaging()) {
+            List<Update> staged = staging.updates(updates);
+            lock.writeLock().lock();
+            try {
+                for (EntityId id : toUpdate) {
+                    requireRow(id);
+                }
+                List<Entity> entities = new ArrayList<>(toUpdate.size());
+                for (EntityId id : toUpdate) {
+                    entities.add(update(id, staged));
+                }
+                return entities;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public List<Entity> updateEntities(String type, List<Update> updates) throws EntityStoreException {
+        try (BlobStaging staging = new BlobStaging()) {
+            List<Update> staged = staging.updates(updates);
+            lock.writeLock().lock();
+            try {
+                EntityTable table = tables.get(type);
+                if (table == null) {
+                    return new ArrayList<>();
+                }
+                List<Entity> entities = new ArrayList<>(table.size());
+                for (Long sequence : new ArrayList<>(table.all())) {
+                    entities.add(update(table.idOf(sequence), staged));
+                }
+                return entities;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Plans the condition against the indexes of the type and applies the updates in chunks
+     * of {@link UpdateSummary#DEFAULT_CHUNK_SIZE}, taking the write lock per chunk so that
+     * reads can proceed in between. Each entity is checked against the condition again
+     * under the write lock, and entities the updates leave unchanged are not rewritten.
+     * The sample is projected under the write lock as each entity is updated.
+     */
+    @Override
+    public UpdateSummary updateEntities(String type, Condition condition, List<Update> updates,
+            Projection projection, int sampleSize) throws EntityStoreException {
+        try (BlobStaging staging = new BlobStaging()) {
+            return updateMatching(type, condition, staging.updates(updates), projection, sampleSize);
+        }
+    }
+
+    private UpdateSummary updateMatching(String type, Condition condition, List<Update> updates,
+            Projection projection, int sampleSize) throws EntityStoreException {
+        List<Long> matching = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            EntityTable table = tables.get(type);
+            if (table == null) {
+                return new UpdateSummary(0, 0);
+            }
+            QuerySource source = sourceOf(table);
+            for (Long sequence : planner.plan(condition, null, null, source).execute(source)) {
+                matching.add(sequence);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        long matched = 0;
+        long modified = 0;
+        List<Entity> sample = new ArrayList<>();
+        for (int from = 0; from < matching.size(); from += UpdateSummary.DEFAULT_CHUNK_SIZE) {
+            lock.writeLock().lock();
+            try {
+                EntityTable table = tables.get(type);
+                if (table == null) {
+                    break;
+                }
+                for (Long sequence : matching.subList(from, Math.min(matching.size(), from + UpdateSummary.DEFAULT_CHUNK_SIZE))) {
+                    Entity current = table.get(sequence);
+                    if (current == null || (condition != null && !evaluator.test(current, condition))) {
+                        continue;
+                    }
+                    matched++;
+                    Entity updated = current.copy();
+                    for (Update update : updates) {
+                        apply(updated, update);
+                    }
+                    if (!updated.getValue().equals(current.getValue())) {
+                        swapBlobs(current, updated);
+                        table.put(sequence, updated);
+                        modified++;
+                    } else {
+                        updated = current;
+                    }
+                    if (projection != null && sample.size() < sampleSize) {
+                        sample.add(projection.apply(updated));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return new UpdateSummary(matched, modified, sample);
+    }
+
+    @Override
+    public boolean deleteEntity(EntityId toDelete) throws EntityStoreException {
+        lock.writeLock().lock();
+        try {
+            return delete(toDelete);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteEntities(List<EntityId> toDelete) throws EntityNotExistsException, EntityStoreException {
+        lock.writeLock().lock();
+        try {
+            for (EntityId id : toDelete) {
+                requireRow(id);
+            }
+            for (EntityId id : toDelete) {
+                delete(id);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long deleteEntities(List<EntityId> toDelete, Condition condition) throws EntityStoreException {
+        lock.writeLock().lock();
+        try {
+            long deleted = 0;
+            for (EntityId id : toDelete) {
+                Entity entity = row(id);
+                if (entity != null && evaluator.test(entity, condition) && delete(id)) {
+                    deleted++;
+                }
+            }
+            return deleted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long deleteEntities(Condition condition) throws EntityStoreException {
+        lock.writeLock().lock();
+        try {
+            long deleted = 0;
+            for (EntityTable table : new ArrayList<>(tables.values())) {
+                QuerySource source = sourceOf(table);
+                for (Long sequence : planner.plan(condition, null, null, source).execute(source)) {
+                    if (delete(table.idOf(sequence))) {
+                        deleted++;
+                    }
+                }
+            }
+            return deleted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeRelatedEntities(EntityId toDeleteFrom, Relationship relation, List<EntityId> relatedIds, boolean cascadeDelete)
+            throws InvalidIdException, EntityNotExistsException, RelationNotExistsException, RelationTypeDoesNotExistsException, EntityStoreException {
+        lock.writeLock().lock();
+        try {
+            requireRow(toDeleteFrom);
+            Relationship.Type type = relations.typeOf(relation.getName());
+            if (type == null) {
+                throw new RelationNotExistsException(relation);
+            }
+            if (type != relation.getType()) {
+                throw new RelationTypeDoesNotExistsException(relation);
+            }
+            for (EntityId relatedId : relatedIds) {
+                relations.unlink(toDeleteFrom, relation.getName(), relatedId);
+                if (cascadeDelete) {
+                    delete(relatedId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long countEntities(String type) throws EntityStoreException {
+        lock.readLock().lock();
+        try {
+            EntityTable table = tables.get(type);
+            return table != null ? table.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> getEntityTypes() throws EntityStoreException {
+        lock.readLock().lock();
+        try {
+            return new TreeSet<>(tables.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private EntityId insert(Entity toCreate) throws EntityStoreException {
+        String type = typeOf(toCreate);
+        EntityTable table = tables.computeIfAbsent(type, EntityTable::new);
+        long sequence = table.nextSequence();
+        EntityId id = table.idOf(sequence);
+        Entity stored = table.compact(toCreate);
+        setEntityId(stored, id);
+        swapBlobs(null, stored);
+        table.put(sequence, stored);
+        return id;
+    }
+
+    private Entity update(EntityId id, List<Update> updates) throws EntityStoreException {
+        EntityTable table = tables.get(id.getTypeName());
+        long sequence = EntityTable.sequenceOf(id);
+        Entity current = table.get(sequence);
+        Entity updated = current.copy();
+        for (Update update : updates) {
+            apply(updated, update);
+        }
+        swapBlobs(current, updated);
+        table.put(sequence, updated);
+        return updated.copy();
+    }
+
+    private void apply(Entity entity, Update update) throws EntityStoreException {
+        if (update instanceof com.divroll.sdkapi.Set) {
+            com.divroll.sdkapi.Set set = (com.divroll.sdkapi.Set) update;
+            entity.set(set.getProperty(), set.getValue());
+        } else if (update instanceof SetIf) {
+            SetIf setIf = (SetIf) update;
+            if (evaluator.test(entity, setIf.getCondition())) {
+                entity.set(setIf.getProperty(), setIf.getValue());
+            }
+        } else if (update instanceof Increment) {
+            Increment increment = (Increment) update;
+            EntityProperty current = entity.get(increment.getFieldName());
+            if (current == null) {
+                entity.set(increment.getFieldName(), increment.getValue());
+            } else if (current instanceof IntProperty) {
+                long sum = ((IntProperty) current).getValue() + increment.getValue().getValue();
+                entity.set(increment.getFieldName(), new IntProperty(sum));
+            } else {
+                throw new EntityStoreException(String.format("Cannot increment property %s of type %s",
+                        increment.getFieldName(), current.getClass().getSimpleName()));
+            }
+        } else if (update instanceof Unset) {
+            entity.remove(((Unset) update).getProperty());
+        } else {
+            throw new EntityStoreException(String.format("Unsupported update %s", update.getClass().getSimpleName()));
+        }
+    }
+
+    private boolean delete(EntityId id) throws EntityStoreException {
+        EntityTable table = tables.get(id.getTypeName());
+        Long sequence = EntityTable.sequenceOf(id);
+        Entity removed = table != null && sequence != null ? table.remove(sequence) : null;
+        if (removed == null) {
+            return false;
+        }
+        relations.removeAll(id);
+        swapBlobs(removed, null);
+        return true;
+    }
+
+    /**
+     * Takes references in the blob store for the new blobs of an entity about to be stored
+     * and releases the blobs of the stored entity it replaces. A blob property held by both,
+     * as the same instance, keeps its single reference. Blobs staged by {@link BlobStaging}
+     * are only retained here; others are written to the store. If taking a reference fails,
+     * the references already taken are released and neither entity is changed.
+     * @param before the stored entity being replaced, or null on insert
+     * @param after the entity about to be stored, or null on delete
+     */
+    private void swapBlobs(Entity before, Entity after) throws EntityStoreException {
+        if (blobs == null) {
+            return;
+        }
+        List<String> added = new ArrayList<>();
+        List<String> released = new ArrayList<>();
+        if (after != null) {
+            for (Map.Entry<String, EntityProperty> entry : after.getValue().entrySet()) {
+                if (entry.getValue() instanceof BlobProperty && (before == null || before.get(entry.getKey()) != entry.getValue())) {
+                    added.add(entry.getKey());
+                }
+            }
+        }
+        if (before != null) {
+            for (Map.Entry<String, EntityProperty> entry : before.getValue().entrySet()) {
+                if (entry.getValue() instanceof BlobProperty && (after == null || after.get(entry.getKey()) != entry.getValue())) {
+                    String digest = blobs.digestOf(((BlobProperty) entry.getValue()).getHandle());
+                    if (digest != null) {
+                        released.add(digest);
+                    }
+                }
+            }
+        }
+        // Retain before releasing, so content moved between properties is never deleted
+        Map<String, BlobHandle> stored = new LinkedHashMap<>();
+        try {
+            for (String name : added) {
+                stored.put(name, store((BlobProperty) after.get(name)));
+            }
+        } catch (IOException e) {
+            for (BlobHandle handle : stored.values()) {
+                try {
+                    blobs.release(blobs.digestOf(handle));
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new EntityStoreException("Cannot store blob", e);
+        }
+        for (Map.Entry<String, BlobHandle> entry : stored.entrySet()) {
+            after.set(entry.getKey(), new BlobProperty(entry.getValue()));
+        }
+        for (String digest : released) {
+            try {
+                blobs.release(digest);
+            } catch (IOException e) {
+                // The reference is dropped before the content is deleted, so a failed
+                // delete only leaves unreferenced content behind
+            }
+        }
+    }
+
+    private BlobHandle store(BlobProperty blob) throws IOException {
+        String digest = blobs.digestOf(blob.getHandle());
+        if (digest != null) {
+            return blobs.retain(digest);
+        }
+        try (InputStream in = blob.getValue()) {
+            return blobs.put(in);
+        }
+    }
+
+    /**
+     * Writes the blob payloads of a write to the blob store before the write lock is taken.
+     * Each staged payload holds a reference of its own until the staging is closed, by which
+     * time the write has retained it for the entities that keep it. A blob property shared by
+     * several entities or updates is written once. Entities and updates without payloads to
+     * write are returned as they are; the others are copied, so callers' objects are not
+     * changed.
+     */
+    private final class BlobStaging implements AutoCloseable {
+
+        private final Map<BlobProperty, BlobProperty> staged = new IdentityHashMap<>();
+
+        Entity entity(Entity entity) throws EntityStoreException {
+            Entity copy = null;
+            for (Map.Entry<String, EntityProperty> entry : entity.getValue().entrySet()) {
+                if (isUnstored(entry.getValue())) {
+                    if (copy == null) {
+                        copy = entity.copy();
+                    }
+                    copy.set(entry.getKey(), stage((BlobProperty) entry.getValue()));
+                }
+            }
+            return copy != null ? copy : entity;
+        }
+
+        List<Entity> entities(List<Entity> entities) throws EntityStoreException {
+            List<Entity> result = new ArrayList<>(entities.size());
+            for (Entity entity : entities) {
+                result.add(entity(entity));
+            }
+            return result;
+        }
+
+        List<Update> updates(List<Update> updates) throws EntityStoreException {
+            List<Update> result = new ArrayList<>(updates.size());
+            for (Update update : updates) {
+                if (update instanceof com.divroll.sdkapi.Set && isUnstored(((com.divroll.sdkapi.Set) update).getValue())) {
+                    com.divroll.sdkapi.Set set = (com.divroll.sdkapi.Set) update;
+                    update = new com.divroll.sdkapi.Set(set.getProperty(), stage((BlobProperty) set.getValue()));
+                } else if (update instanceof SetIf && isUnstored(((SetIf) update).getValue())) {
+                    SetIf setIf = (SetIf) update;
+                    update = new SetIf(setIf.getProperty(), stage((BlobProperty) setIf.getValue()), setIf.getCondition());
+                }
+                result.add(update);
+            }
+            return result;
+        }
+
+        private boolean isUnstored(EntityProperty value) {
+            return blobs != null && value instanceof BlobProperty && blobs.digestOf(((BlobProperty) value).getHandle()) == null;
+        }
+
+        private BlobProperty stage(BlobProperty blob) throws EntityStoreException {
+            BlobProperty stored = staged.get(blob);
+            if (stored == null) {
+                try (InputStream in = blob.getValue()) {
+                    stored = new BlobProperty(blobs.put(in));
+                } catch (IOException e) {
+                    throw new EntityStoreException("Cannot store blob", e);
+                }
+                staged.put(blob, stored);
+            }
+            return stored;
+        }
+
+        @Override
+        public void close() {
+            for (BlobProperty blob : staged.values()) {
+                try {
+                    blobs.release(blobs.digestOf(blob.getHandle()));
+                } catch (IOException e) {
+                    // As in swapBlobs, only the delete of unreferenced content failed
+                }
+            }
+        }
+    }
+
+    private Set<EntityId> sourcesOf(Relationship relation, String relatedType) throws RelationNotExistsException {
+        Map<EntityId, Set<EntityId>> incoming = relations.incoming(relation.getName());
+        if (incoming == null) {
+            throw new RelationNotExistsException(relation);
+        }
+        Set<EntityId> sources = new LinkedHashSet<>();
+        for (Map.Entry<EntityId, Set<EntityId>> entry : incoming.entrySet()) {
+            if (relatedType.equals(entry.getKey().getTypeName())) {
+                sources.addAll(entry.getValue());
+            }
+        }
+        return sources;
+    }
+
+    private static List<Entity> rows(EntityTable table, List<Long> sequences) {
+        return rows(table, sequences, null);
+    }
+
+    private static List<Entity> rows(EntityTable table, List<Long> sequences, Projection projection) {
+        List<Entity> entities = new ArrayList<>(sequences.size());
+        for (Long sequence : sequences) {
+            entities.add(view(table.get(sequence), projection));
+        }
+        return entities;
+    }
+
+    /**
+     * Returns what a read hands out for a stored row: its projection, or a whole copy when
+     * no projection is given.
+     */
+    private static Entity view(Entity row, Projection projection) {
+        return projection != null ? projection.apply(row) : row.copy();
+    }
+
+    private QuerySource sourceOf(EntityTable table) {
+        return new TableQuerySource(table, relations);
+    }
+
+    /**
+     * Returns the stored entity for an id.
+     * @param id the entity id
+     * @return the stored entity, or null if it does not exist
+     * @throws InvalidIdException if the id was not issued by this engine
+     */
+    private Entity row(EntityId id) throws InvalidIdException {
+        if (id == null || id.getType() == null) {
+            throw new InvalidIdException(id);
+        }
+        Long sequence = EntityTable.sequenceOf(id);
+        if (sequence == null) {
+            throw new InvalidIdException(id);
+        }
+        EntityTable table = tables.get(id.getTypeName());
+        return table != null ? table.get(sequence) : null;
+    }
+
+    private Set<EntityId> hop(Set<EntityId> frontier, Traversal.Step step, int max)
+            throws InvalidIdException, EntityNotExistsException, EntityStoreException {
+        String name = step.getRelation().getName();
+        boolean out = step.getDirection() == Traversal.Direction.OUT;
+        Set<EntityId> reached = new LinkedHashSet<>(step.isSingle() ? frontier.size() * 2 : 16);
+        for (EntityId id : frontier) {
+            for (EntityId linked : out ? relations.targets(id, name) : relations.sources(id, name)) {
+                if (reached.size() >= max) {
+                    return reached;
+                }
+                if ((step.getType() == null || step.getType().equals(linked.getTypeName()))
+                        && !reached.contains(linked)
+                        && (step.getCondition() == null || evaluator.test(requireRow(linked), step.getCondition()))) {
+                    reached.add(linked);
+                }
+            }
+        }
+        return reached;
+    }
+
+    private Entity requireRow(EntityId id) throws InvalidIdException, EntityNotExistsException {
+        Entity entity = row(id);
+        if (entity == null) {
+            throw new EntityNotExistsException(id);
+        }
+        return entity;
+    }
+
+    private static String typeOf(Entity entity) throws EntityStoreException {
+        StringProperty type;
+        try {
+            type = entity.getType();
+        } catch (CannotCastValueException e) {
+            throw new EntityStoreException("Entity has no type", e);
+        }
+        if (type == null) {
+            throw new EntityStoreException("Entity has no type");
+        }
+        return type.getValue();
+    }
+
+    private static EntityId entityIdOf(Entity entity) throws EntityStoreException {
+        EntityId id;
+        try {
+            id = entity.getEntityId();
+        } catch (CannotCastValueException e) {
+            throw new EntityStoreException("Entity has no id", e);
+        }
+        if (id == null) {
+            throw new EntityStoreException("Entity has no id");
+        }
+        return id;
+    }
+
+    private static void setEntityId(Entity entity, EntityId id) throws EntityStoreException {
+        try {
+            entity.setEntityId(id);
+        } catch (CannotCastValueException e) {
+            throw new EntityStoreException(e);
+        }
+    }
+
+    private static long parseToken(String continuationToken, String prefix) throws EntityStoreException {
+        if (continuationToken == null) {
+            return 0;
+        }
+        try {
+            if (continuationToken.startsWith(prefix)) {
+                long position = Long.parseLong(continuationToken.substring(prefix.length()));
+                if (position >= 0) {
+                    return position;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new EntityStoreException(String.format("Invalid continuation token %s", continuationToken));
+    }
+
+    /**
+     * Cursor over the entities of a type that resumes after the sequence number of the
+     * last returned entity, so every batch seeks in O(log n) rather than skipping.
+     *
+     * With a condition, each batch runs the plan from that position with the batch size as
+     * its limit, so no batch resolves more matches than it returns. Every batch sees the
+     * entities as they are when it is fetched.
+     */
+    private final class SequenceCursor extends BatchingEntityCursor {
+
+        private static final String TOKEN_PREFIX = "after:";
+
+        private final String type;
+        private final Condition condition;
+        private final Projection projection;
+        private long after;
+
+        private SequenceCursor(String type, Condition condition, int batchSize, String continuationToken,
+                Projection projection) throws EntityStoreException {
+            super(batchSize, continuationToken);
+            this.type = type;
+            this.condition = condition;
+            this.projection = projection;
+            this.after = parseToken(continuationToken, TOKEN_PREFIX);
+        }
+
+        @Override
+        protected List<Entity> fetch(int batchSize) throws EntityStoreException {
+            lock.readLock().lock();
+            try {
+                EntityTable table = tables.get(type);
+                if (table == null) {
+                    return new ArrayList<>();
+                }
+                QuerySource source = sourceOf(table);
+                List<Long> sequences = planner.plan(condition, batchSize, null, source).execute(source, after);
+                if (!sequences.isEmpty()) {
+                    after = sequences.get(sequences.size() - 1);
+                }
+                return rows(table, sequences, projection);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        protected String tokenAfter(Entity entity) {
+            try {
+                return TOKEN_PREFIX + EntityTable.sequenceOf(entity.getEntityId());
+            } catch (CannotCastValueException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Cursor over a snapshot of entity ids taken when it is opened. Entities deleted
+     * since then are skipped.
+     */
+    private final class IdListCursor extends BatchingEntityCursor {
+
+        private static final String TOKEN_PREFIX = "offset:";
+
+        private final List<EntityId> ids;
+        private final Projection projection;
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private int position;
+
+        private IdListCursor(List<EntityId> ids, int batchSize, String continuationToken, Projection projection)
+                throws EntityStoreException {
+            super(batchSize, continuationToken);
+            this.ids = ids;
+            this.projection = projection;
+            this.position = (int) Math.min(ids.size(), parseToken(continuationToken, TOKEN_PREFIX));
+        }
+
+        @Override
+        protected List<Entity> fetch(int batchSize) throws EntityStoreException {
+            lock.readLock().lock();
+            try {
+                List<Entity> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && position < ids.size()) {
+                    Entity entity = row(ids.get(position++));
+                    if (entity != null) {
+                        batch.add(view(entity, projection));
+                        positions.add(position);
+                    }
+                }
+                return batch;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        protected String tokenAfter(Entity entity) {
+            return TOKEN_PREFIX + positions.poll();
+        }
+    }
+}
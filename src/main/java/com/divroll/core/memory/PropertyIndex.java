@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.memory;
+
+import com.divroll.sdkapi.BlobProperty;
+import com.divroll.sdkapi.BooleanProperty;
+import com.divroll.sdkapi.CollectionProperty;
+import com.divroll.sdkapi.DoubleProperty;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.IntProperty;
+import com.divroll.sdkapi.StringProperty;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Indexes the values of a single property across all entities of one type.
+ *
+ * Every value is kept in a hash index for O(1) equality lookups. Scalar values
+ * (strings, integers, doubles and booleans) are additionally kept in a sorted index,
+ * one per value class, which shares its postings with the hash index and serves
+ * prefix and range lookups in O(log n). Elements of
+ * a {@link CollectionProperty} are indexed individually so that equality on a single
+ * element matches every collection containing it.
+ *
+ * Postings are sets of entity sequence numbers in ascending order. The sets returned by
+ * the lookup methods are read-only views and must not be retained across writes.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+final class PropertyIndex {
+
+    private final Map<Object, NavigableSet<Long>> hash = new HashMap<>();
+    private final Map<Class<?>, NavigableMap<Object, NavigableSet<Long>>> sorted = new HashMap<>();
+    private final NavigableSet<Long> present = new TreeSet<>();
+    private final NavigableSet<Long> blobs = new TreeSet<>();
+
+    void add(long sequence, EntityProperty value) {
+        present.add(sequence);
+        if (value instanceof BlobProperty) {
+            blobs.add(sequence);
+            return;
+        }
+        addKey(sequence, keyOf(value));
+        if (value instanceof CollectionProperty) {
+            for (Object element : ((CollectionProperty<?>) value).getValue()) {
+                if (element instanceof EntityProperty) {
+                    addKey(sequence, keyOf((EntityProperty) element));
+                }
+            }
+        }
+    }
+
+    void remove(long sequence, EntityProperty value) {
+        present.remove(sequence);
+        if (value instanceof BlobProperty) {
+            blobs.remove(sequence);
+            return;
+        }
+        removeKey(sequence, keyOf(value));
+        if (value instanceof CollectionProperty) {
+            for (Object element : ((CollectionProperty<?>) value).getValue()) {
+                if (element instanceof EntityProperty) {
+                    removeKey(sequence, keyOf((EntityProperty) element));
+                }
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return present.isEmpty();
+    }
+
+    NavigableSet<Long> equal(EntityProperty value) {
+        return readOnly(hash.get(keyOf(value)));
+    }
+
+    NavigableSet<Long> startingWith(String prefix) {
+        NavigableMap<Object, NavigableSet<Long>> strings = sorted.get(String.class);
+        if (strings == null) {
+            return Collections.emptyNavigableSet();
+        }
+        NavigableSet<Long> result = new TreeSet<>();
+        for (Map.Entry<Object, NavigableSet<Long>> entry : strings.tailMap(prefix, true).entrySet()) {
+            if (!((String) entry.getKey()).startsWith(prefix)) {
+                break;
+            }
+            result.addAll(entry.getValue());
+        }
+        return result;
+    }
+
+    NavigableSet<Long> inRange(EntityProperty min, EntityProperty max) {
+        Object low = keyOf(min);
+        Object high = keyOf(max);
+        NavigableMap<Object, NavigableSet<Long>> values = sorted.get(low.getClass());
+        if (values == null || compare(low, high) > 0) {
+            return Collections.emptyNavigableSet();
+        }
+        NavigableSet<Long> result = new TreeSet<>();
+        for (NavigableSet<Long> postings : values.subMap(low, true, high, true).values()) {
+            result.addAll(postings);
+        }
+        return result;
+    }
+
+    NavigableSet<Long> present() {
+        return Collections.unmodifiableNavigableSet(present);
+    }
+
+    NavigableSet<Long> withBlob() {
+        return Collections.unmodifiableNavigableSet(blobs);
+    }
+
+    /**
+     * Returns the number of entities holding the given value without materializing them.
+     * @param value the value to count
+     * @return the number of entities whose property equals the value
+     */
+    int count(EntityProperty value) {
+        NavigableSet<Long> postings = hash.get(keyOf(value));
+        return postings != null ? postings.size() : 0;
+    }
+
+    /**
+     * Returns the key under which a value is indexed. Scalars are keyed by their raw
+     * value, everything else by the property itself.
+     * @param value the value to key
+     * @return the index key
+     */
+    static Object keyOf(EntityProperty value) {
+        if (isScalar(value)) {
+            return value.getValue();
+        }
+        return value;
+    }
+
+    static boolean isScalar(EntityProperty value) {
+        return value instanceof StringProperty
+                || value instanceof IntProperty
+                || value instanceof DoubleProperty
+                || value instanceof BooleanProperty;
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compare(Object left, Object right) {
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    private void addKey(long sequence, Object key) {
+        NavigableSet<Long> postings = hash.get(key);
+        if (postings == null) {
+            postings = new TreeSet<>();
+            hash.put(key, postings);
+            if (key instanceof Comparable && !(key instanceof EntityProperty)) {
+                sorted.computeIfAbsent(key.getClass(), k -> new TreeMap<>(PropertyIndex::compare)).put(key, postings);
+            }
+        }
+        postings.add(sequence);
+    }
+
+    private void removeKey(long sequence, Object key) {
+        NavigableSet<Long> postings = hash.get(key);
+        if (postings != null && postings.remove(sequence) && postings.isEmpty()) {
+            hash.remove(key);
+            NavigableMap<Object, NavigableSet<Long>> values = sorted.get(key.getClass());
+            if (values != null) {
+                values.remove(key);
+            }
+        }
+    }
+
+    private static NavigableSet<Long> readOnly(NavigableSet<Long> postings) {
+        return postings != null ? Collections.unmodifiableNavigableSet(postings) : Collections.emptyNavigableSet();
+    }
+}
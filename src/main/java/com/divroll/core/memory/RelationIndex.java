@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.memory;
+
+import com.divroll.core.InvalidRelationException;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.Relationship;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adjacency index of the links between entities, kept per relationship name in both
+ * directions so that outgoing and incoming links can be resolved in O(1).
+ *
+ * The first use of a relationship name registers its {@link Relationship.Type}. Later uses
+ * with a different type are rejected. Relationships of type {@code ONE_TO_ONE} and
+ * {@code MANY_TO_ONE} hold at most one target per source, so linking a new target
+ * replaces the previous one. A {@code ONE_TO_ONE} target also has at most one source, so
+ * linking it from a new source drops the link from the previous one.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+final class RelationIndex {
+
+    private final Map<String, Relationship.Type> types = new HashMap<>();
+    private final Map<String, Map<EntityId, Set<EntityId>>> outgoing = new HashMap<>();
+    private final Map<String, Map<EntityId, Set<EntityId>>> incoming = new HashMap<>();
+
+    /**
+     * Validates a relationship and registers its type on first use.
+     * @param relation the relationship to register
+     * @throws InvalidRelationException if the name is reserved or already used with another type
+     */
+    void register(Relationship relation) throws InvalidRelationException {
+        String name = relation.getName();
+        if (name == null || name.isEmpty() || name.startsWith("_") || relation.getType() == null) {
+            throw new InvalidRelationException(relation);
+        }
+        Relationship.Type registered = types.putIfAbsent(name, relation.getType());
+        if (registered != null && registered != relation.getType()) {
+            throw new InvalidRelationException(relation);
+        }
+    }
+
+    Relationship.Type typeOf(String name) {
+        return types.get(name);
+    }
+
+    void link(EntityId source, Relationship relation, EntityId target) {
+        String name = relation.getName();
+        Set<EntityId> targets = outgoing.computeIfAbsent(name, k -> new HashMap<>())
+                .computeIfAbsent(source, k -> new LinkedHashSet<>());
+        if (isSingle(relation.getType())) {
+            for (EntityId previous : targets) {
+                removeFrom(incoming, name, previous, source);
+            }
+            targets.clear();
+        }
+        targets.add(target);
+        Set<EntityId> sources = incoming.computeIfAbsent(name, k -> new HashMap<>())
+                .computeIfAbsent(target, k -> new LinkedHashSet<>());
+        if (relation.getType() == Relationship.Type.ONE_TO_ONE) {
+            for (EntityId previous : sources) {
+                if (!previous.equals(source)) {
+                    removeFrom(outgoing, name, previous, target);
+                }
+            }
+            sources.clear();
+        }
+        sources.add(source);
+    }
+
+    boolean unlink(EntityId source, String name, EntityId target) {
+        boolean removed = removeFrom(outgoing, name, source, target);
+        removeFrom(incoming, name, target, source);
+        return removed;
+    }
+
+    Set<EntityId> targets(EntityId source, String name) {
+        return view(outgoing, name, source);
+    }
+
+    Set<EntityId> sources(EntityId target, String name) {
+        return view(incoming, name, target);
+    }
+
+    /**
+     * Returns the incoming links of a relationship keyed by target.
+     * @param name the relationship name
+     * @return the incoming links, or null if the relationship was never linked
+     */
+    Map<EntityId, Set<EntityId>> incoming(String name) {
+        Map<EntityId, Set<EntityId>> links = incoming.get(name);
+        return links != null ? Collections.unmodifiableMap(links) : null;
+    }
+
+    /**
+     * Returns every entity that has at least one outgoing link of a relationship.
+     * @param name the relationship name
+     * @return the linked sources
+     */
+    Set<EntityId> linkedSources(String name) {
+        Map<EntityId, Set<EntityId>> links = outgoing.get(name);
+        return links != null ? Collections.unmodifiableSet(links.keySet()) : Collections.<EntityId>emptySet();
+    }
+
+    /**
+     * Drops every link from or to an entity.
+     * @param id the id of the removed entity
+     */
+    void removeAll(EntityId id) {
+        for (Map.Entry<String, Map<EntityId, Set<EntityId>>> entry : outgoing.entrySet()) {
+            Set<EntityId> targets = entry.getValue().remove(id);
+            if (targets != null) {
+                for (EntityId target : targets) {
+                    removeFrom(incoming, entry.getKey(), target, id);
+                }
+            }
+        }
+        for (Map.Entry<String, Map<EntityId, Set<EntityId>>> entry : incoming.entrySet()) {
+            Set<EntityId> sources = entry.getValue().remove(id);
+            if (sources != null) {
+                for (EntityId source : sources) {
+                    removeFrom(outgoing, entry.getKey(), source, id);
+                }
+            }
+        }
+    }
+
+    static boolean isSingle(Relationship.Type type) {
+        return type == Relationship.Type.ONE_TO_ONE || type == Relationship.Type.MANY_TO_ONE;
+    }
+
+    private static boolean removeFrom(Map<String, Map<EntityId, Set<EntityId>>> links, String name, EntityId from, EntityId to) {
+        Map<EntityId, Set<EntityId>> byName = links.get(name);
+        Set<EntityId> linked = byName != null ? byName.get(from) : null;
+        if (linked == null || !linked.remove(to)) {
+            return false;
+        }
+        if (linked.isEmpty()) {
+            byName.remove(from);
+        }
+        return true;
+    }
+
+    private static Set<EntityId> view(Map<String, Map<EntityId, Set<EntityId>>> links, String name, EntityId id) {
+        Map<EntityId, Set<EntityId>> byName = links.get(name);
+        Set<EntityId> linked = byName != null ? byName.get(id) : null;
+        return linked != null ? Collections.unmodifiableSet(linked) : Collections.<EntityId>emptySet();
+    }
+}
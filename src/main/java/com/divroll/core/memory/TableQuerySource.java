@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.memory;
+
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.query.QuerySource;
+import com.divroll.sdkapi.Condition;
+import com.divroll.sdkapi.Contains;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.Equal;
+import com.divroll.sdkapi.HasLink;
+import com.divroll.sdkapi.InRange;
+import com.divroll.sdkapi.StartsWith;
+import com.divroll.sdkapi.WithBlob;
+
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Answers single conditions for the {@link com.divroll.core.query.QueryPlanner} from the
+ * property indexes of an {@link EntityTable} and the links of a {@link RelationIndex}.
+ *
+ * Estimates are exact for equality, membership and blob conditions and an upper bound,
+ * the number of entities holding the property, for prefix and range conditions.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+final class TableQuerySource implements QuerySource {
+
+    private final EntityTable table;
+    private final RelationIndex relations;
+
+    TableQuerySource(EntityTable table, RelationIndex relations) {
+        this.table = table;
+        this.relations = relations;
+    }
+
+    @Override
+    public NavigableSet<Long> all() {
+        return table.all();
+    }
+
+    @Override
+    public NavigableSet<Long> select(Condition condition) throws EntityStoreException {
+        if (condition instanceof HasLink) {
+            NavigableSet<Long> result = new TreeSet<>();
+            for (EntityId source : relations.linkedSources(condition.getProperty())) {
+                Long sequence = EntityTable.sequenceOf(source);
+                if (sequence != null && table.getType().equals(source.getTypeName())) {
+                    result.add(sequence);
+                }
+            }
+            return result;
+        }
+        PropertyIndex index = table.index(condition.getProperty());
+        if (index == null) {
+            requireSupported(condition);
+            return Collections.emptyNavigableSet();
+        } else if (condition instanceof Equal) {
+            return index.equal(((Equal) condition).getValue());
+        } else if (condition instanceof StartsWith) {
+            return index.startingWith(((StartsWith) condition).getValue().getValue());
+        } else if (condition instanceof InRange) {
+            InRange range = (InRange) condition;
+            return index.inRange(range.getMin(), range.getMax());
+        } else if (condition instanceof Contains) {
+            NavigableSet<Long> result = new TreeSet<>();
+            for (Object element : ((Contains) condition).getEntityCollection().getValue()) {
+                result.addAll(index.equal((EntityProperty) element));
+            }
+            return result;
+        } else if (condition instanceof WithBlob) {
+            return index.withBlob();
+        }
+        throw ConditionEvaluator.unsupported(condition);
+    }
+
+    @Override
+    public long estimate(Condition condition) throws EntityStoreException {
+        if (condition instanceof HasLink) {
+            return relations.linkedSources(condition.getProperty()).size();
+        }
+        PropertyIndex index = table.index(condition.getProperty());
+        if (index == null) {
+            requireSupported(condition);
+            return 0;
+        } else if (condition instanceof Equal) {
+            return index.count(((Equal) condition).getValue());
+        } else if (condition instanceof StartsWith || condition instanceof InRange) {
+            return index.present().size();
+        } else if (condition instanceof Contains) {
+            long estimate = 0;
+            for (Object element : ((Contains) condition).getEntityCollection().getValue()) {
+                estimate += index.count((EntityProperty) element);
+            }
+            return estimate;
+        } else if (condition instanceof WithBlob) {
+            return index.withBlob().size();
+        }
+        throw ConditionEvaluator.unsupported(condition);
+    }
+
+    private static void requireSupported(Condition condition) throws EntityStoreException {
+        if (!(condition instanceof Equal || condition instanceof StartsWith || condition instanceof InRange
+                || condition instanceof Contains || condition instanceof WithBlob)) {
+            throw ConditionEvaluator.unsupported(condition);
+        }
+    }
+}
@@ -20,10 +20,13 @@
  */
 package com.divroll.core.method;
 
+import com.divroll.core.MethodVerb;
 import com.divroll.core.rest.CustomCodeRequest;
 import com.divroll.core.rest.CustomCodeResponse;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The CustomCodeMethod interface defines the structure for a custom code method.
@@ -37,4 +40,12 @@ public interface CustomCodeMethod {
 	String getMethodName();
 	List<String> getParams();
 	CustomCodeResponse execute(CustomCodeRequest request);
+
+	/**
+	 * Returns the HTTP verbs this method accepts, which {@link MethodRegistry} dispatches on.
+	 * @return the accepted verbs, all of them by default
+	 */
+	default Set<MethodVerb> getVerbs() {
+		return EnumSet.allOf(MethodVerb.class);
+	}
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.method;
+
+import com.divroll.core.rest.CustomCodeRequest;
+import com.divroll.core.rest.CustomCodeResponse;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs custom code method invocations, which block on I/O, concurrently.
+ *
+ * On JDK 21 and later {@link #create()} runs every invocation on its own virtual thread, so
+ * thousands of blocked invocations cost little more than their stacks. On older JDKs it
+ * falls back to a large bounded pool of platform threads sized for I/O-bound work.
+ * The virtual thread executor is looked up and tried once at runtime, so the SDK itself
+ * still targets Java 8 and JDKs that only preview virtual threads use the pool.
+ *
+ * {@link #fanOut(List)} runs subtasks of one invocation as a unit: it waits for all of them,
+ * and when one fails it cancels the others and rethrows the failure. When an invocation on a
+ * pooled executor fans out, its own thread runs every subtask no worker has started yet, so
+ * it makes progress instead of waiting on subtasks queued behind itself.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public final class MethodExecutor implements AutoCloseable {
+
+	public static final int DEFAULT_POOL_THREADS = 256;
+	public static final int DEFAULT_POOL_QUEUE_CAPACITY = 10000;
+
+	private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = virtualThreadExecutorFactory();
+
+	private final ExecutorService executor;
+	private final boolean virtual;
+
+	private MethodExecutor(ExecutorService executor, boolean virtual) {
+		this.executor = executor;
+		this.virtual = virtual;
+	}
+
+	/**
+	 * @return an executor on virtual threads when the JDK supports them, or a pool of
+	 *         {@link #DEFAULT_POOL_THREADS} platform threads otherwise
+	 */
+	public static MethodExecutor create() {
+		if (isVirtualThreadSupported()) {
+			try {
+				return virtualThreads();
+			} catch (UnsupportedOperationException e) {
+				// Falls back to the pool below
+			}
+		}
+		return pooled(DEFAULT_POOL_THREADS, DEFAULT_POOL_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * @return true if a virtual thread executor could be created when this class was loaded
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	/**
+	 * @return an executor starting a virtual thread per invocation
+	 * @throws UnsupportedOperationException if the JDK has no virtual threads
+	 */
+	public static MethodExecutor virtualThreads() {
+		if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+			throw new UnsupportedOperationException("Virtual threads require JDK 21 or later");
+		}
+		try {
+			return new MethodExecutor((ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null), true);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Cannot create a virtual thread executor", e);
+		}
+	}
+
+	/**
+	 * Creates a pool of daemon platform threads. Idle threads time out, so the pool only
+	 * holds as many threads as the load needs. Invocations beyond the queue capacity are
+	 * rejected.
+	 * @param maxThreads the most invocations running at once
+	 * @param queueCapacity the most invocations waiting for a thread
+	 * @return the pooled executor
+	 */
+	public static MethodExecutor pooled(int maxThreads, int queueCapacity) {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 30, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), new WorkerThreadFactory());
+		pool.allowCoreThreadTimeOut(true);
+		return new MethodExecutor(pool, false);
+	}
+
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * Runs the method with the request. A rejected invocation, or one that throws, completes
+	 * the future exceptionally.
+	 */
+	public CompletableFuture<CustomCodeResponse> submit(CustomCodeMethod method, CustomCodeRequest request) {
+		return supply(() -> method.execute(request));
+	}
+
+	public CompletableFuture<CustomCodeResponse> dispatch(MethodRegistry registry, CustomCodeRequest request) {
+		return supply(() -> registry.dispatch(request));
+	}
+
+	/**
+	 * Runs the tasks concurrently and waits for all of them. When called from a worker thread
+	 * of this pooled executor, the caller also runs each task no other worker has picked up
+	 * yet, including tasks the executor rejected, so fanning out from an invocation cannot
+	 * deadlock even when every worker is busy fanning out. A task the caller runs itself is
+	 * not interrupted when a sibling fails.
+	 * @param tasks the tasks to run
+	 * @return the results in the order of the tasks
+	 * @throws ExecutionException with the first failure, after cancelling the other tasks
+	 * @throws InterruptedException if interrupted while waiting, after cancelling the tasks
+	 */
+	public <T> List<T> fanOut(List<? extends Callable<T>> tasks) throws ExecutionException, InterruptedException {
+		try {
+			return fanOut(tasks, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Like {@link #fanOut(List)}, but cancels the tasks and fails when they do not all
+	 * complete in time. A task run by the calling worker thread is not interrupted; the
+	 * deadline is checked before and after it.
+	 * @throws TimeoutException if the tasks did not complete in time
+	 */
+	public <T> List<T> fanOut(List<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+			throws ExecutionException, InterruptedException, TimeoutException {
+		boolean help = isOwnWorker(Thread.currentThread());
+		BlockingQueue<Future<T>> completed = new LinkedBlockingQueue<>();
+		List<Future<T>> futures = new ArrayList<>(tasks.size());
+		long deadline = System.nanoTime() + Math.min(unit.toNanos(timeout), Long.MAX_VALUE / 2);
+		try {
+			for (Callable<T> task : tasks) {
+				FutureTask<T> future = new FutureTask<T>(task) {
+					@Override
+					protected void done() {
+						completed.add(this);
+					}
+				};
+				futures.add(future);
+				try {
+					executor.execute(future);
+				} catch (RejectedExecutionException e) {
+					if (!help) {
+						throw new ExecutionException(e);
+					}
+					// Left for the calling worker to run below
+				}
+			}
+			int finished = 0;
+			if (help) {
+				for (Future<T> future : futures) {
+					finished = drain(completed, finished);
+					if (deadline - System.nanoTime() <= 0) {
+						throw new TimeoutException("Fan-out did not complete in time");
+					}
+					// No-op when another worker already started the task
+					((FutureTask<T>) future).run();
+				}
+			}
+			while (finished < futures.size()) {
+				Future<T> done = completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				if (done == null) {
+					throw new TimeoutException("Fan-out did not complete in time");
+				}
+				done.get();
+				finished++;
+			}
+			List<T> results = new ArrayList<>(futures.size());
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			for (Future<T> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting invocations and waits up to the timeout for running ones to finish.
+	 * @return true if all invocations finished in time
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+		executor.shutdown();
+		return executor.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * Stops accepting invocations and interrupts running ones that do not finish within
+	 * ten seconds.
+	 */
+	@Override
+	public void close() {
+		try {
+			if (!shutdown(10, TimeUnit.SECONDS)) {
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private boolean isOwnWorker(Thread thread) {
+		return !virtual && thread instanceof Worker
+				&& ((Worker) thread).factory == ((ThreadPoolExecutor) executor).getThreadFactory();
+	}
+
+	/**
+	 * Checks the tasks completed so far, so a failure stops the fan-out early.
+	 * @return the number of tasks completed
+	 */
+	private static <T> int drain(BlockingQueue<Future<T>> completed, int finished)
+			throws ExecutionException, InterruptedException {
+		Future<T> done;
+		while ((done = completed.poll()) != null) {
+			done.get();
+			finished++;
+		}
+		return finished;
+	}
+
+	private CompletableFuture<CustomCodeResponse> supply(Callable<CustomCodeResponse> invocation) {
+		CompletableFuture<CustomCodeResponse> future = new CompletableFuture<>();
+		try {
+			executor.execute(() -> {
+				try {
+					future.complete(invocation.call());
+				} catch (Throwable t) {
+					future.completeExceptionally(t);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Looks up the virtual thread executor factory and creates one executor with it, since
+	 * the factory exists but throws on JDKs where virtual threads are a disabled preview.
+	 */
+	private static Method virtualThreadExecutorFactory() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			((ExecutorService) factory.invoke(null)).shutdown();
+			return factory;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static final class WorkerThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+		private final String prefix = "divroll-method-" + POOL_NUMBER.incrementAndGet() + "-";
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Worker(r, prefix + threadNumber.incrementAndGet(), this);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	private static final class Worker extends Thread {
+
+		private final WorkerThreadFactory factory;
+
+		Worker(Runnable target, String name, WorkerThreadFactory factory) {
+			super(target, name);
+			this.factory = factory;
+		}
+	}
+}
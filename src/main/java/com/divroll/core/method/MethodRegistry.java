@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.method;
+
+import com.divroll.core.MethodVerb;
+import com.divroll.core.rest.CustomCodeRequest;
+import com.divroll.core.rest.CustomCodeResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable index of custom code methods by name and {@link MethodVerb}, resolving a
+ * request to its method in constant time.
+ *
+ * The parameter names of each method are read once when the registry is built and used
+ * to check that a request carries every parameter before the method is run.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public final class MethodRegistry {
+
+	public static final int NOT_FOUND = 404;
+	public static final int METHOD_NOT_ALLOWED = 405;
+	public static final int BAD_REQUEST = 400;
+
+	private static final MethodVerb[] VERBS = MethodVerb.values();
+
+	/** Methods by name, each an array indexed by verb ordinal. */
+	private final Map<String, Entry[]> entries;
+	private final int size;
+
+	private MethodRegistry(Map<String, Entry[]> entries, int size) {
+		this.entries = entries;
+		this.size = size;
+	}
+
+	/**
+	 * @param methods the methods to index
+	 * @return the registry of the methods
+	 * @throws IllegalArgumentException if two methods share a name and a verb
+	 */
+	public static MethodRegistry of(Collection<? extends CustomCodeMethod> methods) {
+		Map<String, Entry[]> entries = new HashMap<>(Math.max(16, methods.size() * 2));
+		Map<CustomCodeMethod, Entry> created = new LinkedHashMap<>();
+		for (CustomCodeMethod method : methods) {
+			String name = method.getMethodName();
+			if (name == null) {
+				throw new IllegalArgumentException("Method name cannot be null");
+			}
+			Entry entry = created.get(method);
+			if (entry == null) {
+				entry = new Entry(method);
+				created.put(method, entry);
+			}
+			Entry[] byVerb = entries.computeIfAbsent(name, key -> new Entry[VERBS.length]);
+			for (MethodVerb verb : method.getVerbs()) {
+				if (byVerb[verb.ordinal()] != null) {
+					throw new IllegalArgumentException(String.format("Duplicate method %s %s", verb, name));
+				}
+				byVerb[verb.ordinal()] = entry;
+			}
+		}
+		return new MethodRegistry(entries, created.size());
+	}
+
+	/**
+	 * @param name the method name
+	 * @param verb the HTTP verb
+	 * @return the method, or null if no method of that name accepts the verb
+	 */
+	public CustomCodeMethod lookup(String name, MethodVerb verb) {
+		Entry entry = entry(name, verb);
+		return entry != null ? entry.method : null;
+	}
+
+	public CustomCodeMethod lookup(CustomCodeRequest request) {
+		return lookup(request.getMethodName(), request.getVerb());
+	}
+
+	public boolean contains(String name) {
+		return name != null && entries.containsKey(name);
+	}
+
+	/**
+	 * @return the names of the parameters the request lacks for its method, empty if it
+	 *         has them all or no method matches it
+	 */
+	public List<String> missingParams(CustomCodeRequest request) {
+		Entry entry = entry(request.getMethodName(), request.getVerb());
+		return entry != null ? entry.missingParams(request.getParams()) : Collections.<String>emptyList();
+	}
+
+	/**
+	 * Resolves the request to its method, checks its parameters and runs it.
+	 * @param request the request to dispatch
+	 * @return the method's response; a {@link #NOT_FOUND} response if no method has the
+	 *         name, {@link #METHOD_NOT_ALLOWED} if none accepts the verb, or
+	 *         {@link #BAD_REQUEST} listing the missing parameters
+	 */
+	public CustomCodeResponse dispatch(CustomCodeRequest request) {
+		Entry entry = entry(request.getMethodName(), request.getVerb());
+		if (entry == null) {
+			if (contains(request.getMethodName())) {
+				return error(METHOD_NOT_ALLOWED, "Method " + request.getMethodName() + " does not accept " + request.getVerb());
+			}
+			return error(NOT_FOUND, "Method " + request.getMethodName() + " not found");
+		}
+		List<String> missing = entry.missingParams(request.getParams());
+		if (!missing.isEmpty()) {
+			Map<String, Object> body = new LinkedHashMap<>();
+			body.put("error", "Missing parameters");
+			body.put("missing", missing);
+			return new CustomCodeResponse(BAD_REQUEST, body);
+		}
+		return entry.method.execute(request);
+	}
+
+	/**
+	 * Dispatches each sample request the given number of times, so the dispatch path and the
+	 * methods, along with the classes they use, are loaded, interpreted and compiled before
+	 * real traffic arrives. This is the warm-up hook for hosts; method classes themselves are
+	 * already initialized once their instances are registered. The samples must be safe to
+	 * run repeatedly; their responses are dropped.
+	 * @param samples the requests to run
+	 * @param iterations how many times to run each request
+	 */
+	public void warmUp(Collection<CustomCodeRequest> samples, int iterations) {
+		for (int i = 0; i < iterations; i++) {
+			for (CustomCodeRequest sample : samples) {
+				dispatch(sample);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of distinct methods in the registry
+	 */
+	public int size() {
+		return size;
+	}
+
+	public Set<String> names() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	private Entry entry(String name, MethodVerb verb) {
+		if (name == null || verb == null) {
+			return null;
+		}
+		Entry[] byVerb = entries.get(name);
+		return byVerb != null ? byVerb[verb.ordinal()] : null;
+	}
+
+	private static CustomCodeResponse error(int status, String message) {
+		return new CustomCodeResponse(status, Collections.singletonMap("error", message));
+	}
+
+	/**
+	 * A method with its parameter names copied into an array.
+	 */
+	private static final class Entry {
+
+		private final CustomCodeMethod method;
+		private final String[] params;
+
+		private Entry(CustomCodeMethod method) {
+			this.method = method;
+			List<String> params = method.getParams();
+			this.params = params != null ? params.toArray(new String[0]) : new String[0];
+		}
+
+		private List<String> missingParams(Map<String, String> given) {
+			List<String> missing = null;
+			for (String param : params) {
+				if (given == null || !given.containsKey(param)) {
+					if (missing == null) {
+						missing = new ArrayList<>();
+					}
+					missing.add(param);
+				}
+			}
+			return missing != null ? missing : Collections.<String>emptyList();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.metrics;
+
+/**
+ * The instrumentation SPI: receives a callback when an operation starts and when it ends.
+ * Instrumented decorators such as {@link InstrumentedDataService} report every call through
+ * it; {@link MetricsRegistry} is the built-in implementation.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public interface Instrumentation {
+
+    /**
+     * Does not record anything.
+     */
+    Instrumentation NOOP = operation -> Timer.NOOP;
+
+    /**
+     * Marks the start of an operation.
+     * @param operation the operation name, such as {@code DataService.readEntity}
+     * @return the timer to stop once the operation ends
+     */
+    Timer start(String operation);
+
+    /**
+     * A running operation. Exactly one of its methods is called, once.
+     */
+    interface Timer {
+
+        Timer NOOP = new Timer() {
+            @Override
+            public void success(long payloadBytes, long resultCount) {
+            }
+
+            @Override
+            public void failure(Throwable error) {
+            }
+        };
+
+        /**
+         * @param payloadBytes the size of the payload in bytes, or -1 if unknown
+         * @param resultCount the number of entities or items returned, or -1 if not applicable
+         */
+        void success(long payloadBytes, long resultCount);
+
+        void failure(Throwable error);
+    }
+}
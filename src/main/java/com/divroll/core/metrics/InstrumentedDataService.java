@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.metrics;
+
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.InvalidIdException;
+import com.divroll.core.InvalidRelationException;
+import com.divroll.core.RelationNotExistsException;
+import com.divroll.core.RelationTypeDoesNotExistsException;
+import com.divroll.sdkapi.Condition;
+import com.divroll.sdkapi.DataService;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityCursor;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.MultiGetResult;
+import com.divroll.sdkapi.Projection;
+import com.divroll.sdkapi.Relationship;
+import com.divroll.sdkapi.Traversal;
+import com.divroll.sdkapi.Update;
+import com.divroll.sdkapi.UpdateSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link DataService} decorator reporting every call to an {@link Instrumentation} as the
+ * operation {@code DataService.<method>}, with the number of entities, ids or types
+ * returned as the result count.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class InstrumentedDataService implements DataService {
+
+    private static final String PREFIX = "DataService.";
+
+    private final DataService delegate;
+    private final Instrumentation instrumentation;
+
+    public InstrumentedDataService(DataService delegate, Instrumentation instrumentation) {
+        this.delegate = delegate;
+        this.instrumentation = instrumentation;
+    }
+
+    public DataService getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public EntityId createEntity(Entity toCreate) throws EntityStoreException {
+        return call("createEntity", () -> delegate.createEntity(toCreate));
+    }
+
+    @Override
+    public List<EntityId> createEntities(List<Entity> toCreate) throws EntityStoreException {
+        return call("createEntities", () -> delegate.createEntities(toCreate));
+    }
+
+    @Override
+    public EntityId createEntity(Entity toCreate, Relationship relation, EntityId relatedId)
+            throws EntityNotExistsException, InvalidRelationException, EntityStoreException {
+        return call("createEntity", () -> delegate.createEntity(toCreate, relation, relatedId));
+    }
+
+    @Override
+    public EntityId createRelatedEntities(Entity toCreate, Relationship relation, Entity relatedEntity)
+            throws EntityStoreException {
+        return call("createRelatedEntities", () -> delegate.createRelatedEntities(toCreate, relation, relatedEntity));
+    }
+
+    @Override
+    public EntityId createRelatedEntities(Entity toCreate, Relationship relation, List<Entity> relatedEntities)
+            throws EntityStoreException {
+        return call("createRelatedEntities", () -> delegate.createRelatedEntities(toCreate, relation, relatedEntities));
+    }
+
+    @Override
+    public Entity addRelation(EntityId toUpdate, Relationship relation, EntityId relatedId)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("addRelation", () -> delegate.addRelation(toUpdate, relation, relatedId));
+    }
+
+    @Override
+    public Entity addRelation(EntityId toUpdate, Relationship relation, List<EntityId> relatedIds)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("addRelation", () -> delegate.addRelation(toUpdate, relation, relatedIds));
+    }
+
+    @Override
+    public Entity readEntity(EntityId toRead) throws EntityNotExistsException, EntityStoreException {
+        return call("readEntity", () -> delegate.readEntity(toRead));
+    }
+
+    @Override
+    public Entity readEntity(EntityId toRead, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("readEntity", () -> delegate.readEntity(toRead, projection));
+    }
+
+    @Override
+    public Entity readEntity(String type, String property, EntityProperty value)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("readEntity", () -> delegate.readEntity(type, property, value));
+    }
+
+    @Override
+    public Entity readEntity(String type, String property, EntityProperty value, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("readEntity", () -> delegate.readEntity(type, property, value, projection));
+    }
+
+    @Override
+    public List<Entity> readEntities(List<EntityId> toRead) throws EntityNotExistsException, EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(toRead));
+    }
+
+    @Override
+    public List<Entity> readEntities(List<EntityId> toRead, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(toRead, projection));
+    }
+
+    @Override
+    public MultiGetResult multiGet(List<EntityId> toRead) throws EntityStoreException {
+        return call("multiGet", () -> delegate.multiGet(toRead));
+    }
+
+    @Override
+    public List<Entity> readEntities(List<EntityId> toRead, Condition condition) throws EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(toRead, condition));
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Relationship relation, Entity relatedEntity)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(type, relation, relatedEntity));
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Relationship relation, EntityId relatedId)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(type, relation, relatedId));
+    }
+
+    @Override
+    public List<Entity> readRelatedEntities(EntityId toRead, Relationship relation)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("readRelatedEntities", () -> delegate.readRelatedEntities(toRead, relation));
+    }
+
+    @Override
+    public List<Entity> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("readRelatedEntities", () -> delegate.readRelatedEntities(toRead, relation, condition));
+    }
+
+    @Override
+    public List<Entity> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("readRelatedEntities", () -> delegate.readRelatedEntities(toRead, relation, condition, projection));
+    }
+
+    @Override
+    public List<Entity> readTraversal(Traversal traversal) throws EntityNotExistsException, EntityStoreException {
+        return call("readTraversal", () -> delegate.readTraversal(traversal));
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Condition condition, Integer max, Long skip)
+            throws EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(type, condition, max, skip));
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Condition condition, Integer max, Long skip, Projection projection)
+            throws EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(type, condition, max, skip, projection));
+    }
+
+    @Override
+    public List<Entity> readEntities(Relationship relation, String relatedType)
+            throws RelationNotExistsException, EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(relation, relatedType));
+    }
+
+    @Override
+    public List<Entity> readEntities(Relationship relation, String relatedType, Projection projection)
+            throws RelationNotExistsException, EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(relation, relatedType, projection));
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Integer max, Long skip) throws EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(type, max, skip));
+    }
+
+    @Override
+    public List<Entity> readEntities(String type, Integer max, Long skip, Projection projection) throws EntityStoreException {
+        return call("readEntities", () -> delegate.readEntities(type, max, skip, projection));
+    }
+
+    /**
+     * Times opening the cursor only; batches fetched later are not reported.
+     */
+    @Override
+    public EntityCursor openCursor(String type, Condition condition, int batchSize, String continuationToken)
+            throws EntityStoreException {
+        return call("openCursor", () -> delegate.openCursor(type, condition, batchSize, continuationToken));
+    }
+
+    @Override
+    public EntityCursor openCursor(String type, Condition condition, int batchSize, String continuationToken, Projection projection)
+            throws EntityStoreException {
+        return call("openCursor", () -> delegate.openCursor(type, condition, batchSize, continuationToken, projection));
+    }
+
+    @Override
+    public EntityCursor openCursor(EntityId toRead, Relationship relation, int batchSize, String continuationToken)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("openCursor", () -> delegate.openCursor(toRead, relation, batchSize, continuationToken));
+    }
+
+    @Override
+    public EntityCursor openCursor(EntityId toRead, Relationship relation, int batchSize, String continuationToken, Projection projection)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("openCursor", () -> delegate.openCursor(toRead, relation, batchSize, continuationToken, projection));
+    }
+
+    @Override
+    public EntityCursor openCursor(Relationship relation, String relatedType, int batchSize, String continuationToken)
+            throws RelationNotExistsException, EntityStoreException {
+        return call("openCursor", () -> delegate.openCursor(relation, relatedType, batchSize, continuationToken));
+    }
+
+    @Override
+    public EntityCursor openCursor(Relationship relation, String relatedType, int batchSize, String continuationToken, Projection projection)
+            throws RelationNotExistsException, EntityStoreException {
+        return call("openCursor", () -> delegate.openCursor(relation, relatedType, batchSize, continuationToken, projection));
+    }
+
+    @Override
+    public Entity updateEntity(EntityId toUpdate, List<Update> updates)
+            throws EntityNotExistsException, EntityStoreException {
+        return call("updateEntity", () -> delegate.updateEntity(toUpdate, updates));
+    }
+
+    @Override
+    public List<Entity> updateEntities(List<EntityId> toUpdate, List<Update> updates)
+            throws InvalidIdException, EntityNotExistsException, EntityStoreException {
+        return call("updateEntities", () -> delegate.updateEntities(toUpdate, updates));
+    }
+
+    @Override
+    public List<Entity> updateEntities(String type, List<Update> updates) throws EntityStoreException {
+        return call("updateEntities", () -> delegate.updateEntities(type, updates));
+    }
+
+    @Override
+    public UpdateSummary updateEntities(String type, Condition condition, List<Update> updates)
+            throws EntityStoreException {
+        return call("updateEntities", () -> delegate.updateEntities(type, condition, updates));
+    }
+
+    @Override
+    public UpdateSummary updateEntities(String type, Condition condition, List<Update> updates,
+            Projection projection, int sampleSize) throws EntityStoreException {
+        return call("updateEntities", () -> delegate.updateEntities(type, condition, updates, projection, sampleSize));
+    }
+
+    @Override
+    public boolean deleteEntity(EntityId toDelete) throws EntityStoreException {
+        return call("deleteEntity", () -> delegate.deleteEntity(toDelete));
+    }
+
+    @Override
+    public boolean deleteEntities(List<EntityId> toDelete) throws EntityNotExistsException, EntityStoreException {
+        return call("deleteEntities", () -> delegate.deleteEntities(toDelete));
+    }
+
+    @Override
+    public long deleteEntities(List<EntityId> toDelete, Condition condition) throws EntityStoreException {
+        return call("deleteEntities", () -> delegate.deleteEntities(toDelete, condition));
+    }
+
+    @Override
+    public long deleteEntities(Condition condition) throws EntityStoreException {
+        return call("deleteEntities", () -> delegate.deleteEntities(condition));
+    }
+
+    @Override
+    public void removeRelatedEntities(EntityId toDeleteFrom, Relationship relation, List<EntityId> relatedIds, boolean cascadeDelete)
+            throws InvalidIdException, EntityNotExistsException, RelationNotExistsException, RelationTypeDoesNotExistsException, EntityStoreException {
+        call("removeRelatedEntities", () -> {
+            delegate.removeRelatedEntities(toDeleteFrom, relation, relatedIds, cascadeDelete);
+            return null;
+        });
+    }
+
+    @Override
+    public long countEntities(String type) throws EntityStoreException {
+        return call("countEntities", () -> delegate.countEntities(type));
+    }
+
+    @Override
+    public Set<String> getEntityTypes() throws EntityStoreException {
+        return call("getEntityTypes", () -> delegate.getEntityTypes());
+    }
+
+    private <T> T call(String method, StoreCall<T> call) throws EntityStoreException {
+        Instrumentation.Timer timer = instrumentation.start(PREFIX + method);
+        T result;
+        try {
+            result = call.call();
+        } catch (EntityStoreException | RuntimeException | Error e) {
+            timer.failure(e);
+            throw e;
+        }
+        timer.success(-1, resultCount(result));
+        return result;
+    }
+
+    private static long resultCount(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Entity || result instanceof EntityId) {
+            return 1;
+        }
+        return -1;
+    }
+
+    @FunctionalInterface
+    private interface StoreCall<T> {
+        T call() throws EntityStoreException;
+    }
+}
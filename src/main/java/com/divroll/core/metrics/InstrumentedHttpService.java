@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.metrics;
+
+import com.divroll.sdkapi.http.HttpService;
+import com.divroll.sdkapi.http.exceptions.AccessDeniedException;
+import com.divroll.sdkapi.http.exceptions.TimeoutException;
+import com.divroll.sdkapi.http.request.DeleteRequest;
+import com.divroll.sdkapi.http.request.GetRequest;
+import com.divroll.sdkapi.http.request.PostRequest;
+import com.divroll.sdkapi.http.request.PutRequest;
+import com.divroll.sdkapi.http.response.HttpResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * An {@link HttpService} decorator reporting every request to an {@link Instrumentation} as
+ * the operation {@code HttpService.<verb>}, with the length of the response body in
+ * characters as the payload. An asynchronous request is timed until its future completes
+ * when the delegate returns a {@link CompletableFuture}, and until it is submitted otherwise.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class InstrumentedHttpService extends HttpService {
+
+    private final HttpService delegate;
+    private final Instrumentation instrumentation;
+
+    public InstrumentedHttpService(HttpService delegate, Instrumentation instrumentation) {
+        this.delegate = delegate;
+        this.instrumentation = instrumentation;
+    }
+
+    @Override
+    public boolean isWhitelisted(String url) {
+        return delegate.isWhitelisted(url);
+    }
+
+    @Override
+    public HttpResponse get(GetRequest req) throws AccessDeniedException, TimeoutException {
+        return call("HttpService.GET", () -> delegate.get(req));
+    }
+
+    @Override
+    public Future<HttpResponse> getAsync(GetRequest req) throws AccessDeniedException {
+        return callAsync("HttpService.GET", () -> delegate.getAsync(req));
+    }
+
+    @Override
+    public HttpResponse post(PostRequest req) throws AccessDeniedException, TimeoutException {
+        return call("HttpService.POST", () -> delegate.post(req));
+    }
+
+    @Override
+    public Future<HttpResponse> postAsync(PostRequest req) throws AccessDeniedException {
+        return callAsync("HttpService.POST", () -> delegate.postAsync(req));
+    }
+
+    @Override
+    public HttpResponse put(PutRequest req) throws AccessDeniedException, TimeoutException {
+        return call("HttpService.PUT", () -> delegate.put(req));
+    }
+
+    @Override
+    public Future<HttpResponse> putAsync(PutRequest req) throws AccessDeniedException {
+        return callAsync("HttpService.PUT", () -> delegate.putAsync(req));
+    }
+
+    @Override
+    public HttpResponse delete(DeleteRequest req) throws AccessDeniedException, TimeoutException {
+        return call("HttpService.DELETE", () -> delegate.delete(req));
+    }
+
+    @Override
+    public Future<HttpResponse> deleteAsync(DeleteRequest req) throws AccessDeniedException {
+        return callAsync("HttpService.DELETE", () -> delegate.deleteAsync(req));
+    }
+
+    private HttpResponse call(String operation, HttpCall call) throws AccessDeniedException, TimeoutException {
+        Instrumentation.Timer timer = instrumentation.start(operation);
+        HttpResponse response;
+        try {
+            response = call.call();
+        } catch (AccessDeniedException | TimeoutException | RuntimeException | Error e) {
+            timer.failure(e);
+            throw e;
+        }
+        timer.success(payloadLength(response), -1);
+        return response;
+    }
+
+    private Future<HttpResponse> callAsync(String operation, AsyncHttpCall call) throws AccessDeniedException {
+        Instrumentation.Timer timer = instrumentation.start(operation);
+        Future<HttpResponse> future;
+        try {
+            future = call.call();
+        } catch (AccessDeniedException | RuntimeException | Error e) {
+            timer.failure(e);
+            throw e;
+        }
+        if (!(future instanceof CompletableFuture)) {
+            timer.success(-1, -1);
+            return future;
+        }
+        return ((CompletableFuture<HttpResponse>) future).whenComplete((response, error) -> {
+            if (error != null) {
+                timer.failure(unwrap(error));
+            } else {
+                timer.success(payloadLength(response), -1);
+            }
+        });
+    }
+
+    private static long payloadLength(HttpResponse response) {
+        return response != null && response.getBody() != null ? response.getBody().length() : -1;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    @FunctionalInterface
+    private interface HttpCall {
+        HttpResponse call() throws AccessDeniedException, TimeoutException;
+    }
+
+    @FunctionalInterface
+    private interface AsyncHttpCall {
+        Future<HttpResponse> call() throws AccessDeniedException;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.metrics;
+
+import com.divroll.core.MethodVerb;
+import com.divroll.core.method.CustomCodeMethod;
+import com.divroll.core.rest.CustomCodeRequest;
+import com.divroll.core.rest.CustomCodeResponse;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link CustomCodeMethod} decorator reporting every invocation to an
+ * {@link Instrumentation} as the operation {@code method.<name>}, with the size of the
+ * response body as the payload.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class InstrumentedMethod implements CustomCodeMethod {
+
+    private final CustomCodeMethod delegate;
+    private final Instrumentation instrumentation;
+    private final String operation;
+
+    public InstrumentedMethod(CustomCodeMethod delegate, Instrumentation instrumentation) {
+        this.delegate = delegate;
+        this.instrumentation = instrumentation;
+        this.operation = "method." + delegate.getMethodName();
+    }
+
+    @Override
+    public String getMethodName() {
+        return delegate.getMethodName();
+    }
+
+    @Override
+    public List<String> getParams() {
+        return delegate.getParams();
+    }
+
+    @Override
+    public Set<MethodVerb> getVerbs() {
+        return delegate.getVerbs();
+    }
+
+    @Override
+    public CustomCodeResponse execute(CustomCodeRequest request) {
+        Instrumentation.Timer timer = instrumentation.start(operation);
+        CustomCodeResponse response;
+        try {
+            response = delegate.execute(request);
+        } catch (RuntimeException | Error e) {
+            timer.failure(e);
+            throw e;
+        }
+        timer.success(payloadBytes(response), -1);
+        return response;
+    }
+
+    private static long payloadBytes(CustomCodeResponse response) {
+        if (response == null) {
+            return -1;
+        }
+        if (response.getResponseBody() != null) {
+            return response.getResponseBody().length;
+        }
+        if (response.isStreaming()) {
+            return response.getStreamingBody().getContentLength();
+        }
+        return -1;
+    }
+}
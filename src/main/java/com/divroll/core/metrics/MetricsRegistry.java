@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.metrics;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects {@link OperationMetrics} by operation name and hands snapshots of them to
+ * {@link MetricsReporter}s. Metrics are cumulative from the creation of the registry.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class MetricsRegistry implements Instrumentation {
+
+    private final ConcurrentHashMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final LongSupplier ticker;
+
+    public MetricsRegistry() {
+        this(System::nanoTime);
+    }
+
+    MetricsRegistry(LongSupplier ticker) {
+        this.ticker = ticker;
+    }
+
+    @Override
+    public Timer start(String operation) {
+        OperationMetrics metrics = operation(operation);
+        long start = ticker.getAsLong();
+        return new Timer() {
+            @Override
+            public void success(long payloadBytes, long resultCount) {
+                metrics.recordSuccess(ticker.getAsLong() - start, payloadBytes, resultCount);
+            }
+
+            @Override
+            public void failure(Throwable error) {
+                metrics.recordFailure(ticker.getAsLong() - start, error);
+            }
+        };
+    }
+
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, OperationMetrics::new);
+    }
+
+    /**
+     * @return snapshots of all operations, sorted by name
+     */
+    public Map<String, OperationSnapshot> snapshot() {
+        Map<String, OperationSnapshot> snapshots = new TreeMap<>();
+        for (OperationMetrics metrics : operations.values()) {
+            snapshots.put(metrics.getName(), metrics.snapshot());
+        }
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    public void report(MetricsReporter reporter) {
+        reporter.report(snapshot());
+    }
+
+    /**
+     * Reports to the reporter periodically on a daemon thread until the returned handle is
+     * closed. A reporter that throws is still called at the next period.
+     * @param reporter the reporter to call
+     * @param period the time between reports
+     * @param unit the unit of the period
+     * @return the handle stopping the reports
+     */
+    public Closeable schedule(MetricsReporter reporter, long period, TimeUnit unit) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "divroll-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                report(reporter);
+            } catch (RuntimeException ignored) {
+                // keep reporting
+            }
+        }, period, period, unit);
+        return scheduler::shutdownNow;
+    }
+}
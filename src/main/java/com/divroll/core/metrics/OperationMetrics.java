@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of one operation: latency in nanoseconds, payload sizes, result counts and
+ * errors by exception type.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public final class OperationMetrics {
+
+    private final String name;
+    private final Histogram latency = new Histogram();
+    private final Histogram payloadBytes = new Histogram();
+    private final Histogram resultCounts = new Histogram();
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordSuccess(long latencyNanos, long payloadBytes, long resultCount) {
+        latency.record(latencyNanos);
+        if (payloadBytes >= 0) {
+            this.payloadBytes.record(payloadBytes);
+        }
+        if (resultCount >= 0) {
+            resultCounts.record(resultCount);
+        }
+    }
+
+    /**
+     * Records a failed call, counted under the simple name of the exception class.
+     */
+    public void recordFailure(long latencyNanos, Throwable error) {
+        latency.record(latencyNanos);
+        String type = error != null ? error.getClass().getSimpleName() : "Unknown";
+        errors.computeIfAbsent(type, key -> new LongAdder()).increment();
+    }
+
+    public OperationSnapshot snapshot() {
+        Map<String, Long> errorCounts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : errors.entrySet()) {
+            errorCounts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new OperationSnapshot(name, latency.snapshot(), payloadBytes.snapshot(), resultCounts.snapshot(),
+                Collections.unmodifiableMap(errorCounts));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.metrics;
+
+import java.util.Map;
+
+/**
+ * An immutable view of an {@link OperationMetrics} at one point in time.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public final class OperationSnapshot {
+
+    private final String name;
+    private final HistogramSnapshot latency;
+    private final HistogramSnapshot payloadBytes;
+    private final HistogramSnapshot resultCounts;
+    private final Map<String, Long> errors;
+
+    OperationSnapshot(String name, HistogramSnapshot latency, HistogramSnapshot payloadBytes,
+                      HistogramSnapshot resultCounts, Map<String, Long> errors) {
+        this.name = name;
+        this.latency = latency;
+        this.payloadBytes = payloadBytes;
+        this.resultCounts = resultCounts;
+        this.errors = errors;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the latencies of all calls, successful or not, in nanoseconds
+     */
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    public HistogramSnapshot getPayloadBytes() {
+        return payloadBytes;
+    }
+
+    public HistogramSnapshot getResultCounts() {
+        return resultCounts;
+    }
+
+    /**
+     * @return the number of failed calls by simple exception class name
+     */
+    public Map<String, Long> getErrors() {
+        return errors;
+    }
+
+    public long getErrorCount() {
+        long total = 0;
+        for (long count : errors.values()) {
+            total += count;
+        }
+        return total;
+    }
+}
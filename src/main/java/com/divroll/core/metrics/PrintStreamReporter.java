@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.metrics;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints one line per operation with its call count, errors and latency percentiles in
+ * milliseconds.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class PrintStreamReporter implements MetricsReporter {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final PrintStream out;
+
+    public PrintStreamReporter(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void report(Map<String, OperationSnapshot> snapshots) {
+        StringBuilder report = new StringBuilder();
+        for (OperationSnapshot snapshot : snapshots.values()) {
+            HistogramSnapshot latency = snapshot.getLatency();
+            report.append(String.format("%s count=%d errors=%d p50=%.3fms p99=%.3fms max=%.3fms%n",
+                    snapshot.getName(), latency.getCount(), snapshot.getErrorCount(),
+                    latency.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                    latency.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    latency.getMax() / NANOS_PER_MILLI));
+        }
+        out.print(report);
+        out.flush();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.query;
+
+import com.divroll.sdkapi.Condition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable node of a {@link QueryPlan}.
+ *
+ * Leaves select the rows matching a single positive condition, or every row. Inner nodes
+ * combine their children: an intersection keeps its children ordered by ascending
+ * estimated cardinality so that the most selective child drives execution, a union
+ * merges its children and a minus removes the rows of its second child from its first.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public final class PlanNode {
+
+    public enum Kind {
+        EMPTY, ALL, LEAF, INTERSECT, UNION, MINUS
+    }
+
+    private static final PlanNode EMPTY = new PlanNode(Kind.EMPTY, null, Collections.<PlanNode>emptyList(), 0);
+
+    private final Kind kind;
+    private final Condition condition;
+    private final List<PlanNode> children;
+    private final long estimate;
+
+    private PlanNode(Kind kind, Condition condition, List<PlanNode> children, long estimate) {
+        this.kind = kind;
+        this.condition = condition;
+        this.children = children;
+        this.estimate = estimate;
+    }
+
+    static PlanNode empty() {
+        return EMPTY;
+    }
+
+    static PlanNode all(long estimate) {
+        return estimate == 0 ? EMPTY : new PlanNode(Kind.ALL, null, Collections.<PlanNode>emptyList(), estimate);
+    }
+
+    static PlanNode leaf(Condition condition, long estimate) {
+        return estimate == 0 ? EMPTY : new PlanNode(Kind.LEAF, condition, Collections.<PlanNode>emptyList(), estimate);
+    }
+
+    static PlanNode combine(Kind kind, List<PlanNode> children, long estimate) {
+        return new PlanNode(kind, null, Collections.unmodifiableList(new ArrayList<>(children)), estimate);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the condition selected by a leaf.
+     * @return the condition, or null if this node is not a leaf
+     */
+    public Condition getCondition() {
+        return condition;
+    }
+
+    public List<PlanNode> getChildren() {
+        return children;
+    }
+
+    /**
+     * Returns the estimated number of rows this node produces.
+     * @return the estimated number of rows, an upper bound for inner nodes
+     */
+    public long getEstimate() {
+        return estimate;
+    }
+
+    public boolean isEmpty() {
+        return kind == Kind.EMPTY;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        explain(sb, 0);
+        return sb.toString();
+    }
+
+    private void explain(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth; i++) {
+            sb.append("  ");
+        }
+        sb.append(kind);
+        if (condition != null) {
+            sb.append(' ').append(condition.getClass().getSimpleName()).append('(').append(condition.getProperty()).append(')');
+        }
+        sb.append(" ~").append(estimate).append('\n');
+        for (PlanNode child : children) {
+            child.explain(sb, depth + 1);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.query;
+
+import com.divroll.core.EntityStoreException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * An immutable, executable plan produced by the {@link QueryPlanner}.
+ *
+ * Execution is lazy: rows stream out of the plan in key order, so {@code max} and
+ * {@code skip} stop the work as soon as enough rows were produced rather than after
+ * evaluating every branch in full. Intersections are driven by their most selective
+ * child and probe the others; subtractions probe their second child.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public final class QueryPlan {
+
+    private final PlanNode root;
+    private final int max;
+    private final long skip;
+
+    QueryPlan(PlanNode root, Integer max, Long skip) {
+        this.root = root;
+        this.max = max != null ? max : Integer.MAX_VALUE;
+        this.skip = skip != null ? skip : 0;
+    }
+
+    public PlanNode getRoot() {
+        return root;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public long getSkip() {
+        return skip;
+    }
+
+    /**
+     * Returns true if the plan is known to produce no rows without executing it.
+     * @return true if the plan is empty
+     */
+    public boolean isEmpty() {
+        return root.isEmpty() || max <= 0;
+    }
+
+    /**
+     * Executes the plan.
+     * @param source the data source to execute against, the one the plan was made for
+     * @return the keys of the matching rows in ascending order, after skip and max are applied
+     * @throws EntityStoreException if the source fails to select a condition
+     */
+    public List<Long> execute(QuerySource source) throws EntityStoreException {
+        return execute(source, null);
+    }
+
+    /**
+     * Executes the plan starting right after a key, which lets cursors resume in O(log n)
+     * instead of skipping every row before their position.
+     * @param source the data source to execute against, the one the plan was made for
+     * @param after the key to start after, or null to start at the first row
+     * @return the keys of the matching rows greater than after in ascending order, after skip and max are applied
+     * @throws EntityStoreException if the source fails to select a condition
+     */
+    public List<Long> execute(QuerySource source, Long after) throws EntityStoreException {
+        List<Long> keys = new ArrayList<>();
+        if (isEmpty()) {
+            return keys;
+        }
+        Iterator<Long> rows = iterate(root, source, after);
+        long toSkip = skip;
+        while (rows.hasNext() && keys.size() < max) {
+            Long key = rows.next();
+            if (toSkip > 0) {
+                toSkip--;
+            } else {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return root.toString() + "max=" + max + " skip=" + skip;
+    }
+
+    private static Iterator<Long> iterate(PlanNode node, QuerySource source, Long after) throws EntityStoreException {
+        switch (node.getKind()) {
+            case ALL:
+                return tail(source.all(), after).iterator();
+            case LEAF:
+                return tail(source.select(node.getCondition()), after).iterator();
+            case INTERSECT: {
+                List<PlanNode> children = node.getChildren();
+                List<NavigableSet<Long>> probes = new ArrayList<>(children.size() - 1);
+                for (PlanNode child : children.subList(1, children.size())) {
+                    probes.add(materialize(child, source));
+                }
+                return new FilterIterator(iterate(children.get(0), source, after), probes, true);
+            }
+            case MINUS: {
+                List<PlanNode> children = node.getChildren();
+                return new FilterIterator(iterate(children.get(0), source, after),
+                        Collections.singletonList(materialize(children.get(1), source)), false);
+            }
+            case UNION: {
+                List<Iterator<Long>> members = new ArrayList<>();
+                for (PlanNode child : node.getChildren()) {
+                    members.add(iterate(child, source, after));
+                }
+                return new MergeIterator(members);
+            }
+            default:
+                return Collections.emptyIterator();
+        }
+    }
+
+    private static NavigableSet<Long> materialize(PlanNode node, QuerySource source) throws EntityStoreException {
+        switch (node.getKind()) {
+            case ALL:
+                return source.all();
+            case LEAF:
+                return source.select(node.getCondition());
+            case EMPTY:
+                return Collections.emptyNavigableSet();
+            default:
+                NavigableSet<Long> keys = new TreeSet<>();
+                Iterator<Long> rows = iterate(node, source, null);
+                while (rows.hasNext()) {
+                    keys.add(rows.next());
+                }
+                return keys;
+        }
+    }
+
+    private static NavigableSet<Long> tail(NavigableSet<Long> keys, Long after) {
+        return after != null ? keys.tailSet(after, false) : keys;
+    }
+
+    /**
+     * Passes the keys of a driver that are contained in all probes, or in none of them.
+     */
+    private static final class FilterIterator implements Iterator<Long> {
+
+        private final Iterator<Long> driver;
+        private final List<NavigableSet<Long>> probes;
+        private final boolean contained;
+        private Long next;
+
+        private FilterIterator(Iterator<Long> driver, List<NavigableSet<Long>> probes, boolean contained) {
+            this.driver = driver;
+            this.probes = probes;
+            this.contained = contained;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && driver.hasNext()) {
+                Long candidate = driver.next();
+                if (accepts(candidate)) {
+                    next = candidate;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Long key = next;
+            next = null;
+            return key;
+        }
+
+        private boolean accepts(Long key) {
+            for (NavigableSet<Long> probe : probes) {
+                if (probe.contains(key) != contained) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Merges ascending iterators into one ascending iterator without duplicates.
+     */
+    private static final class MergeIterator implements Iterator<Long> {
+
+        private final List<Iterator<Long>> members;
+        private final Long[] heads;
+
+        private MergeIterator(List<Iterator<Long>> members) {
+            this.members = members;
+            this.heads = new Long[members.size()];
+            for (int i = 0; i < heads.length; i++) {
+                advance(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (Long head : heads) {
+                if (head != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Long next() {
+            Long smallest = null;
+            for (Long head : heads) {
+                if (head != null && (smallest == null || head < smallest)) {
+                    smallest = head;
+                }
+            }
+            if (smallest == null) {
+                throw new NoSuchElementException();
+            }
+            for (int i = 0; i < heads.length; i++) {
+                if (smallest.equals(heads[i])) {
+                    advance(i);
+                }
+            }
+            return smallest;
+        }
+
+        private void advance(int i) {
+            Iterator<Long> member = members.get(i);
+            heads[i] = member.hasNext() ? member.next() : null;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.query;
+
+import com.divroll.core.EntityStoreException;
+import com.divroll.sdkapi.BinaryOperation;
+import com.divroll.sdkapi.Concat;
+import com.divroll.sdkapi.Condition;
+import com.divroll.sdkapi.Equal;
+import com.divroll.sdkapi.Intersect;
+import com.divroll.sdkapi.Minus;
+import com.divroll.sdkapi.NotEqual;
+import com.divroll.sdkapi.NotStartsWith;
+import com.divroll.sdkapi.StartsWith;
+import com.divroll.sdkapi.Union;
+import com.divroll.sdkapi.WithBlob;
+import com.divroll.sdkapi.WithoutBlob;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compiles a {@link Condition} tree into an immutable {@link QueryPlan}.
+ *
+ * The planner rewrites negations ({@link NotEqual}, {@link NotStartsWith}, {@link WithoutBlob})
+ * into subtractions from the positive condition, flattens nested intersections and unions,
+ * orders intersections by the estimated selectivity reported by the {@link QuerySource},
+ * folds negated members of an intersection into a single subtraction and prunes branches
+ * that cannot match. Unions and concatenations both produce rows in key order, each row once.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class QueryPlanner {
+
+    /**
+     * Plans a condition against a data source.
+     * @param condition the condition to plan, or null to select every row
+     * @param max the maximum number of rows to return, or null for no limit
+     * @param skip the number of rows to skip, or null to skip none
+     * @param source the data source supplying the estimates
+     * @return the plan
+     * @throws EntityStoreException if the condition is not supported by the source
+     */
+    public QueryPlan plan(Condition condition, Integer max, Long skip, QuerySource source) throws EntityStoreException {
+        long total = source.all().size();
+        PlanNode root = condition != null ? new Builder(source, total).build(condition) : PlanNode.all(total);
+        return new QueryPlan(root, max, skip);
+    }
+
+    private static final class Builder {
+
+        private final QuerySource source;
+        private final long total;
+
+        private Builder(QuerySource source, long total) {
+            this.source = source;
+            this.total = total;
+        }
+
+        private PlanNode build(Condition condition) throws EntityStoreException {
+            PlanNode node = single(condition);
+            for (BinaryOperation operation : condition.getOperations()) {
+                PlanNode other = build(operation.getCondition());
+                if (operation instanceof Intersect) {
+                    node = intersect(node, other);
+                } else if (operation instanceof Union || operation instanceof Concat) {
+                    node = union(node, other);
+                } else if (operation instanceof Minus) {
+                    node = minus(node, other);
+                } else {
+                    throw new EntityStoreException(String.format("Unsupported operation %s", operation.getClass().getSimpleName()));
+                }
+            }
+            return node;
+        }
+
+        private PlanNode single(Condition condition) throws EntityStoreException {
+            if (condition instanceof NotEqual) {
+                return not(new Equal(condition.getProperty(), ((NotEqual) condition).getValue()));
+            } else if (condition instanceof NotStartsWith) {
+                return not(new StartsWith(condition.getProperty(), ((NotStartsWith) condition).getValue()));
+            } else if (condition instanceof WithoutBlob) {
+                return not(new WithBlob(condition.getProperty()));
+            }
+            return PlanNode.leaf(condition, Math.min(total, source.estimate(condition)));
+        }
+
+        private PlanNode not(Condition condition) throws EntityStoreException {
+            return minus(PlanNode.all(total), PlanNode.leaf(condition, Math.min(total, source.estimate(condition))));
+        }
+
+        private PlanNode intersect(PlanNode left, PlanNode right) {
+            if (left.isEmpty() || right.isEmpty()) {
+                return PlanNode.empty();
+            }
+            List<PlanNode> members = new ArrayList<>();
+            addFlattened(members, left, PlanNode.Kind.INTERSECT);
+            addFlattened(members, right, PlanNode.Kind.INTERSECT);
+            List<PlanNode> positives = new ArrayList<>();
+            List<PlanNode> excluded = new ArrayList<>();
+            for (PlanNode member : members) {
+                if (isNegation(member)) {
+                    excluded.add(member.getChildren().get(1));
+                } else if (member.getKind() != PlanNode.Kind.ALL) {
+                    positives.add(member);
+                }
+            }
+            PlanNode node;
+            if (positives.isEmpty()) {
+                node = PlanNode.all(total);
+            } else if (positives.size() == 1) {
+                node = positives.get(0);
+            } else {
+                positives.sort(Comparator.comparingLong(PlanNode::getEstimate));
+                node = PlanNode.combine(PlanNode.Kind.INTERSECT, positives, positives.get(0).getEstimate());
+            }
+            for (PlanNode subtrahend : excluded) {
+                node = minus(node, subtrahend);
+            }
+            return node;
+        }
+
+        private PlanNode union(PlanNode left, PlanNode right) {
+            if (left.isEmpty()) {
+                return right;
+            } else if (right.isEmpty()) {
+                return left;
+            } else if (left.getKind() == PlanNode.Kind.ALL || right.getKind() == PlanNode.Kind.ALL) {
+                return PlanNode.all(total);
+            }
+            List<PlanNode> members = new ArrayList<>();
+            addFlattened(members, left, PlanNode.Kind.UNION);
+            addFlattened(members, right, PlanNode.Kind.UNION);
+            long estimate = 0;
+            for (PlanNode member : members) {
+                estimate += member.getEstimate();
+            }
+            return PlanNode.combine(PlanNode.Kind.UNION, members, Math.min(total, estimate));
+        }
+
+        private PlanNode minus(PlanNode left, PlanNode right) {
+            if (left.isEmpty() || right.getKind() == PlanNode.Kind.ALL) {
+                return PlanNode.empty();
+            } else if (right.isEmpty()) {
+                return left;
+            } else if (left.getKind() == PlanNode.Kind.MINUS) {
+                List<PlanNode> children = left.getChildren();
+                return minus(children.get(0), union(children.get(1), right));
+            }
+            return PlanNode.combine(PlanNode.Kind.MINUS, Arrays.asList(left, right), left.getEstimate());
+        }
+
+        private static boolean isNegation(PlanNode node) {
+            return node.getKind() == PlanNode.Kind.MINUS && node.getChildren().get(0).getKind() == PlanNode.Kind.ALL;
+        }
+
+        private static void addFlattened(List<PlanNode> members, PlanNode node, PlanNode.Kind kind) {
+            if (node.getKind() == kind) {
+                members.addAll(node.getChildren());
+            } else {
+                members.add(node);
+            }
+        }
+    }
+}
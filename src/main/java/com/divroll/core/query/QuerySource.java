@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.query;
+
+import com.divroll.core.EntityStoreException;
+import com.divroll.sdkapi.Condition;
+
+import java.util.NavigableSet;
+
+/**
+ * A data source a {@link QueryPlan} can be executed against, such as the entities of one type.
+ *
+ * Rows are identified by ascending {@code long} keys. Sources only answer single,
+ * positive conditions ({@link com.divroll.sdkapi.Equal}, {@link com.divroll.sdkapi.StartsWith},
+ * {@link com.divroll.sdkapi.InRange}, {@link com.divroll.sdkapi.Contains},
+ * {@link com.divroll.sdkapi.WithBlob} and {@link com.divroll.sdkapi.HasLink}) and must
+ * ignore the operations chained onto them; negations and combinations are handled by
+ * the plan.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public interface QuerySource {
+
+    /**
+     * Returns the keys of all rows.
+     * @return the keys in ascending order
+     */
+    NavigableSet<Long> all();
+
+    /**
+     * Returns the keys of the rows matching a single condition.
+     * @param condition the condition to match
+     * @return the matching keys in ascending order
+     * @throws EntityStoreException if the condition is not supported
+     */
+    NavigableSet<Long> select(Condition condition) throws EntityStoreException;
+
+    /**
+     * Estimates the number of rows matching a single condition without selecting them.
+     * Estimates are used to order intersections and to prune empty branches, so a
+     * source must only return 0 if no row can match.
+     * @param condition the condition to estimate
+     * @return the estimated number of matching rows
+     * @throws EntityStoreException if the condition is not supported
+     */
+    long estimate(Condition condition) throws EntityStoreException;
+}
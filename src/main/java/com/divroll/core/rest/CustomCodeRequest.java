@@ -22,9 +22,10 @@ package com.divroll.core.rest;
 
 import com.divroll.core.MethodVerb;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Map;
-import java.util.Scanner;
 
 /**
  * The CustomCodeRequest class represents a request made to a custom code method.
@@ -32,8 +33,9 @@ import java.util.Scanner;
  * any parameters passed with the request, the body of the request as an InputStream,
  * the name of the method being called, and a counter for tracking the number of requests.
  *
- * This class provides getter methods for all these properties. It also provides a method
- * to get the body of the request as a String.
+ * This class provides getter methods for all these properties. The body is also available
+ * as a {@link RequestBody}, which buffers it once so it can be read repeatedly, or streams
+ * it with a size limit.
  *
  * @author <a href="mailto:kerby@divroll.com">Kerby Martino</a>
  * @version 0-SNAPSHOT
@@ -42,7 +44,8 @@ import java.util.Scanner;
 public class CustomCodeRequest {
 	private final MethodVerb verb;
 	private final String url;
-	private final InputStream body;
+	private final RequestBody body;
+	private BodyStream bodyStream;
 	private final Map<String, String> params;
 	private final String methodName;
 	private final long counter;
@@ -53,12 +56,22 @@ public class CustomCodeRequest {
 							 InputStream body,
 							 String methodName,
 							 long counter) {
+		this(verb, url, params, body, methodName, counter, RequestBody.DEFAULT_MAX_BUFFERED_BYTES);
+	}
+
+	public CustomCodeRequest(MethodVerb verb,
+							 String url,
+							 Map<String, String> params,
+							 InputStream body,
+							 String methodName,
+							 long counter,
+							 int maxBufferedBodyBytes) {
 		this.verb = verb;
 		this.url = url;
 		this.methodName = methodName;
 		this.params = params;
 		this.counter = counter;
-		this.body = body;
+		this.body = body != null ? new RequestBody(body, maxBufferedBodyBytes) : null;
 	}
 
 	public MethodVerb getVerb() {
@@ -81,16 +94,95 @@ public class CustomCodeRequest {
 		return counter;
 	}
 
+	/**
+	 * Returns the body as a stream. Every call returns the same stream, which reads from
+	 * memory if the body has been buffered before the stream is first read.
+	 * @return the body stream, or null if the request has no body
+	 */
 	public InputStream getBody() {
+		if (body == null) {
+			return null;
+		}
+		if (bodyStream == null) {
+			bodyStream = new BodyStream(body);
+		}
+		return bodyStream;
+	}
+
+	/**
+	 * @return the body of the request, or null if the request has no body
+	 */
+	public RequestBody getRequestBody() {
 		return body;
 	}
 
+	/**
+	 * Returns the body decoded as UTF-8. The body is buffered on the first call, so later
+	 * calls return the same content. If the stream of {@link #getBody()} has already been
+	 * read from, the rest of that stream is returned instead.
+	 * @return the body as a string, or null if the request has no body
+	 * @throws UncheckedIOException if reading the body fails or it exceeds the buffer limit
+	 */
 	public String getStringBody() {
 		if(body != null) {
-			try (Scanner scanner = new Scanner(body, "UTF-8")) {
-				return scanner.useDelimiter("\\A").next();
+			try {
+				return bodyStream != null && bodyStream.isOpened()
+						? new RequestBody(bodyStream, body.getMaxBufferedBytes()).asString()
+						: body.asString();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
 			}
 		}
 		return null;
 	}
+
+	/**
+	 * The stream returned by {@link #getBody()}, opened on its first read so the body can
+	 * still be buffered until then.
+	 */
+	private static final class BodyStream extends InputStream {
+
+		private final RequestBody body;
+		private InputStream in;
+
+		private BodyStream(RequestBody body) {
+			this.body = body;
+		}
+
+		boolean isOpened() {
+			return in != null;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return in().read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return in().read(b, off, len);
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			return in().skip(n);
+		}
+
+		@Override
+		public int available() throws IOException {
+			return in().available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			in().close();
+		}
+
+		private InputStream in() {
+			if (in == null) {
+				in = body.openStream(Long.MAX_VALUE);
+			}
+			return in;
+		}
+	}
 }
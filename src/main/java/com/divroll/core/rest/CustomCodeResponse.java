@@ -24,8 +24,8 @@ import java.util.Map;
 
 /**
  * The CustomCodeResponse class represents the response from a custom code method.
- * It encapsulates details about the HTTP response status, the response body as a byte array,
- * and the response as a map.
+ * It encapsulates details about the HTTP response status, the response body as a byte array
+ * or as a streaming {@link ResponseBody}, and the response as a map.
  *
  * This class provides getter methods for all these properties.
  *
@@ -37,10 +37,20 @@ public class CustomCodeResponse {
 	private final int responseStatus;
 	private Map<String, ?> responseMap = null;
 	private byte[] responseBody = null;
+	private ResponseBody streamingBody = null;
 	public CustomCodeResponse(int responseCode, byte[] responseBody) {
 		this.responseStatus = responseCode;
 		this.responseBody = responseBody;
 	}
+	/**
+	 * Creates a response whose body is written to the client as it is produced.
+	 * @param responseCode the HTTP status
+	 * @param streamingBody the body to stream
+	 */
+	public CustomCodeResponse(int responseCode, ResponseBody streamingBody) {
+		this.responseStatus = responseCode;
+		this.streamingBody = streamingBody;
+	}
 	public CustomCodeResponse(int responseCode, Map<String, ?> responseMap) {
 		this.responseStatus = responseCode;
 		this.responseMap = responseMap;
@@ -54,4 +64,10 @@ public class CustomCodeResponse {
 	public byte[] getResponseBody() {
 		return responseBody;
 	}
+	public ResponseBody getStreamingBody() {
+		return streamingBody;
+	}
+	public boolean isStreaming() {
+		return streamingBody != null;
+	}
 }
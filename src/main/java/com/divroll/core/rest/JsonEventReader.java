@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.rest;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * An incremental pull parser for JSON. Each call to {@link #next()} reads just enough input
+ * to return the next event, so arbitrarily large documents are processed in constant memory
+ * apart from the current string or number. Several top-level values in a row, as in
+ * newline-delimited JSON, are read one after another.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class JsonEventReader implements Closeable {
+
+	public enum Event {
+		START_OBJECT,
+		END_OBJECT,
+		START_ARRAY,
+		END_ARRAY,
+		FIELD_NAME,
+		STRING,
+		NUMBER,
+		TRUE,
+		FALSE,
+		NULL
+	}
+
+	private static final Pattern NUMBER = Pattern.compile("-?(?:0|[1-9][0-9]*)(?:\\.[0-9]+)?(?:[eE][+-]?[0-9]+)?");
+
+	private static final int TOP = 0;
+	private static final int VALUE = 1;
+	private static final int VALUE_OR_END = 2;
+	private static final int NAME = 3;
+	private static final int NAME_OR_END = 4;
+	private static final int COLON = 5;
+	private static final int COMMA_OR_END = 6;
+
+	private final Reader reader;
+	private final char[] buffer = new char[8192];
+	private int position;
+	private int limit;
+	private long offset;
+
+	private char[] stack = new char[32];
+	private int depth;
+	private int state = TOP;
+	private final StringBuilder text = new StringBuilder();
+	private Event event;
+
+	public JsonEventReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * @return the next event, or {@code null} once the input ends after a complete value
+	 * @throws IOException if reading fails or the input is not valid JSON
+	 */
+	public Event next() throws IOException {
+		event = read();
+		return event;
+	}
+
+	/**
+	 * @return the text of the current field name, string or number event
+	 */
+	public String getText() {
+		if (event != Event.FIELD_NAME && event != Event.STRING && event != Event.NUMBER) {
+			throw new IllegalStateException("No text for event " + event);
+		}
+		return text.toString();
+	}
+
+	public long getLong() {
+		checkNumber();
+		return Long.parseLong(text.toString());
+	}
+
+	public double getDouble() {
+		checkNumber();
+		return Double.parseDouble(text.toString());
+	}
+
+	/**
+	 * @return the number of objects and arrays enclosing the current position
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Skips the value whose first event was just returned, up to and including its end event.
+	 * Does nothing for a scalar value.
+	 */
+	public void skipValue() throws IOException {
+		if (event != Event.START_OBJECT && event != Event.START_ARRAY) {
+			return;
+		}
+		int target = depth - 1;
+		while (depth > target) {
+			if (next() == null) {
+				throw new EOFException("Unexpected end of JSON input");
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private Event read() throws IOException {
+		while (true) {
+			int c = skipWhitespace();
+			if (c == -1) {
+				if (state == TOP) {
+					return null;
+				}
+				throw new EOFException("Unexpected end of JSON input at offset " + offset);
+			}
+			switch (state) {
+				case VALUE_OR_END:
+					if (c == ']') {
+						return end();
+					}
+					return readValue(c);
+				case TOP:
+				case VALUE:
+					return readValue(c);
+				case NAME_OR_END:
+					if (c == '}') {
+						return end();
+					}
+					return readFieldName(c);
+				case NAME:
+					return readFieldName(c);
+				case COLON:
+					if (c != ':') {
+						throw malformed("':'");
+					}
+					state = VALUE;
+					break;
+				default:
+					char container = stack[depth - 1];
+					if (c == ',') {
+						state = container == '{' ? NAME : VALUE;
+					} else if ((container == '{' && c == '}') || (container == '[' && c == ']')) {
+						return end();
+					} else {
+						throw malformed("',' or end of " + (container == '{' ? "object" : "array"));
+					}
+					break;
+			}
+		}
+	}
+
+	private Event readFieldName(int c) throws IOException {
+		if (c != '"') {
+			throw malformed("field name");
+		}
+		readString();
+		state = COLON;
+		return Event.FIELD_NAME;
+	}
+
+	private Event readValue(int c) throws IOException {
+		switch (c) {
+			case '{':
+				push('{');
+				state = NAME_OR_END;
+				return Event.START_OBJECT;
+			case '[':
+				push('[');
+				state = VALUE_OR_END;
+				return Event.START_ARRAY;
+			case '"':
+				readString();
+				afterValue();
+				return Event.STRING;
+			case 't':
+				expect("rue");
+				afterValue();
+				return Event.TRUE;
+			case 'f':
+				expect("alse");
+				afterValue();
+				return Event.FALSE;
+			case 'n':
+				expect("ull");
+				afterValue();
+				return Event.NULL;
+			default:
+				if (c == '-' || (c >= '0' && c <= '9')) {
+					readNumber((char) c);
+					afterValue();
+					return Event.NUMBER;
+				}
+				throw malformed("value");
+		}
+	}
+
+	private Event end() {
+		Event end = stack[--depth] == '{' ? Event.END_OBJECT : Event.END_ARRAY;
+		afterValue();
+		return end;
+	}
+
+	private void afterValue() {
+		state = depth == 0 ? TOP : COMMA_OR_END;
+	}
+
+	private void push(char container) {
+		if (depth == stack.length) {
+			stack = Arrays.copyOf(stack, depth * 2);
+		}
+		stack[depth++] = container;
+	}
+
+	private void readString() throws IOException {
+		text.setLength(0);
+		while (true) {
+			int c = nextChar();
+			if (c == '"') {
+				return;
+			}
+			if (c == -1) {
+				throw new EOFException("Unterminated string at offset " + offset);
+			}
+			if (c < 0x20) {
+				throw malformed("escaped control character");
+			}
+			if (c != '\\') {
+				text.append((char) c);
+				continue;
+			}
+			int escaped = nextChar();
+			switch (escaped) {
+				case '"':
+				case '\\':
+				case '/':
+					text.append((char) escaped);
+					break;
+				case 'b':
+					text.append('\b');
+					break;
+				case 'f':
+					text.append('\f');
+					break;
+				case 'n':
+					text.append('\n');
+					break;
+				case 'r':
+					text.append('\r');
+					break;
+				case 't':
+					text.append('\t');
+					break;
+				case 'u':
+					int code = 0;
+					for (int i = 0; i < 4; i++) {
+						int digit = Character.digit(nextChar(), 16);
+						if (digit < 0) {
+							throw malformed("hex digit");
+						}
+						code = (code << 4) | digit;
+					}
+					text.append((char) code);
+					break;
+				default:
+					throw malformed("escape sequence");
+			}
+		}
+	}
+
+	private void readNumber(char first) throws IOException {
+		text.setLength(0);
+		text.append(first);
+		while (true) {
+			int c = peekChar();
+			if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+				text.append((char) nextChar());
+			} else {
+				break;
+			}
+		}
+		if (!NUMBER.matcher(text).matches()) {
+			throw malformed("number");
+		}
+	}
+
+	private void expect(String rest) throws IOException {
+		for (int i = 0; i < rest.length(); i++) {
+			if (nextChar() != rest.charAt(i)) {
+				throw malformed("literal");
+			}
+		}
+	}
+
+	private void checkNumber() {
+		if (event != Event.NUMBER) {
+			throw new IllegalStateException("Current event is " + event + ", not a number");
+		}
+	}
+
+	private int skipWhitespace() throws IOException {
+		while (true) {
+			int c = nextChar();
+			if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+				return c;
+			}
+		}
+	}
+
+	private int nextChar() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		offset++;
+		return buffer[position++];
+	}
+
+	private int peekChar() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position];
+	}
+
+	private boolean fill() throws IOException {
+		int n = reader.read(buffer, 0, buffer.length);
+		while (n == 0) {
+			n = reader.read(buffer, 0, buffer.length);
+		}
+		position = 0;
+		limit = Math.max(n, 0);
+		return n > 0;
+	}
+
+	private IOException malformed(String expected) {
+		return new IOException("Malformed JSON at offset " + offset + ": expected " + expected);
+	}
+}
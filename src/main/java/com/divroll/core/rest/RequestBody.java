@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The body of a {@link CustomCodeRequest}, readable either from memory or as a stream.
+ *
+ * The first call to {@link #asByteBuffer()}, {@link #asString()} or {@link #asReader()}
+ * reads the whole body into a single buffer, which all later calls share, so the body can be
+ * read any number of times. Buffering fails with a {@link RequestBodyTooLargeException} when
+ * the body exceeds the limit given at construction.
+ *
+ * Large bodies can instead be read once, without buffering, through {@link #openStream(long)},
+ * {@link #openReader(long)} or {@link #jsonEvents(long)}. Once a body has been streamed it can
+ * no longer be buffered. Instances are not thread-safe.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class RequestBody {
+
+	public static final int DEFAULT_MAX_BUFFERED_BYTES = 16 * 1024 * 1024;
+
+	private static final int MIN_CAPACITY = 8192;
+
+	private final InputStream source;
+	private final int maxBufferedBytes;
+	private byte[] buffer;
+	private int length;
+	private boolean streamed;
+
+	public RequestBody(InputStream source) {
+		this(source, DEFAULT_MAX_BUFFERED_BYTES);
+	}
+
+	public RequestBody(InputStream source, int maxBufferedBytes) {
+		if (source == null) {
+			throw new IllegalArgumentException("Source cannot be null");
+		}
+		if (maxBufferedBytes < 0) {
+			throw new IllegalArgumentException("maxBufferedBytes must not be negative");
+		}
+		this.source = source;
+		this.maxBufferedBytes = maxBufferedBytes;
+	}
+
+	public int getMaxBufferedBytes() {
+		return maxBufferedBytes;
+	}
+
+	public boolean isBuffered() {
+		return buffer != null;
+	}
+
+	/**
+	 * @return the buffered body as a read-only buffer sharing the body's bytes
+	 * @throws RequestBodyTooLargeException if the body exceeds the buffer limit
+	 * @throws IOException if reading the body fails
+	 * @throws IllegalStateException if the body has already been streamed
+	 */
+	public ByteBuffer asByteBuffer() throws IOException {
+		buffer();
+		return ByteBuffer.wrap(buffer, 0, length).asReadOnlyBuffer();
+	}
+
+	public String asString() throws IOException {
+		return asString(StandardCharsets.UTF_8);
+	}
+
+	public String asString(Charset charset) throws IOException {
+		buffer();
+		return new String(buffer, 0, length, charset);
+	}
+
+	public Reader asReader() throws IOException {
+		return asReader(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return a new reader over the buffered body
+	 * @throws RequestBodyTooLargeException if the body exceeds the buffer limit
+	 * @throws IOException if reading the body fails
+	 */
+	public Reader asReader(Charset charset) throws IOException {
+		buffer();
+		return new InputStreamReader(new ByteArrayInputStream(buffer, 0, length), charset);
+	}
+
+	/**
+	 * Opens the body as a stream. A buffered body is read from memory; otherwise the stream
+	 * reads the request directly and can only be opened once.
+	 * @param maxBytes the most bytes the stream may read before it fails with a
+	 *                 {@link RequestBodyTooLargeException}
+	 * @return the body stream
+	 */
+	public InputStream openStream(long maxBytes) {
+		if (buffer != null) {
+			return new BoundedInputStream(new ByteArrayInputStream(buffer, 0, length), maxBytes);
+		}
+		checkNotStreamed();
+		streamed = true;
+		return new BoundedInputStream(source, maxBytes);
+	}
+
+	public Reader openReader(long maxBytes) {
+		return openReader(maxBytes, StandardCharsets.UTF_8);
+	}
+
+	public Reader openReader(long maxBytes, Charset charset) {
+		return new InputStreamReader(openStream(maxBytes), charset);
+	}
+
+	/**
+	 * Reads the body as a sequence of JSON events without buffering it. A body holding
+	 * several top-level values, such as newline-delimited JSON, yields them one after another.
+	 * @param maxBytes the most bytes to read from the body
+	 * @return the event reader
+	 */
+	public JsonEventReader jsonEvents(long maxBytes) {
+		return new JsonEventReader(openReader(maxBytes));
+	}
+
+	private void buffer() throws IOException {
+		if (buffer != null) {
+			return;
+		}
+		checkNotStreamed();
+		byte[] bytes = new byte[Math.min(maxBufferedBytes, Math.max(MIN_CAPACITY, source.available()))];
+		int count = 0;
+		while (true) {
+			if (count == bytes.length) {
+				if (count == maxBufferedBytes) {
+					if (source.read() == -1) {
+						break;
+					}
+					streamed = true;
+					throw new RequestBodyTooLargeException(maxBufferedBytes);
+				}
+				bytes = Arrays.copyOf(bytes, (int) Math.min(maxBufferedBytes, Math.max(MIN_CAPACITY, 2L * count)));
+			}
+			int n = source.read(bytes, count, bytes.length - count);
+			if (n == -1) {
+				break;
+			}
+			count += n;
+		}
+		buffer = bytes;
+		length = count;
+	}
+
+	private void checkNotStreamed() {
+		if (streamed) {
+			throw new IllegalStateException("Body has already been streamed");
+		}
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.rest;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request body is larger than the limit set for reading it.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public class RequestBodyTooLargeException extends IOException {
+
+	private final long limit;
+
+	public RequestBodyTooLargeException(long limit) {
+		super(String.format("Request body exceeds the limit of %d bytes", limit));
+		this.limit = limit;
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.rest;
+
+import com.divroll.sdkapi.BlobHandle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@link ResponseBody} implementations.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+final class ResponseBodies {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private ResponseBodies() {
+	}
+
+	static final class BufferBody implements ResponseBody {
+
+		private final ByteBuffer[] buffers;
+		private final long contentLength;
+
+		BufferBody(ByteBuffer... buffers) {
+			this.buffers = buffers;
+			long length = 0;
+			for (ByteBuffer buffer : buffers) {
+				length += buffer.remaining();
+			}
+			this.contentLength = length;
+		}
+
+		@Override
+		public long getContentLength() {
+			return contentLength;
+		}
+
+		@Override
+		public void writeTo(WritableByteChannel channel) throws IOException {
+			for (ByteBuffer buffer : buffers) {
+				ByteBuffer view = buffer.duplicate();
+				while (view.hasRemaining()) {
+					channel.write(view);
+				}
+			}
+		}
+
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			for (ByteBuffer buffer : buffers) {
+				if (buffer.hasArray()) {
+					out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+				} else {
+					WritableByteChannel channel = Channels.newChannel(out);
+					ByteBuffer view = buffer.duplicate();
+					while (view.hasRemaining()) {
+						channel.write(view);
+					}
+				}
+			}
+			out.flush();
+		}
+	}
+
+	static final class FileRegionBody implements ResponseBody {
+
+		private final Path file;
+		private final long position;
+		private final long count;
+
+		FileRegionBody(Path file, long position, long count) {
+			if (position < 0 || count < 0) {
+				throw new IllegalArgumentException("File region must not be negative");
+			}
+			this.file = file;
+			this.position = position;
+			this.count = count;
+		}
+
+		@Override
+		public long getContentLength() {
+			return count;
+		}
+
+		@Override
+		public void writeTo(WritableByteChannel channel) throws IOException {
+			try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+				long written = 0;
+				while (written < count) {
+					long n = source.transferTo(position + written, count - written, channel);
+					if (n <= 0) {
+						if (position + written >= source.size()) {
+							throw new IOException("File " + file + " is shorter than the response region");
+						}
+						continue;
+					}
+					written += n;
+				}
+			}
+		}
+	}
+
+	static final class BlobRegionBody implements ResponseBody {
+
+		private final BlobHandle blob;
+		private final long offset;
+		private final long count;
+
+		BlobRegionBody(BlobHandle blob, long offset, long count) {
+			if (offset < 0 || count < 0 || offset + count > blob.size()) {
+				throw new IllegalArgumentException("Blob region " + offset + "+" + count
+						+ " is outside a blob of " + blob.size() + " bytes");
+			}
+			this.blob = blob;
+			this.offset = offset;
+			this.count = count;
+		}
+
+		@Override
+		public long getContentLength() {
+			return count;
+		}
+
+		@Override
+		public void writeTo(WritableByteChannel channel) throws IOException {
+			if (blob.transferTo(offset, count, channel) < count) {
+				throw new IOException("Blob is shorter than the response region");
+			}
+		}
+	}
+
+	static final class StreamBody implements ResponseBody {
+
+		private final InputStream in;
+		private final long contentLength;
+		private boolean written;
+
+		StreamBody(InputStream in, long contentLength) {
+			this.in = in;
+			this.contentLength = contentLength;
+		}
+
+		@Override
+		public long getContentLength() {
+			return contentLength;
+		}
+
+		@Override
+		public void writeTo(WritableByteChannel channel) throws IOException {
+			writeTo(Channels.newOutputStream(channel));
+		}
+
+		@Override
+		public synchronized void writeTo(OutputStream out) throws IOException {
+			if (written) {
+				throw new IllegalStateException("Stream body has already been written");
+			}
+			written = true;
+			try (InputStream source = in) {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int n;
+				while ((n = source.read(buffer)) != -1) {
+					out.write(buffer, 0, n);
+				}
+			}
+			out.flush();
+		}
+	}
+
+	static final class CallbackBody implements ResponseBody {
+
+		private final Writer writer;
+		private final long contentLength;
+
+		CallbackBody(Writer writer, long contentLength) {
+			this.writer = writer;
+			this.contentLength = contentLength;
+		}
+
+		@Override
+		public long getContentLength() {
+			return contentLength;
+		}
+
+		@Override
+		public void writeTo(WritableByteChannel channel) throws IOException {
+			writeTo(Channels.newOutputStream(channel));
+		}
+
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			writer.writeTo(out);
+			out.flush();
+		}
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.core.rest;
+
+import com.divroll.sdkapi.BlobHandle;
+import com.divroll.sdkapi.BlobProperty;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A response body that is written to the client as it is produced instead of being held
+ * in memory as a whole.
+ *
+ * A body with an unknown length, {@code getContentLength() < 0}, is sent with chunked
+ * transfer encoding; {@link #writeChunkedTo(OutputStream)} does the framing for hosts
+ * writing to a raw connection. Bodies over buffers, byte arrays, files and blob handles
+ * can be written any number of times, and a callback body runs its callback again on each
+ * write; a body over a stream can be written only once.
+ *
+ * @version 0-SNAPSHOT
+ * @since 0-SNAPSHOT
+ */
+public interface ResponseBody {
+
+	/**
+	 * @return the length of the body in bytes, or -1 if it is not known in advance
+	 */
+	long getContentLength();
+
+	default boolean isChunked() {
+		return getContentLength() < 0;
+	}
+
+	/**
+	 * Writes the whole body to the channel. The channel is not closed.
+	 * @param channel the channel to write to
+	 * @throws IOException if producing or writing the body fails
+	 */
+	void writeTo(WritableByteChannel channel) throws IOException;
+
+	/**
+	 * Writes the whole body to the stream and flushes it. The stream is not closed.
+	 * @param out the stream to write to
+	 * @throws IOException if producing or writing the body fails
+	 */
+	default void writeTo(OutputStream out) throws IOException {
+		writeTo(Channels.newChannel(out));
+		out.flush();
+	}
+
+	/**
+	 * Writes the body with HTTP/1.1 chunked framing, including the terminating chunk.
+	 * @param out the stream to write to, which is not closed
+	 * @throws IOException if producing or writing the body fails
+	 */
+	default void writeChunkedTo(OutputStream out) throws IOException {
+		ChunkedOutputStream chunked = new ChunkedOutputStream(out);
+		BufferedOutputStream buffered = new BufferedOutputStream(chunked, ChunkedOutputStream.DEFAULT_CHUNK_SIZE);
+		writeTo(buffered);
+		buffered.flush();
+		chunked.finish();
+	}
+
+	static ResponseBody of(byte[] bytes) {
+		return new ResponseBodies.BufferBody(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * @param buffers the buffers making up the body, written from their position to their limit
+	 * @return a body over the buffers, which are not copied and must not be modified
+	 */
+	static ResponseBody of(List<ByteBuffer> buffers) {
+		return new ResponseBodies.BufferBody(buffers.toArray(new ByteBuffer[0]));
+	}
+
+	static ResponseBody ofFile(Path file) throws IOException {
+		return new ResponseBodies.FileRegionBody(file, 0, Files.size(file));
+	}
+
+	/**
+	 * @param file the file to send
+	 * @param position the offset of the first byte to send
+	 * @param count the number of bytes to send
+	 * @return a body sending the region of the file, transferred by the operating system
+	 *         where the channel supports it
+	 */
+	static ResponseBody ofFileRegion(Path file, long position, long count) {
+		return new ResponseBodies.FileRegionBody(file, position, count);
+	}
+
+	/**
+	 * @param in the stream to send, closed once written
+	 * @param contentLength the length of the stream, or -1 if unknown
+	 * @return a body that can be written once
+	 */
+	static ResponseBody ofStream(InputStream in, long contentLength) {
+		return new ResponseBodies.StreamBody(in, contentLength);
+	}
+
+	/**
+	 * @param blob the blob to send
+	 * @return a body with a known length written straight from the blob's storage when the
+	 *         blob has a handle, otherwise a body over its stream that can be written once
+	 */
+	static ResponseBody ofBlob(BlobProperty blob) {
+		BlobHandle handle = blob.getHandle();
+		return handle != null ? ofBlob(handle, 0, handle.size()) : ofStream(blob.getValue(), -1);
+	}
+
+	/**
+	 * @param blob the blob to send
+	 * @param offset the offset of the first byte to send, as for an HTTP range request
+	 * @param count the number of bytes to send
+	 * @return a body sending the range of the blob, which can be written any number of times
+	 * @throws IllegalArgumentException if the range is not within the blob
+	 */
+	static ResponseBody ofBlob(BlobHandle blob, long offset, long count) {
+		return new ResponseBodies.BlobRegionBody(blob, offset, count);
+	}
+
+	/**
+	 * @param writer the callback producing the body
+	 * @param contentLength the number of bytes the callback writes, or -1 if unknown
+	 * @return a body that runs the callback each time it is written
+	 */
+	static ResponseBody streaming(Writer writer, long contentLength) {
+		return new ResponseBodies.CallbackBody(writer, contentLength);
+	}
+
+	static ResponseBody streaming(Writer writer) {
+		return streaming(writer, -1);
+	}
+
+	/**
+	 * Produces a response body by writing it to a stream.
+	 */
+	@FunctionalInterface
+	interface Writer {
+		void writeTo(OutputStream out) throws IOException;
+	}
+}
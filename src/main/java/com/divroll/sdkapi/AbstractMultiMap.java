@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * The operations shared by every MultiMap implementation: {@link MultiMap} keeps a
+ * {@link java.util.HashSet} per key, {@link ConcurrentMultiMap} can be shared between
+ * threads, and {@link CompactMultiMap} keeps small value sets in arrays. Each keeps its own
+ * storage; this class only adds the operations built on the others.
+ */
+public abstract class AbstractMultiMap<K, V> {
+
+    /**
+     * Adds a value to the collection associated with a specific key in the MultiMap.
+     * @param key The key with which the specified value is to be associated.
+     * @param value The value to be associated with the specified key.
+     */
+    public abstract void put(K key, V value);
+
+    /**
+     * Adds values to the collection associated with a specific key in the MultiMap.
+     * @param key The key with which the specified values are to be associated.
+     * @param values The values to be associated with the specified key.
+     */
+    public void putAll(K key, Iterable<? extends V> values) {
+        for (V value : values) {
+            put(key, value);
+        }
+    }
+
+    /**
+     * Adds every mapping of another MultiMap to this one.
+     * @param other The MultiMap whose mappings are to be added.
+     */
+    public void putAll(AbstractMultiMap<? extends K, ? extends V> other) {
+        other.forEach(this::put);
+    }
+
+    /**
+     * Gets the collection of values associated with a specific key in the MultiMap.
+     * @param key The key whose associated values are to be returned.
+     * @return A read-only view of the values associated with the specified key, or null if no mapping for the key exists.
+     */
+    public abstract Collection<V> get(K key);
+
+    /**
+     * Removes a specific value associated with a specific key in the MultiMap.
+     * @param key The key with which the specified value is associated.
+     * @param value The value to be removed from the collection of values associated with the specified key.
+     * @return true if the value was removed, false otherwise.
+     */
+    public abstract boolean remove(K key, V value);
+
+    /**
+     * Checks whether the MultiMap contains a mapping for the specified key.
+     * @param key The key whose presence in the MultiMap is to be tested.
+     * @return true if this map contains a mapping for the specified key.
+     */
+    public abstract boolean containsKey(K key);
+
+    /**
+     * Checks whether the MultiMap contains a mapping for the specified value associated with the specified key.
+     * @param key The key with which the specified value is to be associated.
+     * @param value The value whose presence in the collection of values associated with the specified key is to be tested.
+     * @return true if this map maps one or more keys to the specified value.
+     */
+    public abstract boolean containsEntry(K key, V value);
+
+    /**
+     * Returns the set of keys contained in this MultiMap.
+     * @return a read-only set view of the keys contained in this map.
+     */
+    public abstract Set<K> keySet();
+
+    /**
+     * Performs an action for every key-value mapping in this MultiMap.
+     * @param action The action to be performed for each mapping.
+     */
+    public abstract void forEach(BiConsumer<? super K, ? super V> action);
+
+    /**
+     * Returns a stream of the key-value mappings in this MultiMap.
+     * @return a stream with one entry per mapping.
+     */
+    public abstract Stream<Map.Entry<K, V>> entries();
+
+    /**
+     * Returns a stream of the values in this MultiMap, one per mapping.
+     * @return a stream of the values.
+     */
+    public abstract Stream<V> values();
+
+    /**
+     * Clears all key-value mappings from this MultiMap.
+     */
+    public abstract void clear();
+
+    /**
+     * Returns the number of key-value mappings in this MultiMap.
+     * @return the number of key-value mappings in this map.
+     */
+    public abstract int size();
+
+    /**
+     * Returns the number of keys in this MultiMap.
+     * @return the number of keys with at least one value.
+     */
+    public abstract int keyCount();
+
+    /**
+     * @return true if this MultiMap contains no mappings.
+     */
+    public boolean isEmpty() {
+        return keyCount() == 0;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A non-blocking variant of {@link DataService}. Each method mirrors the synchronous
+ * method of the same name and returns a future that completes with its result, or
+ * exceptionally with the exception the synchronous method would have thrown.
+ *
+ * A few synchronous methods have no counterpart here. Cursors from
+ * {@link DataService#openCursor(String, Condition, int, String)} and its overloads fetch
+ * their batches while they are iterated, so a future that only opens one would leave every
+ * read blocking; iterate them in a task of your own instead.
+ * {@link DataService#traverse(EntityId)} only builds a {@link Traversal} without reading,
+ * and the traversal is run here with {@link #readTraversal(Traversal)}.
+ * {@link DataService#batch()} already returns a future for every queued write.
+ *
+ * Independent reads can be issued together and composed, for example with
+ * {@link CompletableFuture#allOf(CompletableFuture[])}, so that their latencies overlap.
+ */
+public interface AsyncDataService {
+
+    /** @see DataService#createEntity(Entity) */
+    CompletableFuture<EntityId> createEntity(Entity toCreate);
+
+    /** @see DataService#createEntities(List) */
+    CompletableFuture<List<EntityId>> createEntities(List<Entity> toCreate);
+
+    /** @see DataService#createEntity(Entity, Relationship, EntityId) */
+    CompletableFuture<EntityId> createEntity(Entity toCreate, Relationship relation, EntityId relatedId);
+
+    /** @see DataService#createRelatedEntities(Entity, Relationship, Entity) */
+    CompletableFuture<EntityId> createRelatedEntities(Entity toCreate, Relationship relation, Entity relatedEntity);
+
+    /** @see DataService#createRelatedEntities(Entity, Relationship, List) */
+    CompletableFuture<EntityId> createRelatedEntities(Entity toCreate, Relationship relation, List<Entity> relatedEntities);
+
+    /** @see DataService#addRelation(EntityId, Relationship, EntityId) */
+    CompletableFuture<Entity> addRelation(EntityId toUpdate, Relationship relation, EntityId relatedId);
+
+    /** @see DataService#addRelation(EntityId, Relationship, List) */
+    CompletableFuture<Entity> addRelation(EntityId toUpdate, Relationship relation, List<EntityId> relatedIds);
+
+    /** @see DataService#readEntity(EntityId) */
+    CompletableFuture<Entity> readEntity(EntityId toRead);
+
+    /** @see DataService#readEntity(EntityId, Projection) */
+    CompletableFuture<Entity> readEntity(EntityId toRead, Projection projection);
+
+    /** @see DataService#readEntity(String, String, EntityProperty) */
+    CompletableFuture<Entity> readEntity(String type, String property, EntityProperty value);
+
+    /** @see DataService#readEntity(String, String, EntityProperty, Projection) */
+    CompletableFuture<Entity> readEntity(String type, String property, EntityProperty value, Projection projection);
+
+    /** @see DataService#readEntities(List) */
+    CompletableFuture<List<Entity>> readEntities(List<EntityId> toRead);
+
+    /** @see DataService#readEntities(List, Projection) */
+    CompletableFuture<List<Entity>> readEntities(List<EntityId> toRead, Projection projection);
+
+    /**
+     * Reads the ids in chunks like {@link DataService#multiGet(List)}, with the chunks read
+     * concurrently where the implementation allows.
+     * @see DataService#multiGet(List)
+     */
+    CompletableFuture<MultiGetResult> multiGet(List<EntityId> toRead);
+
+    /** @see DataService#readEntities(List, Condition) */
+    CompletableFuture<List<Entity>> readEntities(List<EntityId> toRead, Condition condition);
+
+    /** @see DataService#readEntities(String, Relationship, Entity) */
+    CompletableFuture<List<Entity>> readEntities(String type, Relationship relation, Entity relatedEntity);
+
+    /** @see DataService#readEntities(String, Relationship, EntityId) */
+    CompletableFuture<List<Entity>> readEntities(String type, Relationship relation, EntityId relatedId);
+
+    /** @see DataService#readRelatedEntities(EntityId, Relationship) */
+    CompletableFuture<List<Entity>> readRelatedEntities(EntityId toRead, Relationship relation);
+
+    /** @see DataService#readRelatedEntities(EntityId, Relationship, Condition) */
+    CompletableFuture<List<Entity>> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition);
+
+    /** @see DataService#readRelatedEntities(EntityId, Relationship, Condition, Projection) */
+    CompletableFuture<List<Entity>> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition, Projection projection);
+
+    /** @see DataService#readTraversal(Traversal) */
+    CompletableFuture<List<Entity>> readTraversal(Traversal traversal);
+
+    /** @see DataService#readEntities(String, Condition, Integer, Long) */
+    CompletableFuture<List<Entity>> readEntities(String type, Condition condition, Integer max, Long skip);
+
+    /** @see DataService#readEntities(String, Condition, Integer, Long, Projection) */
+    CompletableFuture<List<Entity>> readEntities(String type, Condition condition, Integer max, Long skip, Projection projection);
+
+    /** @see DataService#readEntities(Relationship, String) */
+    CompletableFuture<List<Entity>> readEntities(Relationship relation, String relatedType);
+
+    /** @see DataService#readEntities(Relationship, String, Projection) */
+    CompletableFuture<List<Entity>> readEntities(Relationship relation, String relatedType, Projection projection);
+
+    /** @see DataService#readEntities(String, Integer, Long) */
+    CompletableFuture<List<Entity>> readEntities(String type, Integer max, Long skip);
+
+    /** @see DataService#readEntities(String, Integer, Long, Projection) */
+    CompletableFuture<List<Entity>> readEntities(String type, Integer max, Long skip, Projection projection);
+
+    /** @see DataService#updateEntity(EntityId, List) */
+    CompletableFuture<Entity> updateEntity(EntityId toUpdate, List<Update> updates);
+
+    /** @see DataService#updateEntities(List, List) */
+    CompletableFuture<List<Entity>> updateEntities(List<EntityId> toUpdate, List<Update> updates);
+
+    /** @see DataService#updateEntities(String, List) */
+    CompletableFuture<List<Entity>> updateEntities(String type, List<Update> updates);
+
+    /** @see DataService#updateEntities(String, Condition, List) */
+    CompletableFuture<UpdateSummary> updateEntities(String type, Condition condition, List<Update> updates);
+
+    /** @see DataService#updateEntities(String, Condition, List, Projection, int) */
+    CompletableFuture<UpdateSummary> updateEntities(String type, Condition condition, List<Update> updates,
+            Projection projection, int sampleSize);
+
+    /** @see DataService#deleteEntity(EntityId) */
+    CompletableFuture<Boolean> deleteEntity(EntityId toDelete);
+
+    /** @see DataService#deleteEntities(List) */
+    CompletableFuture<Boolean> deleteEntities(List<EntityId> toDelete);
+
+    /** @see DataService#deleteEntities(List, Condition) */
+    CompletableFuture<Long> deleteEntities(List<EntityId> toDelete, Condition condition);
+
+    /** @see DataService#deleteEntities(Condition) */
+    CompletableFuture<Long> deleteEntities(Condition condition);
+
+    /** @see DataService#removeRelatedEntities(EntityId, Relationship, List, boolean) */
+    CompletableFuture<Void> removeRelatedEntities(EntityId toDeleteFrom, Relationship relation, List<EntityId> relatedIds, boolean cascadeDelete);
+
+    /** @see DataService#countEntities(String) */
+    CompletableFuture<Long> countEntities(String type);
+
+    /** @see DataService#getEntityTypes() */
+    CompletableFuture<Set<String>> getEntityTypes();
+}
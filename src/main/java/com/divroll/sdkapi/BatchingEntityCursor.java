@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.UncheckedEntityStoreException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Base class for cursors that fetch entities in batches of a fixed size.
+ *
+ * Subclasses fetch the next batch from wherever the previous one ended and describe the
+ * position after each returned entity as a continuation token.
+ */
+public abstract class BatchingEntityCursor implements EntityCursor {
+
+    private final int batchSize;
+    private final Deque<Entity> buffer = new ArrayDeque<>();
+    private String continuationToken;
+    private boolean exhausted;
+    private boolean closed;
+
+    protected BatchingEntityCursor(int batchSize, String continuationToken) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * Fetches the batch following the previously fetched one.
+     * @param batchSize the maximum number of entities to fetch
+     * @return the entities, fewer than batchSize only if there are no more
+     * @throws EntityStoreException if there is an error reading the entities
+     */
+    protected abstract List<Entity> fetch(int batchSize) throws EntityStoreException;
+
+    /**
+     * Returns the continuation token for the position right after an entity. Called once
+     * for every entity, in the order they are returned.
+     * @param entity the entity just returned
+     * @return the continuation token
+     */
+    protected abstract String tokenAfter(Entity entity);
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (buffer.isEmpty() && !exhausted) {
+            try {
+                List<Entity> batch = fetch(batchSize);
+                exhausted = batch.size() < batchSize;
+                buffer.addAll(batch);
+            } catch (EntityStoreException e) {
+                throw new UncheckedEntityStoreException(e);
+            }
+        }
+        return !buffer.isEmpty();
+    }
+
+    @Override
+    public Entity next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Entity entity = buffer.poll();
+        continuationToken = tokenAfter(entity);
+        return entity;
+    }
+
+    @Override
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        buffer.clear();
+    }
+}
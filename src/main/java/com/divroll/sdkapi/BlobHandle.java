@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * A blob that can be read any number of times, in whole or by range, without holding it on
+ * the heap. A handle knows its size up front and computes its SHA-256 content hash on first
+ * request. Handles are immutable views of their content and safe for use by multiple
+ * threads; a file-backed handle assumes the file is not modified while it is in use.
+ *
+ * {@link #ofFile(Path)} reads through positional {@link java.nio.channels.FileChannel} reads
+ * and transfers to other channels without copying through the heap where the operating
+ * system supports it. {@link #mapped(Path)} maps the file into memory once, which suits
+ * large blobs that are read often.
+ */
+public interface BlobHandle {
+
+    /**
+     * @return the size of the blob in bytes
+     */
+    long size();
+
+    /**
+     * Returns the SHA-256 hash of the content as lowercase hex, reading the whole blob the
+     * first time it is called.
+     * @return the content hash
+     * @throws IOException if reading the blob fails
+     */
+    String contentHash() throws IOException;
+
+    /**
+     * Reads a range of the blob.
+     * @param offset the offset of the first byte
+     * @param length the maximum number of bytes to read
+     * @return a buffer holding the bytes read, fewer than length only at the end of the blob
+     * @throws IOException if reading fails
+     */
+    ByteBuffer read(long offset, int length) throws IOException;
+
+    /**
+     * Writes a range of the blob to a channel.
+     * @param offset the offset of the first byte
+     * @param count the number of bytes to write
+     * @param target the channel to write to, which is not closed
+     * @return the number of bytes written, fewer than count only at the end of the blob
+     * @throws IOException if reading or writing fails
+     */
+    long transferTo(long offset, long count, WritableByteChannel target) throws IOException;
+
+    /**
+     * Opens a stream over a range of the blob.
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @return a new stream, ending early at the end of the blob
+     */
+    InputStream openStream(long offset, long length);
+
+    /**
+     * @return a new stream over the whole blob
+     */
+    default InputStream openStream() {
+        return openStream(0, size());
+    }
+
+    static BlobHandle of(byte[] bytes) {
+        return new BlobHandles.BufferBlob(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * @param buffer the content, from its position to its limit; not copied, must not be modified
+     * @return a handle over the buffer
+     */
+    static BlobHandle of(ByteBuffer buffer) {
+        return new BlobHandles.BufferBlob(buffer);
+    }
+
+    /**
+     * @param file the file holding the blob
+     * @return a handle reading the file through a file channel
+     * @throws IOException if the size of the file cannot be read
+     */
+    static BlobHandle ofFile(Path file) throws IOException {
+        return new BlobHandles.FileBlob(file);
+    }
+
+    /**
+     * @param file the file holding the blob
+     * @return a handle reading the file through a read-only memory mapping, created on first read
+     * @throws IOException if the size of the file cannot be read
+     */
+    static BlobHandle mapped(Path file) throws IOException {
+        return new BlobHandles.MappedBlob(file);
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The {@link BlobHandle} implementations.
+ */
+final class BlobHandles {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BlobHandles() {
+    }
+
+    /**
+     * Caches the content hash and implements streams on top of ranged reads.
+     */
+    abstract static class AbstractBlob implements BlobHandle {
+
+        private volatile String contentHash;
+
+        @Override
+        public String contentHash() throws IOException {
+            String hash = contentHash;
+            if (hash == null) {
+                MessageDigest digest = sha256();
+                update(digest);
+                contentHash = hash = hex(digest.digest());
+            }
+            return hash;
+        }
+
+        /**
+         * Feeds the whole content to a digest, one buffer-sized range read at a time.
+         */
+        void update(MessageDigest digest) throws IOException {
+            long size = size();
+            for (long offset = 0; offset < size; ) {
+                ByteBuffer chunk = read(offset, (int) Math.min(BUFFER_SIZE, size - offset));
+                if (!chunk.hasRemaining()) {
+                    throw new IOException("Blob is shorter than its size");
+                }
+                offset += chunk.remaining();
+                digest.update(chunk);
+            }
+        }
+
+        @Override
+        public InputStream openStream(long offset, long length) {
+            checkRange(offset, length);
+            return new RangeInputStream(this, offset, Math.min(length, Math.max(0, size() - offset)));
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "{size=" + size() + "}";
+        }
+    }
+
+    static final class BufferBlob extends AbstractBlob {
+
+        private final ByteBuffer buffer;
+
+        BufferBlob(ByteBuffer buffer) {
+            this.buffer = buffer.slice().asReadOnlyBuffer();
+        }
+
+        @Override
+        public long size() {
+            return buffer.capacity();
+        }
+
+        @Override
+        public ByteBuffer read(long offset, int length) {
+            return slice(buffer, offset, length);
+        }
+
+        @Override
+        public long transferTo(long offset, long count, WritableByteChannel target) throws IOException {
+            return writeFully(slice(buffer, offset, (int) Math.min(Integer.MAX_VALUE, count)), target);
+        }
+    }
+
+    static final class FileBlob extends AbstractBlob {
+
+        private final Path file;
+        private final long size;
+
+        FileBlob(Path file) throws IOException {
+            this.file = file;
+            this.size = Files.size(file);
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public ByteBuffer read(long offset, int length) throws IOException {
+            checkRange(offset, length);
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, Math.max(0, size - offset)));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offset + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * Reads the file through one channel and one buffer, rather than opening the file for
+         * every range.
+         */
+        @Override
+        void update(MessageDigest digest) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long hashed = 0;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (hashed < size) {
+                    buffer.clear().limit((int) Math.min(BUFFER_SIZE, size - hashed));
+                    int n = channel.read(buffer, hashed);
+                    if (n < 0) {
+                        throw new IOException("Blob is shorter than its size");
+                    }
+                    buffer.flip();
+                    digest.update(buffer);
+                    hashed += n;
+                }
+            }
+        }
+
+        /**
+         * Uses {@link FileChannel#transferTo}, which the operating system can serve without
+         * copying through user space.
+         */
+        /**
+         * Writes the range one segment at a time, so every chunk is a slice of one mapping.
+         */
+        @Override
+        public long transferTo(long offset, long count, WritableByteChannel target) throws IOException {
+            checkRange(offset, count);
+            long end = Math.min(size, offset + count);
+            long position = offset;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (position < end) {
+                    long n = channel.transferTo(position, end - position, target);
+                    if (n <= 0) {
+                        if (position >= channel.size()) {
+                            break;
+                        }
+                        continue;
+                    }
+                    position += n;
+                }
+            }
+            return position - offset;
+        }
+
+        @Override
+        public InputStream openStream(long offset, long length) {
+            checkRange(offset, length);
+            try {
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                channel.position(offset);
+                return new BoundedChannelStream(channel, Math.min(length, Math.max(0, size - offset)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    static final class MappedBlob extends AbstractBlob {
+
+        /** Mappings are limited to 2 GiB, so larger files are mapped in segments. */
+        private static final long SEGMENT_SIZE = 1L << 30;
+
+        private final Path file;
+        private final long size;
+        private volatile MappedByteBuffer[] segments;
+
+        MappedBlob(Path file) throws IOException {
+            this.file = file;
+            this.size = Files.size(file);
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public ByteBuffer read(long offset, int length) throws IOException {
+            checkRange(offset, length);
+            if (offset >= size) {
+                return ByteBuffer.allocate(0);
+            }
+            MappedByteBuffer[] mapped = segments();
+            int segment = (int) (offset / SEGMENT_SIZE);
+            long within = offset % SEGMENT_SIZE;
+            int n = (int) Math.min(length, size - offset);
+            if (within + n <= mapped[segment].capacity()) {
+                return slice(mapped[segment], within, n);
+            }
+            ByteBuffer joined = ByteBuffer.allocate(n);
+            while (joined.hasRemaining()) {
+                ByteBuffer part = slice(mapped[segment], within, joined.remaining());
+                joined.put(part);
+                segment++;
+                within = 0;
+            }
+            joined.flip();
+            return joined;
+        }
+
+        /**
+         * Writes the range one segment at a time, so every chunk is a slice of one mapping.
+         */
+        @Override
+        public long transferTo(long offset, long count, WritableByteChannel target) throws IOException {
+            checkRange(offset, count);
+            long end = Math.min(size, offset + count);
+            long position = offset;
+            while (position < end) {
+                long segmentEnd = (position / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+                ByteBuffer chunk = read(position, (int) (Math.min(segmentEnd, end) - position));
+                position += writeFully(chunk, target);
+            }
+            return Math.max(0, position - offset);
+        }
+
+        private MappedByteBuffer[] segments() throws IOException {
+            MappedByteBuffer[] mapped = segments;
+            if (mapped == null) {
+                synchronized (this) {
+                    mapped = segments;
+                    if (mapped == null) {
+                        mapped = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+                        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                            for (int i = 0; i < mapped.length; i++) {
+                                long position = i * SEGMENT_SIZE;
+                                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+                            }
+                        }
+                        segments = mapped;
+                    }
+                }
+            }
+            return mapped;
+        }
+    }
+
+    /**
+     * A stream over a range of a handle, reading it in buffer-sized pieces.
+     */
+    static final class RangeInputStream extends InputStream {
+
+        private final BlobHandle handle;
+        private long position;
+        private final long end;
+        private ByteBuffer current = ByteBuffer.allocate(0);
+
+        RangeInputStream(BlobHandle handle, long offset, long length) {
+            this.handle = handle;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? current.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, current.remaining());
+            current.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.min(Math.max(0, n), current.remaining() + (end - position));
+            long fromBuffer = Math.min(skipped, current.remaining());
+            current.position(current.position() + (int) fromBuffer);
+            position += skipped - fromBuffer;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return current.remaining();
+        }
+
+        private boolean fill() throws IOException {
+            if (current.hasRemaining()) {
+                return true;
+            }
+            if (position >= end) {
+                return false;
+            }
+            current = handle.read(position, (int) Math.min(BUFFER_SIZE, end - position));
+            if (!current.hasRemaining()) {
+                position = end;
+                return false;
+            }
+            position += current.remaining();
+            return true;
+        }
+    }
+
+    /**
+     * A stream over the next bytes of a file channel, closing the channel when closed.
+     */
+    static final class BoundedChannelStream extends InputStream {
+
+        private final FileChannel channel;
+        private long remaining;
+
+        BoundedChannelStream(FileChannel channel, long remaining) {
+            this.channel = channel;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == 1 ? one[0] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    static void checkRange(long offset, long length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Blob range must not be negative: " + offset + ", " + length);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long offset, int length) {
+        checkRange(offset, length);
+        if (offset >= buffer.capacity()) {
+            return ByteBuffer.allocate(0);
+        }
+        ByteBuffer slice = buffer.duplicate();
+        slice.position((int) offset);
+        slice.limit((int) Math.min(buffer.capacity(), offset + length));
+        return slice.slice();
+    }
+
+    private static long writeFully(ByteBuffer buffer, WritableByteChannel target) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += target.write(buffer);
+        }
+        return written;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = digits[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = digits[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -20,11 +20,80 @@
  */
 package com.divroll.sdkapi;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Objects;
 
+/**
+ * A binary property. A blob created from a {@link BlobHandle} can be read any number of
+ * times, in whole or by range, and knows its size without reading it; {@link #getValue()}
+ * then opens a new stream on each call, which the caller must close. A blob created from a
+ * stream can be read once.
+ */
 public class BlobProperty extends EntityProperty<InputStream> {
 
+    /** Stands in for the stream of a handle-backed blob, which is opened per read. */
+    private static final InputStream HANDLE_STREAM = new InputStream() {
+        @Override
+        public int read() {
+            return -1;
+        }
+    };
+
+    private final BlobHandle handle;
+
     public BlobProperty(InputStream property) {
         super(property);
+        this.handle = null;
+    }
+
+    public BlobProperty(BlobHandle handle) {
+        super(HANDLE_STREAM);
+        this.handle = Objects.requireNonNull(handle, "Blob handle cannot be null");
+    }
+
+    /**
+     * @return the handle of the blob, or null if it was created from a stream
+     */
+    public BlobHandle getHandle() {
+        return handle;
+    }
+
+    @Override
+    public InputStream getValue() {
+        return handle != null ? handle.openStream() : property;
+    }
+
+    /**
+     * Blobs backed by handles are equal when their content is; comparing them reads both
+     * unless they share the handle or their sizes differ, and a blob that cannot be read is
+     * not equal to another handle. Blobs created from streams are equal only to themselves.
+     */
+    @Override
+    public boolean equals(Object e) {
+        if (this == e) return true;
+        if (e == null || getClass() != e.getClass()) return false;
+
+        BlobProperty blob = (BlobProperty) e;
+        if (handle == null || blob.handle == null) {
+            return handle == null && blob.handle == null && property.equals(blob.property);
+        }
+        if (handle == blob.handle) return true;
+        if (handle.size() != blob.handle.size()) return false;
+        try {
+            return handle.contentHash().equals(blob.handle.contentHash());
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return handle != null ? Long.hashCode(handle.size()) : property.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return handle != null ? handle.toString() : property.toString();
     }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+/**
+ * An {@link Entity} whose properties are laid out by a shared {@link EntitySchema}: long,
+ * double and boolean properties are held unboxed in primitive slots instead of as separate
+ * property objects in a hash map. Reading them through {@link #get(String)} boxes them into
+ * a new property on every call; {@link #getLong}, {@link #getDouble} and {@link #getBoolean}
+ * read them without allocating.
+ *
+ * Properties iterate in the order the schema first saw their names rather than in insertion
+ * order.
+ */
+public class CompactEntity extends Entity {
+
+    private final SlotMap slots;
+
+    public CompactEntity(EntitySchema schema) {
+        this(new SlotMap(schema));
+        MetadataProperty metadata = new MetadataProperty();
+        metadata.setType(new StringProperty(schema.getType()));
+        set(METADATA_KEY, metadata);
+    }
+
+    private CompactEntity(SlotMap slots) {
+        super(slots);
+        this.slots = slots;
+    }
+
+    public EntitySchema getSchema() {
+        return slots.getSchema();
+    }
+
+    public long getLong(String name, long defaultValue) {
+        return slots.getLong(name, defaultValue);
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        return slots.getDouble(name, defaultValue);
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue) {
+        return slots.getBoolean(name, defaultValue);
+    }
+
+    public void setLong(String name, long value) {
+        set(name, new IntProperty(value));
+    }
+
+    public void setDouble(String name, double value) {
+        set(name, new DoubleProperty(value));
+    }
+
+    public void setBoolean(String name, boolean value) {
+        set(name, new BooleanProperty(value));
+    }
+
+    /**
+     * @return a compact copy sharing this entity's schema, with its own slots and metadata
+     */
+    @Override
+    public CompactEntity copy() {
+        SlotMap copy = slots.copy();
+        EntityProperty metadata = copy.get(METADATA_KEY);
+        if (metadata instanceof MetadataProperty) {
+            copy.put(METADATA_KEY, ((MetadataProperty) metadata).copy());
+        }
+        return new CompactEntity(copy);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * A multimap for keys that mostly hold a few values. Up to a threshold, the values of
+ * a key are kept in an exactly sized array searched linearly; past it they move to a
+ * {@link HashSet}, and back to an array once they shrink to half the threshold. Like
+ * {@link MultiMap}, this map is not thread-safe.
+ *
+ * {@link #get(Object)} returns a snapshot for keys held in an array and a live view for keys
+ * held in a set; neither can be modified.
+ */
+public class CompactMultiMap<K, V> extends AbstractMultiMap<K, V> {
+
+    /**
+     * The default number of values a key holds in an array.
+     */
+    public static final int DEFAULT_THRESHOLD = 8;
+
+    private final Map<K, Object> map = new HashMap<>();
+    private final int threshold;
+    private int size;
+
+    public CompactMultiMap() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold the most values a key holds in an array before moving to a hash set
+     */
+    public CompactMultiMap(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Object values = map.get(key);
+        if (values == null) {
+            map.put(key, new Object[] {value});
+        } else if (values instanceof Object[]) {
+            Object[] array = (Object[]) values;
+            if (indexOf(array, value) >= 0) {
+                return;
+            }
+            if (array.length < threshold) {
+                Object[] grown = Arrays.copyOf(array, array.length + 1);
+                grown[array.length] = value;
+                map.put(key, grown);
+            } else {
+                Set<Object> set = new HashSet<>(Arrays.asList(array));
+                set.add(value);
+                map.put(key, set);
+            }
+        } else if (!asSet(values).add(value)) {
+            return;
+        }
+        size++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<V> get(K key) {
+        Object values = map.get(key);
+        if (values == null) {
+            return null;
+        }
+        return values instanceof Object[]
+                ? (Collection<V>) Collections.unmodifiableList(Arrays.asList((Object[]) values))
+                : (Collection<V>) Collections.unmodifiableSet(asSet(values));
+    }
+
+    @Override
+    public boolean remove(K key, V value) {
+        Object values = map.get(key);
+        if (values == null) {
+            return false;
+        }
+        if (values instanceof Object[]) {
+            Object[] array = (Object[]) values;
+            int index = indexOf(array, value);
+            if (index < 0) {
+                return false;
+            }
+            if (array.length == 1) {
+                map.remove(key);
+            } else {
+                Object[] shrunk = new Object[array.length - 1];
+                System.arraycopy(array, 0, shrunk, 0, index);
+                System.arraycopy(array, index + 1, shrunk, index, shrunk.length - index);
+                map.put(key, shrunk);
+            }
+        } else {
+            Set<Object> set = asSet(values);
+            if (!set.remove(value)) {
+                return false;
+            }
+            if (set.isEmpty()) {
+                map.remove(key);
+            } else if (set.size() <= threshold / 2) {
+                map.put(key, set.toArray());
+            }
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsEntry(K key, V value) {
+        Object values = map.get(key);
+        if (values == null) {
+            return false;
+        }
+        return values instanceof Object[] ? indexOf((Object[]) values, value) >= 0 : asSet(values).contains(value);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(map.keySet());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Map.Entry<K, Object> entry : map.entrySet()) {
+            Object values = entry.getValue();
+            if (values instanceof Object[]) {
+                for (Object value : (Object[]) values) {
+                    action.accept(entry.getKey(), (V) value);
+                }
+            } else {
+                for (Object value : asSet(values)) {
+                    action.accept(entry.getKey(), (V) value);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Stream<Map.Entry<K, V>> entries() {
+        return map.keySet().stream().flatMap(key -> get(key).stream()
+                .map(value -> new AbstractMap.SimpleImmutableEntry<>(key, value)));
+    }
+
+    @Override
+    public Stream<V> values() {
+        return map.keySet().stream().flatMap(key -> get(key).stream());
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int keyCount() {
+        return map.size();
+    }
+
+    private static int indexOf(Object[] array, Object value) {
+        for (int i = 0; i < array.length; i++) {
+            if (Objects.equals(array[i], value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Object> asSet(Object values) {
+        return (Set<Object>) values;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * A thread-safe multimap that can be shared between request threads. Values of a key
+ * are kept in a concurrent set, and adding or removing a mapping is atomic with respect to
+ * the key: a key is dropped when its last value is removed without losing a value added
+ * concurrently.
+ *
+ * Reads do not lock. Views and streams are weakly consistent, and the view returned by
+ * {@link #get(Object)} stops reflecting changes once its key has been dropped. Like
+ * {@link ConcurrentHashMap}, this map does not accept null keys or values.
+ */
+public class ConcurrentMultiMap<K, V> extends AbstractMultiMap<K, V> {
+
+    private final ConcurrentHashMap<K, Set<V>> map = new ConcurrentHashMap<>();
+    private final LongAdder size = new LongAdder();
+
+    @Override
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        map.compute(key, (k, values) -> {
+            if (values == null) {
+                values = ConcurrentHashMap.newKeySet(2);
+            }
+            if (values.add(value)) {
+                size.increment();
+            }
+            return values;
+        });
+    }
+
+    @Override
+    public Collection<V> get(K key) {
+        Set<V> values = map.get(key);
+        return values != null ? Collections.unmodifiableSet(values) : null;
+    }
+
+    @Override
+    public boolean remove(K key, V value) {
+        boolean[] removed = new boolean[1];
+        map.computeIfPresent(key, (k, values) -> {
+            if (values.remove(value)) {
+                removed[0] = true;
+                size.decrement();
+            }
+            return values.isEmpty() ? null : values;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public boolean containsEntry(K key, V value) {
+        Set<V> values = map.get(key);
+        return values != null && values.contains(value);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(map.keySet());
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        map.forEach((key, values) -> {
+            for (V value : values) {
+                action.accept(key, value);
+            }
+        });
+    }
+
+    @Override
+    public Stream<Map.Entry<K, V>> entries() {
+        return map.entrySet().stream().flatMap(entry -> entry.getValue().stream()
+                .map(value -> new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), value)));
+    }
+
+    @Override
+    public Stream<V> values() {
+        return map.values().stream().flatMap(Set::stream);
+    }
+
+    /**
+     * Removes every key present when the call starts. Mappings added concurrently may
+     * survive.
+     */
+    @Override
+    public void clear() {
+        for (K key : map.keySet()) {
+            map.computeIfPresent(key, (k, values) -> {
+                size.add(-values.size());
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, size.sum());
+    }
+
+    @Override
+    public int keyCount() {
+        return map.size();
+    }
+}
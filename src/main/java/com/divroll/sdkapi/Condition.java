@@ -20,10 +20,20 @@
  */
 package com.divroll.sdkapi;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
- * Represents an abstract condition with a specific property and a binary operation.
+ * Represents an abstract condition with a specific property and a chain of binary operations.
  * Conditions can be combined using various operations such as intersection, union, 
- * subtraction, and concatenation.
+ * subtraction, and concatenation. Operations are applied left to right, so
+ * {@code a.intersect(b).union(c)} reads as {@code (a intersect b) union c}; nest
+ * conditions, as in {@code a.intersect(b.union(c))}, to group them differently.
+ *
+ * Conditions select entities, and an entity is selected at most once: unions and
+ * concatenations return an entity matching both sides a single time. Earlier versions
+ * documented both as keeping duplicates.
  */
 public abstract class Condition {
 
@@ -33,8 +43,17 @@ public abstract class Condition {
     protected final String property;
     
     /**
-     * The binary operation to be applied to this condition.
+     * The binary operations applied to this condition, in the order they were added.
+     */
+    protected final List<BinaryOperation> operations = new ArrayList<>();
+
+    /**
+     * The last binary operation applied to this condition, kept so that subclasses reading
+     * it still compile.
+     * @deprecated conditions now hold a chain of operations, see {@link #operations}. Only
+     *             that chain is applied; an operation assigned here is ignored.
      */
+    @Deprecated
     protected BinaryOperation operation;
 
     /**
@@ -53,6 +72,20 @@ public abstract class Condition {
         return property;
     }
 
+    /**
+     * Returns the binary operations applied to this condition.
+     * @return the operations in the order they were added, empty if this condition is not combined with another condition.
+     */
+    public List<BinaryOperation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    private Condition add(BinaryOperation operation) {
+        operations.add(operation);
+        this.operation = operation;
+        return this;
+    }
+
     /**
      * Combines this condition with another condition using the intersection operation.
      * Intersection finds common elements between two conditions.
@@ -60,19 +93,17 @@ public abstract class Condition {
      * @return this condition after applying the intersection operation.
      */
     public Condition intersect(Condition condition) {
-        this.operation = new Intersect(condition);
-        return this;
+        return add(new Intersect(condition));
     }
 
     /**
      * Combines this condition with another condition using the union operation.
-     * Union merges elements from both conditions, including duplicates. 
+     * Union merges elements from both conditions; an element in both is returned once.
      * @param condition the condition to union with.
      * @return this condition after applying the union operation.
      */
     public Condition union(Condition condition) {
-        this.operation = new Union(condition);
-        return this;
+        return add(new Union(condition));
     }
 
     /**
@@ -82,18 +113,17 @@ public abstract class Condition {
      * @return this condition after applying the minus operation.
      */
     public Condition minus(Condition condition) {
-        this.operation = new Minus(condition);
-        return this;
+        return add(new Minus(condition));
     }
 
     /**
      * Combines this condition with another condition using the concatenation operation.
-     * Concatenation appends elements of the specified condition to this condition.
+     * Concatenation appends elements of the specified condition to this condition. Like a
+     * union, it returns an element matching both conditions once, in key order.
      * @param condition the condition to concatenate with.
      * @return this condition after applying the concatenation operation.
      */
     public Condition concat(Condition condition) {
-        this.operation = new Concat(condition);
-        return this;
+        return add(new Concat(condition));
     }
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityStoreException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests single entities against {@link Condition} trees.
+ *
+ * Property conditions are tested on the values of the entity: a value matches an
+ * {@link Equal} or a {@link Contains} when it, or one of its elements if it is a collection,
+ * equals a condition value, and matches an {@link InRange} or a {@link StartsWith} only
+ * through string, number or boolean values of the type of the condition value. Links are
+ * not held by the entity, so {@link HasLink} conditions are answered by the {@link Links}
+ * the matcher is created with.
+ */
+public final class ConditionMatcher {
+
+    /**
+     * Answers whether an entity has a link.
+     */
+    public interface Links {
+
+        /**
+         * @param id the id of the entity
+         * @param name the name of the link
+         * @return true if the entity has at least one link with the name
+         * @throws EntityStoreException if there is an error reading the links
+         */
+        boolean has(EntityId id, String name) throws EntityStoreException;
+    }
+
+    private final Links links;
+
+    public ConditionMatcher(Links links) {
+        this.links = links;
+    }
+
+    /**
+     * Creates a matcher answering link conditions through a data service, reading the ids
+     * of the entities of a type holding a link once per type and link name.
+     * @param dataService the data service to read the links from
+     * @return the matcher
+     */
+    public static ConditionMatcher of(DataService dataService) {
+        Map<List<String>, java.util.Set<EntityId>> linked = new HashMap<>();
+        return new ConditionMatcher((id, name) -> {
+            List<String> key = Arrays.asList(id.getTypeName(), name);
+            java.util.Set<EntityId> sources = linked.get(key);
+            if (sources == null) {
+                sources = new HashSet<>();
+                for (Entity source : dataService.readEntities(id.getTypeName(), new HasLink(name), null, null, Projection.of())) {
+                    try {
+                        sources.add(source.getEntityId());
+                    } catch (CannotCastValueException e) {
+                        throw new EntityStoreException("Entity read without an id", e);
+                    }
+                }
+                linked.put(key, sources);
+            }
+            return sources.contains(id);
+        });
+    }
+
+    /**
+     * Reads the listed entities matching a condition in chunks and tests each, as
+     * {@link DataService#readEntities(List, Condition)} does by default.
+     */
+    static List<Entity> readListed(DataService dataService, List<EntityId> toRead, Condition condition)
+            throws EntityStoreException {
+        ConditionMatcher matcher = of(dataService);
+        Map<EntityId, Entity> matching = new HashMap<>();
+        for (List<EntityId> chunk : MultiGetResult.partition(toRead, MultiGetResult.DEFAULT_CHUNK_SIZE)) {
+            for (Map.Entry<EntityId, Entity> found : dataService.multiGet(chunk).getFound().entrySet()) {
+                if (matcher.test(found.getValue(), condition)) {
+                    matching.put(found.getKey(), found.getValue());
+                }
+            }
+        }
+        List<Entity> entities = new ArrayList<>();
+        for (EntityId id : new LinkedHashSet<>(toRead)) {
+            Entity entity = matching.get(id);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * @param entity the entity to test
+     * @param condition the condition to test it against
+     * @return true if the entity matches the condition
+     * @throws EntityStoreException if the condition is not supported or a link cannot be read
+     */
+    public boolean test(Entity entity, Condition condition) throws EntityStoreException {
+        boolean result = testOne(entity, condition);
+        for (BinaryOperation operation : condition.getOperations()) {
+            if (operation instanceof Intersect) {
+                result = result && test(entity, operation.getCondition());
+            } else if (operation instanceof Union || operation instanceof Concat) {
+                result = result || test(entity, operation.getCondition());
+            } else if (operation instanceof Minus) {
+                result = result && !test(entity, operation.getCondition());
+            } else {
+                throw unsupported(operation);
+            }
+        }
+        return result;
+    }
+
+    private boolean testOne(Entity entity, Condition condition) throws EntityStoreException {
+        if (condition instanceof HasLink) {
+            try {
+                return links.has(entity.getEntityId(), condition.getProperty());
+            } catch (CannotCastValueException e) {
+                return false;
+            }
+        }
+        EntityProperty value = entity.get(condition.getProperty());
+        if (condition instanceof Equal) {
+            return valuesOf(value).contains(((Equal) condition).getValue());
+        } else if (condition instanceof NotEqual) {
+            return !valuesOf(value).contains(((NotEqual) condition).getValue());
+        } else if (condition instanceof StartsWith) {
+            return startsWith(value, ((StartsWith) condition).getValue().getValue());
+        } else if (condition instanceof NotStartsWith) {
+            return !startsWith(value, ((NotStartsWith) condition).getValue().getValue());
+        } else if (condition instanceof InRange) {
+            InRange range = (InRange) condition;
+            if (!isScalar(range.getMin())) {
+                return false;
+            }
+            for (EntityProperty candidate : valuesOf(value)) {
+                if (candidate.getClass() == range.getMin().getClass()
+                        && compare(range.getMin().getValue(), candidate.getValue()) <= 0
+                        && compare(candidate.getValue(), range.getMax().getValue()) <= 0) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (condition instanceof Contains) {
+            List<EntityProperty> values = valuesOf(value);
+            for (Object element : ((Contains) condition).getEntityCollection().getValue()) {
+                if (values.contains(element)) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (condition instanceof WithBlob) {
+            return value instanceof BlobProperty;
+        } else if (condition instanceof WithoutBlob) {
+            return !(value instanceof BlobProperty);
+        }
+        throw unsupported(condition);
+    }
+
+    /**
+     * Returns the values a condition is tested against: the value itself and, for a
+     * collection, its elements. Blobs are never matched by value.
+     */
+    private static List<EntityProperty> valuesOf(EntityProperty value) {
+        if (value == null || value instanceof BlobProperty) {
+            return Collections.emptyList();
+        }
+        List<EntityProperty> values = new ArrayList<>();
+        values.add(value);
+        if (value instanceof CollectionProperty) {
+            for (Object element : ((CollectionProperty<?>) value).getValue()) {
+                if (element instanceof EntityProperty) {
+                    values.add((EntityProperty) element);
+                }
+            }
+        }
+        return values;
+    }
+
+    private static boolean startsWith(EntityProperty value, String prefix) {
+        for (EntityProperty candidate : valuesOf(value)) {
+            if (candidate instanceof StringProperty && ((StringProperty) candidate).getValue().startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isScalar(EntityProperty value) {
+        return value instanceof StringProperty
+                || value instanceof IntProperty
+                || value instanceof DoubleProperty
+                || value instanceof BooleanProperty;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object left, Object right) {
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    private static EntityStoreException unsupported(Object condition) {
+        return new EntityStoreException(String.format("Unsupported condition %s", condition.getClass().getSimpleName()));
+    }
+}
@@ -28,4 +28,8 @@ public class Contains extends Condition {
         super(fieldName);
         this.entityCollection = entityCollection;
     }
+
+    public CollectionProperty<?> getEntityCollection() {
+        return entityCollection;
+    }
 }
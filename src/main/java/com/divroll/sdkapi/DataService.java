@@ -20,13 +20,16 @@
  */
 package com.divroll.sdkapi;
 
+import com.divroll.core.CannotCastValueException;
 import com.divroll.core.EntityNotExistsException;
 import com.divroll.core.EntityStoreException;
 import com.divroll.core.InvalidIdException;
 import com.divroll.core.InvalidRelationException;
 import com.divroll.core.RelationNotExistsException;
 import com.divroll.core.RelationTypeDoesNotExistsException;
+import com.divroll.core.UncheckedEntityStoreException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -41,6 +44,30 @@ public interface DataService {
     EntityId createEntity(Entity toCreate) 
         throws EntityStoreException;
 
+    /**
+     * Creates a list of entities. The default implementation creates them one at a time;
+     * implementations should override it with a single bulk operation.
+     * @param toCreate the entities to create
+     * @return the ids of the created entities, in the order of toCreate
+     * @throws EntityStoreException if there is an error creating the entities
+     */
+    default List<EntityId> createEntities(List<Entity> toCreate)
+        throws EntityStoreException {
+        List<EntityId> ids = new ArrayList<>(toCreate.size());
+        for (Entity entity : toCreate) {
+            ids.add(createEntity(entity));
+        }
+        return ids;
+    }
+
+    /**
+     * Starts a batch that collects writes and applies them to this data service in bulk.
+     * @return the write batch, with the default size and time thresholds
+     */
+    default WriteBatch batch() {
+        return new WriteBatch(this);
+    }
+
     /**
      * Create an entity with a relationship to another existing entity.
      * @param toCreate the entity to create
@@ -110,6 +137,20 @@ public interface DataService {
     Entity readEntity(EntityId toRead)
         throws EntityNotExistsException, EntityStoreException;    
 
+    /**
+     * Reads an entity by id, returning only the properties selected by a projection. The
+     * default implementation reads the whole entity and projects it.
+     * @param toRead the id of the entity to read
+     * @param projection the properties to return
+     * @return the projected entity
+     * @throws EntityNotExistsException if the entity does not exist
+     * @throws EntityStoreException if there is an error reading the entity
+     */
+    default Entity readEntity(EntityId toRead, Projection projection)
+        throws EntityNotExistsException, EntityStoreException {
+        return projection.apply(readEntity(toRead));
+    }
+
     /**
      * Reads the first entity with a property equal to value.
      * @param type the type of entity to read
@@ -122,6 +163,23 @@ public interface DataService {
     Entity readEntity(String type, String property, EntityProperty value)
         throws EntityNotExistsException, EntityStoreException;
 
+    /**
+     * Reads the first entity with a property equal to value, returning only the properties
+     * selected by a projection. The default implementation reads the whole entity and
+     * projects it.
+     * @param type the type of entity to read
+     * @param property the property to match
+     * @param value the value to match
+     * @param projection the properties to return
+     * @return the projected entity with the property equal to value
+     * @throws EntityNotExistsException if the entity does not exist
+     * @throws EntityStoreException if there is an error reading the entity
+     */
+    default Entity readEntity(String type, String property, EntityProperty value, Projection projection)
+        throws EntityNotExistsException, EntityStoreException {
+        return projection.apply(readEntity(type, property, value));
+    }
+
     /**
      * Reads a list of entities.
      * @param toRead the list of ids of the entities to read
@@ -131,7 +189,55 @@ public interface DataService {
      */        
     List<Entity> readEntities(List<EntityId> toRead)
         throws EntityNotExistsException, EntityStoreException;  
+
+    /**
+     * Reads a list of entities, returning only the properties selected by a projection. The
+     * default implementation reads the whole entities and projects them.
+     * @param toRead the list of ids of the entities to read
+     * @param projection the properties to return
+     * @return the list of projected entities
+     * @throws EntityNotExistsException if any of the entities does not exist
+     * @throws EntityStoreException if there is an error reading the entities
+     */
+    default List<Entity> readEntities(List<EntityId> toRead, Projection projection)
+        throws EntityNotExistsException, EntityStoreException {
+        return projection.applyAll(readEntities(toRead));
+    }
     
+    /**
+     * Reads a list of entities, reporting the ids that do not exist instead of failing.
+     * Duplicate ids are read once. The default implementation groups the ids by type and
+     * reads them in chunks of {@link MultiGetResult#DEFAULT_CHUNK_SIZE} with
+     * {@link #readEntities(List)}, reading a chunk one id at a time only if it holds a
+     * missing or invalid id.
+     * @param toRead the list of ids of the entities to read
+     * @return the entities found and the ids missing
+     * @throws EntityStoreException if there is an error reading the entities
+     */
+    default MultiGetResult multiGet(List<EntityId> toRead) throws EntityStoreException {
+        List<MultiGetResult> parts = new ArrayList<>();
+        for (List<EntityId> chunk : MultiGetResult.partition(toRead, MultiGetResult.DEFAULT_CHUNK_SIZE)) {
+            parts.add(MultiGetResult.readChunk(this, chunk));
+        }
+        return MultiGetResult.merge(toRead, parts);
+    }
+
+    /**
+     * Reads the entities of a list that match a condition, in the order of the list.
+     * Duplicate ids are read once and ids that do not exist are skipped. The default
+     * implementation reads the listed entities in chunks through {@link #multiGet(List)} and
+     * tests each with a {@link ConditionMatcher}, so its cost grows with the list; only link
+     * conditions read beyond it, once per type and link name.
+     * @param toRead the list of ids of the entities to read
+     * @param condition the condition the entities must match
+     * @return the listed entities that match the condition
+     * @throws EntityStoreException if there is an error reading the entities
+     */
+    default List<Entity> readEntities(List<EntityId> toRead, Condition condition)
+        throws EntityStoreException {
+        return ConditionMatcher.readListed(this, toRead, condition);
+    }
+
     /**
      * Reads a list of entities with relation to another existing entity.
      * @param type the type of entity to read
@@ -179,6 +285,49 @@ public interface DataService {
     List<Entity> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition)
         throws EntityNotExistsException, EntityStoreException;
 
+    /**
+     * Reads related entities, optionally with a condition, returning only the properties
+     * selected by a projection. The default implementation reads the whole entities and
+     * projects them.
+     * @param toRead the id of the entity to read related entities from
+     * @param relation the relationship to read
+     * @param condition the condition to filter the related entities, or null to read all
+     * @param projection the properties to return
+     * @return the list of projected related entities
+     * @throws EntityNotExistsException if the entity does not exist
+     * @throws EntityStoreException if there is an error reading the related entities
+     */
+    default List<Entity> readRelatedEntities(EntityId toRead, Relationship relation, Condition condition, Projection projection)
+        throws EntityNotExistsException, EntityStoreException {
+        return projection.applyAll(condition != null
+                ? readRelatedEntities(toRead, relation, condition)
+                : readRelatedEntities(toRead, relation));
+    }
+
+    /**
+     * Starts a traversal over the relationships of an entity.
+     * @param start the id of the entity to start from
+     * @return the traversal, to be extended with hops and run with {@link Traversal#list()}
+     */
+    default Traversal traverse(EntityId start) {
+        return new Traversal(this, start);
+    }
+
+    /**
+     * Reads the entities reached by a traversal. The default implementation reads one hop at
+     * a time through {@link #readRelatedEntities(EntityId, Relationship, Condition)} and
+     * {@link #readEntities(String, Relationship, EntityId)}; implementations with a
+     * relationship index should run the whole traversal in one pass.
+     * @param traversal the traversal to run
+     * @return the entities reached by the last hop, at most {@link Traversal#getLimit()}
+     * @throws EntityNotExistsException if the start entity does not exist
+     * @throws EntityStoreException if there is an error reading the entities
+     */
+    default List<Entity> readTraversal(Traversal traversal)
+        throws EntityNotExistsException, EntityStoreException {
+        return traversal.readHopByHop(this);
+    }
+
     /**
      * Reads entities with a condition.
      * @param condition the condition to filter the entities
@@ -190,6 +339,22 @@ public interface DataService {
     List<Entity> readEntities(String type, Condition condition, Integer max, Long skip)
         throws EntityStoreException;
 
+    /**
+     * Reads entities with a condition, returning only the properties selected by a
+     * projection. The default implementation reads the whole entities and projects them.
+     * @param type the type of the entities to read
+     * @param condition the condition to filter the entities
+     * @param max the maximum number of entities to return
+     * @param skip the number of entities to skip
+     * @param projection the properties to return
+     * @return the list of projected entities
+     * @throws EntityStoreException if there is an error reading the entities
+     */
+    default List<Entity> readEntities(String type, Condition condition, Integer max, Long skip, Projection projection)
+        throws EntityStoreException {
+        return projection.applyAll(readEntities(type, condition, max, skip));
+    }
+
 
     /**
      * Reads entities with a relationship to the entity type.
@@ -202,6 +367,22 @@ public interface DataService {
     List<Entity> readEntities(Relationship relation, String relatedType)
         throws RelationNotExistsException, EntityStoreException;
 
+    /**
+     * Reads entities with a relationship to the entity type, returning only the properties
+     * selected by a projection. The default implementation reads the whole entities and
+     * projects them.
+     * @param relation the relationship of entities to the type
+     * @param relatedType the type of the entity that the entities have relationship to
+     * @param projection the properties to return
+     * @return the list of projected entities having relationship to the entity type
+     * @throws RelationNotExistsException if the relationship does not exist
+     * @throws EntityStoreException if there is an error reading the entities
+     */
+    default List<Entity> readEntities(Relationship relation, String relatedType, Projection projection)
+        throws RelationNotExistsException, EntityStoreException {
+        return projection.applyAll(readEntities(relation, relatedType));
+    }
+
     /**
      * Reads entities of a specific type.
      * @param type the type of the entities to read
@@ -213,6 +394,129 @@ public interface DataService {
     List<Entity> readEntities(String type, Integer max, Long skip)
         throws EntityStoreException;    
 
+    /**
+     * Reads entities of a specific type, returning only the properties selected by a
+     * projection. The default implementation reads the whole entities and projects them.
+     * @param type the type of the entities to read
+     * @param max the maximum number of entities to return
+     * @param skip the number of entities to skip
+     * @param projection the properties to return
+     * @return the list of projected entities
+     * @throws EntityStoreException if there is an error reading the entities
+     */
+    default List<Entity> readEntities(String type, Integer max, Long skip, Projection projection)
+        throws EntityStoreException {
+        return projection.applyAll(readEntities(type, max, skip));
+    }
+
+    /**
+     * Opens a cursor over the entities of a type, optionally filtered by a condition.
+     * Unlike paging with skip, resuming from a continuation token does not re-read the
+     * entities before it. The default implementation pages by offset; implementations
+     * should override it with a cursor that seeks.
+     * @param type the type of the entities to read
+     * @param condition the condition to filter the entities, or null to read all
+     * @param batchSize the number of entities to fetch per batch
+     * @param continuationToken the token of a previous cursor to resume from, or null to start at the beginning
+     * @return the cursor over the entities
+     * @throws EntityStoreException if the continuation token is invalid
+     */
+    default EntityCursor openCursor(String type, Condition condition, int batchSize, String continuationToken)
+        throws EntityStoreException {
+        return new OffsetEntityCursor(batchSize, continuationToken, (max, skip) -> condition != null
+                ? readEntities(type, condition, max, skip)
+                : readEntities(type, max, skip));
+    }
+
+    /**
+     * Opens a cursor over the entities of a type, optionally filtered by a condition,
+     * returning only the properties selected by a projection. The default implementation
+     * projects the entities of {@link #openCursor(String, Condition, int, String)}.
+     * @param type the type of the entities to read
+     * @param condition the condition to filter the entities, or null to read all
+     * @param batchSize the number of entities to fetch per batch
+     * @param continuationToken the token of a previous cursor to resume from, or null to start at the beginning
+     * @param projection the properties to return
+     * @return the cursor over the projected entities
+     * @throws EntityStoreException if the continuation token is invalid
+     */
+    default EntityCursor openCursor(String type, Condition condition, int batchSize, String continuationToken, Projection projection)
+        throws EntityStoreException {
+        return projection.applyAll(openCursor(type, condition, batchSize, continuationToken));
+    }
+
+    /**
+     * Opens a cursor over the related entities of an entity. The default implementation
+     * reads all related entities when the cursor is opened.
+     * @param toRead the id of the entity to read related entities from
+     * @param relation the relationship to read
+     * @param batchSize the number of entities to fetch per batch
+     * @param continuationToken the token of a previous cursor to resume from, or null to start at the beginning
+     * @return the cursor over the related entities
+     * @throws EntityNotExistsException if the entity does not exist
+     * @throws EntityStoreException if the continuation token is invalid
+     */
+    default EntityCursor openCursor(EntityId toRead, Relationship relation, int batchSize, String continuationToken)
+        throws EntityNotExistsException, EntityStoreException {
+        List<Entity> related = readRelatedEntities(toRead, relation);
+        return new OffsetEntityCursor(batchSize, continuationToken, (max, skip) -> OffsetEntityCursor.slice(related, max, skip));
+    }
+
+    /**
+     * Opens a cursor over the related entities of an entity, returning only the properties
+     * selected by a projection. The default implementation reads the projected related
+     * entities when the cursor is opened.
+     * @param toRead the id of the entity to read related entities from
+     * @param relation the relationship to read
+     * @param batchSize the number of entities to fetch per batch
+     * @param continuationToken the token of a previous cursor to resume from, or null to start at the beginning
+     * @param projection the properties to return
+     * @return the cursor over the projected related entities
+     * @throws EntityNotExistsException if the entity does not exist
+     * @throws EntityStoreException if the continuation token is invalid
+     */
+    default EntityCursor openCursor(EntityId toRead, Relationship relation, int batchSize, String continuationToken, Projection projection)
+        throws EntityNotExistsException, EntityStoreException {
+        List<Entity> related = readRelatedEntities(toRead, relation, null, projection);
+        return new OffsetEntityCursor(batchSize, continuationToken, (max, skip) -> OffsetEntityCursor.slice(related, max, skip));
+    }
+
+    /**
+     * Opens a cursor over the entities with a relationship to the entity type. The default
+     * implementation reads all such entities when the cursor is opened.
+     * @param relation the relationship of entities to the type
+     * @param relatedType the type of the entity that the entities have relationship to
+     * @param batchSize the number of entities to fetch per batch
+     * @param continuationToken the token of a previous cursor to resume from, or null to start at the beginning
+     * @return the cursor over the entities
+     * @throws RelationNotExistsException if the relationship does not exist
+     * @throws EntityStoreException if the continuation token is invalid
+     */
+    default EntityCursor openCursor(Relationship relation, String relatedType, int batchSize, String continuationToken)
+        throws RelationNotExistsException, EntityStoreException {
+        List<Entity> entities = readEntities(relation, relatedType);
+        return new OffsetEntityCursor(batchSize, continuationToken, (max, skip) -> OffsetEntityCursor.slice(entities, max, skip));
+    }
+
+    /**
+     * Opens a cursor over the entities with a relationship to the entity type, returning
+     * only the properties selected by a projection. The default implementation reads the
+     * projected entities when the cursor is opened.
+     * @param relation the relationship of entities to the type
+     * @param relatedType the type of the entity that the entities have relationship to
+     * @param batchSize the number of entities to fetch per batch
+     * @param continuationToken the token of a previous cursor to resume from, or null to start at the beginning
+     * @param projection the properties to return
+     * @return the cursor over the projected entities
+     * @throws RelationNotExistsException if the relationship does not exist
+     * @throws EntityStoreException if the continuation token is invalid
+     */
+    default EntityCursor openCursor(Relationship relation, String relatedType, int batchSize, String continuationToken, Projection projection)
+        throws RelationNotExistsException, EntityStoreException {
+        List<Entity> entities = readEntities(relation, relatedType, projection);
+        return new OffsetEntityCursor(batchSize, continuationToken, (max, skip) -> OffsetEntityCursor.slice(entities, max, skip));
+    }
+
     /**
      * Updates an entity.
      * @param toUpdate the id of the entity to update
@@ -225,7 +529,9 @@ public interface DataService {
         throws EntityNotExistsException, EntityStoreException;
 
     /**
-     * Updates the list of entities with the list of updates.
+     * Updates the list of entities with the list of updates. Every id is checked before any
+     * entity is updated, so when a missing entity or an invalid id is reported none of the
+     * entities has been changed.
      * @throws InvalidIdException if the any of the entity id is not in valid format
      * @throws EntityNotExistsException if any of the the entities does not exist
      * @throws EntityStoreException if there is an error updating the entities
@@ -242,6 +548,70 @@ public interface DataService {
     List<Entity> updateEntities(String type, List<Update> updates)
         throws EntityStoreException;
 
+    /**
+     * Applies updates to the entities of a type that match a condition and returns only the
+     * counts. The default implementation calls
+     * {@link #updateEntities(String, Condition, List, Projection, int)} without a sample.
+     * @param type the type of the entities to update
+     * @param condition the condition to match the entities to update, or null to update every entity of the type
+     * @param updates the updates to apply to the entities
+     * @return the number of entities matched and modified
+     * @throws EntityStoreException if there is an error updating the entities
+     */
+    default UpdateSummary updateEntities(String type, Condition condition, List<Update> updates)
+        throws EntityStoreException {
+        return updateEntities(type, condition, updates, null, 0);
+    }
+
+    /**
+     * Applies updates to the entities of a type that match a condition and returns the
+     * counts with a projected sample of the updated entities. The default implementation
+     * first collects the ids of the matching entities, with one id-only read for a condition
+     * or through {@link #openCursor(String, Condition, int, String)} for a whole type, so
+     * updates that change whether an entity matches do not change which entities are
+     * updated. It then applies the updates with {@link #updateEntities(List, List)} in chunks
+     * of {@link UpdateSummary#DEFAULT_CHUNK_SIZE}, reporting every matched entity as
+     * modified. That method returns the updated entities, which the default implementation
+     * samples and drops, so it costs one id read plus a full read of every matched entity;
+     * implementations should override it to skip reading the updated entities back.
+     * @param type the type of the entities to update
+     * @param condition the condition to match the entities to update, or null to update every entity of the type
+     * @param updates the updates to apply to the entities
+     * @param projection the properties of the sampled entities, or null to sample none
+     * @param sampleSize the most updated entities to return in the summary
+     * @return the number of entities matched and modified, and the sample
+     * @throws EntityStoreException if there is an error updating the entities
+     */
+    default UpdateSummary updateEntities(String type, Condition condition, List<Update> updates,
+        Projection projection, int sampleSize) throws EntityStoreException {
+        List<EntityId> matched = new ArrayList<>();
+        try {
+            if (condition != null) {
+                for (Entity entity : readEntities(type, condition, null, null, Projection.of())) {
+                    matched.add(entity.getEntityId());
+                }
+            } else {
+                try (EntityCursor cursor = openCursor(type, null, UpdateSummary.DEFAULT_CHUNK_SIZE, null)) {
+                    while (cursor.hasNext()) {
+                        matched.add(cursor.next().getEntityId());
+                    }
+                } catch (UncheckedEntityStoreException e) {
+                    throw e.getCause();
+                }
+            }
+        } catch (CannotCastValueException e) {
+            throw new EntityStoreException("Entity read without an id", e);
+        }
+        List<Entity> sample = new ArrayList<>();
+        for (int from = 0; from < matched.size(); from += UpdateSummary.DEFAULT_CHUNK_SIZE) {
+            List<Entity> updated = updateEntities(matched.subList(from, Math.min(matched.size(), from + UpdateSummary.DEFAULT_CHUNK_SIZE)), updates);
+            for (int i = 0; projection != null && i < updated.size() && sample.size() < sampleSize; i++) {
+                sample.add(projection.apply(updated.get(i)));
+            }
+        }
+        return new UpdateSummary(matched.size(), matched.size(), sample);
+    }
+
     /**
      * Delete an entity by id.
      * @param toDelete the id of the entity to delete
@@ -252,7 +622,8 @@ public interface DataService {
         throws EntityStoreException;
 
     /**
-     * Delete the list of entities.
+     * Delete the list of entities. Every id is checked before any entity is deleted, so when
+     * a missing entity is reported none of the entities has been deleted.
      * @param toDelete the list of entities to delete
      * @return true if the entities are deleted, false otherwise
      * @throws EntityNotExistsException if any of the entities does not exist
@@ -20,21 +20,33 @@
  */
 package com.divroll.sdkapi;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.divroll.core.CannotCastValueException;
 
+/**
+ * A typed set of properties with metadata: type, id, public access flags and access
+ * control lists. The metadata getters return {@code null} for values that were never set
+ * and empty lists for access control lists without ids; earlier versions threw a
+ * {@link CannotCastValueException} in both cases.
+ */
 public class Entity extends EntityProperty<Map<String, EntityProperty>> {
 
-    private static final String METADATA_KEY = "_metadata";
-    private static final String ID_KEY = "id";
-    private static final String ACL_READ_KEY = "aclRead";
-    private static final String ACL_WRITE_KEY = "aclWrite";
-    private static final String PUBLIC_READ_KEY = "publicRead";
-    private static final String PUBLIC_WRITE_KEY = "publicWrite";
+    static final String METADATA_KEY = "_metadata";
+
+    /**
+     * The metadata last found in the property map under {@link #METADATA_KEY}, kept so
+     * metadata access skips the type check. It is checked against the map on every access,
+     * so the map can still be changed directly.
+     */
+    private MetadataProperty metadata;
 
     public Entity(String type, Map<String, EntityProperty> properties) throws CannotCastValueException {
         super(properties);
+        adoptMetadata();
         setType(type);
     }
 
@@ -42,13 +54,32 @@ public class Entity extends EntityProperty<Map<String, EntityProperty>> {
         super(new LinkedHashMap<String, EntityProperty>() {{
             put(property, value);
         }});
+        adoptMetadata();
         setType(type);
     }
 
+    Entity(Map<String, EntityProperty> properties) {
+        super(properties);
+        adoptMetadata();
+    }
+
     public EntityProperty get(String name) {
         return getValue().get(name);
     }
 
+    /**
+     * Removes a property.
+     * @param name the name of the property
+     * @return the removed value, or null if the entity did not have the property
+     */
+    public EntityProperty remove(String name) {
+        EntityProperty removed = getValue().remove(name);
+        if (METADATA_KEY.equals(name)) {
+            metadata = null;
+        }
+        return removed;
+    }
+
     public <T extends EntityProperty> T get(String name, Class<T> clazz) throws CannotCastValueException {
         EntityProperty property = getValue().get(name);
         if (property != null && property.isA(clazz)) {
@@ -59,59 +90,121 @@ public class Entity extends EntityProperty<Map<String, EntityProperty>> {
     }
 
     public void set(String name, EntityProperty value) {
-        getValue().put(name, value);
+        if (METADATA_KEY.equals(name)) {
+            metadata = value instanceof MetadataProperty ? (MetadataProperty) value : null;
+        }
+        getValue().put(SymbolTable.intern(name), value);
     }
     
+    /**
+     * @return the id of this entity, or {@code null} if it has not been assigned one
+     */
     public EntityId getEntityId() throws CannotCastValueException {
-        return getMetadataProperty(ID_KEY, EntityId.class);
+        MetadataProperty metadata = currentMetadata();
+        return metadata != null ? metadata.getEntityId() : null;
+    }
+
+    public void setEntityId(EntityId entityId) throws CannotCastValueException {
+        metadata().setEntityId(entityId);
     }
 
+    /**
+     * Creates a shallow copy of this entity. The copy has its own property map, metadata
+     * and access control lists, so changing them on the copy does not affect this entity,
+     * while the property values themselves are shared.
+     * @return the copy of this entity
+     */
+    public Entity copy() {
+        Map<String, EntityProperty> properties = new LinkedHashMap<>(getValue());
+        MetadataProperty metadata = currentMetadata();
+        if (metadata != null) {
+            properties.put(METADATA_KEY, metadata.copy());
+        }
+        return new Entity(properties);
+    }
+
+    /**
+     * Entities are equal when they hold equal properties and metadata, whatever their
+     * layout, so a {@link CompactEntity} equals an {@link Entity} with the same content.
+     */
+    @Override
+    public boolean equals(Object e) {
+        if (this == e) return true;
+        if (!(e instanceof Entity)) return false;
+        return getValue().equals(((Entity) e).getValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return getValue().hashCode();
+    }
+
+    /**
+     * @return the public read flag, or {@code null} if it has not been set
+     */
     public BooleanProperty getPublicRead() throws CannotCastValueException {
-        return getMetadataProperty(PUBLIC_READ_KEY, BooleanProperty.class);
+        MetadataProperty metadata = currentMetadata();
+        return metadata != null ? metadata.getPublicRead() : null;
     }
 
     public void setPublicRead(BooleanProperty isPublicRead) throws CannotCastValueException {
-        setMetadataProperty(PUBLIC_READ_KEY, isPublicRead);
+        metadata().setPublicRead(isPublicRead);
     }
 
+    /**
+     * @return the public write flag, or {@code null} if it has not been set
+     */
     public BooleanProperty getPublicWrite() throws CannotCastValueException {
-        return getMetadataProperty(PUBLIC_WRITE_KEY, BooleanProperty.class);
+        MetadataProperty metadata = currentMetadata();
+        return metadata != null ? metadata.getPublicWrite() : null;
     }
 
     public void setPublicWrite(BooleanProperty isPublicWrite) throws CannotCastValueException {
-        setMetadataProperty(PUBLIC_WRITE_KEY, isPublicWrite);
+        metadata().setPublicWrite(isPublicWrite);
     }
 
     public void setReadAccessIds(List<EntityId> readAccessIds) throws CannotCastValueException {
-        setMetadataProperty(ACL_READ_KEY, new CollectionProperty<>(readAccessIds));
+        metadata().setReadAccessIds(readAccessIds);
     }
 
+    /**
+     * @return a modifiable copy of the ids with read access, empty if there are none; use
+     *         {@link #hasReadAccessId(EntityId)} to check a single id without copying
+     */
     public List<EntityId> getReadAccessIds() throws CannotCastValueException {
-        return getMetadataCollection(ACL_READ_KEY);
+        MetadataProperty metadata = currentMetadata();
+        return metadata != null ? new ArrayList<>(metadata.readAccessList()) : new ArrayList<EntityId>();
+    }
+
+    public boolean hasReadAccessId(EntityId readAccessId) {
+        MetadataProperty metadata = currentMetadata();
+        return metadata != null && metadata.hasReadAccessId(readAccessId);
     }
 
     public void setWriteAccessIds(List<EntityId> writeAccessIds) throws CannotCastValueException {
-        setMetadataProperty(ACL_WRITE_KEY, new CollectionProperty<>(writeAccessIds));
+        metadata().setWriteAccessIds(writeAccessIds);
     }
 
+    /**
+     * @return a modifiable copy of the ids with write access, empty if there are none; use
+     *         {@link #hasWriteAccessId(EntityId)} to check a single id without copying
+     */
     public List<EntityId> getWriteAccessIds() throws CannotCastValueException {
-        return getMetadataCollection(ACL_WRITE_KEY);
+        MetadataProperty metadata = currentMetadata();
+        return metadata != null ? new ArrayList<>(metadata.writeAccessList()) : new ArrayList<EntityId>();
+    }
+
+    public boolean hasWriteAccessId(EntityId writeAccessId) {
+        MetadataProperty metadata = currentMetadata();
+        return metadata != null && metadata.hasWriteAccessId(writeAccessId);
     }
     
     public void addReadAccessId(EntityId readAccessId) throws CannotCastValueException {
-        List<EntityId> readAccessIds = getReadAccessIds();
-        if (!readAccessIds.contains(readAccessId)) {
-            readAccessIds.add(readAccessId);
-            setReadAccessIds(readAccessIds);
-        }
+        metadata().addReadAccessId(readAccessId);
     }
     
     public void addWriteAccessId(EntityId writeAccessId) throws CannotCastValueException {
-        List<EntityId> writeAccessIds = getWriteAccessIds();
-        if (!writeAccessIds.contains(writeAccessId)) {
-            writeAccessIds.add(writeAccessId);
-            setWriteAccessIds(writeAccessIds);
-        }
+        metadata().addWriteAccessId(writeAccessId);
     }
     
     public void addWriteAccess(Entity writeEntity) throws CannotCastValueException {
@@ -123,41 +216,50 @@ public class Entity extends EntityProperty<Map<String, EntityProperty>> {
     }
     
     private void setType(String type) throws CannotCastValueException {
-        setMetadataProperty("type", new StringProperty(type));
+        metadata().setType(new StringProperty(SymbolTable.intern(type)));
     }
     
+    /**
+     * @return the type of this entity, or {@code null} if it has none
+     */
     public StringProperty getType() throws CannotCastValueException {
-        return getMetadataProperty("type", StringProperty.class);
+        MetadataProperty metadata = currentMetadata();
+        return metadata != null ? metadata.getType() : null;
     }
 
-    private <T extends EntityProperty> T getMetadataProperty(String key, Class<T> clazz) throws CannotCastValueException {
-        MetadataProperty metadata = get(METADATA_KEY, MetadataProperty.class);
-        return metadata != null ? metadata.get(key, clazz) : null;
+    /**
+     * Picks up the metadata passed in with the properties, converting a foreign value under
+     * {@link #METADATA_KEY} to fresh metadata.
+     */
+    private void adoptMetadata() {
+        EntityProperty value = getValue().get(METADATA_KEY);
+        if (value instanceof MetadataProperty) {
+            metadata = (MetadataProperty) value;
+        } else if (value != null) {
+            set(METADATA_KEY, new MetadataProperty());
+        }
     }
 
-    private void setMetadataProperty(String key, EntityProperty value) throws CannotCastValueException {
-        try {
-            MetadataProperty metadata = get(METADATA_KEY, MetadataProperty.class);
-            if (metadata == null) {
-                metadata = new MetadataProperty(key, value);
-                set(METADATA_KEY, metadata);
-            } else {
-                metadata.set(key, value);
-            }
-        } catch (CannotCastValueException e) {
-            MetadataProperty metadata = new MetadataProperty(key, value);
+    /**
+     * @return the metadata, created in the property map if missing; only for writes
+     */
+    private MetadataProperty metadata() {
+        MetadataProperty metadata = currentMetadata();
+        if (metadata == null) {
+            metadata = new MetadataProperty();
             set(METADATA_KEY, metadata);
         }
+        return metadata;
     }
 
-    private List<EntityId> getMetadataCollection(String key) throws CannotCastValueException {
-        MetadataProperty metadata = get(METADATA_KEY, MetadataProperty.class);
-        if (metadata != null) {
-            CollectionProperty<EntityId> collectionProperty = metadata.get(key, CollectionProperty.class);
-            if (collectionProperty != null) {
-                return new ArrayList<>(collectionProperty.getValue());
-            }
+    /**
+     * @return the metadata in the property map, or null if there is none
+     */
+    private MetadataProperty currentMetadata() {
+        EntityProperty value = getValue().get(METADATA_KEY);
+        if (value != metadata) {
+            metadata = value instanceof MetadataProperty ? (MetadataProperty) value : null;
         }
-        return new ArrayList<>();
+        return metadata;
     }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A forward-only cursor over entities that fetches them in batches, so that arbitrarily
+ * large result sets can be processed in constant memory.
+ *
+ * A cursor can be resumed, even from another process, by passing its continuation token
+ * to the method that opened it. Failures while fetching a batch surface from
+ * {@link #hasNext()} and {@link #next()} as a
+ * {@link com.divroll.core.UncheckedEntityStoreException}.
+ */
+public interface EntityCursor extends Iterator<Entity>, Closeable {
+
+    /**
+     * Returns an opaque token that resumes this cursor right after the last entity
+     * returned by {@link #next()}, or at the position the cursor was opened at if
+     * {@link #next()} was not called yet.
+     * @return the continuation token, or null if the cursor was opened at the start
+     */
+    String getContinuationToken();
+
+    /**
+     * Releases the resources held by this cursor. A closed cursor has no more entities.
+     */
+    @Override
+    void close();
+
+    /**
+     * Returns a sequential stream over the remaining entities of this cursor. Closing the
+     * stream closes the cursor.
+     * @return the stream of entities
+     */
+    default Stream<Entity> stream() {
+        Spliterator<Entity> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+}
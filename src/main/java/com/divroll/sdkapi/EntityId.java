@@ -20,29 +20,210 @@
  */
 package com.divroll.sdkapi;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-public class EntityId extends EntityProperty<Map<String, StringProperty>> {
+/**
+ * The id of an entity: its type name and, once stored, its id within the type. Ids are
+ * immutable values held as two strings, the type name interned through {@link SymbolTable},
+ * with the hash code computed once on construction, so they are cheap to use as keys in
+ * caches, sets and maps.
+ *
+ * Ids are ordered by type, then by id, with an id-less {@code EntityId} before every id of
+ * its type. Strings are compared by code point, which is the order of {@link #toBytes()}:
+ * comparing the encodings as unsigned bytes gives the same result as {@link #compareTo}.
+ */
+public class EntityId extends EntityProperty<Map<String, StringProperty>> implements Comparable<EntityId> {
+
+    private static final int ESCAPE = 0x00;
+    private static final int ESCAPED_ZERO = 0xFF;
+    private static final int TERMINATOR = 0x01;
+
+    private final String type;
+    private final String id;
+    private final int hash;
 
     public EntityId(String type) {
-        super(new LinkedHashMap<String, StringProperty>() {{
-            put("type", new StringProperty(type));
-        }});
+        super(Collections.<String, StringProperty>emptyMap());
+        this.type = SymbolTable.intern(require(type, "Type"));
+        this.id = null;
+        this.hash = 31 * type.hashCode();
     }
     
     public EntityId(String type, String id) {
-        super(new LinkedHashMap<String, StringProperty>() {{
-            put("type", new StringProperty(type));
-            put("id", new StringProperty(id));
-        }});
+        super(Collections.<String, StringProperty>emptyMap());
+        this.type = SymbolTable.intern(require(type, "Type"));
+        this.id = require(id, "Id");
+        this.hash = 31 * type.hashCode() + id.hashCode();
+    }
+
+    /**
+     * Decodes an id from the form written by {@link #toBytes()}.
+     * @param bytes the encoded id
+     * @return the id
+     * @throws IllegalArgumentException if the bytes are not an encoded id
+     */
+    public static EntityId fromBytes(byte[] bytes) {
+        int[] position = new int[1];
+        String type = decode(bytes, position);
+        String id = position[0] < bytes.length ? decode(bytes, position) : null;
+        if (position[0] != bytes.length) {
+            throw new IllegalArgumentException("Trailing bytes after entity id");
+        }
+        return id != null ? new EntityId(type, id) : new EntityId(type);
     }
 
     public StringProperty getType() {
-        return getValue().get("type");
+        return new StringProperty(type);
     }
 
     public StringProperty getId() {
-        return getValue().get("id");
+        return id != null ? new StringProperty(id) : null;
+    }
+
+    /**
+     * @return the type name, without the property wrapper
+     */
+    public String getTypeName() {
+        return type;
+    }
+
+    /**
+     * @return the id within the type, or null if the entity was not stored yet
+     */
+    public String getIdValue() {
+        return id;
+    }
+
+    /**
+     * Returns a snapshot of the id as a map with {@code type} and, if set, {@code id} entries.
+     * The map is not backed by this id.
+     */
+    @Override
+    public Map<String, StringProperty> getValue() {
+        Map<String, StringProperty> value = new LinkedHashMap<>(4);
+        value.put(MetadataProperty.TYPE_KEY, getType());
+        if (id != null) {
+            value.put(MetadataProperty.ID_KEY, getId());
+        }
+        return Collections.unmodifiableMap(value);
+    }
+
+    /**
+     * Encodes the id so that comparing encodings as unsigned bytes orders them like
+     * {@link #compareTo}. Both strings are written as UTF-8, with zero bytes escaped, each
+     * followed by a terminator; an id-less {@code EntityId} encodes just the type and so is a
+     * prefix of every id of its type.
+     * @return the encoded id
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(type.length() + (id != null ? id.length() : 0) + 4);
+        encode(type, out);
+        if (id != null) {
+            encode(id, out);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public int compareTo(EntityId other) {
+        int result = compareCodePoints(type, other.type);
+        if (result != 0) {
+            return result;
+        }
+        if (id == null || other.id == null) {
+            return id == null ? (other.id == null ? 0 : -1) : 1;
+        }
+        return compareCodePoints(id, other.id);
+    }
+
+    @Override
+    public boolean equals(Object e) {
+        if (this == e) return true;
+        if (e == null || getClass() != e.getClass()) return false;
+
+        EntityId other = (EntityId) e;
+
+        return hash == other.hash
+                && (type == other.type || type.equals(other.type))
+                && (id == null ? other.id == null : id.equals(other.id));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return id != null ? "{type=" + type + ", id=" + id + "}" : "{type=" + type + "}";
+    }
+
+    private static String require(String value, String name) {
+        if (value == null) {
+            throw new IllegalArgumentException(name + " cannot be null");
+        }
+        return value;
+    }
+
+    /**
+     * Compares strings by code point rather than by UTF-16 unit, matching the order of their
+     * UTF-8 encodings.
+     */
+    private static int compareCodePoints(String a, String b) {
+        if (a == b) {
+            return 0;
+        }
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                if (Character.isSurrogate(x) != Character.isSurrogate(y)) {
+                    // A surrogate starts a supplementary code point, above every BMP character.
+                    return Character.isSurrogate(x) ? 1 : -1;
+                }
+                return x - y;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    private static void encode(String value, ByteArrayOutputStream out) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            if (b == ESCAPE) {
+                out.write(ESCAPE);
+                out.write(ESCAPED_ZERO);
+            } else {
+                out.write(b);
+            }
+        }
+        out.write(ESCAPE);
+        out.write(TERMINATOR);
+    }
+
+    private static String decode(byte[] bytes, int[] position) {
+        ByteArrayOutputStream value = new ByteArrayOutputStream();
+        int i = position[0];
+        while (i < bytes.length) {
+            int b = bytes[i++] & 0xFF;
+            if (b != ESCAPE) {
+                value.write(b);
+                continue;
+            }
+            int next = i < bytes.length ? bytes[i++] & 0xFF : -1;
+            if (next == TERMINATOR) {
+                position[0] = i;
+                return new String(value.toByteArray(), StandardCharsets.UTF_8);
+            } else if (next == ESCAPED_ZERO) {
+                value.write(ESCAPE);
+            } else {
+                throw new IllegalArgumentException("Malformed entity id encoding");
+            }
+        }
+        throw new IllegalArgumentException("Unterminated entity id encoding");
     }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The shared layout of the {@link CompactEntity} instances of one entity type. It assigns
+ * every property name a slot the first time the name is stored, typed after that first
+ * value: {@link IntProperty}, {@link DoubleProperty} and {@link BooleanProperty} values get
+ * primitive slots, everything else an object slot. Schemas are thread-safe and are meant to
+ * be shared by all entities of a type.
+ */
+public final class EntitySchema {
+
+    /**
+     * The most property names a schema assigns slots to. Further names are stored in a
+     * plain map on each entity.
+     */
+    public static final int MAX_FIELDS = 1024;
+
+    static final int LONG = 0;
+    static final int DOUBLE = 1;
+    static final int BOOLEAN = 2;
+    static final int OBJECT = 3;
+
+    private final String type;
+    private final Map<String, Field> fieldsByName = new ConcurrentHashMap<>();
+    private volatile Field[] fields = new Field[0];
+    private final int[] kindCounts = new int[4];
+
+    public EntitySchema(String type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type cannot be null");
+        }
+        this.type = SymbolTable.intern(type);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the number of property names with a slot
+     */
+    public int size() {
+        return fields.length;
+    }
+
+    public CompactEntity newEntity() {
+        return new CompactEntity(this);
+    }
+
+    /**
+     * Copies an entity into the compact representation. The copy gets its own metadata;
+     * property values are shared or unboxed into slots.
+     * @param source the entity to copy, expected to be of this schema's type
+     * @return the compact copy
+     */
+    public CompactEntity compact(Entity source) {
+        CompactEntity compact = new CompactEntity(this);
+        for (Map.Entry<String, EntityProperty> entry : source.getValue().entrySet()) {
+            EntityProperty value = entry.getValue();
+            if (Entity.METADATA_KEY.equals(entry.getKey()) && value instanceof MetadataProperty) {
+                value = ((MetadataProperty) value).copy();
+            }
+            compact.set(entry.getKey(), value);
+        }
+        return compact;
+    }
+
+    Field field(Object name) {
+        return fieldsByName.get(name);
+    }
+
+    Field fieldAt(int slot) {
+        return fields[slot];
+    }
+
+    /**
+     * Returns the field of a name, adding it with the kind of the value if it is new.
+     * @return the field, or null if the schema is full
+     */
+    Field fieldFor(String name, EntityProperty value) {
+        Field field = fieldsByName.get(name);
+        return field != null ? field : addField(SymbolTable.intern(name), kindOf(value));
+    }
+
+    private synchronized Field addField(String name, int kind) {
+        Field field = fieldsByName.get(name);
+        if (field != null || fields.length >= MAX_FIELDS) {
+            return field;
+        }
+        field = new Field(name, fields.length, kind, kindCounts[kind]++);
+        Field[] grown = Arrays.copyOf(fields, fields.length + 1);
+        grown[field.slot] = field;
+        fields = grown;
+        fieldsByName.put(name, field);
+        return field;
+    }
+
+    static int kindOf(EntityProperty value) {
+        Class<?> type = value != null ? value.getClass() : null;
+        if (type == IntProperty.class) {
+            return LONG;
+        } else if (type == DoubleProperty.class) {
+            return DOUBLE;
+        } else if (type == BooleanProperty.class) {
+            return BOOLEAN;
+        }
+        return OBJECT;
+    }
+
+    static final class Field {
+
+        final String name;
+        final int slot;
+        final int kind;
+        /** The index among the fields of the same kind, used to address the typed arrays. */
+        final int index;
+
+        Field(String name, int slot, int kind, int index) {
+            this.name = name;
+            this.slot = slot;
+            this.kind = kind;
+            this.index = index;
+        }
+    }
+}
@@ -28,4 +28,8 @@ public class Equal extends Condition {
         super(property);
         this.value = value;
     }
+
+    public EntityProperty getValue() {
+        return value;
+    }
 }
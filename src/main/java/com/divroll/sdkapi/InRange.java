@@ -33,4 +33,12 @@ public class InRange extends Condition {
         this.min = min;
         this.max = max;
     }
+
+    public EntityProperty getMin() {
+        return min;
+    }
+
+    public EntityProperty getMax() {
+        return max;
+    }
 }
@@ -37,4 +37,21 @@ public class Increment extends Update {
     public IntProperty getValue() {
         return increment;
     }
+
+    @Override
+    public boolean equals(Object e) {
+        if (this == e) return true;
+        if (e == null || getClass() != e.getClass()) return false;
+
+        Increment other = (Increment) e;
+
+        return (fieldName == null ? other.fieldName == null : fieldName.equals(other.fieldName))
+                && (increment == null ? other.increment == null : increment.equals(other.increment));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = fieldName != null ? fieldName.hashCode() : 0;
+        return 31 * result + (increment != null ? increment.hashCode() : 0);
+    }
 }
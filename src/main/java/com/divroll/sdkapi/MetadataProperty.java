@@ -2,28 +2,91 @@ package com.divroll.sdkapi;
 
 import com.divroll.core.CannotCastValueException;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
+/**
+ * System properties of an {@link Entity}: its type, id, public access flags and access
+ * control lists. The well-known keys are kept in typed fields and the access control lists
+ * in insertion-ordered sets, so reading them and checking access does not allocate. Any
+ * other key is kept in a plain map. {@link #getValue()} is a live view over all of them.
+ */
 public class MetadataProperty extends EntityProperty<Map<String, EntityProperty>> {
 
+    static final String TYPE_KEY = "type";
+    static final String ID_KEY = "id";
+    static final String ACL_READ_KEY = "aclRead";
+    static final String ACL_WRITE_KEY = "aclWrite";
+    static final String PUBLIC_READ_KEY = "publicRead";
+    static final String PUBLIC_WRITE_KEY = "publicWrite";
+
+    private StringProperty type;
+    private EntityId entityId;
+    private BooleanProperty publicRead;
+    private BooleanProperty publicWrite;
+    private final LinkedHashSet<EntityId> readAccessIds = new LinkedHashSet<>();
+    private final LinkedHashSet<EntityId> writeAccessIds = new LinkedHashSet<>();
+    private List<EntityId> readAccessList;
+    private List<EntityId> writeAccessList;
+    private final Map<String, EntityProperty> view = new MapView();
+
+    public MetadataProperty() {
+        super(new LinkedHashMap<String, EntityProperty>());
+    }
+
     public MetadataProperty(Map<String, EntityProperty> property) {
-        super(property);
+        this();
+        for (Map.Entry<String, EntityProperty> entry : property.entrySet()) {
+            set(entry.getKey(), entry.getValue());
+        }
     }
     
     public MetadataProperty(String property, EntityProperty value) {
-        super(new LinkedHashMap<String, EntityProperty>() {{
-            put(property, value);
-        }});
+        this();
+        set(property, value);
     }
-    
+
+    /**
+     * Returns a live view of all metadata as a map, with the access control lists as
+     * {@link CollectionProperty} values. Writes to the map go through
+     * {@link #set(String, EntityProperty)}.
+     */
+    @Override
+    public Map<String, EntityProperty> getValue() {
+        return view;
+    }
+
     public EntityProperty get(String name) {
-        return getValue().get(name);
+        switch (name) {
+            case TYPE_KEY:
+                return type;
+            case ID_KEY:
+                return entityId;
+            case PUBLIC_READ_KEY:
+                return publicRead;
+            case PUBLIC_WRITE_KEY:
+                return publicWrite;
+            case ACL_READ_KEY:
+                return readAccessIds.isEmpty() ? null : new CollectionProperty<>(readAccessList());
+            case ACL_WRITE_KEY:
+                return writeAccessIds.isEmpty() ? null : new CollectionProperty<>(writeAccessList());
+            default:
+                return property.get(name);
+        }
     }
 
     public <T extends EntityProperty> T get(String name, Class<T> clazz) 
         throws CannotCastValueException {
-        EntityProperty property = getValue().get(name);
+        EntityProperty property = get(name);
         if (property != null && property.isA(clazz)) {
             return (T) property.asA(clazz);
         } else {
@@ -31,7 +94,315 @@ public class MetadataProperty extends EntityProperty<Map<String, EntityProperty>
         }
     }
 
+    /**
+     * Sets a metadata value. A value of an unexpected class for one of the well-known keys is
+     * kept in the plain map, where only {@link #get(String)} sees it.
+     */
     public void set(String name, EntityProperty value) {
-        getValue().put(name, value);
+        switch (name) {
+            case TYPE_KEY:
+                if (value == null || value instanceof StringProperty) {
+                    type = (StringProperty) value;
+                    property.remove(name);
+                    return;
+                }
+                break;
+            case ID_KEY:
+                if (value == null || value instanceof EntityId) {
+                    entityId = (EntityId) value;
+                    property.remove(name);
+                    return;
+                }
+                break;
+            case PUBLIC_READ_KEY:
+                if (value == null || value instanceof BooleanProperty) {
+                    publicRead = (BooleanProperty) value;
+                    property.remove(name);
+                    return;
+                }
+                break;
+            case PUBLIC_WRITE_KEY:
+                if (value == null || value instanceof BooleanProperty) {
+                    publicWrite = (BooleanProperty) value;
+                    property.remove(name);
+                    return;
+                }
+                break;
+            case ACL_READ_KEY:
+                if (value == null || value instanceof CollectionProperty) {
+                    setReadAccessIds(value == null ? null : ((CollectionProperty<?>) value).getValue());
+                    property.remove(name);
+                    return;
+                }
+                break;
+            case ACL_WRITE_KEY:
+                if (value == null || value instanceof CollectionProperty) {
+                    setWriteAccessIds(value == null ? null : ((CollectionProperty<?>) value).getValue());
+                    property.remove(name);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        if (value == null) {
+            property.remove(name);
+        } else {
+            property.put(SymbolTable.intern(name), value);
+        }
+    }
+
+    public StringProperty getType() {
+        return type;
+    }
+
+    public void setType(StringProperty type) {
+        this.type = type;
+    }
+
+    public EntityId getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(EntityId entityId) {
+        this.entityId = entityId;
+    }
+
+    public BooleanProperty getPublicRead() {
+        return publicRead;
+    }
+
+    public void setPublicRead(BooleanProperty publicRead) {
+        this.publicRead = publicRead;
+    }
+
+    public BooleanProperty getPublicWrite() {
+        return publicWrite;
+    }
+
+    public void setPublicWrite(BooleanProperty publicWrite) {
+        this.publicWrite = publicWrite;
+    }
+
+    /**
+     * @return a read-only view of the ids with read access, in insertion order
+     */
+    public java.util.Set<EntityId> getReadAccessIds() {
+        return Collections.unmodifiableSet(readAccessIds);
+    }
+
+    public void setReadAccessIds(Collection<?> ids) {
+        replace(readAccessIds, ids);
+        readAccessList = null;
+    }
+
+    public boolean addReadAccessId(EntityId id) {
+        if (readAccessIds.add(Objects.requireNonNull(id, "id"))) {
+            readAccessList = null;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean hasReadAccessId(EntityId id) {
+        return readAccessIds.contains(id);
+    }
+
+    /**
+     * @return a read-only view of the ids with write access, in insertion order
+     */
+    public java.util.Set<EntityId> getWriteAccessIds() {
+        return Collections.unmodifiableSet(writeAccessIds);
+    }
+
+    public void setWriteAccessIds(Collection<?> ids) {
+        replace(writeAccessIds, ids);
+        writeAccessList = null;
+    }
+
+    public boolean addWriteAccessId(EntityId id) {
+        if (writeAccessIds.add(Objects.requireNonNull(id, "id"))) {
+            writeAccessList = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return a read-only list of the ids with read access, rebuilt only after they change
+     */
+    List<EntityId> readAccessList() {
+        List<EntityId> list = readAccessList;
+        if (list == null) {
+            readAccessList = list = Collections.unmodifiableList(new ArrayList<>(readAccessIds));
+        }
+        return list;
+    }
+
+    /**
+     * @return a read-only list of the ids with write access, rebuilt only after they change
+     */
+    List<EntityId> writeAccessList() {
+        List<EntityId> list = writeAccessList;
+        if (list == null) {
+            writeAccessList = list = Collections.unmodifiableList(new ArrayList<>(writeAccessIds));
+        }
+        return list;
+    }
+
+    public boolean hasWriteAccessId(EntityId id) {
+        return writeAccessIds.contains(id);
+    }
+
+    /**
+     * @return a copy of this metadata with its own access control lists
+     */
+    public MetadataProperty copy() {
+        MetadataProperty copy = new MetadataProperty(property);
+        copy.type = type;
+        copy.entityId = entityId;
+        copy.publicRead = publicRead;
+        copy.publicWrite = publicWrite;
+        copy.readAccessIds.addAll(readAccessIds);
+        copy.writeAccessIds.addAll(writeAccessIds);
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object e) {
+        if (this == e) return true;
+        if (e == null || getClass() != e.getClass()) return false;
+
+        MetadataProperty that = (MetadataProperty) e;
+
+        return Objects.equals(type, that.type)
+                && Objects.equals(entityId, that.entityId)
+                && Objects.equals(publicRead, that.publicRead)
+                && Objects.equals(publicWrite, that.publicWrite)
+                && readAccessIds.equals(that.readAccessIds)
+                && writeAccessIds.equals(that.writeAccessIds)
+                && property.equals(that.property);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, entityId, publicRead, publicWrite, readAccessIds, writeAccessIds, property);
+    }
+
+    @Override
+    public String toString() {
+        return getValue().toString();
+    }
+
+    private List<String> keys() {
+        List<String> keys = new ArrayList<>(6 + property.size());
+        if (type != null) keys.add(TYPE_KEY);
+        if (entityId != null) keys.add(ID_KEY);
+        if (publicRead != null) keys.add(PUBLIC_READ_KEY);
+        if (publicWrite != null) keys.add(PUBLIC_WRITE_KEY);
+        if (!readAccessIds.isEmpty()) keys.add(ACL_READ_KEY);
+        if (!writeAccessIds.isEmpty()) keys.add(ACL_WRITE_KEY);
+        keys.addAll(property.keySet());
+        return keys;
+    }
+
+    /**
+     * The map returned by {@link #getValue()}, reading and writing through the typed fields.
+     */
+    private final class MapView extends AbstractMap<String, EntityProperty> {
+
+        @Override
+        public EntityProperty get(Object key) {
+            return key instanceof String ? MetadataProperty.this.get((String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public EntityProperty put(String key, EntityProperty value) {
+            EntityProperty previous = get(key);
+            set(key, value);
+            return previous;
+        }
+
+        @Override
+        public EntityProperty remove(Object key) {
+            EntityProperty previous = get(key);
+            if (previous != null) {
+                set((String) key, null);
+            }
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            int size = property.size();
+            if (type != null) size++;
+            if (entityId != null) size++;
+            if (publicRead != null) size++;
+            if (publicWrite != null) size++;
+            if (!readAccessIds.isEmpty()) size++;
+            if (!writeAccessIds.isEmpty()) size++;
+            return size;
+        }
+
+        @Override
+        public java.util.Set<Map.Entry<String, EntityProperty>> entrySet() {
+            return new AbstractSet<Map.Entry<String, EntityProperty>>() {
+                @Override
+                public Iterator<Map.Entry<String, EntityProperty>> iterator() {
+                    Iterator<String> keys = keys().iterator();
+                    return new Iterator<Map.Entry<String, EntityProperty>>() {
+                        private String last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return keys.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, EntityProperty> next() {
+                            String key = keys.next();
+                            last = key;
+                            return new AbstractMap.SimpleEntry<String, EntityProperty>(key, MetadataProperty.this.get(key)) {
+                                @Override
+                                public EntityProperty setValue(EntityProperty value) {
+                                    set(key, value);
+                                    return super.setValue(value);
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null) {
+                                throw new IllegalStateException();
+                            }
+                            set(last, null);
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return MapView.this.size();
+                }
+            };
+        }
+    }
+
+    private static void replace(LinkedHashSet<EntityId> target, Collection<?> ids) {
+        target.clear();
+        if (ids != null) {
+            for (Object id : ids) {
+                if (id instanceof EntityId) {
+                    target.add((EntityId) id);
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.InvalidIdException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a multi-get: the entities found, keyed by id, and the ids that do not exist.
+ * Each requested id appears once, in either part, in the order it was first requested.
+ */
+public final class MultiGetResult {
+
+    /**
+     * The default number of ids read with one bulk call.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    private final Map<EntityId, Entity> found;
+    private final List<EntityId> missing;
+
+    public MultiGetResult(Map<EntityId, Entity> found, List<EntityId> missing) {
+        this.found = Collections.unmodifiableMap(new LinkedHashMap<>(found));
+        this.missing = Collections.unmodifiableList(new ArrayList<>(missing));
+    }
+
+    /**
+     * @return the entities found, keyed by id, in request order
+     */
+    public Map<EntityId, Entity> getFound() {
+        return found;
+    }
+
+    /**
+     * @return the ids of the entities that do not exist, in request order
+     */
+    public List<EntityId> getMissing() {
+        return missing;
+    }
+
+    /**
+     * @param id a requested id
+     * @return the entity with the id, or null if it was missing or not requested
+     */
+    public Entity get(EntityId id) {
+        return found.get(id);
+    }
+
+    /**
+     * @return true if every requested entity was found
+     */
+    public boolean isComplete() {
+        return missing.isEmpty();
+    }
+
+    /**
+     * Merges the results of disjoint chunks of one request, restoring request order.
+     * @param requested the requested ids
+     * @param parts the results of the chunks
+     * @return the merged result
+     */
+    public static MultiGetResult merge(Collection<EntityId> requested, Collection<MultiGetResult> parts) {
+        Map<EntityId, Entity> loaded = new LinkedHashMap<>();
+        for (MultiGetResult part : parts) {
+            loaded.putAll(part.found);
+        }
+        Map<EntityId, Entity> found = new LinkedHashMap<>();
+        List<EntityId> missing = new ArrayList<>();
+        for (EntityId id : new LinkedHashSet<>(requested)) {
+            Entity entity = loaded.get(id);
+            if (entity != null) {
+                found.put(id, entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new MultiGetResult(found, missing);
+    }
+
+    /**
+     * Removes duplicate ids, groups the rest by type and splits each group into chunks, so
+     * that every chunk can be read with one bulk call.
+     * @param ids the requested ids
+     * @param chunkSize the most ids per chunk
+     * @return the chunks, each holding ids of one type
+     */
+    public static List<List<EntityId>> partition(Collection<EntityId> ids, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        Map<String, List<EntityId>> byType = new LinkedHashMap<>();
+        for (EntityId id : new LinkedHashSet<>(ids)) {
+            byType.computeIfAbsent(id.getTypeName(), k -> new ArrayList<>()).add(id);
+        }
+        List<List<EntityId>> chunks = new ArrayList<>();
+        for (List<EntityId> group : byType.values()) {
+            for (int from = 0; from < group.size(); from += chunkSize) {
+                chunks.add(group.subList(from, Math.min(group.size(), from + chunkSize)));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Reads a chunk with one bulk call, falling back to one read per id only if the bulk
+     * call reports a missing entity.
+     */
+    static MultiGetResult readChunk(DataService dataService, List<EntityId> chunk) throws EntityStoreException {
+        Map<EntityId, Entity> found = new LinkedHashMap<>();
+        List<EntityId> missing = new ArrayList<>();
+        try {
+            List<Entity> entities = dataService.readEntities(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                found.put(chunk.get(i), entities.get(i));
+            }
+        } catch (EntityNotExistsException | InvalidIdException e) {
+            for (EntityId id : chunk) {
+                try {
+                    found.put(id, dataService.readEntity(id));
+                } catch (EntityNotExistsException | InvalidIdException missingEntity) {
+                    missing.add(id);
+                }
+            }
+        }
+        return new MultiGetResult(found, missing);
+    }
+}
@@ -20,43 +20,44 @@
  */
 package com.divroll.sdkapi;
 
+import java.util.AbstractMap;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 /**
  * A simple implementation of a MultiMap.
  * A MultiMap is a map that allows mapping of a single key to multiple values.
+ *
+ * This implementation keeps a {@link HashSet} per key and is not thread-safe. See
+ * {@link ConcurrentMultiMap} for one that can be shared between threads, and
+ * {@link CompactMultiMap} for one that keeps small value sets in arrays; all three share
+ * the operations of {@link AbstractMultiMap}.
  */
-public class MultiMap<K, V> {
+public class MultiMap<K, V> extends AbstractMultiMap<K, V> {
+
     private final Map<K, Set<V>> map = new HashMap<>();
+    private int size;
 
-    /**
-     * Adds a value to the collection associated with a specific key in the MultiMap.
-     * @param key The key with which the specified value is to be associated.
-     * @param value The value to be associated with the specified key.
-     */
+    @Override
     public void put(K key, V value) {
-        map.computeIfAbsent(key, k -> new HashSet<>()).add(value);
+        if (map.computeIfAbsent(key, k -> new HashSet<>()).add(value)) {
+            size++;
+        }
     }
 
-    /**
-     * Gets the collection of values associated with a specific key in the MultiMap.
-     * @param key The key whose associated values are to be returned.
-     * @return The collection of values associated with the specified key, or null if no mapping for the key exists.
-     */
+    @Override
     public Collection<V> get(K key) {
-        return map.get(key);
+        Set<V> values = map.get(key);
+        return values != null ? Collections.unmodifiableSet(values) : null;
     }
 
-    /**
-     * Removes a specific value associated with a specific key in the MultiMap.
-     * @param key The key with which the specified value is associated.
-     * @param value The value to be removed from the collection of values associated with the specified key.
-     * @return true if the value was removed, false otherwise.
-     */
+    @Override
     public boolean remove(K key, V value) {
         Set<V> values = map.get(key);
         if (values != null) {
@@ -64,51 +65,63 @@ public class MultiMap<K, V> {
             if (values.isEmpty()) {
                 map.remove(key);
             }
+            if (removed) {
+                size--;
+            }
             return removed;
         }
         return false;
     }
 
-    /**
-     * Checks whether the MultiMap contains a mapping for the specified key.
-     * @param key The key whose presence in the MultiMap is to be tested.
-     * @return true if this map contains a mapping for the specified key.
-     */
+    @Override
     public boolean containsKey(K key) {
         return map.containsKey(key);
     }
 
-    /**
-     * Checks whether the MultiMap contains a mapping for the specified value associated with the specified key.
-     * @param key The key with which the specified value is to be associated.
-     * @param value The value whose presence in the collection of values associated with the specified key is to be tested.
-     * @return true if this map maps one or more keys to the specified value.
-     */
+    @Override
     public boolean containsEntry(K key, V value) {
         Set<V> values = map.get(key);
         return values != null && values.contains(value);
     }
 
-    /**
-     * Returns the set of keys contained in this MultiMap.
-     * @return a set view of the keys contained in this map.
-     */
+    @Override
     public Set<K> keySet() {
-        return map.keySet();
+        return Collections.unmodifiableSet(map.keySet());
     }
 
-    /**
-     * Clears all key-value mappings from this MultiMap.
-     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Map.Entry<K, Set<V>> entry : map.entrySet()) {
+            for (V value : entry.getValue()) {
+                action.accept(entry.getKey(), value);
+            }
+        }
+    }
+
+    @Override
+    public Stream<Map.Entry<K, V>> entries() {
+        return map.entrySet().stream().flatMap(entry -> entry.getValue().stream()
+                .map(value -> new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), value)));
+    }
+
+    @Override
+    public Stream<V> values() {
+        return map.values().stream().flatMap(Set::stream);
+    }
+
+    @Override
     public void clear() {
         map.clear();
+        size = 0;
     }
 
-    /**
-     * Returns the number of key-value mappings in this MultiMap.
-     * @return the number of key-value mappings in this map.
-     */
+    @Override
     public int size() {
+        return size;
+    }
+
+    @Override
+    public int keyCount() {
         return map.size();
     }
-}
\ No newline at end of file
+}
@@ -28,4 +28,8 @@ public class NotEqual extends Condition {
         super(property);
         this.value = value;
     }
+
+    public EntityProperty getValue() {
+        return value;
+    }
 }
@@ -28,4 +28,8 @@ public class NotStartsWith extends Condition {
         super(property);
         this.value = value;
     }
+
+    public StringProperty getValue() {
+        return value;
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import com.divroll.core.EntityStoreException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cursor that pages through a read by offset. Used by the default cursor methods of
+ * {@link DataService}; implementations that can seek should provide their own cursors.
+ */
+class OffsetEntityCursor extends BatchingEntityCursor {
+
+    private static final String TOKEN_PREFIX = "offset:";
+
+    interface PageReader {
+        List<Entity> read(int max, long skip) throws EntityStoreException;
+    }
+
+    private final PageReader reader;
+    private long fetched;
+    private long returned;
+
+    OffsetEntityCursor(int batchSize, String continuationToken, PageReader reader) throws EntityStoreException {
+        super(batchSize, continuationToken);
+        this.reader = reader;
+        this.fetched = parse(continuationToken);
+        this.returned = fetched;
+    }
+
+    @Override
+    protected List<Entity> fetch(int batchSize) throws EntityStoreException {
+        List<Entity> batch = reader.read(batchSize, fetched);
+        fetched += batch.size();
+        return batch;
+    }
+
+    @Override
+    protected String tokenAfter(Entity entity) {
+        return TOKEN_PREFIX + (++returned);
+    }
+
+    static List<Entity> slice(List<Entity> entities, int max, long skip) {
+        if (skip >= entities.size()) {
+            return new ArrayList<>();
+        }
+        int from = (int) skip;
+        return new ArrayList<>(entities.subList(from, (int) Math.min(entities.size(), (long) from + max)));
+    }
+
+    private static long parse(String continuationToken) throws EntityStoreException {
+        if (continuationToken == null) {
+            return 0;
+        }
+        try {
+            if (continuationToken.startsWith(TOKEN_PREFIX)) {
+                long offset = Long.parseLong(continuationToken.substring(TOKEN_PREFIX.length()));
+                if (offset >= 0) {
+                    return offset;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new EntityStoreException(String.format("Invalid continuation token %s", continuationToken));
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects the properties a read returns. A projection either names its properties, in which
+ * case only those are returned, or keeps every property except blobs. Blob properties are
+ * returned only when named, so list reads do not open or transfer their streams.
+ *
+ * Projected entities keep their type and id; their access control metadata is dropped
+ * unless requested with {@link #withMetadata()}. Projections are immutable.
+ */
+public final class Projection {
+
+    private static final Projection WITHOUT_BLOBS = new Projection(null, false);
+
+    private final java.util.Set<String> fields;
+    private final boolean metadata;
+
+    private Projection(java.util.Set<String> fields, boolean metadata) {
+        this.fields = fields;
+        this.metadata = metadata;
+    }
+
+    /**
+     * @param fields the names of the properties to return
+     * @return a projection returning only the named properties
+     */
+    public static Projection of(String... fields) {
+        return of(Arrays.asList(fields));
+    }
+
+    /**
+     * @param fields the names of the properties to return
+     * @return a projection returning only the named properties
+     */
+    public static Projection of(Collection<String> fields) {
+        java.util.Set<String> names = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (field == null) {
+                throw new IllegalArgumentException("Field name cannot be null");
+            }
+            names.add(SymbolTable.intern(field));
+        }
+        return new Projection(Collections.unmodifiableSet(names), false);
+    }
+
+    /**
+     * @return a projection returning every property except blobs
+     */
+    public static Projection withoutBlobs() {
+        return WITHOUT_BLOBS;
+    }
+
+    /**
+     * @return a projection like this one that also keeps the access control metadata
+     */
+    public Projection withMetadata() {
+        return metadata ? this : new Projection(fields, true);
+    }
+
+    /**
+     * @return the named properties, or null if the projection keeps every non-blob property
+     */
+    public java.util.Set<String> getFields() {
+        return fields;
+    }
+
+    public boolean isMetadataIncluded() {
+        return metadata;
+    }
+
+    /**
+     * Tells whether a property is returned.
+     * @param name the property name
+     * @param value the property value
+     * @return true if the projection keeps the property
+     */
+    public boolean includes(String name, EntityProperty value) {
+        if (Entity.METADATA_KEY.equals(name)) {
+            return false;
+        }
+        return fields != null ? fields.contains(name) : !(value instanceof BlobProperty);
+    }
+
+    /**
+     * Builds the projected entity of an entity. Property values are shared, not copied.
+     * @param entity the entity to project
+     * @return a new entity with the selected properties
+     */
+    public Entity apply(Entity entity) {
+        Map<String, EntityProperty> properties = new LinkedHashMap<>();
+        EntityProperty source = entity.get(Entity.METADATA_KEY);
+        if (source instanceof MetadataProperty) {
+            properties.put(Entity.METADATA_KEY, metadataOf((MetadataProperty) source));
+        }
+        if (fields != null) {
+            for (String field : fields) {
+                EntityProperty value = entity.get(field);
+                if (value != null && !Entity.METADATA_KEY.equals(field)) {
+                    properties.put(field, value);
+                }
+            }
+        } else {
+            for (Map.Entry<String, EntityProperty> entry : entity.getValue().entrySet()) {
+                if (includes(entry.getKey(), entry.getValue())) {
+                    properties.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return new Entity(properties);
+    }
+
+    /**
+     * Builds the projected entities of a list of entities.
+     * @param entities the entities to project
+     * @return a new list of projected entities
+     */
+    public List<Entity> applyAll(List<Entity> entities) {
+        List<Entity> projected = new ArrayList<>(entities.size());
+        for (Entity entity : entities) {
+            projected.add(apply(entity));
+        }
+        return projected;
+    }
+
+    /**
+     * Wraps a cursor so that it returns projected entities. Continuation tokens are those of
+     * the wrapped cursor.
+     * @param cursor the cursor to project
+     * @return a cursor returning the projected entities of the wrapped one
+     */
+    public EntityCursor applyAll(EntityCursor cursor) {
+        return new EntityCursor() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public Entity next() {
+                return apply(cursor.next());
+            }
+
+            @Override
+            public String getContinuationToken() {
+                return cursor.getContinuationToken();
+            }
+
+            @Override
+            public void close() {
+                cursor.close();
+            }
+        };
+    }
+
+    private MetadataProperty metadataOf(MetadataProperty source) {
+        if (metadata) {
+            return source.copy();
+        }
+        MetadataProperty reduced = new MetadataProperty();
+        reduced.setType(source.getType());
+        reduced.setEntityId(source.getEntityId());
+        return reduced;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Projection other = (Projection) o;
+
+        return metadata == other.metadata && (fields == null ? other.fields == null : fields.equals(other.fields));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (fields != null ? fields.hashCode() : 0) + (metadata ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "Projection{fields=" + (fields != null ? fields : "*") + ", metadata=" + metadata + "}";
+    }
+}
@@ -37,4 +37,21 @@ public class Set extends Update {
     public EntityProperty getValue() {
         return value;
     }
+
+    @Override
+    public boolean equals(Object e) {
+        if (this == e) return true;
+        if (e == null || getClass() != e.getClass()) return false;
+
+        Set other = (Set) e;
+
+        return (property == null ? other.property == null : property.equals(other.property))
+                && (value == null ? other.value == null : value.equals(other.value));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = property != null ? property.hashCode() : 0;
+        return 31 * result + (value != null ? value.hashCode() : 0);
+    }
 }
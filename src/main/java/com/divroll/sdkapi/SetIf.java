@@ -43,4 +43,26 @@ public class SetIf extends Update {
     public Condition getCondition() {
         return condition;
     }
+
+    /**
+     * Conditions have no value equality, so two guarded sets are equal only when they share
+     * the condition instance.
+     */
+    @Override
+    public boolean equals(Object e) {
+        if (this == e) return true;
+        if (e == null || getClass() != e.getClass()) return false;
+
+        SetIf other = (SetIf) e;
+
+        return condition == other.condition
+                && (property == null ? other.property == null : property.equals(other.property))
+                && (value == null ? other.value == null : value.equals(other.value));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = property != null ? property.hashCode() : 0;
+        return 31 * result + (value != null ? value.hashCode() : 0);
+    }
 }
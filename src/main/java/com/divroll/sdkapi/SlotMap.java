@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The property map of a {@link CompactEntity}. Values are kept in the slots assigned by the
+ * {@link EntitySchema}: longs and doubles in primitive arrays, booleans and presence in
+ * bitsets, and other properties in an object array. Primitive values are boxed into new
+ * {@link EntityProperty} instances only when read through the map. A value that does not
+ * fit the type of its slot, or a name the schema has no room for, goes into a plain map.
+ *
+ * Entries iterate in slot order, followed by the plain map. Like {@link LinkedHashMap}, this
+ * map is not thread-safe.
+ */
+final class SlotMap extends AbstractMap<String, EntityProperty> {
+
+    private static final long[] NO_BITS = new long[0];
+    private static final long[] NO_LONGS = new long[0];
+    private static final double[] NO_DOUBLES = new double[0];
+    private static final EntityProperty[] NO_OBJECTS = new EntityProperty[0];
+
+    private final EntitySchema schema;
+    private long[] present = NO_BITS;
+    private long[] booleans = NO_BITS;
+    private long[] longs = NO_LONGS;
+    private double[] doubles = NO_DOUBLES;
+    private EntityProperty[] objects = NO_OBJECTS;
+    private Map<String, EntityProperty> overflow;
+    private int slotCount;
+
+    SlotMap(EntitySchema schema) {
+        this.schema = schema;
+    }
+
+    private SlotMap(SlotMap source) {
+        schema = source.schema;
+        present = source.present.clone();
+        booleans = source.booleans.clone();
+        longs = source.longs.clone();
+        doubles = source.doubles.clone();
+        objects = source.objects.clone();
+        overflow = source.overflow != null ? new LinkedHashMap<>(source.overflow) : null;
+        slotCount = source.slotCount;
+    }
+
+    SlotMap copy() {
+        return new SlotMap(this);
+    }
+
+    EntitySchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public int size() {
+        return slotCount + (overflow != null ? overflow.size() : 0);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        EntitySchema.Field field = schema.field(key);
+        if (field != null && isPresent(field.slot)) {
+            return true;
+        }
+        return overflow != null && overflow.containsKey(key);
+    }
+
+    @Override
+    public EntityProperty get(Object key) {
+        EntitySchema.Field field = schema.field(key);
+        if (field != null && isPresent(field.slot)) {
+            return box(field);
+        }
+        return overflow != null ? overflow.get(key) : null;
+    }
+
+    /**
+     * Stores a value. Returns null instead of the previous value when it is held in a
+     * primitive slot, to avoid boxing it only to be dropped.
+     */
+    @Override
+    public EntityProperty put(String key, EntityProperty value) {
+        EntitySchema.Field field = value != null ? schema.fieldFor(key, value) : schema.field(key);
+        if (field != null && fits(field, value)) {
+            EntityProperty previous = overflow != null ? overflow.remove(key) : null;
+            if (isPresent(field.slot)) {
+                previous = field.kind == EntitySchema.OBJECT ? objects[field.index] : null;
+            } else {
+                setPresent(field.slot, true);
+                slotCount++;
+            }
+            store(field, value);
+            return previous;
+        }
+        EntityProperty previous = null;
+        if (field != null && isPresent(field.slot)) {
+            previous = box(field);
+            clear(field);
+        }
+        if (overflow == null) {
+            overflow = new LinkedHashMap<>();
+        }
+        EntityProperty replaced = overflow.put(key, value);
+        return previous != null ? previous : replaced;
+    }
+
+    @Override
+    public EntityProperty remove(Object key) {
+        EntitySchema.Field field = schema.field(key);
+        if (field != null && isPresent(field.slot)) {
+            EntityProperty previous = box(field);
+            clear(field);
+            return previous;
+        }
+        return overflow != null ? overflow.remove(key) : null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(present, 0);
+        Arrays.fill(objects, null);
+        slotCount = 0;
+        overflow = null;
+    }
+
+    long getLong(String name, long defaultValue) {
+        EntitySchema.Field field = schema.field(name);
+        if (field != null && field.kind == EntitySchema.LONG && isPresent(field.slot)) {
+            return longs[field.index];
+        }
+        EntityProperty value = overflow != null ? overflow.get(name) : null;
+        return value instanceof IntProperty ? ((IntProperty) value).getValue() : defaultValue;
+    }
+
+    double getDouble(String name, double defaultValue) {
+        EntitySchema.Field field = schema.field(name);
+        if (field != null && field.kind == EntitySchema.DOUBLE && isPresent(field.slot)) {
+            return doubles[field.index];
+        }
+        EntityProperty value = overflow != null ? overflow.get(name) : null;
+        return value instanceof DoubleProperty ? ((DoubleProperty) value).getValue() : defaultValue;
+    }
+
+    boolean getBoolean(String name, boolean defaultValue) {
+        EntitySchema.Field field = schema.field(name);
+        if (field != null && field.kind == EntitySchema.BOOLEAN && isPresent(field.slot)) {
+            return isSet(booleans, field.index);
+        }
+        EntityProperty value = overflow != null ? overflow.get(name) : null;
+        return value instanceof BooleanProperty ? ((BooleanProperty) value).getValue() : defaultValue;
+    }
+
+    @Override
+    public java.util.Set<Map.Entry<String, EntityProperty>> entrySet() {
+        return new AbstractSet<Map.Entry<String, EntityProperty>>() {
+            @Override
+            public Iterator<Map.Entry<String, EntityProperty>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return SlotMap.this.size();
+            }
+        };
+    }
+
+    private boolean fits(EntitySchema.Field field, EntityProperty value) {
+        return value != null && (field.kind == EntitySchema.OBJECT || EntitySchema.kindOf(value) == field.kind);
+    }
+
+    private void store(EntitySchema.Field field, EntityProperty value) {
+        switch (field.kind) {
+            case EntitySchema.LONG:
+                longs = ensure(longs, field.index);
+                longs[field.index] = ((IntProperty) value).getValue();
+                break;
+            case EntitySchema.DOUBLE:
+                doubles = ensure(doubles, field.index);
+                doubles[field.index] = ((DoubleProperty) value).getValue();
+                break;
+            case EntitySchema.BOOLEAN:
+                booleans = ensureBits(booleans, field.index);
+                setBit(booleans, field.index, ((BooleanProperty) value).getValue());
+                break;
+            default:
+                objects = ensure(objects, field.index);
+                objects[field.index] = value;
+                break;
+        }
+    }
+
+    private EntityProperty box(EntitySchema.Field field) {
+        switch (field.kind) {
+            case EntitySchema.LONG:
+                return new IntProperty(longs[field.index]);
+            case EntitySchema.DOUBLE:
+                return new DoubleProperty(doubles[field.index]);
+            case EntitySchema.BOOLEAN:
+                return new BooleanProperty(isSet(booleans, field.index));
+            default:
+                return objects[field.index];
+        }
+    }
+
+    private void clear(EntitySchema.Field field) {
+        setPresent(field.slot, false);
+        if (field.kind == EntitySchema.OBJECT) {
+            objects[field.index] = null;
+        }
+        slotCount--;
+    }
+
+    private boolean isPresent(int slot) {
+        return isSet(present, slot);
+    }
+
+    private void setPresent(int slot, boolean value) {
+        present = ensureBits(present, slot);
+        setBit(present, slot, value);
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        int word = index >>> 6;
+        return word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private static long[] ensureBits(long[] bits, int index) {
+        int words = (index >>> 6) + 1;
+        return words <= bits.length ? bits : Arrays.copyOf(bits, words);
+    }
+
+    private static long[] ensure(long[] array, int index) {
+        return index < array.length ? array : Arrays.copyOf(array, grow(array.length, index));
+    }
+
+    private static double[] ensure(double[] array, int index) {
+        return index < array.length ? array : Arrays.copyOf(array, grow(array.length, index));
+    }
+
+    private static EntityProperty[] ensure(EntityProperty[] array, int index) {
+        return index < array.length ? array : Arrays.copyOf(array, grow(array.length, index));
+    }
+
+    private static int grow(int length, int index) {
+        return Math.max(index + 1, Math.max(4, length + (length >> 1)));
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, EntityProperty>> {
+
+        private int nextSlot = -1;
+        private Iterator<Map.Entry<String, EntityProperty>> overflowIterator;
+        private String lastSlotKey;
+        private boolean lastFromOverflow;
+
+        EntryIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextSlot >= 0 || (overflowIterator != null && overflowIterator.hasNext());
+        }
+
+        @Override
+        public Map.Entry<String, EntityProperty> next() {
+            if (nextSlot >= 0) {
+                EntitySchema.Field field = schema.fieldAt(nextSlot);
+                lastSlotKey = field.name;
+                lastFromOverflow = false;
+                advance();
+                return new SimpleImmutableEntry<>(field.name, box(field));
+            }
+            if (overflowIterator != null && overflowIterator.hasNext()) {
+                lastSlotKey = null;
+                lastFromOverflow = true;
+                return overflowIterator.next();
+            }
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void remove() {
+            if (lastFromOverflow) {
+                overflowIterator.remove();
+                lastFromOverflow = false;
+            } else if (lastSlotKey != null) {
+                clear(schema.field(lastSlotKey));
+                lastSlotKey = null;
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+
+        private void advance() {
+            int from = nextSlot + 1;
+            nextSlot = -1;
+            for (int word = from >>> 6; word < present.length; word++) {
+                long bits = present[word] & (word == from >>> 6 ? -1L << from : -1L);
+                if (bits != 0) {
+                    nextSlot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    break;
+                }
+            }
+            if (nextSlot < 0 && overflowIterator == null && overflow != null) {
+                overflowIterator = overflow.entrySet().iterator();
+            }
+        }
+    }
+}
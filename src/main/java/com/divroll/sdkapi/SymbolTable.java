@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A process-wide table of canonical property and type names. Entities, ids and metadata key
+ * their maps on the names returned by {@link #intern(String)}, so millions of entities share
+ * one instance of each name instead of holding their own copies, and key lookups compare
+ * names by reference before falling back to {@link String#equals(Object)}. Hash codes are
+ * cached by the canonical instance after the first lookup.
+ *
+ * The table is bounded: once it holds {@link #MAX_SYMBOLS} names, further names are returned
+ * as given, so data-driven property names cannot grow it without limit.
+ */
+public final class SymbolTable {
+
+    /**
+     * The most names the table holds.
+     */
+    public static final int MAX_SYMBOLS = 1 << 16;
+
+    private static final ConcurrentMap<String, String> SYMBOLS = new ConcurrentHashMap<>(256);
+
+    static {
+        for (String name : new String[] {
+                Entity.METADATA_KEY, MetadataProperty.TYPE_KEY, MetadataProperty.ID_KEY,
+                MetadataProperty.ACL_READ_KEY, MetadataProperty.ACL_WRITE_KEY,
+                MetadataProperty.PUBLIC_READ_KEY, MetadataProperty.PUBLIC_WRITE_KEY }) {
+            SYMBOLS.put(name, name);
+        }
+    }
+
+    private SymbolTable() {
+    }
+
+    /**
+     * Returns the canonical instance of a name, adding the name to the table if it is new and
+     * the table has room.
+     * @param name the name, may be null
+     * @return the canonical name, or the name itself if the table is full
+     */
+    public static String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        String symbol = SYMBOLS.get(name);
+        if (symbol != null) {
+            return symbol;
+        }
+        if (SYMBOLS.size() >= MAX_SYMBOLS) {
+            return name;
+        }
+        symbol = SYMBOLS.putIfAbsent(name, name);
+        return symbol != null ? symbol : name;
+    }
+
+    /**
+     * @return the number of names in the table
+     */
+    public static int size() {
+        return SYMBOLS.size();
+    }
+}
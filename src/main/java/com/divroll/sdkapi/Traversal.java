@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A multi-hop walk over relationships, started from one entity with
+ * {@link DataService#traverse(EntityId)}. Each hop follows a relationship outgoing from, or
+ * incoming to, every entity reached by the previous hop, optionally keeping only the entities
+ * that match a condition:
+ *
+ * <pre>
+ * List&lt;Entity&gt; friendsOfFriends = dataService.traverse(userId)
+ *         .out(friends)
+ *         .out(friends).where(new Equal("active", new BooleanProperty(true)))
+ *         .limit(50)
+ *         .list();
+ * </pre>
+ *
+ * Entities reached more than once in a hop are returned once, in the order they were first
+ * reached. A traversal without hops reads the start entity. {@link #list()} runs the whole
+ * traversal with one call to {@link DataService#readTraversal(Traversal)}. A traversal is
+ * not thread-safe while it is being built.
+ */
+public class Traversal {
+
+    private final DataService dataService;
+    private final EntityId start;
+    private final List<Step> steps = new ArrayList<>();
+    private Integer limit;
+
+    public Traversal(DataService dataService, EntityId start) {
+        if (start == null) {
+            throw new IllegalArgumentException("Start id cannot be null");
+        }
+        this.dataService = dataService;
+        this.start = start;
+    }
+
+    /**
+     * Adds a hop to the entities the reached entities link to.
+     * @param relation the relationship to follow
+     * @return this traversal
+     */
+    public Traversal out(Relationship relation) {
+        steps.add(new Step(Direction.OUT, relation, null));
+        return this;
+    }
+
+    /**
+     * Adds a hop to the entities of a type that link to the reached entities.
+     * @param relation the relationship to follow backwards
+     * @param type the type of the linking entities
+     * @return this traversal
+     */
+    public Traversal in(Relationship relation, String type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type cannot be null");
+        }
+        steps.add(new Step(Direction.IN, relation, type));
+        return this;
+    }
+
+    /**
+     * Keeps only the entities of the last hop that match a condition.
+     * @param condition the condition
+     * @return this traversal
+     * @throws IllegalStateException if there is no hop yet, or the last hop already has a condition
+     */
+    public Traversal where(Condition condition) {
+        if (steps.isEmpty()) {
+            throw new IllegalStateException("where() must follow a hop");
+        }
+        Step last = steps.get(steps.size() - 1);
+        if (last.condition != null) {
+            throw new IllegalStateException("The hop already has a condition");
+        }
+        steps.set(steps.size() - 1, new Step(last.direction, last.relation, last.type, condition));
+        return this;
+    }
+
+    /**
+     * Limits the number of entities returned.
+     * @param max the maximum number of entities
+     * @return this traversal
+     */
+    public Traversal limit(int max) {
+        if (max < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative: " + max);
+        }
+        this.limit = max;
+        return this;
+    }
+
+    /**
+     * Runs the traversal.
+     * @return the entities reached by the last hop
+     * @throws EntityNotExistsException if the start entity does not exist
+     * @throws EntityStoreException if there is an error reading the entities
+     */
+    public List<Entity> list() throws EntityNotExistsException, EntityStoreException {
+        return dataService.readTraversal(this);
+    }
+
+    public EntityId getStart() {
+        return start;
+    }
+
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * @return the maximum number of entities to return, or null for no limit
+     */
+    public Integer getLimit() {
+        return limit;
+    }
+
+    /**
+     * Runs the traversal one hop at a time through the single-hop reads of a data service:
+     * one read per reached entity per hop, plus one read per incoming hop with a condition
+     * that filters the entities it reached through {@link DataService#readEntities(List, Condition)}.
+     */
+    List<Entity> readHopByHop(DataService dataService) throws EntityNotExistsException, EntityStoreException {
+        if (steps.isEmpty()) {
+            Entity entity = dataService.readEntity(start);
+            return limit != null && limit == 0 ? Collections.<Entity>emptyList() : Collections.singletonList(entity);
+        }
+        List<EntityId> frontier = Collections.singletonList(start);
+        Map<EntityId, Entity> reached = Collections.emptyMap();
+        for (int i = 0; i < steps.size() && !frontier.isEmpty(); i++) {
+            Step step = steps.get(i);
+            boolean last = i == steps.size() - 1;
+            reached = new LinkedHashMap<>(step.isSingle() ? frontier.size() * 2 : 16);
+            for (EntityId id : frontier) {
+                List<Entity> linked = step.direction == Direction.OUT
+                        ? dataService.readRelatedEntities(id, step.relation, step.condition)
+                        : dataService.readEntities(step.type, step.relation, id);
+                for (Entity entity : linked) {
+                    reached.putIfAbsent(idOf(entity), entity);
+                }
+                if (last && limit != null && reached.size() >= limit
+                        && (step.direction == Direction.OUT || step.condition == null)) {
+                    break;
+                }
+            }
+            if (step.direction == Direction.IN && step.condition != null) {
+                Map<EntityId, Entity> matching = new LinkedHashMap<>();
+                for (Entity entity : dataService.readEntities(new ArrayList<>(reached.keySet()), step.condition)) {
+                    matching.put(idOf(entity), entity);
+                }
+                reached = matching;
+            }
+            frontier = new ArrayList<>(reached.keySet());
+        }
+        List<Entity> entities = new ArrayList<>(reached.values());
+        return limit != null && entities.size() > limit ? new ArrayList<>(entities.subList(0, limit)) : entities;
+    }
+
+    private static EntityId idOf(Entity entity) throws EntityStoreException {
+        try {
+            return entity.getEntityId();
+        } catch (CannotCastValueException e) {
+            throw new EntityStoreException("Entity read without an id", e);
+        }
+    }
+
+    public enum Direction {
+        OUT,
+        IN
+    }
+
+    /**
+     * One hop of a traversal.
+     */
+    public static final class Step {
+
+        private final Direction direction;
+        private final Relationship relation;
+        private final String type;
+        private final Condition condition;
+
+        Step(Direction direction, Relationship relation, String type) {
+            this(direction, relation, type, null);
+        }
+
+        Step(Direction direction, Relationship relation, String type, Condition condition) {
+            if (relation == null) {
+                throw new IllegalArgumentException("Relationship cannot be null");
+            }
+            this.direction = direction;
+            this.relation = relation;
+            this.type = type;
+            this.condition = condition;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+
+        public Relationship getRelation() {
+            return relation;
+        }
+
+        /**
+         * @return the type of the linking entities of an incoming hop, or null for an outgoing hop
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the condition the reached entities must match, or null
+         */
+        public Condition getCondition() {
+            return condition;
+        }
+
+        /**
+         * Tells whether the hop reaches at most one entity from each entity, which is the case
+         * for outgoing hops over {@code ONE_TO_ONE} and {@code MANY_TO_ONE} relationships.
+         * Such hops never widen the traversal.
+         */
+        public boolean isSingle() {
+            Relationship.Type relationType = relation.getType();
+            return direction == Direction.OUT
+                    && (relationType == Relationship.Type.ONE_TO_ONE || relationType == Relationship.Type.MANY_TO_ONE);
+        }
+    }
+}
@@ -31,4 +31,19 @@ public class Unset extends Update {
     public String getProperty() {
         return property;
     }
+
+    @Override
+    public boolean equals(Object e) {
+        if (this == e) return true;
+        if (e == null || getClass() != e.getClass()) return false;
+
+        Unset other = (Unset) e;
+
+        return property == null ? other.property == null : property.equals(other.property);
+    }
+
+    @Override
+    public int hashCode() {
+        return property != null ? property.hashCode() : 0;
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a set-based bulk update: how many entities matched the filter and how many
+ * of them the updates changed. A {@link SetIf} whose condition fails, or a {@link Set} to the
+ * current value, matches without modifying. Implementations that cannot tell the difference
+ * report every matched entity as modified.
+ *
+ * A summary may also hold a sample of the matched entities as they are after the update,
+ * projected as requested by the caller, so that a bulk update can be checked without
+ * reading the entities back.
+ */
+public final class UpdateSummary {
+
+    /**
+     * The default number of entities updated per chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final long matched;
+    private final long modified;
+    private final List<Entity> sample;
+
+    public UpdateSummary(long matched, long modified) {
+        this(matched, modified, Collections.<Entity>emptyList());
+    }
+
+    public UpdateSummary(long matched, long modified, List<Entity> sample) {
+        if (modified > matched) {
+            throw new IllegalArgumentException("Modified count " + modified + " exceeds matched count " + matched);
+        }
+        this.matched = matched;
+        this.modified = modified;
+        this.sample = Collections.unmodifiableList(new ArrayList<>(sample));
+    }
+
+    public long getMatched() {
+        return matched;
+    }
+
+    public long getModified() {
+        return modified;
+    }
+
+    /**
+     * @return the projected sample of the matched entities, empty if none was requested
+     */
+    public List<Entity> getSample() {
+        return sample;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        UpdateSummary other = (UpdateSummary) o;
+
+        return matched == other.matched && modified == other.modified && sample.equals(other.sample);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Long.hashCode(matched) + Long.hashCode(modified)) + sample.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateSummary{matched=" + matched + ", modified=" + modified + ", sample=" + sample.size() + "}";
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2024 Divroll
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.divroll.sdkapi;
+
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.InvalidIdException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects writes and applies them to a {@link DataService} in bulk.
+ *
+ * Creates, updates and deletes are queued in order and flushed once the batch holds
+ * {@code maxOperations} writes, once the oldest queued write is older than
+ * {@code maxDelay}, or on {@link #flush()} and {@link #close()}. A flush applies each run of
+ * consecutive writes of the same kind with one bulk call: creates through
+ * {@link DataService#createEntities(List)}, updates with equal update lists through
+ * {@link DataService#updateEntities(List, List)} and deletes through
+ * {@link DataService#deleteEntities(List)}. Every queued write completes its own future
+ * with its result or error.
+ *
+ * When a bulk update or delete reports a missing entity or an invalid id, the run is retried
+ * one write at a time so that only the writes on those entities fail. This relies on the
+ * contract of {@link DataService#updateEntities(List, List)} and
+ * {@link DataService#deleteEntities(List)} to check every id before applying any change, so
+ * no write of the run has been applied when it is retried. A failed bulk create fails every
+ * create of its run.
+ *
+ * A batch is safe for use by multiple threads. Flushes run one at a time and in the order
+ * their writes were queued, so writes are applied in order. If a scheduler is given, a flush is
+ * scheduled {@code maxDelay} after the first write is queued; otherwise the delay is only
+ * checked when writes are queued.
+ */
+public class WriteBatch implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_OPERATIONS = 500;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 100;
+
+    private final DataService dataService;
+    private final int maxOperations;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Object flushLock = new Object();
+    private List<Operation<?>> pending = new ArrayList<>();
+    private long oldestQueuedAt;
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    public WriteBatch(DataService dataService) {
+        this(dataService, DEFAULT_MAX_OPERATIONS, DEFAULT_MAX_DELAY_MILLIS, TimeUnit.MILLISECONDS, null);
+    }
+
+    /**
+     * Creates a write batch.
+     * @param dataService the data service to write to
+     * @param maxOperations the number of queued writes that triggers a flush
+     * @param maxDelay how long a write may stay queued before a flush is triggered
+     * @param unit the unit of maxDelay
+     * @param scheduler the scheduler used to flush after maxDelay, or null to check the delay only when writes are queued
+     */
+    public WriteBatch(DataService dataService, int maxOperations, long maxDelay, TimeUnit unit, ScheduledExecutorService scheduler) {
+        if (maxOperations <= 0) {
+            throw new IllegalArgumentException("Maximum number of operations must be positive");
+        }
+        this.dataService = dataService;
+        this.maxOperations = maxOperations;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queues the creation of an entity.
+     * @param toCreate the entity to create
+     * @return a future completed with the id of the created entity
+     */
+    public CompletableFuture<EntityId> create(Entity toCreate) {
+        return enqueue(new Operation<EntityId>(Kind.CREATE, toCreate, null, null));
+    }
+
+    /**
+     * Queues updates to an entity. Consecutive updates with equal update lists are applied
+     * with one bulk call.
+     * @param toUpdate the id of the entity to update
+     * @param updates the updates to apply
+     * @return a future completed with the updated entity
+     */
+    public CompletableFuture<Entity> update(EntityId toUpdate, List<Update> updates) {
+        return enqueue(new Operation<Entity>(Kind.UPDATE, null, toUpdate, updates));
+    }
+
+    /**
+     * Queues the deletion of an entity.
+     * @param toDelete the id of the entity to delete
+     * @return a future completed with true if the entity was deleted
+     */
+    public CompletableFuture<Boolean> delete(EntityId toDelete) {
+        return enqueue(new Operation<Boolean>(Kind.DELETE, null, toDelete, null));
+    }
+
+    /**
+     * Returns the number of queued writes.
+     * @return the number of writes waiting for a flush
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Applies every queued write. Errors are reported through the futures of the writes.
+     * Waits for a flush running on another thread to finish first.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<Operation<?>> operations;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                operations = pending;
+                pending = new ArrayList<>();
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+            }
+            apply(operations);
+        }
+    }
+
+    /**
+     * Flushes the queued writes and rejects further ones. Returns once every queued write
+     * has been applied, including those of a flush running on another thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+    }
+
+    private <T> CompletableFuture<T> enqueue(Operation<T> operation) {
+        boolean flush;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Write batch is closed");
+            }
+            long now = System.nanoTime();
+            if (pending.isEmpty()) {
+                oldestQueuedAt = now;
+                if (scheduler != null) {
+                    scheduledFlush = scheduler.schedule(this::flush, maxDelayNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            pending.add(operation);
+            flush = pending.size() >= maxOperations || now - oldestQueuedAt >= maxDelayNanos;
+        }
+        if (flush) {
+            flush();
+        }
+        return operation.future;
+    }
+
+    private void apply(List<Operation<?>> operations) {
+        int start = 0;
+        while (start < operations.size()) {
+            Operation<?> first = operations.get(start);
+            int end = start + 1;
+            while (end < operations.size() && first.batchesWith(operations.get(end))) {
+                end++;
+            }
+            List<Operation<?>> run = operations.subList(start, end);
+            switch (first.kind) {
+                case CREATE:
+                    applyCreates(run);
+                    break;
+                case UPDATE:
+                    applyUpdates(run);
+                    break;
+                default:
+                    applyDeletes(run);
+                    break;
+            }
+            start = end;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyCreates(List<Operation<?>> run) {
+        List<Entity> entities = new ArrayList<>(run.size());
+        for (Operation<?> operation : run) {
+            entities.add(operation.entity);
+        }
+        try {
+            List<EntityId> ids = dataService.createEntities(entities);
+            for (int i = 0; i < run.size(); i++) {
+                ((Operation<EntityId>) run.get(i)).future.complete(ids.get(i));
+            }
+        } catch (EntityStoreException | RuntimeException e) {
+            failAll(run, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyUpdates(List<Operation<?>> run) {
+        try {
+            List<Entity> updated = dataService.updateEntities(idsOf(run), run.get(0).updates);
+            for (int i = 0; i < run.size(); i++) {
+                ((Operation<Entity>) run.get(i)).future.complete(updated.get(i));
+            }
+        } catch (EntityNotExistsException | InvalidIdException e) {
+            for (Operation<?> operation : run) {
+                try {
+                    ((Operation<Entity>) operation).future.complete(dataService.updateEntity(operation.id, operation.updates));
+                } catch (EntityStoreException | RuntimeException single) {
+                    operation.future.completeExceptionally(single);
+                }
+            }
+        } catch (EntityStoreException | RuntimeException e) {
+            failAll(run, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyDeletes(List<Operation<?>> run) {
+        try {
+            boolean deleted = dataService.deleteEntities(idsOf(run));
+            for (Operation<?> operation : run) {
+                ((Operation<Boolean>) operation).future.complete(deleted);
+            }
+        } catch (EntityNotExistsException | InvalidIdException e) {
+            for (Operation<?> operation : run) {
+                try {
+                    ((Operation<Boolean>) operation).future.complete(dataService.deleteEntity(operation.id));
+                } catch (EntityStoreException | RuntimeException single) {
+                    operation.future.completeExceptionally(single);
+                }
+            }
+        } catch (EntityStoreException | RuntimeException e) {
+            failAll(run, e);
+        }
+    }
+
+    private static List<EntityId> idsOf(List<Operation<?>> run) {
+        List<EntityId> ids = new ArrayList<>(run.size());
+        for (Operation<?> operation : run) {
+            ids.add(operation.id);
+        }
+        return ids;
+    }
+
+    private static void failAll(List<Operation<?>> run, Throwable error) {
+        for (Operation<?> operation : run) {
+            operation.future.completeExceptionally(error);
+        }
+    }
+
+    private enum Kind {
+        CREATE, UPDATE, DELETE
+    }
+
+    private static final class Operation<T> {
+        private final Kind kind;
+        private final Entity entity;
+        private final EntityId id;
+        private final List<Update> updates;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Operation(Kind kind, Entity entity, EntityId id, List<Update> updates) {
+            this.kind = kind;
+            this.entity = entity;
+            this.id = id;
+            this.updates = updates;
+        }
+
+        private boolean batchesWith(Operation<?> next) {
+            return kind == next.kind && (kind != Kind.UPDATE || updates.equals(next.updates));
+        }
+    }
+}
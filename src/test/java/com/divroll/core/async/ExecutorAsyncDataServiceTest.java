@@ -0,0 +1,137 @@
+package com.divroll.core.async;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.memory.InMemoryDataService;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.IntProperty;
+import com.divroll.sdkapi.MultiGetResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ExecutorAsyncDataServiceTest {
+
+    private InMemoryDataService dataService;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        dataService = new InMemoryDataService();
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testErrorsCompleteTheFutureExceptionally() throws InterruptedException {
+        // Given: an async view of an empty data service
+        ExecutorAsyncDataService async = new ExecutorAsyncDataService(dataService, executor);
+
+        // When: a missing entity is read
+        CompletableFuture<Entity> read = async.readEntity(new EntityId("Row", "1"));
+
+        // Then: the future fails with the data service's own exception
+        try {
+            read.get();
+            fail("Reading a missing entity should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof EntityNotExistsException);
+        }
+    }
+
+    @Test
+    public void testRejectedCallsCompleteTheFuture() {
+        // Given: an executor that rejects every task
+        ExecutorAsyncDataService async = new ExecutorAsyncDataService(dataService, task -> {
+            throw new RejectedExecutionException("saturated");
+        });
+
+        // When: a call is made
+        CompletableFuture<Long> count = async.countEntities("Row");
+
+        // Then: the rejection is reported through the future instead of being thrown
+        assertTrue(count.isCompletedExceptionally());
+        try {
+            count.join();
+            fail("Rejected call should fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void testMultiGetReadsChunksConcurrentlyAndMerges() throws EntityStoreException, CannotCastValueException,
+            InterruptedException, ExecutionException {
+        // Given: 150 stored rows, requested together with 100 missing ids
+        List<EntityId> ids = new ArrayList<>();
+        for (long i = 0; i < 150; i++) {
+            ids.add(dataService.createEntity(new Entity("Row", "index", new IntProperty(i))));
+        }
+        for (int i = 0; i < 100; i++) {
+            ids.add(new EntityId("Row", String.valueOf(1000 + i)));
+        }
+        AtomicInteger chunks = new AtomicInteger();
+        ExecutorAsyncDataService async = new ExecutorAsyncDataService(dataService, task -> {
+            chunks.incrementAndGet();
+            executor.execute(task);
+        });
+
+        // When: they are read with one multi-get
+        MultiGetResult result = async.multiGet(ids).get();
+
+        // Then: each chunk ran as its own task and the merged result keeps the request order
+        assertEquals(3, chunks.get());
+        assertEquals(150, result.getFound().size());
+        assertEquals(ids.subList(0, 150), new ArrayList<>(result.getFound().keySet()));
+        assertEquals(ids.subList(150, 250), result.getMissing());
+    }
+
+    @Test
+    public void testMultiGetFailsWithTheChunkError() throws InterruptedException {
+        // Given: a data service whose second chunk fails
+        EntityId poisoned = new EntityId("Row", "150");
+        InMemoryDataService failing = new InMemoryDataService() {
+            @Override
+            public MultiGetResult multiGet(List<EntityId> toRead) throws EntityStoreException {
+                if (toRead.contains(poisoned)) {
+                    throw new EntityStoreException("Chunk failed");
+                }
+                return super.multiGet(toRead);
+            }
+        };
+        List<EntityId> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(new EntityId("Row", String.valueOf(i)));
+        }
+        ExecutorAsyncDataService async = new ExecutorAsyncDataService(failing, executor);
+
+        // When: the ids are read with one multi-get
+        CompletableFuture<MultiGetResult> result = async.multiGet(ids);
+
+        // Then: the result fails with the chunk's exception, not a wrapper
+        try {
+            result.get();
+            fail("Multi-get should fail when a chunk fails");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof EntityStoreException);
+            assertEquals("Chunk failed", e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.divroll.core.blob;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.memory.InMemoryDataService;
+import com.divroll.sdkapi.BlobHandle;
+import com.divroll.sdkapi.BlobProperty;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.MultipleRelationship;
+import com.divroll.sdkapi.Relationship;
+import com.divroll.sdkapi.Set;
+import com.divroll.sdkapi.StringProperty;
+import com.divroll.sdkapi.Update;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class DiskBlobStoreTest {
+
+    private static final byte[] AVATAR = "default avatar".getBytes();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DiskBlobStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        store = new DiskBlobStore(folder.getRoot().toPath());
+    }
+
+    @Test
+    public void testIdenticalContentIsStoredOnce() throws IOException {
+        // When: the same content is put twice
+        BlobHandle first = store.put(new ByteArrayInputStream(AVATAR));
+        BlobHandle second = store.put(new ByteArrayInputStream(AVATAR.clone()));
+
+        // Then: both handles share one digest with two references and read the content
+        assertEquals(first.contentHash(), second.contentHash());
+        assertEquals(2, store.referenceCount(first.contentHash()));
+        assertEquals(first.contentHash(), BlobHandle.of(AVATAR).contentHash());
+        assertArrayEquals(AVATAR, readAll(store.get(first.contentHash()).openStream()));
+    }
+
+    @Test
+    public void testContentIsDeletedWithItsLastReference() throws IOException {
+        // Given: content with two references
+        String digest = store.put(new ByteArrayInputStream(AVATAR)).contentHash();
+        store.retain(digest);
+
+        // When/Then: the first release keeps the content and the second deletes it
+        assertFalse(store.release(digest));
+        assertNotNull(store.get(digest));
+        assertTrue(store.release(digest));
+        assertNull(store.get(digest));
+        assertEquals(0, store.referenceCount(digest));
+    }
+
+    @Test
+    public void testDataServiceReferencesBlobsByContent() throws EntityStoreException, CannotCastValueException, IOException {
+        // Given: a data service over the store and a team whose two members carry the same avatar
+        InMemoryDataService dataService = new InMemoryDataService(store);
+        Relationship members = new MultipleRelationship("members");
+        EntityId team = dataService.createEntity(new Entity("Team", "name", new StringProperty("Red")));
+        EntityId alice = dataService.createEntity(user("Alice"));
+        EntityId bob = dataService.createEntity(user("Bob"));
+        dataService.addRelation(team, members, Arrays.asList(alice, bob));
+        BlobProperty avatar = dataService.readEntity(alice).get("avatar", BlobProperty.class);
+        String digest = avatar.getHandle().contentHash();
+
+        // Then: the payload is stored once, referenced by both users and re-readable
+        assertEquals(2, store.referenceCount(digest));
+        assertArrayEquals(AVATAR, readAll(avatar.getValue()));
+        assertArrayEquals(AVATAR, readAll(avatar.getValue()));
+
+        // When: one user is deleted and the other replaces the avatar
+        dataService.deleteEntity(alice);
+        dataService.updateEntity(bob, Collections.<Update>singletonList(
+                new Set("avatar", new BlobProperty(new ByteArrayInputStream("custom".getBytes())))));
+
+        // Then: the shared payload is gone and only the new one is referenced
+        assertNull(store.get(digest));
+        String custom = dataService.readEntity(bob).get("avatar", BlobProperty.class).getHandle().contentHash();
+        assertEquals(1, store.referenceCount(custom));
+
+        // When: the remaining user is removed with cascade delete
+        dataService.removeRelatedEntities(team, members, Arrays.asList(bob), true);
+
+        // Then: its payload is released as well
+        assertNull(store.get(custom));
+    }
+
+    @Test
+    public void testBulkUpdateStoresSharedBlobOnce() throws EntityStoreException, CannotCastValueException, IOException {
+        // Given: three users without avatars
+        InMemoryDataService dataService = new InMemoryDataService(store);
+        for (String name : Arrays.asList("Alice", "Bob", "Carol")) {
+            dataService.createEntity(new Entity("User", "name", new StringProperty(name)));
+        }
+
+        // When: all of them get the same avatar from a single stream
+        dataService.updateEntities("User", null, Collections.<Update>singletonList(
+                new Set("avatar", new BlobProperty(new ByteArrayInputStream(AVATAR)))));
+
+        // Then: the stream is stored once and every user references and reads it
+        String digest = BlobHandle.of(AVATAR).contentHash();
+        assertEquals(3, store.referenceCount(digest));
+        for (Entity user : dataService.readEntities("User", 10, 0L)) {
+            assertArrayEquals(AVATAR, readAll(user.get("avatar", BlobProperty.class).getValue()));
+        }
+    }
+
+    @Test
+    public void testFailedBlobWriteKeepsNoReferences() throws CannotCastValueException, IOException {
+        // Given: a store that fails on the second payload of a write
+        int[] puts = new int[1];
+        BlobStore failing = new BlobStore() {
+            @Override
+            public BlobHandle put(InputStream in) throws IOException {
+                if (++puts[0] == 2) {
+                    throw new IOException("Disk full");
+                }
+                return store.put(in);
+            }
+
+            @Override
+            public BlobHandle retain(String digest) throws IOException {
+                return store.retain(digest);
+            }
+
+            @Override
+            public boolean release(String digest) throws IOException {
+                return store.release(digest);
+            }
+
+            @Override
+            public BlobHandle get(String digest) throws IOException {
+                return store.get(digest);
+            }
+
+            @Override
+            public int referenceCount(String digest) {
+                return store.referenceCount(digest);
+            }
+
+            @Override
+            public String digestOf(BlobHandle handle) {
+                return store.digestOf(handle);
+            }
+        };
+        InMemoryDataService dataService = new InMemoryDataService(failing);
+        Entity user = user("Alice");
+        user.set("banner", new BlobProperty(new ByteArrayInputStream("banner".getBytes())));
+
+        // When: a user with two payloads is created
+        try {
+            dataService.createEntity(user);
+            fail("Expected an EntityStoreException");
+        } catch (EntityStoreException expected) {
+            // expected
+        }
+
+        // Then: the payload stored first is released again
+        assertEquals(0, store.referenceCount(BlobHandle.of(AVATAR).contentHash()));
+        assertNull(store.get(BlobHandle.of(AVATAR).contentHash()));
+    }
+
+    private static Entity user(String name) throws CannotCastValueException {
+        Entity user = new Entity("User", "name", new StringProperty(name));
+        user.set("avatar", new BlobProperty(new ByteArrayInputStream(AVATAR)));
+        return user;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
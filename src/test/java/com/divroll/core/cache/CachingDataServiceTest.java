@@ -0,0 +1,125 @@
+package com.divroll.core.cache;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.memory.InMemoryDataService;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.IntProperty;
+import com.divroll.sdkapi.Projection;
+import com.divroll.sdkapi.Set;
+import com.divroll.sdkapi.StringProperty;
+import com.divroll.sdkapi.Update;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class CachingDataServiceTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+    private CachingDataService dataService;
+
+    @Before
+    public void setUp() {
+        dataService = new CachingDataService(new InMemoryDataService(), 2, 1000, ticker::get);
+    }
+
+    @Test
+    public void testRepeatedReadsAreServedFromCache() throws EntityStoreException, CannotCastValueException {
+        // Given: a stored config entity
+        EntityId id = dataService.createEntity(new Entity("Config", "theme", new StringProperty("dark")));
+
+        // When: it is read several times by id and by property
+        dataService.readEntity(id);
+        dataService.readEntity(id);
+        dataService.readEntity("Config", "theme", new StringProperty("dark"));
+        Entity read = dataService.readEntity("Config", "theme", new StringProperty("dark"));
+
+        // Then: only the first read of each kind misses
+        CacheStatistics statistics = dataService.getStatistics();
+        assertEquals(2, statistics.getHitCount());
+        assertEquals(2, statistics.getMissCount());
+        assertEquals(id, read.getEntityId());
+    }
+
+    @Test
+    public void testProjectedReadsUseCachedEntities() throws EntityStoreException, CannotCastValueException {
+        // Given: a cached entity and one that was never read
+        Entity entity = new Entity("Config", "theme", new StringProperty("dark"));
+        entity.set("size", new IntProperty(12L));
+        EntityId cached = dataService.createEntity(entity);
+        EntityId uncached = dataService.createEntity(new Entity("Config", "theme", new StringProperty("light")));
+        dataService.readEntity(cached);
+
+        // When: both are read with a projection
+        Entity projected = dataService.readEntity(cached, Projection.of("theme"));
+        List<Entity> both = dataService.readEntities(Arrays.asList(cached, uncached), Projection.of("theme"));
+
+        // Then: the cached one is projected from the cache and the other is read through
+        assertNull(projected.get("size"));
+        assertEquals("dark", projected.get("theme", StringProperty.class).getValue());
+        assertEquals(2, dataService.getStatistics().getHitCount());
+        assertEquals(Arrays.asList(cached, uncached), Arrays.asList(both.get(0).getEntityId(), both.get(1).getEntityId()));
+        assertNull(both.get(0).get("size"));
+    }
+
+    @Test
+    public void testWritesInvalidateEntries() throws EntityStoreException, CannotCastValueException {
+        // Given: a cached entity
+        EntityId id = dataService.createEntity(new Entity("User", "name", new StringProperty("ana")));
+        dataService.readEntity(id);
+        dataService.readEntity("User", "name", new StringProperty("ana"));
+
+        // When: it is updated
+        dataService.updateEntity(id, Collections.<Update>singletonList(new Set("name", new StringProperty("bea"))));
+
+        // Then: both the id and the property entries are reloaded
+        assertEquals("bea", dataService.readEntity(id).get("name", StringProperty.class).getValue());
+        try {
+            dataService.readEntity("User", "name", new StringProperty("ana"));
+            fail("Stale property lookup should not be served");
+        } catch (EntityNotExistsException expected) {
+            // expected
+        }
+
+        // When: it is deleted
+        dataService.deleteEntity(id);
+
+        // Then: it is no longer readable
+        try {
+            dataService.readEntity(id);
+            fail("Deleted entity should not be served");
+        } catch (EntityNotExistsException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEntriesAreEvictedBySizeAndExpireByTime() throws EntityStoreException, CannotCastValueException {
+        // Given: three entities in a cache holding two
+        EntityId first = dataService.createEntity(new Entity("Item", "rank", new IntProperty(1L)));
+        EntityId second = dataService.createEntity(new Entity("Item", "rank", new IntProperty(2L)));
+        EntityId third = dataService.createEntity(new Entity("Item", "rank", new IntProperty(3L)));
+
+        // When: all three are read
+        dataService.readEntities(Arrays.asList(first, second, third));
+
+        // Then: the least recently used one was evicted
+        assertEquals(1, dataService.getStatistics().getEvictionCount());
+
+        // When: the time to live passes
+        ticker.addAndGet(1000);
+        dataService.readEntity(third);
+
+        // Then: the expired entry is reloaded
+        assertEquals(0, dataService.getStatistics().getHitCount());
+        assertEquals(2, dataService.getStatistics().getEvictionCount());
+    }
+}
@@ -0,0 +1,126 @@
+package com.divroll.core.codec;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.sdkapi.BlobProperty;
+import com.divroll.sdkapi.BooleanProperty;
+import com.divroll.sdkapi.CollectionProperty;
+import com.divroll.sdkapi.DoubleProperty;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.IntProperty;
+import com.divroll.sdkapi.StringProperty;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EntityCodecTest {
+
+    @Test
+    public void testEntityRoundTrip() throws IOException, CannotCastValueException {
+        // Given: an entity with every property type, an id, flags and access ids
+        byte[] avatar = new byte[20000];
+        new Random(7).nextBytes(avatar);
+        Map<String, EntityProperty> properties = new LinkedHashMap<>();
+        properties.put("name", new StringProperty("Knight ⚔"));
+        properties.put("level", new IntProperty(-5L));
+        properties.put("highScore", new DoubleProperty(2510.32));
+        properties.put("isActive", new BooleanProperty(true));
+        properties.put("inventory", new CollectionProperty<>(Arrays.asList(new StringProperty("sword"), new IntProperty(Long.MAX_VALUE))));
+        properties.put("avatar", new BlobProperty(new ByteArrayInputStream(avatar)));
+        Entity entity = new Entity("GameCharacter", properties);
+        entity.setEntityId(new EntityId("GameCharacter", "42"));
+        entity.setPublicRead(new BooleanProperty(false));
+        entity.addReadAccessId(new EntityId("User", "1"));
+
+        // When: it is encoded and decoded from a direct buffer
+        byte[] bytes = EntityCodec.encode(entity);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        Entity decoded = EntityCodec.decodeEntity(buffer);
+
+        // Then: properties and metadata match and the whole buffer is consumed
+        assertFalse(buffer.hasRemaining());
+        assertEquals("Knight ⚔", decoded.get("name", StringProperty.class).getValue());
+        assertEquals(-5L, decoded.get("level", IntProperty.class).getValue().longValue());
+        assertEquals(2510.32, decoded.get("highScore", DoubleProperty.class).getValue(), 0.0);
+        assertTrue(decoded.get("isActive", BooleanProperty.class).getValue());
+        assertEquals(properties.get("inventory"), decoded.get("inventory"));
+        assertArrayEquals(avatar, readFully(decoded.get("avatar", BlobProperty.class).getValue()));
+        assertEquals("GameCharacter", decoded.getType().getValue());
+        assertEquals(new EntityId("GameCharacter", "42"), decoded.getEntityId());
+        assertFalse(decoded.getPublicRead().getValue());
+        assertTrue(decoded.hasReadAccessId(new EntityId("User", "1")));
+    }
+
+    @Test
+    public void testRepeatedNamesAreInterned() throws IOException, CannotCastValueException {
+        // Given: a collection of entities sharing property names
+        Entity first = new Entity("Item", "description", new StringProperty("a"));
+        Entity second = new Entity("Item", "description", new StringProperty("b"));
+
+        // When: the collection is encoded
+        byte[] one = EntityCodec.encode(new CollectionProperty<>(Arrays.asList(first)));
+        byte[] two = EntityCodec.encode(new CollectionProperty<>(Arrays.asList(first, second)));
+
+        // Then: the second entity costs less than the first
+        assertTrue(two.length - one.length < one.length - 4);
+        assertEquals(second, ((CollectionProperty<?>) EntityCodec.decode(ByteBuffer.wrap(two))).getValue().toArray()[1]);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedMessageIsRejected() throws IOException {
+        // Given: an encoded string missing its last byte
+        byte[] bytes = EntityCodec.encode(new StringProperty("truncated"));
+
+        // When: it is decoded
+        EntityCodec.decode(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+
+        // Then: an EOFException is thrown
+    }
+
+    @Test
+    public void testDeeplyNestedMessageIsRejected() throws IOException {
+        // Given: collections nested to the limit, and a message nesting them far deeper
+        EntityProperty nested = new StringProperty("leaf");
+        for (int i = 0; i < EntityCodec.MAX_DEPTH; i++) {
+            nested = new CollectionProperty<>(Arrays.asList(nested));
+        }
+        ByteArrayOutputStream deep = new ByteArrayOutputStream();
+        deep.write(new byte[] {'D', 'E', EntityCodec.VERSION});
+        for (int i = 0; i < 100000; i++) {
+            deep.write(new byte[] {EntityCodec.TAG_COLLECTION, 1});
+        }
+        deep.write(EntityCodec.TAG_NULL);
+
+        // Then: the limit decodes, while the deeper message fails with an IOException
+        assertEquals(nested, EntityCodec.decode(ByteBuffer.wrap(EntityCodec.encode(nested))));
+        try {
+            EntityCodec.decode(ByteBuffer.wrap(deep.toByteArray()));
+            fail("A message nested deeper than the limit should be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("nested"));
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
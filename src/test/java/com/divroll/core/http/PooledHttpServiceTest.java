@@ -0,0 +1,117 @@
+package com.divroll.core.http;
+
+import com.divroll.sdkapi.http.exceptions.TimeoutException;
+import com.divroll.sdkapi.http.exceptions.WhitelistException;
+import com.divroll.sdkapi.http.request.GetRequest;
+import com.divroll.sdkapi.http.request.PostRequest;
+import com.divroll.sdkapi.http.response.HttpResponse;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PooledHttpServiceTest {
+
+    private HttpServer server;
+    private PooledHttpService httpService;
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = ("echo:" + new String(readFully(exchange.getRequestBody()), StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        httpService = PooledHttpService.builder()
+                .readTimeout(200)
+                .whitelist(Arrays.asList("127.0.0.1"))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        httpService.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testConnectionIsReused() throws Exception {
+        // Given: a pooled service and an echo endpoint
+
+        // When: several requests are sent one after another, synchronously and asynchronously
+        HttpResponse first = httpService.post(new PostRequest(baseUrl + "/echo", "hello"));
+        httpService.get(new GetRequest(baseUrl + "/echo"));
+        HttpResponse third = httpService.postAsync(new PostRequest(baseUrl + "/echo", "again")).get();
+
+        // Then: all of them went over the same kept-alive connection
+        assertEquals(200, first.getCode().intValue());
+        assertEquals("echo:hello", first.getBody());
+        assertEquals("echo:again", third.getBody());
+        assertEquals(1, clientPorts.size());
+        assertEquals(1, httpService.getAvailableConnections());
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testReadTimeoutIsReported() throws Exception {
+        // Given: an endpoint slower than the read timeout
+
+        // When: it is requested
+        httpService.get(new GetRequest(baseUrl + "/slow"));
+
+        // Then: a TimeoutException is thrown
+    }
+
+    @Test
+    public void testWhitelistIsEnforced() throws Exception {
+        // Given: a service whitelisting only 127.0.0.1
+
+        // Then: other hosts are rejected before any connection is made
+        assertTrue(httpService.isWhitelisted(baseUrl + "/echo"));
+        assertFalse(httpService.isWhitelisted("http://example.com/"));
+        try {
+            httpService.get(new GetRequest("http://example.com/"));
+            fail("Expected a WhitelistException");
+        } catch (WhitelistException expected) {
+            assertTrue(expected.getMessage().contains("example.com"));
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws java.io.IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        int n;
+        while ((n = in.read(chunk)) != -1) {
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,291 @@
+package com.divroll.core.memory;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityCursor;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.EntityProperty;
+import com.divroll.sdkapi.Equal;
+import com.divroll.sdkapi.HasLink;
+import com.divroll.sdkapi.InRange;
+import com.divroll.sdkapi.Increment;
+import com.divroll.sdkapi.IntProperty;
+import com.divroll.sdkapi.MultipleRelationship;
+import com.divroll.sdkapi.Projection;
+import com.divroll.sdkapi.Relationship;
+import com.divroll.sdkapi.Set;
+import com.divroll.sdkapi.SingleRelationship;
+import com.divroll.sdkapi.StartsWith;
+import com.divroll.sdkapi.StringProperty;
+import com.divroll.sdkapi.Unset;
+import com.divroll.sdkapi.Update;
+import com.divroll.sdkapi.UpdateSummary;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class InMemoryDataServiceTest {
+
+    private InMemoryDataService dataService;
+
+    @Before
+    public void setUp() {
+        dataService = new InMemoryDataService();
+    }
+
+    @Test
+    public void testCreateAndReadEntity() throws EntityStoreException, CannotCastValueException {
+        // Given: a stored game character
+        EntityId id = dataService.createEntity(character("Knight", 5L));
+
+        // When: the entity is read back by id and by property
+        Entity byId = dataService.readEntity(id);
+        Entity byName = dataService.readEntity("GameCharacter", "name", new StringProperty("Knight"));
+
+        // Then: both reads return the stored entity with its id assigned
+        assertEquals(id, byId.getEntityId());
+        assertEquals(id, byName.getEntityId());
+        assertEquals("GameCharacter", byId.getType().getValue());
+        assertEquals(1, dataService.countEntities("GameCharacter"));
+    }
+
+    @Test
+    public void testStoredEntitiesAreIsolatedFromCallers() throws EntityStoreException, CannotCastValueException {
+        // Given: an entity that is modified after being stored
+        Entity knight = character("Knight", 5L);
+        EntityId id = dataService.createEntity(knight);
+        knight.set("name", new StringProperty("Changed"));
+
+        // When: the entity is read back and modified again
+        Entity read = dataService.readEntity(id);
+        read.set("level", new IntProperty(99L));
+
+        // Then: the store still holds the original values and index entries
+        assertEquals("Knight", dataService.readEntity(id).get("name", StringProperty.class).getValue());
+        assertEquals(5L, dataService.readEntity(id).get("level", IntProperty.class).getValue().longValue());
+        assertTrue(dataService.readEntities("GameCharacter", new Equal("name", new StringProperty("Changed")), null, null).isEmpty());
+    }
+
+    @Test
+    public void testReadEntitiesWithConditions() throws EntityStoreException {
+        // Given: several characters of different levels
+        dataService.createEntity(character("Knight", 5L));
+        dataService.createEntity(character("Archer", 12L));
+        dataService.createEntity(character("Archmage", 30L));
+        dataService.createEntity(character("Rogue", 12L));
+
+        // When/Then: prefix, range, combined and paged conditions select the expected entities
+        assertEquals(Arrays.asList("Archer", "Archmage"),
+                names(dataService.readEntities("GameCharacter", new StartsWith("name", new StringProperty("Arch")), null, null)));
+        assertEquals(Arrays.asList("Archer", "Rogue"),
+                names(dataService.readEntities("GameCharacter", new InRange("level", new IntProperty(10L), new IntProperty(20L)), null, null)));
+        assertEquals(Arrays.asList("Archer"),
+                names(dataService.readEntities("GameCharacter",
+                        new StartsWith("name", new StringProperty("Arch")).intersect(new Equal("level", new IntProperty(12L))), null, null)));
+        assertEquals(Arrays.asList("Knight", "Archmage"),
+                names(dataService.readEntities("GameCharacter",
+                        new StartsWith("name", new StringProperty("")).minus(new Equal("level", new IntProperty(12L))), null, null)));
+        assertEquals(Arrays.asList("Archmage"),
+                names(dataService.readEntities("GameCharacter", new StartsWith("name", new StringProperty("")), 1, 2L)));
+    }
+
+    @Test
+    public void testUpdateEntityKeepsIndexesCurrent() throws EntityStoreException, CannotCastValueException {
+        // Given: a stored character
+        EntityId id = dataService.createEntity(character("Knight", 5L));
+
+        // When: its level is incremented and its name unset
+        List<Update> updates = Arrays.asList(new Increment("level", new IntProperty(3L)), new Unset("name"), new Set("title", new StringProperty("Sir")));
+        Entity updated = dataService.updateEntity(id, updates);
+
+        // Then: the entity and the indexes reflect the new values
+        assertEquals(8L, updated.get("level", IntProperty.class).getValue().longValue());
+        assertNull(updated.get("name"));
+        assertEquals(1, dataService.readEntities("GameCharacter", new Equal("level", new IntProperty(8L)), null, null).size());
+        assertTrue(dataService.readEntities("GameCharacter", new Equal("level", new IntProperty(5L)), null, null).isEmpty());
+        assertTrue(dataService.readEntities("GameCharacter", new Equal("name", new StringProperty("Knight")), null, null).isEmpty());
+    }
+
+    @Test
+    public void testBulkUpdateByConditionReturnsSummary() throws EntityStoreException, CannotCastValueException {
+        // Given: characters of several levels, one already holding the new title
+        for (long level = 1; level <= 2500; level++) {
+            dataService.createEntity(character("C" + level, level));
+        }
+        EntityId titled = dataService.createEntity(character("Titled", 2000L));
+        dataService.updateEntity(titled, Arrays.<Update>asList(new Set("title", new StringProperty("Veteran"))));
+
+        // When: every character from level 1500 up gets the title, across several chunks
+        UpdateSummary summary = dataService.updateEntities("GameCharacter",
+                new InRange("level", new IntProperty(1500L), new IntProperty(10000L)),
+                Arrays.<Update>asList(new Set("title", new StringProperty("Veteran"))));
+
+        // Then: the counts tell matched from modified, and the indexes see the new values
+        assertEquals(new UpdateSummary(1002, 1001), summary);
+        assertEquals(1002, dataService.readEntities("GameCharacter", new Equal("title", new StringProperty("Veteran")), null, null).size());
+        assertEquals(new UpdateSummary(0, 0), dataService.updateEntities("Unknown", null, Arrays.<Update>asList(new Unset("title"))));
+    }
+
+    @Test
+    public void testBulkUpdateReturnsProjectedSample() throws EntityStoreException, CannotCastValueException {
+        // Given: five characters
+        for (long level = 1; level <= 5; level++) {
+            dataService.createEntity(character("C" + level, level));
+        }
+
+        // When: every character is promoted, asking for a sample of two levels
+        UpdateSummary summary = dataService.updateEntities("GameCharacter", null,
+                Arrays.<Update>asList(new Increment("level", new IntProperty(10L))), Projection.of("level"), 2);
+
+        // Then: all are counted, and the sample holds two projected entities after the update
+        assertEquals(5, summary.getMatched());
+        assertEquals(2, summary.getSample().size());
+        Entity sampled = summary.getSample().get(0);
+        assertTrue(sampled.get("level", IntProperty.class).getValue() > 10L);
+        assertNull(sampled.get("name"));
+        assertNotNull(sampled.getEntityId());
+    }
+
+    @Test
+    public void testRelationsAndCascadeDelete() throws EntityStoreException, CannotCastValueException {
+        // Given: a guild with two members
+        Relationship members = new MultipleRelationship("members");
+        EntityId guild = dataService.createEntity(new Entity("Guild", "name", new StringProperty("Order")));
+        EntityId knight = dataService.createEntity(character("Knight", 5L));
+        EntityId archer = dataService.createEntity(character("Archer", 12L));
+        dataService.addRelation(guild, members, Arrays.asList(knight, archer));
+
+        // When/Then: the links are readable in both directions and by condition
+        assertEquals(Arrays.asList("Knight", "Archer"), names(dataService.readRelatedEntities(guild, members)));
+        assertEquals(1, dataService.readEntities("Guild", members, knight).size());
+        assertEquals(1, dataService.readEntities("Guild", new HasLink("members"), null, null).size());
+
+        // When: one member is removed with cascade delete
+        dataService.removeRelatedEntities(guild, members, Arrays.asList(knight), true);
+
+        // Then: the member and its links are gone
+        assertEquals(Arrays.asList("Archer"), names(dataService.readRelatedEntities(guild, members)));
+        assertEquals(1, dataService.countEntities("GameCharacter"));
+        try {
+            dataService.readEntity(knight);
+            fail("Deleted entity should not be readable");
+        } catch (EntityNotExistsException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOneToOneLinksAreSingleOnBothSides() throws EntityStoreException, CannotCastValueException {
+        // Given: a one-to-one relationship from a knight to a horse
+        Relationship mount = new SingleRelationship("mount");
+        EntityId knight = dataService.createEntity(character("Knight", 5L));
+        EntityId archer = dataService.createEntity(character("Archer", 12L));
+        EntityId horse = dataService.createEntity(new Entity("Horse", "name", new StringProperty("Shadowfax")));
+        dataService.addRelation(knight, mount, horse);
+
+        // When: another character links to the same horse
+        dataService.addRelation(archer, mount, horse);
+
+        // Then: the horse is linked from the archer only, in both directions
+        assertEquals(Arrays.asList("Archer"), names(dataService.readEntities("GameCharacter", mount, horse)));
+        assertTrue(dataService.readRelatedEntities(knight, mount).isEmpty());
+        assertEquals(1, dataService.readRelatedEntities(archer, mount).size());
+    }
+
+    @Test
+    public void testReadListedEntitiesWithCondition() throws EntityStoreException {
+        // Given: three characters
+        EntityId knight = dataService.createEntity(character("Knight", 5L));
+        dataService.createEntity(character("Archer", 12L));
+        EntityId mage = dataService.createEntity(character("Mage", 20L));
+
+        // When: two of them are read with a condition, one listed twice, plus a missing id
+        List<Entity> read = dataService.readEntities(Arrays.asList(mage, knight, mage,
+                new EntityId("GameCharacter", "999")), new InRange("level", new IntProperty(10L), new IntProperty(30L)));
+
+        // Then: only the listed match is returned, once, and the unlisted archer is skipped
+        assertEquals(Arrays.asList("Mage"), names(read));
+    }
+
+    @Test
+    public void testCursorResumesFromContinuationToken() throws EntityStoreException {
+        // Given: five characters, two of which are level 12
+        dataService.createEntity(character("Knight", 5L));
+        dataService.createEntity(character("Archer", 12L));
+        dataService.createEntity(character("Archmage", 30L));
+        dataService.createEntity(character("Rogue", 12L));
+        dataService.createEntity(character("Bard", 7L));
+
+        // When: a cursor is read partially and a second cursor resumes from its token
+        EntityCursor first = dataService.openCursor("GameCharacter", null, 2, null);
+        List<Entity> read = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            read.add(first.next());
+        }
+        first.close();
+        EntityCursor second = dataService.openCursor("GameCharacter", null, 2, first.getContinuationToken());
+        while (second.hasNext()) {
+            read.add(second.next());
+        }
+
+        // Then: every entity is read exactly once and in order
+        assertEquals(Arrays.asList("Knight", "Archer", "Archmage", "Rogue", "Bard"), names(read));
+        assertFalse(first.hasNext());
+
+        // And: cursors with conditions stream only the matching entities
+        EntityCursor filtered = dataService.openCursor("GameCharacter", new Equal("level", new IntProperty(12L)), 1, null);
+        assertEquals(2, filtered.stream().count());
+    }
+
+    @Test
+    public void testPrefixCursorSeesRowsChangedBetweenBatches() throws EntityStoreException {
+        // Given: four characters whose names start with "Ar" among others
+        dataService.createEntity(character("Archer", 1L));
+        EntityId armorer = dataService.createEntity(character("Armorer", 2L));
+        EntityId knight = dataService.createEntity(character("Knight", 3L));
+        EntityId arbiter = dataService.createEntity(character("Arbiter", 4L));
+        dataService.createEntity(character("Archmage", 5L));
+
+        // When: the first batch is read, then one match is deleted, another renamed away and a later row renamed into the prefix
+        EntityCursor cursor = dataService.openCursor("GameCharacter", new StartsWith("name", new StringProperty("Ar")), 1, null);
+        List<Entity> read = new ArrayList<>();
+        read.add(cursor.next());
+        dataService.deleteEntity(armorer);
+        dataService.updateEntity(arbiter, Arrays.<Update>asList(new Set("name", new StringProperty("Bard"))));
+        dataService.updateEntity(knight, Arrays.<Update>asList(new Set("name", new StringProperty("Arrow"))));
+        while (cursor.hasNext()) {
+            read.add(cursor.next());
+        }
+
+        // Then: later batches return the rows matching when they are fetched, in order
+        assertEquals(Arrays.asList("Archer", "Arrow", "Archmage"), names(read));
+    }
+
+    private static Entity character(String name, long level) {
+        Map<String, EntityProperty> properties = new LinkedHashMap<>();
+        properties.put("name", new StringProperty(name));
+        properties.put("level", new IntProperty(level));
+        try {
+            return new Entity("GameCharacter", properties);
+        } catch (CannotCastValueException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> names(List<Entity> entities) {
+        String[] names = new String[entities.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = ((StringProperty) entities.get(i).get("name")).getValue();
+        }
+        return Arrays.asList(names);
+    }
+}
@@ -0,0 +1,124 @@
+package com.divroll.core.method;
+
+import com.divroll.core.MethodVerb;
+import com.divroll.core.rest.CustomCodeRequest;
+import com.divroll.core.rest.CustomCodeResponse;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MethodExecutorTest {
+
+    @Test
+    public void testInvocationsRunConcurrently() throws Exception {
+        // Given: an executor and a method that blocks until three invocations are running
+        CountDownLatch running = new CountDownLatch(3);
+        CustomCodeMethod method = new CustomCodeMethod() {
+            @Override
+            public String getMethodName() {
+                return "sync";
+            }
+
+            @Override
+            public List<String> getParams() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public CustomCodeResponse execute(CustomCodeRequest request) {
+                running.countDown();
+                try {
+                    return new CustomCodeResponse(running.await(5, TimeUnit.SECONDS) ? 200 : 504, new byte[0]);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return new CustomCodeResponse(500, new byte[0]);
+                }
+            }
+        };
+
+        try (MethodExecutor executor = MethodExecutor.create()) {
+            // When: three invocations are submitted
+            CustomCodeRequest request = new CustomCodeRequest(MethodVerb.GET, "/sync", Collections.<String, String>emptyMap(), null, "sync", 0);
+            List<Integer> statuses = executor.fanOut(Arrays.<Callable<Integer>>asList(
+                    () -> executor.submit(method, request).get().getResponseStatus(),
+                    () -> executor.submit(method, request).get().getResponseStatus(),
+                    () -> executor.submit(method, request).get().getResponseStatus()));
+
+            // Then: all of them ran at the same time
+            assertEquals(Arrays.asList(200, 200, 200), statuses);
+            assertEquals(MethodExecutor.isVirtualThreadSupported(), executor.isVirtual());
+        }
+    }
+
+    @Test
+    public void testFanOutCancelsSiblingsOnFailure() throws Exception {
+        // Given: a fan-out with a failing task and a task that would block for a long time
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (MethodExecutor executor = MethodExecutor.pooled(4, 4)) {
+            // When: it runs, failing only once the blocking task is running
+            try {
+                executor.fanOut(Arrays.<Callable<Object>>asList(
+                        () -> {
+                            started.countDown();
+                            try {
+                                Thread.sleep(10000);
+                            } catch (InterruptedException e) {
+                                interrupted.countDown();
+                            }
+                            return null;
+                        },
+                        () -> {
+                            started.await(5, TimeUnit.SECONDS);
+                            throw new IllegalStateException("boom");
+                        }));
+                fail("Expected an ExecutionException");
+            } catch (ExecutionException e) {
+                // Then: the failure is reported and the blocked task is interrupted
+                assertTrue(e.getCause() instanceof IllegalStateException);
+                assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void testFanOutFromFullPoolDoesNotDeadlock() throws Exception {
+        // Given: a pool with a single worker
+        try (MethodExecutor executor = MethodExecutor.pooled(1, 4)) {
+            // When: an invocation on that worker fans out
+            CompletableFuture<CustomCodeResponse> response = executor.submit(new CustomCodeMethod() {
+                @Override
+                public String getMethodName() {
+                    return "fanout";
+                }
+
+                @Override
+                public List<String> getParams() {
+                    return Collections.emptyList();
+                }
+
+                @Override
+                public CustomCodeResponse execute(CustomCodeRequest request) {
+                    try {
+                        List<Integer> parts = executor.fanOut(Arrays.<Callable<Integer>>asList(() -> 1, () -> 2));
+                        return new CustomCodeResponse(parts.equals(Arrays.asList(1, 2)) ? 200 : 500, new byte[0]);
+                    } catch (Exception e) {
+                        return new CustomCodeResponse(500, new byte[0]);
+                    }
+                }
+            }, null);
+
+            // Then: the worker runs the subtasks itself instead of waiting behind them
+            assertEquals(200, response.get(5, TimeUnit.SECONDS).getResponseStatus());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.divroll.core.method;
+
+import com.divroll.core.MethodVerb;
+import com.divroll.core.rest.CustomCodeRequest;
+import com.divroll.core.rest.CustomCodeResponse;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class MethodRegistryTest {
+
+    @Test
+    public void testDispatchByNameAndVerb() {
+        // Given: a GET and a POST method sharing a name, and a method accepting every verb
+        MethodRegistry registry = MethodRegistry.of(Arrays.asList(
+                method("score", EnumSet.of(MethodVerb.GET), 200),
+                method("score", EnumSet.of(MethodVerb.POST), 201),
+                method("ping", EnumSet.allOf(MethodVerb.class), 204)));
+
+        // When: requests are dispatched
+        int get = registry.dispatch(request("score", MethodVerb.GET, "player")).getResponseStatus();
+        int post = registry.dispatch(request("score", MethodVerb.POST, "player")).getResponseStatus();
+        int delete = registry.dispatch(request("score", MethodVerb.DELETE, "player")).getResponseStatus();
+        int missing = registry.dispatch(request("nope", MethodVerb.GET)).getResponseStatus();
+
+        // Then: each request reaches its method or gets the matching error
+        assertEquals(200, get);
+        assertEquals(201, post);
+        assertEquals(MethodRegistry.METHOD_NOT_ALLOWED, delete);
+        assertEquals(MethodRegistry.NOT_FOUND, missing);
+        assertEquals(3, registry.size());
+        assertNotNull(registry.lookup("ping", MethodVerb.PUT));
+    }
+
+    @Test
+    public void testMissingParamsAreRejected() {
+        // Given: a method requiring a player parameter
+        MethodRegistry registry = MethodRegistry.of(Collections.singletonList(method("score", EnumSet.of(MethodVerb.GET), 200)));
+
+        // When: it is called without parameters
+        CustomCodeResponse response = registry.dispatch(request("score", MethodVerb.GET));
+
+        // Then: the request is rejected with the missing parameter
+        assertEquals(MethodRegistry.BAD_REQUEST, response.getResponseStatus());
+        assertEquals(Collections.singletonList("player"), response.getResponseMap().get("missing"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateMethodsAreRejected() {
+        // When: two methods claim GET score
+        MethodRegistry.of(Arrays.asList(
+                method("score", EnumSet.of(MethodVerb.GET), 200),
+                method("score", EnumSet.allOf(MethodVerb.class), 200)));
+
+        // Then: building the registry fails
+    }
+
+    private static CustomCodeRequest request(String name, MethodVerb verb, String... params) {
+        Map<String, String> given = new HashMap<>();
+        for (String param : params) {
+            given.put(param, "value");
+        }
+        return new CustomCodeRequest(verb, "/" + name, given, null, name, 0);
+    }
+
+    private static CustomCodeMethod method(String name, Set<MethodVerb> verbs, int status) {
+        return new CustomCodeMethod() {
+            @Override
+            public String getMethodName() {
+                return name;
+            }
+
+            @Override
+            public List<String> getParams() {
+                return Collections.singletonList("player");
+            }
+
+            @Override
+            public CustomCodeResponse execute(CustomCodeRequest request) {
+                return new CustomCodeResponse(status, new byte[0]);
+            }
+
+            @Override
+            public Set<MethodVerb> getVerbs() {
+                return verbs;
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.divroll.core.metrics;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.memory.InMemoryDataService;
+import com.divroll.sdkapi.DataService;
+import com.divroll.sdkapi.Entity;
+import com.divroll.sdkapi.EntityId;
+import com.divroll.sdkapi.StringProperty;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testHistogramPercentilesAreWithinPrecision() {
+        // Given: a histogram with the values 1 to 100000
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value);
+        }
+
+        // When: a snapshot is taken
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        // Then: percentiles are within the histogram's relative error
+        assertEquals(100000, snapshot.getCount());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(100000, snapshot.getMax());
+        assertEquals(50000, snapshot.getValueAtPercentile(50), 50000 / 64);
+        assertEquals(99000, snapshot.getValueAtPercentile(99), 99000 / 64);
+        assertEquals(100000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testDataServiceCallsAreRecorded() throws EntityStoreException, CannotCastValueException {
+        // Given: an instrumented data service on a ticker advancing 1ms per reading
+        AtomicLong ticker = new AtomicLong();
+        MetricsRegistry registry = new MetricsRegistry(() -> ticker.addAndGet(1000000));
+        DataService dataService = new InstrumentedDataService(new InMemoryDataService(), registry);
+        EntityId id = dataService.createEntity(new Entity("User", "name", new StringProperty("ana")));
+
+        // When: an existing and a deleted entity are read
+        dataService.readEntities("User", 10, 0L);
+        dataService.deleteEntity(id);
+        try {
+            dataService.readEntity(id);
+            fail("Expected an EntityNotExistsException");
+        } catch (EntityNotExistsException expected) {
+        }
+
+        // Then: calls, result counts and errors are recorded per operation
+        Map<String, OperationSnapshot> snapshots = registry.snapshot();
+        assertEquals(1, snapshots.get("DataService.readEntities").getResultCounts().getMax());
+        assertEquals(1000000, snapshots.get("DataService.createEntity").getLatency().getMax(), 1000000 / 64);
+        OperationSnapshot readEntity = snapshots.get("DataService.readEntity");
+        assertEquals(1, readEntity.getLatency().getCount());
+        assertEquals(Long.valueOf(1), readEntity.getErrors().get("EntityNotExistsException"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.divroll.core.query;
+
+import com.divroll.core.EntityStoreException;
+import com.divroll.sdkapi.Concat;
+import com.divroll.sdkapi.Condition;
+import com.divroll.sdkapi.Equal;
+import com.divroll.sdkapi.NotEqual;
+import com.divroll.sdkapi.StringProperty;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class QueryPlannerTest {
+
+    private final QueryPlanner planner = new QueryPlanner();
+
+    @Test
+    public void testChainedConditionsAreAllApplied() throws EntityStoreException {
+        // Given: a source where "a" matches 1-6, "b" matches 2-8 and "c" matches 4-5
+        FakeSource source = new FakeSource(10)
+                .with("a", 1, 2, 3, 4, 5, 6)
+                .with("b", 2, 3, 4, 5, 6, 7, 8)
+                .with("c", 4, 5);
+
+        // When: three conditions are chained
+        Condition condition = equal("a").intersect(equal("b")).minus(equal("c"));
+        List<Long> keys = planner.plan(condition, null, null, source).execute(source);
+
+        // Then: every operation contributes to the result
+        assertEquals(Arrays.asList(2L, 3L, 6L), keys);
+    }
+
+    @Test
+    public void testIntersectionIsOrderedBySelectivity() throws EntityStoreException {
+        // Given: a large and a small posting list
+        FakeSource source = new FakeSource(10)
+                .with("large", 1, 2, 3, 4, 5, 6, 7, 8)
+                .with("small", 3);
+
+        // When: the large condition is written first
+        QueryPlan plan = planner.plan(equal("large").intersect(equal("small")), null, null, source);
+
+        // Then: the small condition drives the intersection
+        PlanNode root = plan.getRoot();
+        assertEquals(PlanNode.Kind.INTERSECT, root.getKind());
+        assertEquals(new StringProperty("small"), ((Equal) root.getChildren().get(0).getCondition()).getValue());
+        assertEquals(Collections.singletonList(3L), plan.execute(source));
+    }
+
+    @Test
+    public void testEmptyBranchesAreShortCircuited() throws EntityStoreException {
+        // Given: a condition on a value no row holds
+        FakeSource source = new FakeSource(10).with("a", 1, 2);
+
+        // When: it is intersected with another condition
+        QueryPlan plan = planner.plan(equal("a").intersect(equal("missing")), null, null, source);
+
+        // Then: the plan is empty and never touches the source
+        assertTrue(plan.isEmpty());
+        assertTrue(plan.execute(source).isEmpty());
+        assertEquals(0, source.selects);
+    }
+
+    @Test
+    public void testNegationIsFoldedIntoIntersection() throws EntityStoreException {
+        // Given: a positive and a negated condition
+        FakeSource source = new FakeSource(10).with("a", 1, 2, 3).with("b", 2);
+
+        // When: they are intersected
+        Condition condition = equal("a").intersect(new NotEqual("value", new StringProperty("b")));
+        QueryPlan plan = planner.plan(condition, null, null, source);
+
+        // Then: the negation becomes a subtraction instead of a scan of every row
+        assertEquals(PlanNode.Kind.MINUS, plan.getRoot().getKind());
+        assertEquals(PlanNode.Kind.LEAF, plan.getRoot().getChildren().get(0).getKind());
+        assertEquals(Arrays.asList(1L, 3L), plan.execute(source));
+    }
+
+    @Test
+    public void testMaxAndSkipArePushedDown() throws EntityStoreException {
+        // Given: a union of two conditions
+        FakeSource source = new FakeSource(10).with("a", 1, 3, 5, 7).with("b", 2, 3, 4);
+
+        // When: a page of the result is requested
+        List<Long> keys = planner.plan(equal("a").union(equal("b")), 2, 1L, source).execute(source);
+
+        // Then: only that page is returned, in key order
+        assertEquals(Arrays.asList(2L, 3L), keys);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testOnlyTheOperationChainIsApplied() throws EntityStoreException {
+        // Given: a condition subclass that assigns the deprecated field directly
+        FakeSource source = new FakeSource(10)
+                .with("a", 1, 2, 3)
+                .with("b", 3, 4);
+        Condition condition = new Equal("value", new StringProperty("a")) {
+            {
+                operation = new Concat(equal("b"));
+            }
+        };
+
+        // When: the condition is planned
+        List<Long> keys = planner.plan(condition, null, null, source).execute(source);
+
+        // Then: the field is ignored, since only chained operations are applied
+        assertTrue(condition.getOperations().isEmpty());
+        assertEquals(Arrays.asList(1L, 2L, 3L), keys);
+    }
+
+    private static Equal equal(String value) {
+        return new Equal("value", new StringProperty(value));
+    }
+
+    private static class FakeSource implements QuerySource {
+
+        private final NavigableSet<Long> all = new TreeSet<>();
+        private final Map<String, NavigableSet<Long>> postings = new HashMap<>();
+        private int selects;
+
+        FakeSource(int size) {
+            for (long key = 1; key <= size; key++) {
+                all.add(key);
+            }
+        }
+
+        FakeSource with(String value, long... keys) {
+            NavigableSet<Long> set = new TreeSet<>();
+            for (long key : keys) {
+                set.add(key);
+            }
+            postings.put(value, set);
+            return this;
+        }
+
+        @Override
+        public NavigableSet<Long> all() {
+            return all;
+        }
+
+        @Override
+        public NavigableSet<Long> select(Condition condition) {
+            selects++;
+            return postingsOf(condition);
+        }
+
+        @Override
+        public long estimate(Condition condition) {
+            return postingsOf(condition).size();
+        }
+
+        private NavigableSet<Long> postingsOf(Condition condition) {
+            String value = ((StringProperty) ((Equal) condition).getValue()).getValue();
+            NavigableSet<Long> set = postings.get(value);
+            return set != null ? set : new TreeSet<Long>();
+        }
+    }
+}
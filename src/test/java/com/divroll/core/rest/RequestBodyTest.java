@@ -0,0 +1,136 @@
+package com.divroll.core.rest;
+
+import com.divroll.core.MethodVerb;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RequestBodyTest {
+
+    @Test
+    public void testStringBodyCanBeReadRepeatedly() throws IOException {
+        // Given: a request with a JSON body
+        CustomCodeRequest request = new CustomCodeRequest(MethodVerb.POST, "/import", Collections.<String, String>emptyMap(),
+                stream("{\"name\":\"Knight\"}"), "import", 0);
+
+        // When: the body is read twice as a string and once as a stream
+        String first = request.getStringBody();
+        String second = request.getStringBody();
+
+        // Then: every read returns the full body
+        assertEquals("{\"name\":\"Knight\"}", first);
+        assertEquals(first, second);
+        assertTrue(request.getRequestBody().isBuffered());
+        assertEquals(first.length(), request.getRequestBody().asByteBuffer().remaining());
+    }
+
+    @Test
+    public void testBodyStreamReadsToTheEnd() throws IOException {
+        // Given: a request whose body is larger than one read
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            json.append("{\"index\":").append(i).append("}\n");
+        }
+        CustomCodeRequest request = new CustomCodeRequest(MethodVerb.POST, "/import", Collections.<String, String>emptyMap(),
+                stream(json.toString()), "import", 0);
+
+        // When: the body stream is read with a standard read loop through repeated getter calls
+        InputStream body = request.getBody();
+        StringBuilder read = new StringBuilder();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = request.getBody().read(buffer)) != -1) {
+            assertTrue("read(byte[]) must make progress", n > 0);
+            read.append(new String(buffer, 0, n, StandardCharsets.UTF_8));
+        }
+
+        // Then: every call returns the same stream and the whole body is read
+        assertSame(body, request.getBody());
+        assertEquals(json.toString(), read.toString());
+        assertEquals("", request.getStringBody());
+    }
+
+    @Test
+    public void testStringBodyAfterUnreadBodyStream() {
+        // Given: a request whose body stream was fetched but not read
+        CustomCodeRequest request = new CustomCodeRequest(MethodVerb.POST, "/import", Collections.<String, String>emptyMap(),
+                stream("{\"name\":\"Knight\"}"), "import", 0);
+        request.getBody();
+
+        // When/Then: the body can still be read as a string, repeatedly
+        assertEquals("{\"name\":\"Knight\"}", request.getStringBody());
+        assertEquals("{\"name\":\"Knight\"}", request.getStringBody());
+    }
+
+    @Test
+    public void testBufferLimitIsEnforced() throws IOException {
+        // Given: a body one byte larger than the buffer limit
+        RequestBody body = new RequestBody(stream("12345"), 4);
+
+        // When: the body is buffered
+        try {
+            body.asString();
+            fail("Expected a RequestBodyTooLargeException");
+        } catch (RequestBodyTooLargeException expected) {
+            // Then: the limit is reported
+            assertEquals(4, expected.getLimit());
+        }
+
+        // And: a body of exactly the limit is accepted
+        assertEquals("1234", new RequestBody(stream("1234"), 4).asString());
+    }
+
+    @Test
+    public void testNdjsonEventsAreStreamed() throws IOException {
+        // Given: a newline-delimited JSON body with two records
+        RequestBody body = new RequestBody(stream("{\"id\":1,\"tags\":[\"a\",\"b\\n\"]}\n{\"id\":-2.5e1,\"ok\":true,\"x\":null}\n"));
+
+        // When: it is read as events, collecting the ids and skipping the tags
+        List<Double> ids = new ArrayList<>();
+        int records = 0;
+        try (JsonEventReader reader = body.jsonEvents(1024)) {
+            JsonEventReader.Event event;
+            while ((event = reader.next()) != null) {
+                if (event == JsonEventReader.Event.START_OBJECT && reader.getDepth() == 1) {
+                    records++;
+                } else if (event == JsonEventReader.Event.FIELD_NAME && reader.getText().equals("id")) {
+                    reader.next();
+                    ids.add(reader.getDouble());
+                } else if (event == JsonEventReader.Event.FIELD_NAME && reader.getText().equals("tags")) {
+                    reader.next();
+                    reader.skipValue();
+                }
+            }
+        }
+
+        // Then: both records and their ids were read, and the body cannot be buffered anymore
+        assertEquals(2, records);
+        assertEquals(2, ids.size());
+        assertEquals(-25.0, ids.get(1), 0.0);
+        assertFalse(body.isBuffered());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedJsonIsRejected() throws IOException {
+        // Given: an object with a trailing comma
+        JsonEventReader reader = new RequestBody(stream("{\"a\":1,}")).jsonEvents(1024);
+
+        // When: it is read to the end
+        while (reader.next() != null) {
+        }
+
+        // Then: an IOException is thrown
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
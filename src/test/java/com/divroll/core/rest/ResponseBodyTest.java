@@ -0,0 +1,62 @@
+package com.divroll.core.rest;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ResponseBodyTest {
+
+    @Test
+    public void testBufferAndFileRegionBodies() throws IOException {
+        // Given: a body over two buffers and a body over a region of a file
+        ResponseBody buffers = ResponseBody.of(Arrays.asList(ByteBuffer.wrap(ascii("hello ")), ByteBuffer.wrap(ascii("world"))));
+        Path file = Files.createTempFile("export", ".csv");
+        Files.write(file, ascii("id,name\n1,Knight\n"));
+        ResponseBody region = ResponseBody.ofFileRegion(file, 8, 9);
+
+        // When: both are written, the buffer body twice
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffers.writeTo(out);
+        buffers.writeTo(Channels.newChannel(out));
+        ByteArrayOutputStream regionOut = new ByteArrayOutputStream();
+        region.writeTo(Channels.newChannel(regionOut));
+        Files.delete(file);
+
+        // Then: the contents and lengths match
+        assertEquals(11, buffers.getContentLength());
+        assertEquals("hello worldhello world", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        assertEquals(9, region.getContentLength());
+        assertEquals("1,Knight\n", new String(regionOut.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testCallbackBodyIsChunked() throws IOException {
+        // Given: a body produced by a callback of unknown length
+        ResponseBody body = ResponseBody.streaming(out -> {
+            out.write(ascii("Wiki"));
+            out.write(ascii("pedia"));
+        });
+
+        // When: it is written with chunked framing
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeChunkedTo(out);
+
+        // Then: the writes are coalesced into one chunk followed by the last chunk
+        assertTrue(body.isChunked());
+        assertEquals("9\r\nWikipedia\r\n0\r\n\r\n", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        assertTrue(new CustomCodeResponse(200, body).isStreaming());
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
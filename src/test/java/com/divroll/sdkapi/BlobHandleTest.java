@@ -0,0 +1,125 @@
+package com.divroll.sdkapi;
+
+import com.divroll.core.rest.ResponseBody;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BlobHandleTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRangeReadsAgreeAcrossBackings() throws IOException {
+        // Given: the same content in memory, in a file and in a mapped file
+        byte[] content = content(200_000);
+        Path file = folder.newFile("blob").toPath();
+        Files.write(file, content);
+        BlobHandle[] handles = {BlobHandle.of(content), BlobHandle.ofFile(file), BlobHandle.mapped(file)};
+
+        for (BlobHandle handle : handles) {
+            // When: ranges are read, including one running past the end
+            ByteBuffer middle = handle.read(70_000, 10);
+            ByteBuffer tail = handle.read(199_995, 100);
+
+            // Then: each backing returns the same bytes and the same hash
+            assertEquals(200_000, handle.size());
+            assertArrayEquals(Arrays.copyOfRange(content, 70_000, 70_010), bytes(middle));
+            assertArrayEquals(Arrays.copyOfRange(content, 199_995, 200_000), bytes(tail));
+            assertEquals(handles[0].contentHash(), handle.contentHash());
+        }
+    }
+
+    @Test
+    public void testStreamsAndTransfersRanges() throws IOException {
+        // Given: a file-backed handle
+        byte[] content = content(100_000);
+        Path file = folder.newFile("blob").toPath();
+        Files.write(file, content);
+        BlobHandle handle = BlobHandle.ofFile(file);
+
+        // When: a range is streamed and another is transferred to a channel
+        byte[] streamed;
+        try (InputStream in = handle.openStream(10, 90_000)) {
+            streamed = readAll(in);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long transferred = handle.transferTo(99_000, 5_000, Channels.newChannel(out));
+
+        // Then: both stop at the requested range or the end of the blob
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 90_010), streamed);
+        assertEquals(1_000, transferred);
+        assertArrayEquals(Arrays.copyOfRange(content, 99_000, 100_000), out.toByteArray());
+    }
+
+    @Test
+    public void testBlobPropertyIsRereadableAndServesRanges() throws IOException {
+        // Given: a blob property backed by a handle
+        byte[] content = content(1_000);
+        BlobProperty blob = new BlobProperty(BlobHandle.of(content));
+
+        // When: it is read twice and served whole and by range
+        byte[] first = readAll(blob.getValue());
+        byte[] second = readAll(blob.getValue());
+        ResponseBody whole = ResponseBody.ofBlob(blob);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResponseBody.ofBlob(blob.getHandle(), 100, 50).writeTo(out);
+
+        // Then: every read sees the whole content and bodies know their length
+        assertArrayEquals(content, first);
+        assertArrayEquals(content, second);
+        assertEquals(1_000, whole.getContentLength());
+        assertArrayEquals(Arrays.copyOfRange(content, 100, 150), out.toByteArray());
+        assertEquals(blob, new BlobProperty(BlobHandle.of(content.clone())));
+    }
+
+    @Test
+    public void testUnreadableBlobsAreNotEqual() throws IOException {
+        // Given: a file-backed blob whose file is gone, and an in-memory blob of the same size
+        Path file = folder.newFile("blob").toPath();
+        Files.write(file, content(1_000));
+        BlobHandle missing = BlobHandle.ofFile(file);
+        Files.delete(file);
+        BlobProperty blob = new BlobProperty(missing);
+
+        // When/Then: comparing them does not throw, and a shared handle still equals itself
+        assertNotEquals(blob, new BlobProperty(BlobHandle.of(content(1_000))));
+        assertEquals(blob, new BlobProperty(missing));
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31 + i / 251);
+        }
+        return content;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
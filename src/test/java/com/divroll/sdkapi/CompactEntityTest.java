@@ -0,0 +1,98 @@
+package com.divroll.sdkapi;
+
+import com.divroll.core.CannotCastValueException;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CompactEntityTest {
+
+    @Test
+    public void testCompactCopyKeepsPropertiesAndMetadata() throws CannotCastValueException {
+        // Given: a plain entity with primitive, string and access properties
+        Entity source = new Entity("Player", "name", new StringProperty("Knight"));
+        source.set("level", new IntProperty(5L));
+        source.set("score", new DoubleProperty(12.5));
+        source.set("active", new BooleanProperty(true));
+        source.setPublicRead(new BooleanProperty(true));
+
+        // When: it is copied into a schema-backed entity
+        CompactEntity compact = new EntitySchema("Player").compact(source);
+
+        // Then: every property reads back equal, and primitives read without boxing
+        assertEquals("Player", compact.getType().getValue());
+        assertEquals("Knight", compact.get("name", StringProperty.class).getValue());
+        assertEquals(Long.valueOf(5L), compact.get("level", IntProperty.class).getValue());
+        assertEquals(5L, compact.getLong("level", -1L));
+        assertEquals(12.5, compact.getDouble("score", 0), 0.0);
+        assertTrue(compact.getBoolean("active", false));
+        assertTrue(compact.getPublicRead().getValue());
+        assertEquals(source.getValue().size(), compact.getValue().size());
+        assertEquals(-1L, compact.getLong("missing", -1L));
+    }
+
+    @Test
+    public void testCopyIsIndependent() throws CannotCastValueException {
+        // Given: a compact entity with a long and a metadata flag
+        CompactEntity original = new EntitySchema("Counter").newEntity();
+        original.setLong("count", 1L);
+        original.setPublicWrite(new BooleanProperty(false));
+
+        // When: the copy is modified
+        CompactEntity copy = original.copy();
+        copy.setLong("count", 2L);
+        copy.setPublicWrite(new BooleanProperty(true));
+
+        // Then: the original is unchanged and both share the schema
+        assertEquals(1L, original.getLong("count", 0L));
+        assertFalse(original.getPublicWrite().getValue());
+        assertEquals(2L, copy.getLong("count", 0L));
+        assertSame(original.getSchema(), copy.getSchema());
+    }
+
+    @Test
+    public void testMismatchedTypeAndRemoval() {
+        // Given: a schema that typed "value" as a long
+        EntitySchema schema = new EntitySchema("Sample");
+        CompactEntity first = schema.newEntity();
+        first.setLong("value", 7L);
+
+        // When: another entity stores a string under the same name, and the first removes it
+        CompactEntity second = schema.newEntity();
+        second.set("value", new StringProperty("seven"));
+        first.getValue().remove("value");
+
+        // Then: each entity keeps its own value, and removal clears the slot
+        assertEquals("seven", ((StringProperty) second.get("value")).getValue());
+        assertEquals(0L, second.getLong("value", 0L));
+        assertNull(first.get("value"));
+        assertFalse(first.getValue().containsKey("value"));
+        Map<String, EntityProperty> entries = new LinkedHashMap<>(second.getValue());
+        assertTrue(entries.containsKey("value"));
+        assertTrue(entries.containsKey(Entity.METADATA_KEY));
+    }
+
+    @Test
+    public void testEqualsEntityWithSameContent() throws CannotCastValueException {
+        // Given: a compact entity and a plain entity with the same properties and metadata
+        CompactEntity compact = new EntitySchema("Sample").newEntity();
+        compact.setLong("count", 3L);
+        compact.set("name", new StringProperty("three"));
+        Map<String, EntityProperty> properties = new LinkedHashMap<>();
+        properties.put("count", new IntProperty(3L));
+        properties.put("name", new StringProperty("three"));
+        Entity plain = new Entity("Sample", properties);
+
+        // When: they are compared
+        // Then: they are equal both ways with equal hash codes, until their content differs
+        assertEquals(plain, compact);
+        assertEquals(compact, plain);
+        assertEquals(plain.hashCode(), compact.hashCode());
+        compact.setLong("count", 4L);
+        assertNotEquals(plain, compact);
+        assertNotEquals(compact, plain);
+    }
+}
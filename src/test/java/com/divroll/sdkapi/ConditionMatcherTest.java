@@ -0,0 +1,83 @@
+package com.divroll.sdkapi;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.memory.InMemoryDataService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConditionMatcherTest {
+
+    private InMemoryDataService dataService;
+    private EntityId ann;
+    private EntityId ben;
+    private EntityId cat;
+    private List<EntityId> listed;
+
+    @Before
+    public void setUp() throws EntityStoreException, CannotCastValueException {
+        // ann -> ben through "follows"; cat has no links
+        dataService = new InMemoryDataService();
+        ann = dataService.createEntity(user("ann", 31L, "admin", "dev"));
+        ben = dataService.createEntity(user("ben", 25L, "dev"));
+        cat = dataService.createEntity(user("cat", 40L, "ops"));
+        dataService.createEntity(user("dan", 33L, "dev"));
+        dataService.addRelation(ann, new SingleRelationship("follows"), ben);
+        listed = Arrays.asList(cat, new EntityId("User", "404"), ben, ann, cat);
+    }
+
+    @Test
+    public void testListedReadsMatchTheDataService() throws EntityStoreException, CannotCastValueException {
+        // Given: property, collection, range and link conditions combined in several ways
+        List<Condition> conditions = Arrays.asList(
+                new Equal("roles", new StringProperty("dev")),
+                new InRange("age", new IntProperty(30L), new IntProperty(40L)),
+                new StartsWith("name", new StringProperty("c")).union(new HasLink("follows")),
+                new Contains("roles", new CollectionProperty<>(Arrays.asList(new StringProperty("ops")))),
+                new NotEqual("roles", new StringProperty("admin")).minus(new Equal("name", new StringProperty("cat"))));
+
+        for (Condition condition : conditions) {
+            // When: the listed ids are read and tested one chunk at a time
+            List<Entity> read = ConditionMatcher.readListed(dataService, listed, condition);
+
+            // Then: the same entities are returned as by the data service, in list order
+            assertEquals(ids(dataService.readEntities(listed, condition)), ids(read));
+        }
+        assertEquals(Arrays.asList(ben, ann), ids(ConditionMatcher.readListed(dataService, listed, new Equal("roles", new StringProperty("dev")))));
+    }
+
+    @Test
+    public void testLinksAreAnsweredByTheLinksGiven() throws EntityStoreException, CannotCastValueException {
+        // Given: a matcher that treats every entity as linked
+        ConditionMatcher matcher = new ConditionMatcher((id, name) -> true);
+
+        // Then: link conditions follow it, while property conditions read the entity
+        assertTrue(matcher.test(dataService.readEntity(cat), new HasLink("follows")));
+        assertFalse(matcher.test(dataService.readEntity(cat), new HasLink("follows").intersect(new WithBlob("name"))));
+    }
+
+    private static Entity user(String name, long age, String... roles) throws CannotCastValueException {
+        List<StringProperty> values = new ArrayList<>();
+        for (String role : roles) {
+            values.add(new StringProperty(role));
+        }
+        Entity entity = new Entity("User", "name", new StringProperty(name));
+        entity.set("age", new IntProperty(age));
+        entity.set("roles", new CollectionProperty<>(values));
+        return entity;
+    }
+
+    private static List<EntityId> ids(List<Entity> entities) throws CannotCastValueException {
+        List<EntityId> ids = new ArrayList<>();
+        for (Entity entity : entities) {
+            ids.add(entity.getEntityId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,79 @@
+package com.divroll.sdkapi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EntityIdTest {
+
+    @Test
+    public void testEqualityAndAccessors() {
+        // Given: two ids built from equal strings, and an id-less one
+        EntityId first = new EntityId("User", "42");
+        EntityId second = new EntityId(new String("User"), new String("42"));
+        EntityId typeOnly = new EntityId("User");
+
+        // Then: equal ids hash alike and the compatibility accessors still work
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, typeOnly);
+        assertEquals("User", first.getType().getValue());
+        assertEquals("42", first.getId().getValue());
+        assertNull(typeOnly.getId());
+        assertEquals("42", first.getValue().get("id").getValue());
+        assertEquals("{type=User, id=42}", first.toString());
+    }
+
+    @Test
+    public void testByteEncodingOrdersLikeCompareTo() {
+        // Given: ids whose order depends on prefixes, zero chars and supplementary characters
+        List<EntityId> ids = new ArrayList<>(Arrays.asList(
+                new EntityId("User", "b"),
+                new EntityId("User"),
+                new EntityId("User", "a\u0000"),
+                new EntityId("User", "a"),
+                new EntityId("User", "\uD83D\uDE00"),
+                new EntityId("User", "\uFFFD"),
+                new EntityId("Use", "z"),
+                new EntityId("User", "")));
+
+        // When: the ids are sorted by value and by their encodings
+        List<EntityId> byValue = new ArrayList<>(ids);
+        Collections.sort(byValue);
+        List<EntityId> byBytes = new ArrayList<>(ids);
+        byBytes.sort((x, y) -> compareUnsigned(x.toBytes(), y.toBytes()));
+
+        // Then: both orders agree
+        assertEquals(byValue, byBytes);
+        assertEquals(new EntityId("Use", "z"), byValue.get(0));
+        assertEquals(new EntityId("User"), byValue.get(1));
+        assertEquals(new EntityId("User", "\uD83D\uDE00"), byValue.get(byValue.size() - 1));
+    }
+
+    @Test
+    public void testBytesRoundTrip() {
+        // Given: ids with and without an id part
+        EntityId withId = new EntityId("Order", "x\u0000y\u00E9");
+        EntityId withoutId = new EntityId("Order");
+
+        // Then: decoding the encodings gives the ids back
+        assertEquals(withId, EntityId.fromBytes(withId.toBytes()));
+        assertEquals(withoutId, EntityId.fromBytes(withoutId.toBytes()));
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int result = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return a.length - b.length;
+    }
+}
@@ -5,7 +5,9 @@ import com.divroll.core.EntityStoreException;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -90,6 +92,98 @@ public class EntityTest {
         assertTrue("Retrieved property value should be true", retrievedProperty.getValue());
     }
 
+    @Test
+    public void testAccessControlLists() throws CannotCastValueException {
+        // Given: an entity without any access ids and two users
+        Entity entity = new Entity("GameCharacter", new HashMap<String, EntityProperty>());
+        EntityId owner = new EntityId("User", "1");
+        EntityId guest = new EntityId("User", "2");
+
+        // When: the owner is granted read access twice and write access once
+        entity.addReadAccessId(owner);
+        entity.addReadAccessId(new EntityId("User", "1"));
+        entity.addWriteAccessId(owner);
+
+        // Then: the access lists hold the owner once and nothing for the guest
+        assertEquals(Arrays.asList(owner), entity.getReadAccessIds());
+        assertEquals(Arrays.asList(owner), entity.getWriteAccessIds());
+        assertTrue(entity.hasReadAccessId(owner));
+        assertFalse(entity.hasReadAccessId(guest));
+        assertNull("Unassigned id should be null", entity.getEntityId());
+        assertEquals("GameCharacter", entity.getType().getValue());
+    }
+
+    @Test
+    public void testCopyHasOwnMetadata() throws CannotCastValueException {
+        // Given: an entity with an id and a reader
+        Entity entity = new Entity("GameCharacter", new HashMap<String, EntityProperty>());
+        entity.setEntityId(new EntityId("GameCharacter", "1"));
+        entity.addReadAccessId(new EntityId("User", "1"));
+
+        // When: the copy is granted access for another user
+        Entity copy = entity.copy();
+        copy.addReadAccessId(new EntityId("User", "2"));
+
+        // Then: the original keeps its access list and both share the id
+        assertEquals(1, entity.getReadAccessIds().size());
+        assertEquals(2, copy.getReadAccessIds().size());
+        assertEquals(entity.getEntityId(), copy.getEntityId());
+    }
+
+    @Test
+    public void testMetadataMapIsLive() throws CannotCastValueException {
+        // Given: an entity with a reader
+        Entity entity = new Entity("GameCharacter", new HashMap<String, EntityProperty>());
+        entity.addReadAccessId(new EntityId("User", "1"));
+        MetadataProperty metadata = entity.get("_metadata", MetadataProperty.class);
+
+        // When: the metadata map is written to directly
+        metadata.getValue().put("publicRead", new BooleanProperty(true));
+        metadata.getValue().remove("aclRead");
+
+        // Then: the writes reach the typed fields and the map is not rebuilt per call
+        assertTrue(entity.getPublicRead().getValue());
+        assertTrue(entity.getReadAccessIds().isEmpty());
+        assertSame(metadata.getValue(), metadata.getValue());
+        assertEquals(2, metadata.getValue().size());
+    }
+
+    @Test
+    public void testMetadataRemovedFromMapIsNotCached() throws CannotCastValueException {
+        // Given: an entity with an id and a reader
+        Entity entity = new Entity("GameCharacter", new HashMap<String, EntityProperty>());
+        entity.setEntityId(new EntityId("GameCharacter", "1"));
+        entity.addReadAccessId(new EntityId("User", "1"));
+
+        // When: the metadata is removed through the property map
+        entity.getValue().remove("_metadata");
+
+        // Then: the entity no longer reports it
+        assertNull(entity.getEntityId());
+        assertFalse(entity.hasReadAccessId(new EntityId("User", "1")));
+    }
+
+    @Test
+    public void testGettersDoNotCreateMetadata() throws CannotCastValueException {
+        // Given: an entity whose map has no metadata
+        Map<String, EntityProperty> properties = new HashMap<>();
+        properties.put("name", new StringProperty("Knight"));
+        Entity entity = new Entity(properties);
+
+        // When: its metadata is read
+        assertNull(entity.getEntityId());
+        assertNull(entity.getType());
+        assertNull(entity.getPublicRead());
+        assertNull(entity.getPublicWrite());
+
+        // Then: the map is unchanged, and the access lists are copies callers may extend
+        assertEquals(Collections.singleton("name"), entity.getValue().keySet());
+        List<EntityId> readers = entity.getReadAccessIds();
+        readers.add(new EntityId("User", "1"));
+        entity.setReadAccessIds(readers);
+        assertTrue(entity.hasReadAccessId(new EntityId("User", "1")));
+    }
+
     private static byte[] generateRandomBytes(int length) {
         byte[] randomBytes = new byte[length];
         SecureRandom secureRandom = new SecureRandom();
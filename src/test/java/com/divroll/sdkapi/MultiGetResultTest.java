@@ -0,0 +1,88 @@
+package com.divroll.sdkapi;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.async.ExecutorAsyncDataService;
+import com.divroll.core.memory.InMemoryDataService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class MultiGetResultTest {
+
+    private InMemoryDataService dataService;
+    private EntityId first;
+    private EntityId second;
+    private EntityId other;
+    private EntityId missing;
+
+    @Before
+    public void setUp() throws EntityStoreException, CannotCastValueException {
+        dataService = new InMemoryDataService();
+        first = dataService.createEntity(new Entity("Item", "name", new StringProperty("first")));
+        second = dataService.createEntity(new Entity("Item", "name", new StringProperty("second")));
+        other = dataService.createEntity(new Entity("Tag", "name", new StringProperty("other")));
+        missing = new EntityId("Item", "404");
+    }
+
+    @Test
+    public void testPartialResultsInRequestOrder() throws EntityStoreException {
+        // Given: ids with a duplicate, a missing id and two types
+        List<EntityId> ids = Arrays.asList(second, missing, other, second, first);
+
+        // When: they are read with one multi-get
+        MultiGetResult result = dataService.multiGet(ids);
+
+        // Then: each id is reported once, as found or missing, in request order
+        assertEquals(Arrays.asList(second, other, first), new ArrayList<>(result.getFound().keySet()));
+        assertEquals(Arrays.asList(missing), result.getMissing());
+        assertFalse(result.isComplete());
+        assertNull(result.get(missing));
+    }
+
+    @Test
+    public void testPartitionAndChunkFallback() throws EntityStoreException {
+        // Given: the same ids, grouped by type in chunks of at most two
+        List<EntityId> ids = Arrays.asList(second, missing, other, second, first);
+        List<List<EntityId>> chunks = MultiGetResult.partition(ids, 2);
+
+        // When: each chunk is read through the bulk call with per-id fallback
+        List<MultiGetResult> parts = new ArrayList<>();
+        for (List<EntityId> chunk : chunks) {
+            parts.add(MultiGetResult.readChunk(dataService, chunk));
+        }
+        MultiGetResult merged = MultiGetResult.merge(ids, parts);
+
+        // Then: chunks hold one type each, and the merge matches the one-pass result
+        assertEquals(Arrays.asList(Arrays.asList(second, missing), Arrays.asList(first), Arrays.asList(other)), chunks);
+        assertEquals(dataService.multiGet(ids).getFound().keySet(), merged.getFound().keySet());
+        assertEquals(Arrays.asList(missing), merged.getMissing());
+    }
+
+    @Test
+    public void testAsyncMultiGetMergesParallelChunks() throws Exception {
+        // Given: more ids than fit in one chunk
+        List<EntityId> ids = new ArrayList<>();
+        for (int i = 0; i < MultiGetResult.DEFAULT_CHUNK_SIZE * 2; i++) {
+            ids.add(i % 3 == 0 ? new EntityId("Item", "x" + i) : (i % 3 == 1 ? first : other));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // When: they are read through the async adapter
+            MultiGetResult result = new ExecutorAsyncDataService(dataService, executor).multiGet(ids).get();
+
+            // Then: duplicates collapse and every invalid id is reported missing
+            assertEquals(Arrays.asList(first, other), new ArrayList<>(result.getFound().keySet()));
+            assertEquals(MultiGetResult.DEFAULT_CHUNK_SIZE * 2 / 3 + 1, result.getMissing().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
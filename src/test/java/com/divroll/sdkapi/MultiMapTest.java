@@ -0,0 +1,109 @@
+package com.divroll.sdkapi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class MultiMapTest {
+
+    @Test
+    public void testSizeCountsMappingsInEveryVariant() {
+        for (AbstractMultiMap<String, Integer> multiMap : Arrays.<AbstractMultiMap<String, Integer>>asList(
+                new MultiMap<>(), new ConcurrentMultiMap<>(), new CompactMultiMap<>(2))) {
+            // Given: two keys, one with three values and a duplicate put
+            multiMap.putAll("a", Arrays.asList(1, 2, 3));
+            multiMap.put("a", 2);
+            multiMap.put("b", 1);
+
+            // When: a value is removed
+            assertTrue(multiMap.remove("a", 1));
+            assertFalse(multiMap.remove("a", 1));
+
+            // Then: size counts mappings, keyCount counts keys, and the views agree
+            assertEquals(3, multiMap.size());
+            assertEquals(2, multiMap.keyCount());
+            assertEquals(new HashSet<>(Arrays.asList(2, 3)), new HashSet<>(multiMap.get("a")));
+            assertEquals(3, multiMap.entries().count());
+            assertEquals(Arrays.asList(1, 2, 3), multiMap.values().sorted().collect(Collectors.toList()));
+            List<String> visited = new ArrayList<>();
+            multiMap.forEach((key, value) -> visited.add(key + value));
+            assertEquals(3, visited.size());
+            assertTrue(multiMap.containsEntry("b", 1));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetReturnsReadOnlyView() {
+        // Given: a multimap with one value
+        MultiMap<String, String> multiMap = new MultiMap<>();
+        multiMap.put("key", "value");
+
+        // When: the returned collection is modified
+        multiMap.get("key").add("other");
+
+        // Then: the modification is rejected
+    }
+
+    @Test
+    public void testCompactMovesBetweenArrayAndSet() {
+        // Given: a compact multimap that keeps up to four values in an array
+        CompactMultiMap<String, Integer> multiMap = new CompactMultiMap<>(4);
+        for (int i = 0; i < 10; i++) {
+            multiMap.put("key", i);
+        }
+
+        // When: values are removed until it shrinks back below the threshold
+        for (int i = 0; i < 8; i++) {
+            assertTrue(multiMap.remove("key", i));
+        }
+
+        // Then: the remaining values are still found, and the key goes away with the last one
+        assertEquals(new HashSet<>(Arrays.asList(8, 9)), new HashSet<>(multiMap.get("key")));
+        assertTrue(multiMap.remove("key", 8));
+        assertTrue(multiMap.remove("key", 9));
+        assertFalse(multiMap.containsKey("key"));
+        assertTrue(multiMap.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentPutsAndRemoves() throws Exception {
+        // Given: a concurrent multimap shared by several threads on the same keys
+        ConcurrentMultiMap<Integer, Integer> multiMap = new ConcurrentMultiMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        multiMap.put(i % 10, thread * 2000 + i);
+                        if (i % 2 == 1) {
+                            multiMap.remove(i % 10, thread * 2000 + i);
+                        }
+                    }
+                }));
+            }
+
+            // When: all threads finish
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Then: exactly the even puts survive
+        assertEquals(4 * 1000, multiMap.size());
+        assertEquals(4 * 1000, multiMap.entries().count());
+        assertEquals(5, multiMap.keyCount());
+    }
+}
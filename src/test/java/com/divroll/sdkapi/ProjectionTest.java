@@ -0,0 +1,116 @@
+package com.divroll.sdkapi;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.memory.InMemoryDataService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ProjectionTest {
+
+    private InMemoryDataService dataService;
+    private EntityId id;
+    private EntityId reader;
+
+    @Before
+    public void setUp() throws EntityStoreException, CannotCastValueException {
+        dataService = new InMemoryDataService();
+        reader = new EntityId("User", "7");
+        Entity product = new Entity("Product", "name", new StringProperty("Lamp"));
+        product.set("price", new DoubleProperty(19.5));
+        product.set("tags", new CollectionProperty<>(Arrays.asList(new StringProperty("home"))));
+        product.set("photo", new BlobProperty(new ByteArrayInputStream(new byte[] {1, 2, 3})));
+        product.addReadAccessId(reader);
+        id = dataService.createEntity(product);
+    }
+
+    @Test
+    public void testNamedFieldsOnly() throws EntityStoreException, CannotCastValueException {
+        // When: the entity is read with a two-field projection
+        Entity projected = dataService.readEntity(id, Projection.of("name", "price", "missing"));
+
+        // Then: only the named properties come back, with the type and id but no ACLs
+        assertEquals("Lamp", projected.get("name", StringProperty.class).getValue());
+        assertEquals(19.5, projected.get("price", DoubleProperty.class).getValue(), 0.0);
+        assertNull(projected.get("tags"));
+        assertNull(projected.get("photo"));
+        assertNull(projected.get("missing"));
+        assertEquals(id, projected.getEntityId());
+        assertEquals("Product", projected.getType().getValue());
+        assertFalse(projected.hasReadAccessId(reader));
+    }
+
+    @Test
+    public void testBlobsSkippedUnlessNamed() throws EntityStoreException, CannotCastValueException {
+        // When: entities are read without blobs, with metadata, and with the blob named
+        List<Entity> withoutBlobs = dataService.readEntities("Product", null, null, null, Projection.withoutBlobs().withMetadata());
+        List<Entity> named = dataService.readEntities(Arrays.asList(id), Projection.of("photo"));
+
+        // Then: the blob is only present when named, and metadata only when requested
+        assertNull(withoutBlobs.get(0).get("photo"));
+        assertNotNull(withoutBlobs.get(0).get("tags"));
+        assertTrue(withoutBlobs.get(0).hasReadAccessId(reader));
+        assertTrue(named.get(0).get("photo") instanceof BlobProperty);
+        assertNull(named.get(0).get("name"));
+    }
+
+    @Test
+    public void testProjectedEntityIsIsolated() throws EntityStoreException, CannotCastValueException {
+        // Given: a projected read that is then modified
+        Entity projected = dataService.readEntity(id, Projection.of("name").withMetadata());
+        projected.set("name", new StringProperty("Changed"));
+        projected.addReadAccessId(new EntityId("User", "8"));
+
+        // Then: the stored entity is unaffected
+        Entity stored = dataService.readEntity(id);
+        assertEquals("Lamp", stored.get("name", StringProperty.class).getValue());
+        assertEquals(1, stored.getReadAccessIds().size());
+    }
+
+    @Test
+    public void testLookupsRelationsAndCursorsProject() throws EntityStoreException, CannotCastValueException {
+        // Given: a shelf holding the product
+        Relationship holds = new MultipleRelationship("holds");
+        EntityId shelf = dataService.createEntity(new Entity("Shelf", "name", new StringProperty("Top")));
+        dataService.addRelation(shelf, holds, id);
+        Projection nameOnly = Projection.of("name");
+
+        // When: the product and its shelf are read through every projected lookup, relation read and cursor
+        List<Entity> reads = new ArrayList<>();
+        reads.add(dataService.readEntity("Product", "name", new StringProperty("Lamp"), nameOnly));
+        reads.addAll(dataService.readEntities("Product", 10, 0L, nameOnly));
+        reads.addAll(dataService.readRelatedEntities(shelf, holds, null, nameOnly));
+        reads.addAll(dataService.readRelatedEntities(shelf, holds, new Equal("name", new StringProperty("Lamp")), nameOnly));
+        try (EntityCursor cursor = dataService.openCursor("Product", null, 1, null, nameOnly)) {
+            reads.add(cursor.next());
+        }
+        try (EntityCursor cursor = dataService.openCursor(shelf, holds, 1, null, nameOnly)) {
+            reads.add(cursor.next());
+        }
+        List<Entity> holders = new ArrayList<>(dataService.readEntities(holds, "Product", nameOnly));
+        try (EntityCursor cursor = dataService.openCursor(holds, "Product", 1, null, nameOnly)) {
+            holders.add(cursor.next());
+        }
+
+        // Then: each read returns only the name, with the id
+        assertEquals(6, reads.size());
+        for (Entity read : reads) {
+            assertEquals("Lamp", read.get("name", StringProperty.class).getValue());
+            assertNull(read.get("price"));
+            assertNull(read.get("photo"));
+            assertEquals(id, read.getEntityId());
+        }
+        assertEquals(2, holders.size());
+        for (Entity holder : holders) {
+            assertEquals("Top", holder.get("name", StringProperty.class).getValue());
+            assertEquals(shelf, holder.getEntityId());
+        }
+    }
+}
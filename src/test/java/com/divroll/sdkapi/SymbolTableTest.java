@@ -0,0 +1,54 @@
+package com.divroll.sdkapi;
+
+import com.divroll.core.CannotCastValueException;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SymbolTableTest {
+
+    @Test
+    public void testInternReturnsCanonicalInstance() {
+        // Given: two equal names built separately
+        String first = new String("highScore");
+        String second = new String("highScore");
+
+        // When: both are interned
+        String a = SymbolTable.intern(first);
+        String b = SymbolTable.intern(second);
+
+        // Then: the same instance is returned for both, and null passes through
+        assertSame(a, b);
+        assertEquals("highScore", a);
+        assertNull(SymbolTable.intern(null));
+    }
+
+    @Test
+    public void testEntitiesShareKeyInstances() throws CannotCastValueException {
+        // Given: two entities whose property names were built separately
+        Entity first = new Entity("Player", new String("nickname"), new StringProperty("a"));
+        first.set(new String("rank"), new IntProperty(1L));
+        Entity second = new Entity("Player", new String("nickname"), new StringProperty("b"));
+        second.set(new String("rank"), new IntProperty(2L));
+
+        // When: the keys set through the entities are compared
+        String firstKey = keyOf(first.getValue(), "rank");
+        String secondKey = keyOf(second.getValue(), "rank");
+
+        // Then: they are the same instance, as are the id type names
+        assertSame(firstKey, secondKey);
+        assertSame(new EntityId(new String("Player"), "1").getType().getValue(),
+                new EntityId(new String("Player"), "2").getType().getValue());
+    }
+
+    private static String keyOf(Map<String, EntityProperty> map, String name) {
+        for (String key : map.keySet()) {
+            if (key.equals(name)) {
+                return key;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.divroll.sdkapi;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.memory.InMemoryDataService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TraversalTest {
+
+    private final Relationship friends = new MultipleRelationship("friends");
+    private InMemoryDataService dataService;
+    private EntityId alice;
+    private EntityId bob;
+    private EntityId carol;
+    private EntityId dave;
+    private EntityId erin;
+
+    @Before
+    public void setUp() throws EntityStoreException {
+        // alice -> bob, carol; bob -> dave, erin; carol -> dave
+        dataService = new InMemoryDataService();
+        alice = dataService.createEntity(user("alice", true));
+        bob = dataService.createEntity(user("bob", true));
+        carol = dataService.createEntity(user("carol", true));
+        dave = dataService.createEntity(user("dave", true));
+        erin = dataService.createEntity(user("erin", false));
+        dataService.addRelation(alice, friends, Arrays.asList(bob, carol));
+        dataService.addRelation(bob, friends, Arrays.asList(dave, erin));
+        dataService.addRelation(carol, friends, dave);
+    }
+
+    @Test
+    public void testFriendsOfFriends() throws EntityStoreException, CannotCastValueException {
+        // Given: a two-hop traversal with a condition on the second hop
+        Traversal traversal = dataService.traverse(alice)
+                .out(friends)
+                .out(friends).where(new Equal("active", new BooleanProperty(true)));
+
+        // When: it runs in one pass and hop by hop
+        List<Entity> indexed = traversal.list();
+        List<Entity> hopByHop = traversal.readHopByHop(dataService);
+
+        // Then: both reach dave once, skipping the inactive erin
+        assertEquals(Arrays.asList("dave"), names(indexed));
+        assertEquals(names(indexed), names(hopByHop));
+    }
+
+    @Test
+    public void testIncomingHopAndLimit() throws EntityStoreException, CannotCastValueException {
+        // Given: a traversal back to the users that befriended dave's befrienders
+        Traversal traversal = dataService.traverse(dave)
+                .in(friends, "User")
+                .in(friends, "User")
+                .limit(1);
+        Traversal unlimited = dataService.traverse(dave).in(friends, "User");
+
+        // Then: both implementations agree, and the limit caps the result
+        assertEquals(Arrays.asList("alice"), names(traversal.list()));
+        assertEquals(names(traversal.list()), names(traversal.readHopByHop(dataService)));
+        assertEquals(Arrays.asList("bob", "carol"), names(unlimited.list()));
+        assertEquals(names(unlimited.list()), names(unlimited.readHopByHop(dataService)));
+    }
+
+    @Test
+    public void testIncomingHopWithCondition() throws EntityStoreException, CannotCastValueException {
+        // Given: a traversal back to dave's befrienders named carol
+        Traversal traversal = dataService.traverse(dave)
+                .in(friends, "User").where(new Equal("name", new StringProperty("carol")));
+
+        // Then: both implementations keep only carol among the reached users
+        assertEquals(Arrays.asList("carol"), names(traversal.list()));
+        assertEquals(names(traversal.list()), names(traversal.readHopByHop(dataService)));
+    }
+
+    @Test(expected = EntityNotExistsException.class)
+    public void testMissingStart() throws EntityStoreException {
+        // When: a traversal starts from an id that was never stored
+        dataService.traverse(new EntityId("User", "999")).out(friends).list();
+
+        // Then: the missing entity is reported
+    }
+
+    private static Entity user(String name, boolean active) {
+        try {
+            Entity entity = new Entity("User", "name", new StringProperty(name));
+            entity.set("active", new BooleanProperty(active));
+            return entity;
+        } catch (CannotCastValueException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> names(List<Entity> entities) throws CannotCastValueException {
+        List<String> names = new ArrayList<>();
+        for (Entity entity : entities) {
+            names.add(entity.get("name", StringProperty.class).getValue());
+        }
+        return names;
+    }
+}
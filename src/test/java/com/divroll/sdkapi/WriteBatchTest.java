@@ -0,0 +1,119 @@
+package com.divroll.sdkapi;
+
+import com.divroll.core.CannotCastValueException;
+import com.divroll.core.EntityNotExistsException;
+import com.divroll.core.EntityStoreException;
+import com.divroll.core.memory.InMemoryDataService;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WriteBatchTest {
+
+    @Test
+    public void testBatchFlushesWhenFull() throws EntityStoreException, CannotCastValueException, InterruptedException, ExecutionException {
+        // Given: a batch flushing every three writes
+        DataService dataService = new InMemoryDataService();
+        WriteBatch batch = new WriteBatch(dataService, 3, 1, TimeUnit.HOURS, null);
+
+        // When: two entities are queued
+        CompletableFuture<EntityId> first = batch.create(new Entity("Row", "index", new IntProperty(1L)));
+        CompletableFuture<EntityId> second = batch.create(new Entity("Row", "index", new IntProperty(2L)));
+
+        // Then: nothing is written yet
+        assertFalse(first.isDone());
+        assertEquals(0, dataService.countEntities("Row"));
+
+        // When: a third entity is queued
+        CompletableFuture<EntityId> third = batch.create(new Entity("Row", "index", new IntProperty(3L)));
+
+        // Then: all three are written and their futures hold their ids
+        assertEquals(3, dataService.countEntities("Row"));
+        assertEquals(2L, dataService.readEntity(second.get()).get("index", IntProperty.class).getValue().longValue());
+        assertTrue(first.isDone() && third.isDone());
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void testFailuresAreReportedPerOperation() throws EntityStoreException, CannotCastValueException, InterruptedException, ExecutionException {
+        // Given: one stored entity and an id that does not exist
+        DataService dataService = new InMemoryDataService();
+        EntityId existing = dataService.createEntity(new Entity("Row", "index", new IntProperty(1L)));
+        EntityId missing = new EntityId("Row", "42");
+        List<Update> updates = Collections.<Update>singletonList(new Increment("index", new IntProperty(10L)));
+
+        // When: updates to both are queued with the same update list and flushed
+        CompletableFuture<Entity> updated;
+        CompletableFuture<Entity> failed;
+        try (WriteBatch batch = dataService.batch()) {
+            updated = batch.update(existing, updates);
+            failed = batch.update(missing, updates);
+        }
+
+        // Then: only the update of the missing entity fails
+        assertEquals(11L, updated.get().get("index", IntProperty.class).getValue().longValue());
+        try {
+            failed.get();
+            fail("Update of a missing entity should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof EntityNotExistsException);
+        }
+    }
+
+    @Test
+    public void testInvalidIdDoesNotFailOtherDeletes() throws EntityStoreException, CannotCastValueException, InterruptedException, ExecutionException {
+        // Given: one stored entity and an id that is not valid for the data service
+        DataService dataService = new InMemoryDataService();
+        EntityId existing = dataService.createEntity(new Entity("Row", "index", new IntProperty(1L)));
+        EntityId invalid = new EntityId("Row", "not-a-number");
+
+        // When: deletes of both are queued and flushed
+        CompletableFuture<Boolean> deleted;
+        CompletableFuture<Boolean> failed;
+        try (WriteBatch batch = dataService.batch()) {
+            deleted = batch.delete(existing);
+            failed = batch.delete(invalid);
+        }
+
+        // Then: the valid delete is applied and the invalid one reports nothing deleted
+        assertTrue(deleted.get());
+        assertFalse(failed.get());
+        assertEquals(0, dataService.countEntities("Row"));
+    }
+
+    @Test
+    public void testEqualUpdateListsShareOneBulkCall() throws EntityStoreException, CannotCastValueException, InterruptedException, ExecutionException {
+        // Given: two stored entities and a data service counting bulk updates
+        final AtomicInteger bulkUpdates = new AtomicInteger();
+        DataService dataService = new InMemoryDataService() {
+            @Override
+            public List<Entity> updateEntities(List<EntityId> toUpdate, List<Update> updates) throws EntityStoreException {
+                bulkUpdates.incrementAndGet();
+                return super.updateEntities(toUpdate, updates);
+            }
+        };
+        EntityId first = dataService.createEntity(new Entity("Row", "index", new IntProperty(1L)));
+        EntityId second = dataService.createEntity(new Entity("Row", "index", new IntProperty(2L)));
+
+        // When: each is updated with its own but equal update list
+        CompletableFuture<Entity> firstUpdated;
+        CompletableFuture<Entity> secondUpdated;
+        try (WriteBatch batch = dataService.batch()) {
+            firstUpdated = batch.update(first, Arrays.<Update>asList(new Set("state", new StringProperty("done")), new Unset("index")));
+            secondUpdated = batch.update(second, Arrays.<Update>asList(new Set("state", new StringProperty("done")), new Unset("index")));
+        }
+
+        // Then: both are applied with a single bulk call
+        assertEquals(1, bulkUpdates.get());
+        assertEquals("done", firstUpdated.get().get("state", StringProperty.class).getValue());
+        assertEquals("done", secondUpdated.get().get("state", StringProperty.class).getValue());
+    }
+}